@@ -0,0 +1,154 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.model.CategoryAvailability;
+import com.example.yourcaryourway.repository.AvailabilityRepository;
+import com.example.yourcaryourway.service.AvailabilityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche des catégories disponibles dans une agence : index en mémoire contre SQL seul
+ *
+ * Jeu de données généré dans une base H2 embarquée (schema.sql de l'application) :
+ * - 20 agences, 12 catégories ACRISS, 15 véhicules par catégorie (3600 véhicules)
+ * - 100 000 réservations sur un an, de 1 heure à 14 jours, à l'heure ronde
+ *   (90 % confirmées, 5 % en attente, 5 % annulées)
+ *
+ * - memory : AvailabilityService.search, index chargé au démarrage
+ * - sql : AvailabilityRepository.findAvailability, la requête de chevauchement
+ *   sur l'index (pickup_location_id, acriss_code, start_at, end_at)
+ *
+ * Les recherches se succèdent parmi 256 périodes de 1 à 14 jours, dans des agences au hasard.
+ * H2 tourne dans le processus : le chemin SQL ne paie ni réseau ni pool de connexions,
+ * son temps est un minorant de celui de MySQL.
+ *
+ * Lancement : java -jar target/benchmarks.jar AvailabilityBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+
+    private static final int LOCATIONS = 20;
+    private static final int RESERVATIONS = 100_000;
+    private static final int FLEET_PER_CATEGORY = 15;
+    private static final int SEARCHES = 256;
+
+    private static final String[] ACRISS_CODES = {
+            "MBMR", "ECMR", "EDMR", "CDMR", "CDAR", "IDMR", "IDAR", "SDAR", "SFAR", "FDAR", "PDAR", "LDAR"
+    };
+
+    private EmbeddedDatabase database;
+    private AvailabilityRepository repository;
+    private AvailabilityService availabilityService;
+
+    private final String[] locations = new String[SEARCHES];
+    private final LocalDateTime[] froms = new LocalDateTime[SEARCHES];
+    private final LocalDateTime[] tos = new LocalDateTime[SEARCHES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        Random random = new Random(42);
+        LocalDateTime origin = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+
+        List<Object[]> vehicles = new ArrayList<>();
+        for (int location = 0; location < LOCATIONS; location++) {
+            for (String code : ACRISS_CODES) {
+                for (int i = 0; i < FLEET_PER_CATEGORY; i++) {
+                    vehicles.add(new Object[]{UUID.randomUUID().toString(), locationId(location), code});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vehicle (id, location_id, acriss_code, brand, model, seats, doors,"
+                + " transmission, fuel_type) VALUES (?, ?, ?, 'Renault', 'Clio', 5, 4, 'MANUAL', 'PETROL')", vehicles);
+
+        List<Object[]> reservations = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            LocalDateTime start = origin.plusHours(random.nextInt(365 * 24));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(14 * 24));
+            int draw = random.nextInt(100);
+            String status = draw < 90 ? "CONFIRMED" : draw < 95 ? "PENDING" : "CANCELLED";
+            String id = UUID.randomUUID().toString();
+            String location = locationId(random.nextInt(LOCATIONS));
+            reservations.add(new Object[]{id, location, location, "YCYW-" + i, status,
+                    ACRISS_CODES[random.nextInt(ACRISS_CODES.length)], Timestamp.valueOf(start), Timestamp.valueOf(end), id});
+            if (reservations.size() == 1000) {
+                insertReservations(jdbcTemplate, reservations);
+                reservations.clear();
+            }
+        }
+        insertReservations(jdbcTemplate, reservations);
+
+        repository = new AvailabilityRepository(jdbcTemplate);
+        availabilityService = new AvailabilityService(repository, new SimpleMeterRegistry());
+        availabilityService.start();
+
+        for (int i = 0; i < SEARCHES; i++) {
+            locations[i] = locationId(random.nextInt(LOCATIONS));
+            froms[i] = origin.plusHours(random.nextInt(365 * 24));
+            tos[i] = froms[i].plusHours(24 + random.nextInt(13 * 24));
+        }
+    }
+
+    private static String locationId(int location) {
+        return "location-" + location;
+    }
+
+    private static void insertReservations(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id,"
+                + " reservation_number, status, acriss_code, start_at, end_at, total_price, currency,"
+                + " offer_snapshot_json, idempotency_key) VALUES (?, 'user-1', ?, ?, ?, ?, ?, ?, ?, 100.00, 'EUR', '{}', ?)", rows);
+    }
+
+    @Benchmark
+    public List<CategoryAvailability> memory() {
+        int i = next++ & (SEARCHES - 1);
+        return availabilityService.search(locations[i], froms[i], tos[i]);
+    }
+
+    @Benchmark
+    public List<CategoryAvailability> sql() {
+        int i = next++ & (SEARCHES - 1);
+        return repository.findAvailability(locations[i], froms[i], tos[i]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        availabilityService.stop();
+        database.shutdown();
+    }
+}
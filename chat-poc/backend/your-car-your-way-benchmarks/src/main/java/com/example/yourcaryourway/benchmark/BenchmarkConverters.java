@@ -0,0 +1,24 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+
+/**
+ * Convertisseurs configurés comme ceux du broker de l'application
+ */
+final class BenchmarkConverters {
+
+    private BenchmarkConverters() {
+    }
+
+    /**
+     * Convertisseur JSON de Spring Boot : dates Java 8 en ISO-8601
+     */
+    static MappingJackson2MessageConverter jackson() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.getObjectMapper().registerModule(new JavaTimeModule());
+        converter.getObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return converter;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.model.Conversation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatController.sendMessage appelé directement, sans canal ni serveur
+ *
+ * Mesure le traitement d'un message par le serveur : recherche de la conversation,
+ * horodatage, conversion JSON pour le client et l'agent, mise en file de l'historique.
+ * Avec -prof gc, donne l'allocation par message (gc.alloc.rate.norm).
+ *
+ * Lancement : java -jar target/benchmarks.jar ChatControllerBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatControllerBenchmark {
+
+    private ChatFixture fixture;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new ChatFixture();
+    }
+
+    @Benchmark
+    public void sendMessage() {
+        int index = sequence++;
+        Conversation conversation = fixture.conversations.get(index % ChatFixture.CONVERSATIONS);
+        fixture.controller.sendMessage(fixture.message(conversation, index), fixture.client(conversation));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.controller.ChatController;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.StompPrincipal;
+import com.example.yourcaryourway.repository.ChatHistoryRepository;
+import com.example.yourcaryourway.service.ChatHistoryService;
+import com.example.yourcaryourway.service.ChatHistoryWriter;
+import com.example.yourcaryourway.service.ChatMetrics;
+import com.example.yourcaryourway.service.ConversationService;
+import com.example.yourcaryourway.service.MessageEncodingRegistry;
+import com.example.yourcaryourway.service.MessageLogSampler;
+import com.example.yourcaryourway.service.PresenceService;
+import com.example.yourcaryourway.service.SupportDispatcher;
+import com.example.yourcaryourway.service.SystemEventBatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ChatController monté comme dans l'application, sans serveur WebSocket
+ *
+ * - Historique : ChatHistoryWriter et H2 en mémoire (schema.sql de l'application)
+ * - Trames sortantes : converties en JSON puis ignorées par le canal sortant
+ * - 20 agents et 200 conversations ouvertes et assignées
+ */
+final class ChatFixture implements AutoCloseable {
+
+    static final int AGENTS = 20;
+    static final int CONVERSATIONS = 200;
+
+    final ChatProperties properties = new ChatProperties();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final ChatController controller;
+    final List<Conversation> conversations = new ArrayList<>(CONVERSATIONS);
+
+    private final EmbeddedDatabase database;
+    private final ChatHistoryWriter writer;
+
+    ChatFixture() {
+        this(properties -> {
+        });
+    }
+
+    /**
+     * @param configuration Réglages appliqués aux ChatProperties avant la construction des services
+     */
+    ChatFixture(Consumer<ChatProperties> configuration) {
+        properties.getDispatch().setMaxChatsPerAgent(Integer.MAX_VALUE);
+        configuration.accept(properties);
+
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        ChatHistoryRepository repository = new ChatHistoryRepository(new JdbcTemplate(database));
+        writer = new ChatHistoryWriter(repository, properties, meterRegistry);
+        writer.start();
+        ChatHistoryService historyService = new ChatHistoryService(writer, repository, properties, meterRegistry);
+
+        // Les trames sortantes ne sont pas mesurées : le canal sortant les ignore
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        messagingTemplate.setMessageConverter(BenchmarkConverters.jackson());
+        SupportDispatcher dispatcher = new SupportDispatcher(properties, meterRegistry);
+        ConversationService conversationService = new ConversationService(
+                messagingTemplate,
+                dispatcher,
+                historyService,
+                new MessageEncodingRegistry(),
+                BenchmarkConverters.jackson(),
+                // Fenêtre jamais écoulée (planificateur non démarré) : les JOIN partent avant le premier message
+                new SystemEventBatcher(properties, new ThreadPoolTaskScheduler(), meterRegistry));
+        controller = new ChatController(conversationService, historyService,
+                new ChatMetrics(meterRegistry), new MessageLogSampler(properties),
+                // Publication périodique non démarrée : seul l'index de présence est mesuré
+                new PresenceService(messagingTemplate, dispatcher, new ThreadPoolTaskScheduler(), properties));
+
+        for (int i = 0; i < AGENTS; i++) {
+            conversationService.registerAgent("agent-" + i, "Agent " + i);
+        }
+        for (int i = 0; i < CONVERSATIONS; i++) {
+            Conversation conversation = conversationService.openConversation("client-" + i, "Client " + i);
+            conversationService.requestAgent(conversation);
+            conversations.add(conversation);
+        }
+    }
+
+    /**
+     * Message CHAT d'un client, tel que reçu par le contrôleur
+     */
+    ChatMessage message(Conversation conversation, int index) {
+        return new ChatMessage(ChatMessage.MessageType.CHAT,
+                conversation.getClientName(), ChatMessage.SenderRole.CLIENT, "Message " + index);
+    }
+
+    /**
+     * Principal de la session du client d'une conversation
+     */
+    Principal client(Conversation conversation) {
+        return new StompPrincipal(conversation.getClientUser());
+    }
+
+    @Override
+    public void close() {
+        writer.stop();
+        database.shutdown();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de construction d'un ChatMessage et de ses deux valeurs générées
+ *
+ * Le constructeur tire un UUID aléatoire (SecureRandom) et lit l'horloge (LocalDateTime.now) :
+ * les deux sont mesurés séparément pour savoir lequel domine.
+ *
+ * Lancement : java -jar target/benchmarks.jar ChatMessageConstructionBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatMessageConstructionBenchmark {
+
+    private final String sender = "Jean Dupont";
+    private final String content = "Bonjour, ma réservation commence demain à 9h";
+
+    @Benchmark
+    public ChatMessage chatMessage() {
+        return new ChatMessage(ChatMessage.MessageType.CHAT, sender, ChatMessage.SenderRole.CLIENT, content);
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public LocalDateTime now() {
+        return LocalDateTime.now();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.converter.ChatMessageBinaryConverter;
+import com.example.yourcaryourway.model.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodage d'un ChatMessage : Jackson (JSON) contre ChatMessageBinaryConverter
+ *
+ * Mesure le coût de conversion d'un message horodaté par le serveur, dans les deux sens,
+ * avec les convertisseurs tels que le broker les utilise (toMessage / fromMessage).
+ * La taille encodée (octets par message) est affichée au démarrage de chaque essai.
+ *
+ * Lancement : java -jar target/benchmarks.jar ChatMessageEncodingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatMessageEncodingBenchmark {
+
+    @Param({"json", "binary"})
+    private String encoding;
+
+    @Param({"40", "400"})
+    private int contentLength;
+
+    private AbstractMessageConverter converter;
+    private MimeType contentType;
+    private ChatMessage message;
+    private Message<?> encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("binary".equals(encoding)) {
+            converter = new ChatMessageBinaryConverter();
+            contentType = ChatMessageBinaryConverter.MIME_TYPE;
+        } else {
+            converter = BenchmarkConverters.jackson();
+            contentType = MimeTypeUtils.APPLICATION_JSON;
+        }
+
+        // Message tel que délivré par ConversationService.deliver
+        message = new ChatMessage(ChatMessage.MessageType.CHAT, "Jean Dupont", ChatMessage.SenderRole.CLIENT,
+                "é".repeat(contentLength / 10) + "x".repeat(contentLength - contentLength / 10));
+        message.setConversationId(UUID.randomUUID().toString());
+        message.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+
+        encoded = converter.toMessage(message, headers());
+        System.out.printf("%n%s, contenu de %d caractères : %d octets/message%n",
+                encoding, contentLength, ((byte[]) encoded.getPayload()).length);
+    }
+
+    private MessageHeaders headers() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    @Benchmark
+    public Message<?> encode() {
+        return converter.toMessage(message, headers());
+    }
+
+    @Benchmark
+    public Object decode() {
+        return converter.fromMessage(encoded, ChatMessage.class);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compression permessage-deflate d'une trame MESSAGE : octets gagnés contre temps CPU par trame
+ *
+ * Trames STOMP telles que les envoie l'application (voir @Param frame) :
+ * - chat : un message CHAT d'une phrase, le cas le plus courant
+ * - terms : des conditions de location collées par un agent (~3 Ko)
+ * - replay : une trame de 50 messages (rejeu de l'historique, JOIN/LEAVE regroupés)
+ *
+ * Compression comme PerMessageDeflate de Tomcat (deflate brut, SYNC_FLUSH à chaque message) :
+ * - reused : un Deflater par session, réutilisé d'une trame à l'autre (contexte conservé)
+ * - perFrame : un Deflater créé puis libéré pour chaque trame (server_no_context_takeover sans réutilisation)
+ *
+ * Les trames se succèdent parmi 64 trames différentes (identifiants, horodatages, contenus) :
+ * avec le contexte conservé, chaque trame ne gagne que sur ce que les précédentes ont en commun.
+ * La taille moyenne compressée de chaque combinaison est affichée au démarrage de chaque essai.
+ *
+ * Lancement : java -jar target/benchmarks.jar CompressionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    private static final int FRAMES = 64;
+
+    private static final String[] SENTENCES = {
+            "Bonjour, ma réservation commence demain à 9h à l'agence de Lyon Part-Dieu.",
+            "Le véhicule doit être restitué avec le plein, sinon le carburant manquant est facturé.",
+            "Le dépôt de garantie est bloqué sur la carte bancaire du conducteur principal.",
+            "Tout conducteur additionnel doit être déclaré et présenter son permis au comptoir.",
+            "Les franchises sont réduites avec l'option de couverture complète.",
+            "Une restitution en dehors des horaires d'ouverture se fait par la boîte à clés.",
+            "Le kilométrage est illimité pour les locations de plus de trois jours.",
+            "Pouvez-vous me confirmer le modèle du véhicule et le numéro de réservation ?"
+    };
+
+    @Param({"chat", "terms", "replay"})
+    private String frame;
+
+    @Param({"reused", "perFrame"})
+    private String deflater;
+
+    private final byte[][] frames = new byte[FRAMES][];
+    private final byte[] output = new byte[64 * 1024];
+    private Deflater sessionDeflater;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper mapper = BenchmarkConverters.jackson().getObjectMapper();
+        StompEncoder encoder = new StompEncoder();
+        for (int i = 0; i < FRAMES; i++) {
+            Object payload = switch (frame) {
+                case "chat" -> message(i, SENTENCES[i % SENTENCES.length]);
+                case "terms" -> message(i, terms(i, 40));
+                default -> batch(i, 50);
+            };
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setDestination("/user/queue/messages");
+            accessor.setSubscriptionId("sub-0");
+            accessor.setMessageId(UUID.randomUUID().toString());
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            frames[i] = encoder.encode(accessor.getMessageHeaders(), mapper.writeValueAsBytes(payload));
+        }
+
+        sessionDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        long original = 0;
+        long compressed = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            original += frames[i].length;
+            compressed += compress();
+        }
+        System.out.printf("%n%s, Deflater %s : %d octets/trame, %d compressés (%d %%)%n", frame, deflater,
+                original / FRAMES, compressed / FRAMES, 100 * compressed / original);
+    }
+
+    private static ChatMessage message(int index, String content) {
+        ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, "Agent " + index % 7,
+                ChatMessage.SenderRole.SUPPORT, content);
+        message.setConversationId(UUID.randomUUID().toString());
+        message.setTimestamp(LocalDateTime.now().minusSeconds(index).truncatedTo(ChronoUnit.MICROS));
+        return message;
+    }
+
+    private static String terms(int index, int sentences) {
+        StringBuilder terms = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            terms.append(SENTENCES[(index + i * 3) % SENTENCES.length]).append(' ');
+        }
+        return terms.toString();
+    }
+
+    private static List<ChatMessage> batch(int index, int size) {
+        List<ChatMessage> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(message(index * size + i, SENTENCES[(index + i) % SENTENCES.length]));
+        }
+        return batch;
+    }
+
+    /**
+     * Compresse la trame suivante et rend sa taille compressée (sans les 4 octets de fin de message)
+     */
+    private int compress() {
+        byte[] input = frames[next];
+        next = (next + 1) % FRAMES;
+        Deflater deflate = "reused".equals(deflater) ? sessionDeflater : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflate.setInput(input);
+        int written = deflate.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+        if (deflate != sessionDeflater) {
+            deflate.end();
+        }
+        return written - 4;
+    }
+
+    @Benchmark
+    public int deflate() {
+        return compress();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionDeflater.end();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.service.ConversationService;
+import com.example.yourcaryourway.service.MessageEncodingRegistry;
+import com.example.yourcaryourway.service.SupportDispatcher;
+import com.example.yourcaryourway.service.SystemEventBatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envoi d'un même ChatMessage à plusieurs sessions : une conversion par session
+ * contre une conversion partagée (ConversationService.sendToUsers)
+ *
+ * - perRecipient : convertAndSendToUser pour chaque session, le message est sérialisé à chaque fois
+ * - serializeOnce : sendToUsers, le message est sérialisé une fois et ses octets partagés
+ *
+ * La suite du chemin (broker, encodage des trames STOMP par session) est identique
+ * dans les deux cas : le canal ne fait que transmettre les messages au Blackhole.
+ * L'allocation par opération se lit avec le profileur GC :
+ * java -jar target/benchmarks.jar FanOutBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+    @Param({"2", "1000"})
+    private int recipients;
+
+    private SimpMessagingTemplate messagingTemplate;
+    private ConversationService conversationService;
+    private String[] users;
+    private ChatMessage message;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        messagingTemplate = new SimpMessagingTemplate((sent, timeout) -> {
+            blackhole.consume(sent);
+            return true;
+        });
+        messagingTemplate.setMessageConverter(BenchmarkConverters.jackson());
+
+        // sendToUsers ne touche ni aux conversations ni à l'historique
+        // Le message est un LEAVE : envoyé immédiatement, sans regroupement
+        ChatProperties properties = new ChatProperties();
+        properties.getSystemEvents().setBatchWindow(Duration.ZERO);
+        conversationService = new ConversationService(
+                messagingTemplate,
+                new SupportDispatcher(properties, new SimpleMeterRegistry()),
+                null,
+                new MessageEncodingRegistry(),
+                BenchmarkConverters.jackson(),
+                new SystemEventBatcher(properties, new ThreadPoolTaskScheduler(), new SimpleMeterRegistry()));
+
+        users = new String[recipients];
+        for (int i = 0; i < recipients; i++) {
+            users[i] = UUID.randomUUID().toString();
+        }
+
+        message = new ChatMessage(ChatMessage.MessageType.LEAVE, "Sophie", ChatMessage.SenderRole.SUPPORT,
+                "Sophie a quitté le chat");
+        message.setConversationId(UUID.randomUUID().toString());
+        message.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    @Benchmark
+    public void perRecipient() {
+        for (String user : users) {
+            messagingTemplate.convertAndSendToUser(user, ConversationService.MESSAGES_DESTINATION, message);
+        }
+    }
+
+    @Benchmark
+    public void serializeOnce() {
+        conversationService.sendToUsers(message, users);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.yourcaryourway.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.example.yourcaryourway.controller.ChatController;
+import com.example.yourcaryourway.model.Conversation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatController.sendMessage avec et sans log par message
+ *
+ * Les logs de ChatController sont écrits dans un fichier temporaire
+ * (avec le pattern console de l'application) :
+ * - off : logs de ChatController désactivés
+ * - syncEveryMessage : une ligne par message, écrite par le thread qui traite le message
+ *   (configuration d'origine, appender console synchrone)
+ * - asyncEveryMessage : une ligne par message, déposée dans la file d'un AsyncAppender
+ * - asyncSampled : configuration de l'application, un message sur 100 au plus 20 lignes/s
+ *   (chat.logging.*), derrière un AsyncAppender
+ *
+ * Lancement : java -jar target/benchmarks.jar MessageLoggingBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageLoggingBenchmark {
+
+    private static final String PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @Param({"off", "syncEveryMessage", "asyncEveryMessage", "asyncSampled"})
+    public String logging;
+
+    private ChatFixture fixture;
+    private int sequence;
+    private Path logFile;
+    private Logger controllerLogger;
+    private Appender<ILoggingEvent> appender;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean everyMessage = logging.endsWith("EveryMessage");
+        fixture = new ChatFixture(properties -> {
+            if (everyMessage) {
+                properties.getLogging().setMessageSampleRate(1);
+                properties.getLogging().setMaxMessageLinesPerSecond(Integer.MAX_VALUE);
+            }
+        });
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        controllerLogger = context.getLogger(ChatController.class);
+        controllerLogger.setAdditive(false);
+        if (logging.equals("off")) {
+            controllerLogger.setLevel(ch.qos.logback.classic.Level.WARN);
+            return;
+        }
+        controllerLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+
+        logFile = Files.createTempFile("chat-controller", ".log");
+        appender = fileAppender(context, logFile);
+        if (logging.startsWith("async")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(appender);
+            async.start();
+            appender = async;
+        }
+        controllerLogger.addAppender(appender);
+    }
+
+    private static FileAppender<ILoggingEvent> fileAppender(LoggerContext context, Path file) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    @Benchmark
+    public void sendMessage() {
+        int index = sequence++;
+        Conversation conversation = fixture.conversations.get(index % ChatFixture.CONVERSATIONS);
+        fixture.controller.sendMessage(fixture.message(conversation, index), fixture.client(conversation));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (appender != null) {
+            controllerLogger.detachAppender(appender);
+            appender.stop();
+        }
+        controllerLogger.setLevel(null);
+        controllerLogger.setAdditive(true);
+        if (logFile != null) {
+            Files.deleteIfExists(logFile);
+        }
+        fixture.close();
+    }
+}
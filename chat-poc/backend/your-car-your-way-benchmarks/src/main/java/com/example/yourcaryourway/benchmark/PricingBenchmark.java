@@ -0,0 +1,154 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.model.Quote;
+import com.example.yourcaryourway.model.RatePlan;
+import com.example.yourcaryourway.repository.RatePlanRepository;
+import com.example.yourcaryourway.service.PricingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prix d'une location : instantané des tarifs en mémoire contre une requête par devis
+ *
+ * Jeu de données généré dans une base H2 embarquée (schema.sql de l'application) :
+ * 24 catégories ACRISS × 3 devises × 26 tarifs de deux semaines (1872 tarifs sur un an)
+ *
+ * - quote : PricingService.quote, une catégorie
+ * - quotePage : PricingService.quotes, les 24 catégories d'une page de résultats
+ * - sqlQuote : le tarif d'une catégorie lu par une requête sur l'index
+ *   (acriss_code, valid_from, valid_until), puis le même calcul
+ *
+ * Les devis se succèdent parmi 256 locations de 1 à 21 jours sur l'année.
+ *
+ * Lancement : java -jar target/benchmarks.jar PricingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+
+    private static final int QUOTES = 256;
+    private static final int PERIODS = 26;
+
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP"};
+
+    private static final List<String> ACRISS_CODES = List.of(
+            "MBMR", "ECMR", "EDMR", "CDMR", "CDAR", "IDMR", "IDAR", "SDAR", "SFAR", "FDAR", "PDAR", "LDAR",
+            "MCMR", "EBMR", "CCMR", "CFAR", "ICAR", "IFAR", "SCAR", "FCAR", "FFAR", "PFAR", "LFAR", "XDAR");
+
+    private static final String SQL_FIND = "SELECT id, daily_rate, weekly_rate FROM rate_plan"
+            + " WHERE acriss_code = ? AND currency = ? AND valid_from <= ? AND valid_until >= ?"
+            + " ORDER BY valid_from DESC LIMIT 1";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PricingService pricingService;
+
+    private final String[] codes = new String[QUOTES];
+    private final String[] currencies = new String[QUOTES];
+    private final LocalDateTime[] starts = new LocalDateTime[QUOTES];
+    private final LocalDateTime[] ends = new LocalDateTime[QUOTES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        RatePlanRepository repository = new RatePlanRepository(jdbcTemplate);
+        Random random = new Random(42);
+        LocalDate origin = LocalDate.of(2026, 1, 1);
+
+        for (String code : ACRISS_CODES) {
+            for (String currency : CURRENCIES) {
+                for (int period = 0; period < PERIODS; period++) {
+                    BigDecimal daily = BigDecimal.valueOf(2000 + random.nextInt(8000), 2);
+                    repository.insert(new RatePlan(UUID.randomUUID().toString(), code, daily,
+                            daily.multiply(BigDecimal.valueOf(5)), currency,
+                            origin.plusWeeks(2L * period), origin.plusWeeks(2L * period + 2).minusDays(1)));
+                }
+            }
+        }
+
+        pricingService = new PricingService(repository, new SimpleMeterRegistry());
+        pricingService.start();
+
+        for (int i = 0; i < QUOTES; i++) {
+            codes[i] = ACRISS_CODES.get(random.nextInt(ACRISS_CODES.size()));
+            currencies[i] = CURRENCIES[random.nextInt(CURRENCIES.length)];
+            starts[i] = origin.atTime(10, 0).plusHours(random.nextInt(350 * 24));
+            ends[i] = starts[i].plusHours(24 + random.nextInt(20 * 24));
+        }
+    }
+
+    @Benchmark
+    public Quote quote() {
+        int i = next++ & (QUOTES - 1);
+        return pricingService.quote(codes[i], currencies[i], starts[i], ends[i]).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Quote> quotePage() {
+        int i = next++ & (QUOTES - 1);
+        return pricingService.quotes(ACRISS_CODES, currencies[i], starts[i], ends[i]);
+    }
+
+    @Benchmark
+    public Quote sqlQuote() {
+        int i = next++ & (QUOTES - 1);
+        Date day = Date.valueOf(starts[i].toLocalDate());
+        return jdbcTemplate.queryForObject(SQL_FIND, (rs, rowNum) -> price(codes[i], currencies[i],
+                rs.getString("id"), rs.getBigDecimal("daily_rate"), rs.getBigDecimal("weekly_rate"), starts[i], ends[i]),
+                codes[i], currencies[i], day, day);
+    }
+
+    // Même règle que PricingService
+    private static Quote price(String code, String currency, String ratePlanId, BigDecimal daily, BigDecimal weekly,
+                               LocalDateTime start, LocalDateTime end) {
+        int days = (int) Math.max(1, (Duration.between(start, end).toMinutes() + 1439) / 1440);
+        int weeks = days / 7;
+        int extraDays = days % 7;
+        BigDecimal total = weekly.multiply(BigDecimal.valueOf(weeks))
+                .add(extraDays > 0 ? daily.multiply(BigDecimal.valueOf(extraDays)).min(weekly) : BigDecimal.ZERO)
+                .setScale(2, RoundingMode.HALF_UP);
+        return new Quote(code, ratePlanId, 0, days, weeks, extraDays, daily, weekly, total, currency);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pricingService.stop();
+        database.shutdown();
+    }
+}
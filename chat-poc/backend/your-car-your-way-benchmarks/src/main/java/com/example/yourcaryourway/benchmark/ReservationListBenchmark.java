@@ -0,0 +1,229 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.config.ReservationProperties;
+import com.example.yourcaryourway.converter.OfferSnapshotProjector;
+import com.example.yourcaryourway.model.OfferSummary;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationDetail;
+import com.example.yourcaryourway.model.ReservationSummary;
+import com.example.yourcaryourway.repository.ReservationRepository;
+import com.example.yourcaryourway.service.ReservationQueryService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Liste « mes réservations » : analyse complète des offres contre la projection enregistrée
+ *
+ * Jeu de données généré dans une base H2 embarquée (schema.sql de l'application) :
+ * deux clients de 200 réservations, chacune avec une offre JSON d'environ 2 Ko
+ * (véhicule, conditions de location, détail des prix, options).
+ * Le premier a les colonnes offer_* renseignées, le second non (réservations antérieures).
+ *
+ * - pageFullParse : page de 20 réservations lues avec leur JSON, chaque offre analysée en arbre
+ * - pageProjected : ReservationQueryService.listForUser, projection lue dans les colonnes offer_*
+ * - pageLegacy : ReservationQueryService.listForUser sur les réservations sans projection (analyse jeton par jeton)
+ * - detail : ReservationQueryService.detail, offre servie par le cache
+ * - snapshotTree / snapshotStreaming : une offre seule, ObjectMapper.readTree contre OfferSnapshotProjector
+ *
+ * Lancement : java -jar target/benchmarks.jar ReservationListBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationListBenchmark {
+
+    private static final int RESERVATIONS = 200;
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = RESERVATIONS / PAGE_SIZE;
+
+    private static final String PROJECTED_USER = "user-projected";
+    private static final String LEGACY_USER = "user-legacy";
+
+    private static final String SQL_PAGE =
+            "SELECT id, reservation_number, status, acriss_code, pickup_location_id, start_at, end_at, total_price,"
+                    + " currency, offer_snapshot_json FROM reservation WHERE user_id = ?"
+                    + " ORDER BY start_at DESC, id LIMIT ? OFFSET ?";
+
+    private static final String[][] VEHICLES = {
+            {"Renault", "Clio", "ECMR"}, {"Peugeot", "308", "CDMR"}, {"Toyota", "Corolla", "CDAR"},
+            {"Volkswagen", "Golf", "CDMR"}, {"BMW", "Série 3", "SDAR"}, {"Tesla", "Model 3", "SDAE"}};
+
+    private static final String[] OPTIONS = {"GPS", "CHILD_SEAT", "ADDITIONAL_DRIVER", "SNOW_CHAINS", "WIFI"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ReservationQueryService queryService;
+
+    private String snapshot;
+    private final List<String> detailIds = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        ReservationRepository repository = new ReservationRepository(jdbcTemplate);
+        Random random = new Random(42);
+        LocalDateTime origin = LocalDateTime.of(2026, 1, 1, 10, 0);
+
+        for (String userId : List.of(PROJECTED_USER, LEGACY_USER)) {
+            for (int i = 0; i < RESERVATIONS; i++) {
+                String[] vehicle = VEHICLES[random.nextInt(VEHICLES.length)];
+                int days = 1 + random.nextInt(21);
+                int options = random.nextInt(OPTIONS.length + 1);
+                String json = offer(vehicle, days, options);
+
+                Reservation reservation = new Reservation();
+                reservation.setId(userId + '-' + i);
+                reservation.setUserId(userId);
+                reservation.setPickupLocationId("cdg");
+                reservation.setReturnLocationId("cdg");
+                reservation.setReservationNumber("YCYW-" + userId.charAt(5) + i);
+                reservation.setStatus(Reservation.Status.CONFIRMED);
+                reservation.setAcrissCode(vehicle[2]);
+                reservation.setStartAt(origin.plusDays(random.nextInt(365)));
+                reservation.setEndAt(reservation.getStartAt().plusDays(days));
+                reservation.setTotalPrice(BigDecimal.valueOf(3990L * days, 2));
+                reservation.setCurrency("EUR");
+                reservation.setOfferSnapshotJson(json);
+                reservation.setOfferSummary(PROJECTED_USER.equals(userId)
+                        ? OfferSnapshotProjector.project(json) : OfferSummary.EMPTY);
+                reservation.setIdempotencyKey("key-" + reservation.getId());
+                repository.insert(reservation);
+                if (PROJECTED_USER.equals(userId)) {
+                    detailIds.add(reservation.getId());
+                }
+                snapshot = json;
+            }
+        }
+
+        queryService = new ReservationQueryService(repository, objectMapper, new ReservationProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Offre d'environ 2 Ko, au format du catalogue
+     */
+    private String offer(String[] vehicle, int days, int optionCount) {
+        ObjectNode offer = objectMapper.createObjectNode();
+        ObjectNode car = offer.putObject("vehicle");
+        car.put("brand", vehicle[0]).put("model", vehicle[1]).put("acrissCode", vehicle[2])
+                .put("transmission", "MANUAL").put("fuel", "PETROL").put("seats", 5).put("doors", 5)
+                .put("luggage", "2 grandes valises, 1 petite").put("imageUrl",
+                        "https://cdn.yourcaryourway.example/vehicles/" + vehicle[1].toLowerCase() + ".webp");
+        offer.put("dailyRate", 39.90).put("days", days).put("basePrice", 39.90 * days);
+        ObjectNode terms = offer.putObject("terms");
+        terms.putObject("deposit").put("amount", 800).put("currency", "EUR").put("method", "CREDIT_CARD");
+        terms.putObject("mileage").put("unlimited", false).put("includedKm", 300 * days).put("extraKmPrice", 0.25);
+        terms.put("fuelPolicy", "FULL_TO_FULL").put("minimumDriverAge", 21).put("youngDriverSurcharge", 15.0);
+        terms.put("cancellation", "Annulation gratuite jusqu'à 48 heures avant la prise en charge. "
+                + "Au-delà, une journée de location est retenue. Non-présentation : montant total retenu.");
+        terms.put("insurance", "Protection collision (CDW) et vol (TP) incluses, franchise de 1200 EUR "
+                + "réductible à 0 EUR avec l'option Protection totale.");
+        ArrayNode breakdown = offer.putArray("priceBreakdown");
+        for (int day = 0; day < Math.min(days, 14); day++) {
+            breakdown.addObject().put("date", "2026-01-" + (10 + day)).put("rate", 39.90).put("taxes", 7.98);
+        }
+        ArrayNode options = offer.putArray("options");
+        for (int i = 0; i < optionCount; i++) {
+            options.addObject().put("code", OPTIONS[i]).put("price", 5.0 * (i + 1)).put("perDay", true)
+                    .put("description", "Option " + OPTIONS[i] + " ajoutée à la réservation");
+        }
+        offer.put("totalPrice", 39.90 * days);
+        return offer.toString();
+    }
+
+    @Benchmark
+    public List<ReservationSummary> pageFullParse() {
+        int page = next++ % PAGES;
+        return jdbcTemplate.query(SQL_PAGE, (rs, rowNum) -> {
+            ReservationSummary summary = new ReservationSummary();
+            summary.setId(rs.getString("id"));
+            summary.setReservationNumber(rs.getString("reservation_number"));
+            summary.setStatus(Reservation.Status.valueOf(rs.getString("status")));
+            summary.setAcrissCode(rs.getString("acriss_code"));
+            summary.setPickupLocationId(rs.getString("pickup_location_id"));
+            summary.setStartAt(rs.getTimestamp("start_at").toLocalDateTime());
+            summary.setEndAt(rs.getTimestamp("end_at").toLocalDateTime());
+            summary.setTotalPrice(rs.getBigDecimal("total_price"));
+            summary.setCurrency(rs.getString("currency"));
+            JsonNode offer;
+            try {
+                offer = objectMapper.readTree(rs.getString("offer_snapshot_json"));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            summary.setVehicleName(offer.path("vehicle").path("brand").asText() + ' '
+                    + offer.path("vehicle").path("model").asText());
+            summary.setDays(offer.path("days").asInt());
+            summary.setOptionCount(offer.path("options").size());
+            return summary;
+        }, PROJECTED_USER, PAGE_SIZE, page * PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ReservationSummary> pageProjected() {
+        return queryService.listForUser(PROJECTED_USER, next++ % PAGES, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ReservationSummary> pageLegacy() {
+        return queryService.listForUser(LEGACY_USER, next++ % PAGES, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ReservationDetail detail() {
+        return queryService.detail(detailIds.get(next++ % RESERVATIONS)).orElseThrow();
+    }
+
+    @Benchmark
+    public JsonNode snapshotTree() throws IOException {
+        return objectMapper.readTree(snapshot);
+    }
+
+    @Benchmark
+    public OfferSummary snapshotStreaming() {
+        return OfferSnapshotProjector.project(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.config.ChannelExecutors;
+import com.example.yourcaryourway.controller.ChatController;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin sendMessage sur le canal entrant : threads de plateforme contre threads virtuels
+ *
+ * Chaque opération envoie une rafale de messages sur un canal entrant monté comme dans
+ * WebSocketConfig (exécuteur créé par ChannelExecutors) et attend leur traitement
+ * par ChatController.sendMessage : routage vers les participants et historique (H2 en mémoire).
+ *
+ * blockingMillis simule un appel bloquant dans le traitement (base distante, service tiers) :
+ * - 0 ms : le pool de plateforme suffit, les threads virtuels n'apportent rien
+ * - quelques ms : le pool est saturé par l'attente, les threads virtuels la recouvrent
+ *
+ * Lancement : java -jar target/benchmarks.jar SendMessagePathBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendMessagePathBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"0", "5"})
+    private int blockingMillis;
+
+    @Param({"1000"})
+    private int burst;
+
+    private ChatFixture fixture;
+    private Executor executor;
+    private ExecutorSubscribableChannel inboundChannel;
+    private volatile CountDownLatch pending;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new ChatFixture();
+        ChatController controller = fixture.controller;
+
+        executor = ChannelExecutors.create("inbound", fixture.properties.getChannels().getInbound(),
+                "virtual".equals(threads), fixture.meterRegistry);
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.initialize();
+        }
+        inboundChannel = new ExecutorSubscribableChannel(executor);
+        inboundChannel.subscribe(message -> {
+            simulateBlockingCall();
+            controller.sendMessage((ChatMessage) message.getPayload(),
+                    SimpMessageHeaderAccessor.getUser(message.getHeaders()));
+            pending.countDown();
+        });
+    }
+
+    @Benchmark
+    public void sendMessageBurst() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(burst);
+        pending = latch;
+        for (int i = 0; i < burst; i++) {
+            inboundChannel.send(message(fixture.conversations.get(i % ChatFixture.CONVERSATIONS), i));
+        }
+        latch.await();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (executor instanceof AutoCloseable closeable) {
+            closeable.close();
+        } else if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+        fixture.close();
+    }
+
+    private Message<ChatMessage> message(Conversation conversation, int index) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setUser(fixture.client(conversation));
+        return MessageBuilder.createMessage(fixture.message(conversation, index), accessor.getMessageHeaders());
+    }
+
+    private void simulateBlockingCall() {
+        if (blockingMillis > 0) {
+            try {
+                Thread.sleep(blockingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.YourCarYourWayApplication;
+import com.example.yourcaryourway.converter.ChatMessageBinaryConverter;
+import com.example.yourcaryourway.interceptor.EncodingNegotiationInterceptor;
+import com.example.yourcaryourway.model.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence d'un aller-retour STOMP contre l'application démarrée dans le même processus
+ *
+ * Un client se connecte en WebSocket natif (/ws-native), ouvre sa conversation,
+ * puis chaque opération envoie un message et attend de le recevoir sur /user/queue/messages.
+ * Le chemin complet est mesuré : trame entrante, canal entrant, ChatController,
+ * broker, canal sortant, trame sortante. Mode SampleTime : percentiles de latence.
+ *
+ * Lancement : java -jar target/benchmarks.jar StompRoundTripBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StompRoundTripBenchmark {
+
+    private static final String SENDER = "Client Benchmark";
+
+    @Param({"json", "binary"})
+    private String encoding;
+
+    private ConfigurableApplicationContext context;
+    private WebSocketStompClient stompClient;
+    private StompSession session;
+    private final BlockingQueue<ChatMessage> received = new LinkedBlockingQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(YourCarYourWayApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                // En argument : application.properties l'emporte sur les propriétés par défaut
+                .run("--chat.rate-limit.enabled=false");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new CompositeMessageConverter(
+                List.of(new ChatMessageBinaryConverter(), BenchmarkConverters.jackson())));
+
+        StompHeaders connectHeaders = new StompHeaders();
+        if ("binary".equals(encoding)) {
+            connectHeaders.set(EncodingNegotiationInterceptor.ENCODING_HEADER, EncodingNegotiationInterceptor.BINARY_ENCODING);
+        }
+        session = stompClient.connectAsync("ws://localhost:" + port + "/ws-native",
+                new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+
+        session.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((ChatMessage) payload);
+            }
+        });
+
+        // Ouvre la conversation : le JOIN revient au client
+        session.send("/app/chat.addUser", new ChatMessage(ChatMessage.MessageType.JOIN, SENDER,
+                ChatMessage.SenderRole.CLIENT, SENDER + " a rejoint le chat"));
+        if (received.poll(10, TimeUnit.SECONDS) == null) {
+            throw new IllegalStateException("Conversation non ouverte");
+        }
+    }
+
+    @Benchmark
+    public ChatMessage roundTrip() throws InterruptedException {
+        session.send("/app/chat.sendMessage", new ChatMessage(ChatMessage.MessageType.CHAT, SENDER,
+                ChatMessage.SenderRole.CLIENT, "Bonjour, ma réservation commence demain à 9h"));
+        return received.take();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.disconnect();
+        stompClient.stop();
+        context.close();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.yourcaryourway.benchmark;
+
+import com.example.yourcaryourway.YourCarYourWayApplication;
+import com.example.yourcaryourway.model.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket natif (/ws-native) contre SockJS (/ws) sur l'application démarrée dans le même processus
+ *
+ * - connect : établissement d'une connexion STOMP (poignée de main, CONNECT, CONNECTED) puis fermeture
+ * - roundTrip : aller-retour d'un message sur une connexion ouverte, comme StompRoundTripBenchmark
+ *
+ * Le client SockJS utilise son transport WebSocket : le surcoût mesuré est celui des trames
+ * SockJS (chaque trame STOMP encodée dans un tableau JSON) et de la session SockJS côté serveur.
+ * SockJsClient garde la réponse de /info en cache : un navigateur la redemande à chaque connexion,
+ * un aller-retour HTTP de plus que ce que mesure connect.
+ *
+ * Lancement : java -jar target/benchmarks.jar TransportBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+    private static final String SENDER = "Client Benchmark";
+
+    @Param({"websocket", "sockjs"})
+    private String transport;
+
+    private ConfigurableApplicationContext context;
+    private WebSocketStompClient stompClient;
+    private String url;
+    private StompSession session;
+    private final BlockingQueue<ChatMessage> received = new LinkedBlockingQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(YourCarYourWayApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off")
+                // En argument : application.properties l'emporte sur les propriétés par défaut
+                .run("--chat.rate-limit.enabled=false");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        if ("sockjs".equals(transport)) {
+            webSocketClient = new SockJsClient(List.of(new WebSocketTransport(webSocketClient)));
+            url = "http://localhost:" + port + "/ws";
+        } else {
+            url = "ws://localhost:" + port + "/ws-native";
+        }
+        stompClient = new WebSocketStompClient(webSocketClient);
+        stompClient.setMessageConverter(BenchmarkConverters.jackson());
+
+        session = connectSession();
+        session.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((ChatMessage) payload);
+            }
+        });
+
+        // Ouvre la conversation : le JOIN revient au client
+        session.send("/app/chat.addUser", new ChatMessage(ChatMessage.MessageType.JOIN, SENDER,
+                ChatMessage.SenderRole.CLIENT, SENDER + " a rejoint le chat"));
+        if (received.poll(10, TimeUnit.SECONDS) == null) {
+            throw new IllegalStateException("Conversation non ouverte");
+        }
+    }
+
+    private StompSession connectSession() throws Exception {
+        return stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public StompSession connect() throws Exception {
+        StompSession connected = connectSession();
+        connected.disconnect();
+        return connected;
+    }
+
+    @Benchmark
+    public ChatMessage roundTrip() throws InterruptedException {
+        session.send("/app/chat.sendMessage", new ChatMessage(ChatMessage.MessageType.CHAT, SENDER,
+                ChatMessage.SenderRole.CLIENT, "Bonjour, ma réservation commence demain à 9h"));
+        return received.take();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.disconnect();
+        stompClient.stop();
+        context.close();
+    }
+}
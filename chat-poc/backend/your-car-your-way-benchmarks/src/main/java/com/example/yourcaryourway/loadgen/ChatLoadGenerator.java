@@ -0,0 +1,246 @@
+package com.example.yourcaryourway.loadgen;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Générateur de charge STOMP sans interface, pour trouver le point de saturation d'un nœud
+ *
+ * Déroulement :
+ * 1. Les agents SUPPORT se connectent (--agents)
+ * 2. Les clients arrivent par paliers (--start-clients, --step-clients, --max-clients) :
+ *    chacun envoie son JOIN puis des messages CHAT à débit fixe (--rate)
+ * 3. Chaque palier est mesuré pendant --step-duration : débit envoyé et reçu,
+ *    latence envoi -> réception (histogramme HDR, en microsecondes)
+ * 4. Le premier palier dont le p99 dépasse --p99-limit, ou qui perd des messages,
+ *    est le point de saturation : la montée s'arrête là
+ * 5. Tous les utilisateurs se déconnectent (LEAVE)
+ *
+ * Ne cible qu'un serveur local (voir LoadGeneratorOptions).
+ *
+ * Lancement : java -cp target/benchmarks.jar com.example.yourcaryourway.loadgen.ChatLoadGenerator --max-clients=2000
+ */
+public class ChatLoadGenerator {
+
+    // Proportion minimale de ses propres messages qu'un client doit recevoir pendant un palier
+    private static final double MIN_ECHO_RATIO = 0.99;
+
+    private final LoadGeneratorOptions options;
+    private final PrintStream out;
+    private final SimulatedUser.Stats stats = new SimulatedUser.Stats();
+    private final List<SimulatedUser> agents = new ArrayList<>();
+    private final List<SimulatedUser> clients = new ArrayList<>();
+    private final WebSocketStompClient stompClient;
+    private final ScheduledExecutorService scheduler;
+
+    // Résultats du dernier palier mesuré
+    private double lastEchoRatio;
+    private long lastErrors;
+
+    public ChatLoadGenerator(LoadGeneratorOptions options, PrintStream out) {
+        this.options = options;
+        this.out = out;
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        this.stompClient = createStompClient(options, scheduler);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGeneratorOptions options;
+        try {
+            options = LoadGeneratorOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new ChatLoadGenerator(options, new PrintStream(System.out, true, StandardCharsets.UTF_8)).run();
+        System.exit(0);
+    }
+
+    /**
+     * Déroule la montée en charge et affiche un rapport par palier, puis le point de saturation
+     *
+     * @return Le nombre de clients du palier saturé, ou -1 si la saturation n'a pas été atteinte
+     */
+    public int run() throws Exception {
+        out.printf("Cible %s (%s), %d agents, %.2f message(s)/s par client, p99 limite %d ms%n",
+                options.connectUrl(), options.transport(), options.agents(), options.rate(), options.p99Limit().toMillis());
+        out.println("clients  envoyés/s  reçus/s     p50 ms    p99 ms  p99.9 ms    max ms  erreurs");
+
+        int saturatedAt = -1;
+        try {
+            connect(agents, options.agents(), "Agent", ChatMessage.SenderRole.SUPPORT);
+
+            for (int target = options.startClients(); target <= options.maxClients(); target += options.stepClients()) {
+                connect(clients, target - clients.size(), "Client", ChatMessage.SenderRole.CLIENT);
+
+                Histogram histogram = measureStep(target);
+                if (isSaturated(histogram)) {
+                    saturatedAt = target;
+                    break;
+                }
+            }
+        } finally {
+            leaveAll();
+        }
+
+        if (saturatedAt > 0) {
+            out.printf("Point de saturation : %d clients%n", saturatedAt);
+        } else {
+            out.printf("Saturation non atteinte jusqu'à %d clients%n", clients.size());
+        }
+        return saturatedAt;
+    }
+
+    /**
+     * Mesure un palier : la première seconde est écartée (arrivée des nouveaux clients)
+     */
+    private Histogram measureStep(int target) throws InterruptedException, IOException {
+        TimeUnit.SECONDS.sleep(1);
+        stats.latency.getIntervalHistogram();
+        long sentBefore = stats.sent.sum();
+        long receivedBefore = stats.received.sum();
+        long echoedBefore = stats.echoed.sum();
+        long errorsBefore = stats.errors.sum();
+        long start = System.nanoTime();
+
+        TimeUnit.MILLISECONDS.sleep(options.stepDuration().toMillis());
+
+        Histogram histogram = stats.latency.getIntervalHistogram();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long sent = stats.sent.sum() - sentBefore;
+        long echoed = stats.echoed.sum() - echoedBefore;
+        lastEchoRatio = sent == 0 ? 0 : (double) echoed / sent;
+        lastErrors = stats.errors.sum() - errorsBefore;
+
+        out.printf("%7d  %9.0f  %7.0f  %9.2f  %8.2f  %8.2f  %8.2f  %7d%n",
+                target,
+                sent / seconds,
+                (stats.received.sum() - receivedBefore) / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                lastErrors);
+
+        if (options.output() != null) {
+            writeHistogram(target, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * Un palier est saturé si son p99 dépasse la limite, s'il perd des messages
+     * ou si des sessions n'ont pas pu se connecter ou envoyer
+     */
+    private boolean isSaturated(Histogram histogram) {
+        long p99Micros = histogram.getValueAtPercentile(99);
+        return histogram.getTotalCount() == 0
+                || p99Micros > options.p99Limit().toNanos() / 1000
+                || lastEchoRatio < MIN_ECHO_RATIO
+                || lastErrors > 0;
+    }
+
+    /**
+     * Connecte des utilisateurs en parallèle et attend qu'ils aient tous envoyé leur JOIN
+     */
+    private void connect(List<SimulatedUser> users, int count, String prefix, ChatMessage.SenderRole role) {
+        List<CompletableFuture<SimulatedUser>> joining = new ArrayList<>(count);
+        String url = role == ChatMessage.SenderRole.SUPPORT ? options.agentConnectUrl() : options.connectUrl();
+        for (int i = 0; i < count; i++) {
+            SimulatedUser user = new SimulatedUser(prefix + " " + (users.size() + i + 1), role,
+                    stompClient, url, stats);
+            joining.add(user.join());
+        }
+
+        for (CompletableFuture<SimulatedUser> future : joining) {
+            try {
+                SimulatedUser user = future.get(30, TimeUnit.SECONDS);
+                users.add(user);
+                if (role == ChatMessage.SenderRole.CLIENT) {
+                    user.startChatting(scheduler, options.rate());
+                    scheduleChurn(user);
+                }
+            } catch (Exception e) {
+                stats.errors.increment();
+            }
+        }
+    }
+
+    /**
+     * --session-length : le client part (LEAVE) puis revient avec une nouvelle session
+     */
+    private void scheduleChurn(SimulatedUser user) {
+        long length = options.sessionLength().toMillis();
+        if (length <= 0) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            user.leave();
+            user.join().whenComplete((joined, error) -> {
+                if (error != null) {
+                    stats.errors.increment();
+                } else {
+                    joined.startChatting(scheduler, options.rate());
+                    scheduleChurn(joined);
+                }
+            });
+        }, length, TimeUnit.MILLISECONDS);
+    }
+
+    private void leaveAll() {
+        scheduler.shutdownNow();
+        clients.forEach(SimulatedUser::leave);
+        agents.forEach(SimulatedUser::leave);
+        stompClient.stop();
+    }
+
+    private void writeHistogram(int target, Histogram histogram) throws IOException {
+        Files.createDirectories(options.output());
+        try (PrintStream file = new PrintStream(Files.newOutputStream(options.output().resolve("clients-" + target + ".hgrm")))) {
+            histogram.outputPercentileDistribution(file, 1000.0);
+        }
+        try (PrintStream file = new PrintStream(Files.newOutputStream(options.output().resolve("clients-" + target + ".hlog")))) {
+            new HistogramLogWriter(file).outputIntervalHistogram(histogram);
+        }
+    }
+
+    private static WebSocketStompClient createStompClient(LoadGeneratorOptions options, ScheduledExecutorService scheduler) {
+        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        if (options.transport().equals("sockjs")) {
+            webSocketClient = new SockJsClient(List.of(new WebSocketTransport(webSocketClient)));
+        }
+
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.getObjectMapper().registerModule(new JavaTimeModule());
+        converter.getObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
+        stompClient.setMessageConverter(converter);
+        // Heartbeats comme le client Angular : sans eux, le serveur ferme les agents qui ne font qu'écouter
+        stompClient.setTaskScheduler(new ConcurrentTaskScheduler(scheduler));
+        stompClient.setDefaultHeartbeat(new long[]{10_000, 10_000});
+        return stompClient;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.yourcaryourway.loadgen;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Options du générateur de charge (--nom=valeur)
+ *
+ * @param url           Endpoint STOMP du serveur : doit être local (localhost, 127.0.0.1, ::1)
+ * @param transport     sockjs (repli du front Angular) ou websocket (WebSocket natif, /ws-native)
+ * @param agents        Nombre d'agents SUPPORT connectés avant les clients
+ * @param supportToken  Jeton des agents (chat.support.access-token de l'application)
+ * @param startClients  Nombre de clients du premier palier
+ * @param stepClients   Clients ajoutés à chaque palier
+ * @param maxClients    Nombre de clients du dernier palier
+ * @param stepDuration  Durée de mesure d'un palier
+ * @param rate          Messages envoyés par seconde et par client
+ * @param sessionLength Durée d'une session client avant LEAVE et reconnexion (0 : jusqu'à la fin)
+ * @param p99Limit      Latence p99 au-delà de laquelle le palier est saturé
+ * @param output        Dossier des histogrammes HDR (.hgrm) de chaque palier, ou null
+ */
+public record LoadGeneratorOptions(
+        URI url,
+        String transport,
+        int agents,
+        String supportToken,
+        int startClients,
+        int stepClients,
+        int maxClients,
+        Duration stepDuration,
+        double rate,
+        Duration sessionLength,
+        Duration p99Limit,
+        Path output) {
+
+    private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "::1", "[::1]");
+
+    /**
+     * Lit les options de la ligne de commande, avec les valeurs par défaut pour les autres
+     *
+     * @throws IllegalArgumentException si une option est inconnue ou invalide, ou si le serveur n'est pas local
+     */
+    public static LoadGeneratorOptions parse(String... args) {
+        URI url = URI.create("http://localhost:8080/ws");
+        String transport = "sockjs";
+        int agents = 10;
+        String supportToken = "dev-support-token";
+        int startClients = 100;
+        int stepClients = 100;
+        int maxClients = 2000;
+        Duration stepDuration = Duration.ofSeconds(30);
+        double rate = 1.0;
+        Duration sessionLength = Duration.ZERO;
+        Duration p99Limit = Duration.ofMillis(100);
+        Path output = null;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Option invalide : " + arg + " (attendu --nom=valeur)");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "url" -> url = URI.create(value);
+                case "transport" -> transport = value;
+                case "agents" -> agents = Integer.parseInt(value);
+                case "support-token" -> supportToken = value;
+                case "start-clients" -> startClients = Integer.parseInt(value);
+                case "step-clients" -> stepClients = Integer.parseInt(value);
+                case "max-clients" -> maxClients = Integer.parseInt(value);
+                case "step-duration" -> stepDuration = DurationStyle.detectAndParse(value);
+                case "rate" -> rate = Double.parseDouble(value);
+                case "session-length" -> sessionLength = DurationStyle.detectAndParse(value);
+                case "p99-limit" -> p99Limit = DurationStyle.detectAndParse(value);
+                case "output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("Option inconnue : --" + name);
+            }
+        }
+
+        if (url.getHost() == null || !LOCAL_HOSTS.contains(url.getHost())) {
+            throw new IllegalArgumentException("Le générateur ne cible qu'un serveur local : " + url);
+        }
+        if (!transport.equals("sockjs") && !transport.equals("websocket")) {
+            throw new IllegalArgumentException("Transport inconnu : " + transport + " (sockjs ou websocket)");
+        }
+        if (startClients <= 0 || stepClients <= 0 || maxClients < startClients || rate <= 0) {
+            throw new IllegalArgumentException("Paliers ou débit invalides");
+        }
+        return new LoadGeneratorOptions(url, transport, agents, supportToken, startClients, stepClients, maxClients,
+                stepDuration, rate, sessionLength, p99Limit, output);
+    }
+
+    /**
+     * URL de connexion selon le transport : SockJS en http(s) sur --url,
+     * WebSocket natif en ws(s) sur l'endpoint voisin (/ws -> /ws-native)
+     */
+    public String connectUrl() {
+        String base = url.toString().replaceFirst("/$", "");
+        if (transport.equals("sockjs")) {
+            return base.replaceFirst("^ws", "http");
+        }
+        return base.replaceFirst("^http", "ws") + "-native";
+    }
+
+    /**
+     * URL de connexion des agents : le jeton est passé en paramètre, comme le fait le front Angular
+     */
+    public String agentConnectUrl() {
+        return connectUrl() + "?access_token=" + URLEncoder.encode(supportToken, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.yourcaryourway.loadgen;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.service.ConversationService;
+import org.HdrHistogram.Recorder;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un utilisateur simulé : JOIN, messages CHAT à débit fixe, puis LEAVE
+ *
+ * Chaque message CHAT porte son instant d'envoi prévu (System.nanoTime, même processus) :
+ * sa latence est mesurée à sa réception par chaque participant, client et agent.
+ * L'instant prévu, et non l'instant réel d'envoi, sert de référence : un envoi retardé
+ * par la saturation du générateur compte dans la latence (correction de l'omission coordonnée).
+ * Le LEAVE correspond à la déconnexion de la session, que le serveur annonce à l'agent.
+ */
+class SimulatedUser {
+
+    private static final String LATENCY_PREFIX = "t=";
+
+    /**
+     * Compteurs partagés par tous les utilisateurs simulés
+     */
+    static final class Stats {
+        final Recorder latency = new Recorder(3);
+        final LongAdder sent = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final LongAdder echoed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final String name;
+    private final ChatMessage.SenderRole role;
+    private final WebSocketStompClient stompClient;
+    private final String url;
+    private final Stats stats;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile StompSession session;
+    private ScheduledFuture<?> chatting;
+
+    SimulatedUser(String name, ChatMessage.SenderRole role, WebSocketStompClient stompClient, String url, Stats stats) {
+        this.name = name;
+        this.role = role;
+        this.stompClient = stompClient;
+        this.url = url;
+        this.stats = stats;
+    }
+
+    /**
+     * Connecte la session, s'abonne à /user/queue/messages puis envoie le JOIN
+     */
+    CompletableFuture<SimulatedUser> join() {
+        return stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+            @Override
+            public void handleTransportError(StompSession session, Throwable exception) {
+                stats.errors.increment();
+            }
+        }).thenApply(connected -> {
+            session = connected;
+            connected.subscribe("/user/queue/messages", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    // JOIN/LEAVE regroupés : tableau JSON signalé par l'en-tête chat-batch
+                    return headers.containsKey(ConversationService.BATCH_HEADER) ? ChatMessage[].class : ChatMessage.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    if (payload instanceof ChatMessage[] batch) {
+                        for (ChatMessage message : batch) {
+                            onMessage(message);
+                        }
+                    } else {
+                        onMessage((ChatMessage) payload);
+                    }
+                }
+            });
+            connected.send("/app/chat.addUser", new ChatMessage(ChatMessage.MessageType.JOIN, name, role,
+                    name + " a rejoint le chat"));
+            return this;
+        });
+    }
+
+    /**
+     * Envoie des messages CHAT à débit fixe, avec un décalage aléatoire pour étaler les envois
+     */
+    void startChatting(ScheduledExecutorService scheduler, double rate) {
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long initialDelay = ThreadLocalRandom.current().nextLong(periodNanos);
+        long firstSend = System.nanoTime() + initialDelay;
+        sequence.set(0);
+        chatting = scheduler.scheduleAtFixedRate(() -> {
+            long intended = firstSend + sequence.getAndIncrement() * periodNanos;
+            send(intended);
+        }, initialDelay, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Arrête les envois et ferme la session (LEAVE côté serveur)
+     */
+    void leave() {
+        if (chatting != null) {
+            chatting.cancel(false);
+        }
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private void send(long intendedNanos) {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            stats.errors.increment();
+            return;
+        }
+        try {
+            current.send("/app/chat.sendMessage", new ChatMessage(ChatMessage.MessageType.CHAT, name, role,
+                    LATENCY_PREFIX + intendedNanos));
+            stats.sent.increment();
+        } catch (RuntimeException e) {
+            stats.errors.increment();
+        }
+    }
+
+    private void onMessage(ChatMessage message) {
+        if (message.getType() != ChatMessage.MessageType.CHAT || message.getContent() == null
+                || !message.getContent().startsWith(LATENCY_PREFIX)) {
+            return;
+        }
+        long sentAt = Long.parseLong(message.getContent().substring(LATENCY_PREFIX.length()));
+        stats.latency.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt)));
+        stats.received.increment();
+        if (name.equals(message.getSender())) {
+            stats.echoed.increment();
+        }
+    }
+}
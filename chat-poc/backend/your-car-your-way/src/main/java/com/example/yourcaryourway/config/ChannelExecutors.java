@@ -0,0 +1,139 @@
+package com.example.yourcaryourway.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Fabrique des exécuteurs des canaux STOMP (entrant, sortant, broker)
+ *
+ * - Threads de plateforme : pool dimensionné par chat.channels.{canal}.*
+ *   Quand le pool et sa file sont pleins, l'appelant traite lui-même le message :
+ *   le débit ralentit au lieu de rejeter des trames
+ * - Threads virtuels (chat.channels.virtual-threads) : un thread virtuel par message,
+ *   un appel bloquant (base, broker) n'immobilise plus un thread du pool
+ *
+ * Chaque exécuteur publie sa file d'attente et ses threads actifs :
+ * - chat.channel.queue.depth{channel} : messages en attente d'un thread
+ * - chat.channel.active.threads{channel} : messages en cours de traitement
+ */
+public final class ChannelExecutors {
+
+    private ChannelExecutors() {
+    }
+
+    /**
+     * Crée l'exécuteur d'un canal
+     *
+     * @param channel Nom du canal (inbound, outbound, broker), utilisé pour les threads et les métriques
+     * @param pool Dimensionnement du pool
+     * @param virtualThreads Vrai pour un thread virtuel par message
+     * @param meterRegistry Registre des métriques
+     * @return L'exécuteur, ou null pour garder celui de Spring (corePoolSize à 0)
+     */
+    public static Executor create(String channel, ChatProperties.Channels.Pool pool,
+                                  boolean virtualThreads, MeterRegistry meterRegistry) {
+        if (pool.getCorePoolSize() <= 0) {
+            return null;
+        }
+        String threadNamePrefix = "chat-" + channel + "-";
+
+        if (virtualThreads) {
+            VirtualThreadExecutor executor = new VirtualThreadExecutor(threadNamePrefix);
+            registerGauges(channel, meterRegistry, executor, VirtualThreadExecutor::getQueueDepth, VirtualThreadExecutor::getActiveCount);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(Math.max(pool.getCorePoolSize(), pool.getMaxPoolSize()));
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        // Pas d'initialize() ici : Spring expose l'exécuteur comme bean du canal
+        // et le démarre (puis l'arrête) avec le contexte
+        registerGauges(channel, meterRegistry, executor, ThreadPoolTaskExecutor::getQueueSize, ThreadPoolTaskExecutor::getActiveCount);
+        return executor;
+    }
+
+    /**
+     * Messages en attente d'un thread ou en cours de traitement sur l'exécuteur d'un canal
+     *
+     * Avec setPreservePublishOrder, le message suivant d'une session n'est soumis qu'à la fin
+     * du précédent, par le thread qui le traitait : 0 signifie qu'aucun message n'attend.
+     *
+     * @param executor Exécuteur d'un canal (créé par create, ou celui de Spring)
+     * @return Le nombre de messages, 0 pour un exécuteur qui ne les compte pas
+     */
+    public static int pendingMessages(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            return pool.getQueueSize() + pool.getActiveCount();
+        }
+        if (executor instanceof VirtualThreadExecutor virtual) {
+            return virtual.getQueueDepth() + virtual.getActiveCount();
+        }
+        return 0;
+    }
+
+    private static <T> void registerGauges(String channel, MeterRegistry meterRegistry, T executor,
+                                           ToIntFunction<T> queueDepth, ToIntFunction<T> activeThreads) {
+        Gauge.builder("chat.channel.queue.depth", executor, e -> queueDepth.applyAsInt(e))
+                .description("Messages en attente d'un thread du canal")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("chat.channel.active.threads", executor, e -> activeThreads.applyAsInt(e))
+                .description("Messages en cours de traitement sur le canal")
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exécuteur à threads virtuels qui compte les messages en attente et en cours
+     */
+    static final class VirtualThreadExecutor implements Executor, AutoCloseable {
+
+        private final SimpleAsyncTaskExecutor delegate;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+
+        VirtualThreadExecutor(String threadNamePrefix) {
+            this.delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            this.delegate.setVirtualThreads(true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            queued.incrementAndGet();
+            delegate.execute(() -> {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+        }
+
+        int getQueueDepth() {
+            return queued.get();
+        }
+
+        int getActiveCount() {
+            return active.get();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
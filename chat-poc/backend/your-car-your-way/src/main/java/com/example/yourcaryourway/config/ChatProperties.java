@@ -0,0 +1,364 @@
+package com.example.yourcaryourway.config;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Paramètres du chat, préfixés par "chat." dans application.properties
+ */
+@Data
+@ConfigurationProperties(prefix = "chat")
+public class ChatProperties {
+
+    private final Dispatch dispatch = new Dispatch();
+
+    private final Support support = new Support();
+
+    private final History history = new History();
+
+    private final Broker broker = new Broker();
+
+    private final Channels channels = new Channels();
+
+    private final Transport transport = new Transport();
+
+    private final Logging logging = new Logging();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final Presence presence = new Presence();
+
+    private final SystemEvents systemEvents = new SystemEvents();
+
+    private final Scheduler scheduler = new Scheduler();
+
+    private final Heartbeat heartbeat = new Heartbeat();
+
+    private final Drain drain = new Drain();
+
+    /**
+     * Assignation des clients en attente aux agents SUPPORT
+     */
+    @Data
+    public static class Dispatch {
+
+        // Nombre maximal de conversations simultanées par agent
+        private int maxChatsPerAgent = 5;
+    }
+
+    /**
+     * Authentification des agents SUPPORT à la poignée de main (voir SupportAuthenticationInterceptor)
+     */
+    @Data
+    public static class Support {
+
+        // Jeton partagé des agents (vide : aucune session ne peut être SUPPORT)
+        private String accessToken = "";
+    }
+
+    /**
+     * Écriture différée de l'historique du chat en base
+     */
+    @Data
+    public static class History {
+
+        // Nombre maximal d'écritures en attente (au-delà, les nouvelles écritures sont abandonnées)
+        private int queueCapacity = 10_000;
+
+        // Nombre maximal de lignes par requête INSERT multi-lignes
+        private int batchSize = 500;
+
+        // Délai maximal avant l'écriture d'un lot incomplet
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        // Temps laissé à l'écriture des derniers lots à l'arrêt de l'application
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+        // Essais d'écriture d'un lot quand la base est indisponible (attente doublée, plafonnée à 5 s)
+        private int maxWriteAttempts = 10;
+
+        // Nombre de messages rejoués à la reconnexion (et gardés en mémoire par conversation)
+        private int replaySize = 50;
+
+        // Nombre maximal de messages par page d'historique
+        private int maxPageSize = 100;
+
+        // Conversations fermées dont les derniers messages restent en mémoire
+        private int retainedConversations = 10_000;
+    }
+
+    /**
+     * Broker STOMP : en mémoire (un seul nœud) ou relais vers un broker externe
+     */
+    @Data
+    public static class Broker {
+
+        /**
+         * Modes de broker possibles
+         */
+        public enum Mode {
+            SIMPLE,    // Broker en mémoire, propre à chaque nœud
+            RELAY      // Relais vers un broker externe (RabbitMQ, Artemis...), partagé par tous les nœuds
+        }
+
+        private Mode mode = Mode.SIMPLE;
+
+        // Adresse du broker externe (mode RELAY)
+        private String relayHost = "localhost";
+
+        private int relayPort = 61613;
+
+        // Identifiants des connexions ouvertes pour chaque session client
+        private String clientLogin = "guest";
+
+        private String clientPasscode = "guest";
+
+        // Identifiants de la connexion partagée utilisée par le serveur
+        private String systemLogin = "guest";
+
+        private String systemPasscode = "guest";
+
+        // Virtual host du broker (RabbitMQ), aucun si vide
+        private String virtualHost;
+
+        // Topic sur lequel les nœuds diffusent leurs utilisateurs connectés
+        private String userRegistryBroadcast = "/topic/registry.broadcast";
+
+        // Topic sur lequel sont relayés les messages d'un utilisateur connecté à un autre nœud
+        private String userDestinationBroadcast = "/topic/unresolved.user";
+    }
+
+    /**
+     * Exécuteurs des canaux STOMP : entrant (client -> serveur), sortant (serveur -> client)
+     * et broker (envois de l'application vers le broker)
+     */
+    @Data
+    public static class Channels {
+
+        // Traite les messages sur des threads virtuels (un par message) plutôt que sur des pools
+        private boolean virtualThreads = false;
+
+        private final Pool inbound = new Pool(8, 32, 10_000);
+
+        private final Pool outbound = new Pool(8, 32, 10_000);
+
+        // 0 thread : le canal broker reste synchrone, comme par défaut dans Spring
+        private final Pool broker = new Pool(0, 0, 0);
+
+        /**
+         * Dimensionnement d'un pool de threads de canal
+         */
+        @Data
+        public static class Pool {
+
+            // Threads permanents (0 : exécuteur par défaut de Spring, synchrone pour le canal broker)
+            private int corePoolSize;
+
+            // Threads supplémentaires, créés seulement quand la file est pleine
+            private int maxPoolSize;
+
+            // Messages en attente d'un thread (au-delà, l'appelant traite lui-même le message)
+            private int queueCapacity;
+
+            // Durée de vie d'un thread supplémentaire inactif
+            private Duration keepAlive = Duration.ofSeconds(60);
+
+            public Pool() {
+            }
+
+            public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+                this.corePoolSize = corePoolSize;
+                this.maxPoolSize = maxPoolSize;
+                this.queueCapacity = queueCapacity;
+            }
+        }
+    }
+
+    /**
+     * Protection contre les clients lents (réseau mobile dégradé...)
+     *
+     * Les trames en attente d'un client lent sont bufferisées par session :
+     * - au-delà du seuil "slow-consumer", la politique de débordement s'applique
+     * - au-delà des limites "send-*-limit", la session est fermée par Spring
+     */
+    @Data
+    public static class Transport {
+
+        /**
+         * Politiques appliquées à une session dont le buffer dépasse le seuil
+         */
+        public enum OverflowPolicy {
+            DROP_SYSTEM,   // Les trames JOIN/LEAVE ne sont plus envoyées, les messages CHAT le sont toujours
+            DISCONNECT,    // La session est fermée, le client se reconnecte et rejoue l'historique
+            DIGEST         // Seuls les derniers messages CHAT sont gardés, puis envoyés quand le client rattrape
+        }
+
+        // Limite dure du buffer d'envoi d'une session (au-delà, la session est fermée)
+        private DataSize sendBufferSizeLimit = DataSize.ofKilobytes(512);
+
+        // Limite dure du temps d'envoi d'une trame (au-delà, la session est fermée)
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+
+        // Seuil de buffer à partir duquel la session est traitée comme un client lent
+        private DataSize slowConsumerBufferSize = DataSize.ofKilobytes(128);
+
+        // Temps d'envoi à partir duquel la session est traitée comme un client lent
+        private Duration slowConsumerSendTime = Duration.ofSeconds(2);
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_SYSTEM;
+
+        // Nombre de messages CHAT gardés pour un client lent en mode DIGEST
+        private int digestSize = 20;
+
+        // Accepte l'encodage binaire demandé au CONNECT (en-tête chat-encoding: binary)
+        private boolean binaryEncoding = true;
+
+        // Accepte l'extension permessage-deflate demandée à la poignée de main (voir CompressionThresholdTransformation)
+        private boolean compression = true;
+
+        // Taille en deçà de laquelle un message sortant est envoyé sans compression
+        private DataSize compressionMinSize = DataSize.ofKilobytes(1);
+    }
+
+    /**
+     * Logs du chemin des messages (voir MessageLogSampler et logback-spring.xml)
+     */
+    @Data
+    public static class Logging {
+
+        // Un message sur N est logué (1 : tous)
+        private int messageSampleRate = 100;
+
+        // Nombre maximal de lignes par seconde pour les messages, après échantillonnage
+        private int maxMessageLinesPerSecond = 20;
+
+        // Capacité de la file de l'appender asynchrone (au-delà, les logs INFO et moins sont abandonnés)
+        private int asyncQueueSize = 8192;
+    }
+
+    /**
+     * Limitation des trames SEND de chaque session et de chaque utilisateur (voir RateLimitInterceptor)
+     *
+     * Un seau de jetons par session et un par utilisateur (Principal attribué par le serveur),
+     * avec des limites propres au rôle de ce Principal : les sessions ouvertes avec le jeton
+     * chat.support.access-token ont les limites SUPPORT, les autres celles d'un CLIENT.
+     */
+    @Data
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        private final Limits client = new Limits(5, 10, 10, 20);
+
+        private final Limits support = new Limits(20, 40, 40, 80);
+
+        /**
+         * Limites applicables à un rôle (null : limites d'un CLIENT)
+         */
+        public Limits limitsFor(ChatMessage.SenderRole role) {
+            return role == ChatMessage.SenderRole.SUPPORT ? support : client;
+        }
+
+        @Data
+        public static class Limits {
+
+            // Trames par seconde d'une session, et rafale tolérée au-delà
+            private double sessionRate;
+            private int sessionBurst;
+
+            // Trames par seconde d'un utilisateur (toutes ses sessions), et rafale tolérée
+            private double userRate;
+            private int userBurst;
+
+            public Limits() {
+            }
+
+            public Limits(double sessionRate, int sessionBurst, double userRate, int userBurst) {
+                this.sessionRate = sessionRate;
+                this.sessionBurst = sessionBurst;
+                this.userRate = userRate;
+                this.userBurst = userBurst;
+            }
+        }
+    }
+
+    /**
+     * Présence des utilisateurs connectés (voir PresenceService)
+     */
+    @Data
+    public static class Presence {
+
+        // Intervalle de publication des changements de présence sur /topic/presence
+        private Duration tick = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Regroupement des trames JOIN/LEAVE par destinataire (voir SystemEventBatcher)
+     */
+    @Data
+    public static class SystemEvents {
+
+        // Fenêtre pendant laquelle les JOIN/LEAVE d'une session sont regroupés (0 : envoi immédiat)
+        private Duration batchWindow = Duration.ofMillis(100);
+
+        // Nombre maximal d'événements par trame (atteint : la trame part sans attendre la fin de la fenêtre)
+        private int maxBatchSize = 50;
+    }
+
+    /**
+     * Planificateur des tâches périodiques du chat (voir SchedulingConfiguration)
+     */
+    @Data
+    public static class Scheduler {
+
+        private int poolSize = 2;
+    }
+
+    /**
+     * Heartbeats STOMP et fermeture des sessions inactives (voir IdleSessionReaper)
+     */
+    @Data
+    public static class Heartbeat {
+
+        // Intervalle des heartbeats envoyés par le serveur (0 : aucun)
+        private Duration serverInterval = Duration.ofSeconds(10);
+
+        // Intervalle des heartbeats attendus des clients (0 : aucun)
+        private Duration clientInterval = Duration.ofSeconds(10);
+
+        // Session fermée sans trame reçue pendant ce délai (0 : jamais)
+        private Duration idleTimeout = Duration.ofSeconds(45);
+
+        // Précision de la détection : durée d'une case de la roue de temporisation
+        private Duration reaperTick = Duration.ofSeconds(1);
+
+        // Threads du planificateur des heartbeats et de la roue
+        private int schedulerPoolSize = 1;
+    }
+
+    /**
+     * Arrêt progressif du nœud (voir DrainService)
+     *
+     * À l'arrêt, chaque session reçoit une trame RECONNECT avec son propre délai,
+     * tiré au hasard dans reconnect-window : les reconnexions s'étalent au lieu d'arriver ensemble.
+     */
+    @Data
+    public static class Drain {
+
+        // Faux : les sessions sont fermées d'un coup à l'arrêt
+        private boolean enabled = true;
+
+        // Délais de reconnexion répartis entre 0 et cette durée
+        private Duration reconnectWindow = Duration.ofSeconds(20);
+
+        // Attente maximale du départ des sessions (au-delà de reconnect-window), puis fermeture
+        private Duration timeout = Duration.ofSeconds(30);
+
+        // Attente maximale de l'envoi des trames en attente avant de fermer les dernières sessions
+        private Duration flushTimeout = Duration.ofSeconds(5);
+    }
+}
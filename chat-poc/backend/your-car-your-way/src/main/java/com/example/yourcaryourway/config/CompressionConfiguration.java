@@ -0,0 +1,86 @@
+package com.example.yourcaryourway.config;
+
+import com.example.yourcaryourway.interceptor.CompressionThresholdTransformation;
+import com.example.yourcaryourway.service.ChatMetrics;
+import jakarta.websocket.Extension;
+import org.apache.tomcat.websocket.PerMessageDeflate;
+import org.apache.tomcat.websocket.Transformation;
+import org.apache.tomcat.websocket.TransformationBuilder;
+import org.apache.tomcat.websocket.TransformationFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Compression permessage-deflate des endpoints WebSocket (/ws-native et /ws/websocket)
+ *
+ * Tomcat négocie l'extension à la poignée de main, quel que soit l'endpoint Spring :
+ * sa fabrique d'extensions délègue à celle de CompressionThresholdTransformation,
+ * qui applique chat.transport.compression et chat.transport.compression-min-size.
+ *
+ * Dépendance à Tomcat : il n'existe pas de point d'extension public pour remplacer
+ * permessage-deflate. TransformationFactory (org.apache.tomcat.websocket) est un singleton
+ * interne, partagé par toute la JVM (serveur et client WebSocket de Tomcat) et sans retour
+ * arrière. PerMessageDeflateInstaller l'enregistre donc une seule fois, avec une fabrique
+ * qui délègue au dernier contexte Spring démarré encore ouvert ; quand tous sont fermés,
+ * Tomcat retrouve sa PerMessageDeflate par défaut. À revoir à chaque montée de version de Tomcat.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CompressionConfiguration {
+
+    @Bean
+    public PerMessageDeflateInstaller perMessageDeflateInstaller(ChatProperties properties, ChatMetrics metrics) {
+        return new PerMessageDeflateInstaller(CompressionThresholdTransformation.builder(properties.getTransport(), metrics));
+    }
+
+    /**
+     * Branche la fabrique d'un contexte Spring sur celle de Tomcat, le temps de la vie du contexte
+     *
+     * L'enregistrement auprès de Tomcat est fait une seule fois pour la JVM, quel que soit
+     * le nombre de contextes démarrés (tests, redémarrages à chaud).
+     */
+    public static final class PerMessageDeflateInstaller implements InitializingBean, DisposableBean {
+
+        // Fabriques des contextes ouverts, la dernière installée en tête (accès sous verrou)
+        private static final Deque<TransformationBuilder> installed = new ArrayDeque<>();
+        private static boolean registered;
+
+        private final TransformationBuilder builder;
+
+        PerMessageDeflateInstaller(TransformationBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+            synchronized (installed) {
+                installed.addFirst(builder);
+                if (!registered) {
+                    TransformationFactory.getInstance().registerExtension(PerMessageDeflate.NAME,
+                            PerMessageDeflateInstaller::build);
+                    registered = true;
+                }
+            }
+        }
+
+        @Override
+        public void destroy() {
+            synchronized (installed) {
+                installed.remove(builder);
+            }
+        }
+
+        private static Transformation build(List<List<Extension.Parameter>> preferences, boolean isServer) {
+            TransformationBuilder current;
+            synchronized (installed) {
+                current = installed.isEmpty() ? PerMessageDeflate.BUILDER : installed.peekFirst();
+            }
+            return current.build(preferences, isServer);
+        }
+    }
+}
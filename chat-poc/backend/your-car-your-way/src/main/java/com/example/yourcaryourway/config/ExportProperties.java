@@ -0,0 +1,17 @@
+package com.example.yourcaryourway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Paramètres de l'export des données personnelles d'un utilisateur,
+ * préfixés par "export." dans application.properties (voir DataExportService)
+ */
+@Data
+@ConfigurationProperties(prefix = "export")
+public class ExportProperties {
+
+    // Lignes lues par aller-retour avec la base : la mémoire de l'export ne dépend que de ce nombre
+    // Avec MySQL, le pilote ne le respecte qu'avec useCursorFetch=true dans spring.datasource.url
+    private int fetchSize = 500;
+}
@@ -0,0 +1,30 @@
+package com.example.yourcaryourway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Paramètres des réservations, préfixés par "reservation." dans application.properties
+ * (voir ReservationService et ReservationQueryService)
+ *
+ * Les clés d'idempotence récentes sont gardées en mémoire avec leur résultat :
+ * un client qui rejoue sa requête reçoit la même réservation sans nouvelle écriture.
+ */
+@Data
+@ConfigurationProperties(prefix = "reservation")
+public class ReservationProperties {
+
+    // Durée de conservation d'un résultat après la fin de son calcul
+    private Duration idempotencyTtl = Duration.ofHours(24);
+
+    // Nombre maximal de clés en mémoire (au-delà, les plus anciennes sont oubliées)
+    private int idempotencyCacheSize = 10_000;
+
+    // Offres analysées gardées pour la vue détail (au-delà, les plus anciennes sont oubliées)
+    private int offerCacheSize = 1_000;
+
+    // Nombre maximal de réservations par page de la liste
+    private int maxPageSize = 50;
+}
@@ -0,0 +1,38 @@
+package com.example.yourcaryourway.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Planificateurs du chat
+ *
+ * - chatTaskScheduler : tâches périodiques du chat (publication de la présence...)
+ * - heartbeatTaskScheduler : heartbeats STOMP du broker et roue de IdleSessionReaper
+ *
+ * Une tâche du chat ne retarde pas les heartbeats, et inversement : sous charge,
+ * un heartbeat en retard ferait fermer des sessions encore vivantes.
+ * Le messageBrokerTaskScheduler de Spring reste réservé à SockJS.
+ * Les services les injectent avec @Qualifier("chatTaskScheduler") ou @Qualifier("heartbeatTaskScheduler").
+ */
+@Configuration(proxyBeanMethods = false)
+public class SchedulingConfiguration {
+
+    @Bean
+    public ThreadPoolTaskScheduler chatTaskScheduler(ChatProperties properties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, properties.getScheduler().getPoolSize()));
+        scheduler.setThreadNamePrefix("chat-scheduler-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler heartbeatTaskScheduler(ChatProperties properties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, properties.getHeartbeat().getSchedulerPoolSize()));
+        scheduler.setThreadNamePrefix("chat-heartbeat-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
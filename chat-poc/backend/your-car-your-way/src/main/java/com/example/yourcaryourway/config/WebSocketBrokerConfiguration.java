@@ -0,0 +1,45 @@
+package com.example.yourcaryourway.config;
+
+import com.example.yourcaryourway.interceptor.SlowConsumerWebSocketHandler;
+import com.example.yourcaryourway.service.ChatMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+/**
+ * Infrastructure STOMP de Spring (équivalent de @EnableWebSocketMessageBroker)
+ *
+ * Les réglages restent dans WebSocketConfig : cette classe ne remplace que le handler
+ * des sessions WebSocket, pour appliquer la politique des clients lents
+ * (voir SlowConsumerWebSocketHandler).
+ */
+@Configuration(proxyBeanMethods = false)
+public class WebSocketBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private final ChatProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ChatMetrics metrics;
+
+    public WebSocketBrokerConfiguration(ChatProperties properties, MeterRegistry meterRegistry, ChatMetrics metrics) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.metrics = metrics;
+    }
+
+    @Bean
+    @Override
+    public SlowConsumerWebSocketHandler subProtocolWebSocketHandler(
+            @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+            @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel) {
+
+        SlowConsumerWebSocketHandler handler = new SlowConsumerWebSocketHandler(
+                clientInboundChannel, clientOutboundChannel, properties.getTransport(), meterRegistry, metrics);
+        handler.setPhase(getPhase());
+        return handler;
+    }
+}
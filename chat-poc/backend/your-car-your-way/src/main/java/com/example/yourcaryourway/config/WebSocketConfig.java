@@ -1,52 +1,275 @@
 package com.example.yourcaryourway.config;
 
+import com.example.yourcaryourway.converter.ChatMessageBinaryConverter;
+import com.example.yourcaryourway.interceptor.BrokerRelayHeaderInterceptor;
+import com.example.yourcaryourway.interceptor.DrainHandshakeInterceptor;
+import com.example.yourcaryourway.interceptor.EncodingNegotiationInterceptor;
+import com.example.yourcaryourway.interceptor.HandshakeTimingInterceptor;
+import com.example.yourcaryourway.interceptor.IdleSessionHandlerDecorator;
+import com.example.yourcaryourway.interceptor.RateLimitInterceptor;
+import com.example.yourcaryourway.interceptor.SupportAuthenticationInterceptor;
+import com.example.yourcaryourway.interceptor.TransportCapabilityHandlerDecorator;
+import com.example.yourcaryourway.interceptor.UserAssignmentInterceptor;
+import com.example.yourcaryourway.service.DrainService;
+import com.example.yourcaryourway.service.IdleSessionReaper;
+import com.example.yourcaryourway.service.MessageEncodingRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Configuration WebSocket pour le chat en temps réel
  *
  * Cette classe configure :
- * - Le point de connexion WebSocket (/ws)
- * - Le broker de messages pour gérer les abonnements
+ * - Les points de connexion : WebSocket natif (/ws-native), SockJS en repli (/ws)
+ * - Le broker de messages pour gérer les abonnements (en mémoire ou relais externe)
  * - Les préfixes d'URL pour l'envoi et la réception de messages
+ * - L'attribution d'un Principal à chaque session pour les messages privés
+ * - Les exécuteurs des canaux entrant, sortant et broker (voir ChannelExecutors)
+ * - Les limites d'envoi par session (clients lents)
+ * - L'encodage binaire des messages, négocié par session (voir EncodingNegotiationInterceptor)
+ * - La limitation du débit des trames SEND par session et par utilisateur (voir RateLimitInterceptor)
+ * - Les heartbeats STOMP et la fermeture des sessions inactives (voir IdleSessionReaper)
+ * - Le refus des nouvelles connexions pendant l'arrêt progressif (voir DrainService)
+ *
+ * L'infrastructure STOMP est activée par WebSocketBrokerConfiguration
+ * (à la place de @EnableWebSocketMessageBroker).
  */
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ChatProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final MessageEncodingRegistry encodingRegistry;
+
+    private final IdleSessionReaper idleSessionReaper;
+
+    private final TaskScheduler heartbeatTaskScheduler;
+
+    // Créé par l'infrastructure STOMP que cette classe configure : résolu au premier envoi
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    // Dépend du handler WebSocket créé par cette configuration : résolu à la première poignée de main
+    private final DrainService drainService;
+
+    public WebSocketConfig(ChatProperties properties, MeterRegistry meterRegistry,
+                           MessageEncodingRegistry encodingRegistry, IdleSessionReaper idleSessionReaper,
+                           @Qualifier("heartbeatTaskScheduler") TaskScheduler heartbeatTaskScheduler,
+                           @Lazy SimpMessageSendingOperations messagingTemplate,
+                           @Lazy DrainService drainService) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.encodingRegistry = encodingRegistry;
+        this.idleSessionReaper = idleSessionReaper;
+        this.heartbeatTaskScheduler = heartbeatTaskScheduler;
+        this.messagingTemplate = messagingTemplate;
+        this.drainService = drainService;
+    }
+
     /**
      * Configure le broker de messages
      *
      * - /topic : utilisé pour les messages broadcast (tous les utilisateurs)
+     * - /queue : utilisé pour les messages privés d'une conversation
      * - /app : préfixe pour les messages envoyés par les clients
+     * - /user : préfixe des destinations propres à une session (/user/queue/messages)
+     *
+     * chat.broker.mode choisit le broker :
+     * - SIMPLE : broker en mémoire, suffisant pour un seul nœud
+     * - RELAY : relais vers un broker STOMP externe, pour plusieurs nœuds
+     *
+     * Le broker simple échange des heartbeats avec chaque client (chat.heartbeat.server-interval
+     * et client-interval), sur le planificateur heartbeatTaskScheduler.
+     * Avec le relais, les heartbeats des clients sont négociés avec le broker externe.
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Active un broker simple en mémoire
-        // Les messages vers /topic seront diffusés à tous les abonnés
-        registry.enableSimpleBroker("/topic");
+        ChatProperties.Broker broker = properties.getBroker();
+        if (broker.getMode() == ChatProperties.Broker.Mode.RELAY) {
+            enableBrokerRelay(registry, broker);
+        } else {
+            // Active un broker simple en mémoire
+            // Les messages vers /topic seront diffusés à tous les abonnés
+            // Les messages vers /queue sont adressés à une seule session
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{
+                            properties.getHeartbeat().getServerInterval().toMillis(),
+                            properties.getHeartbeat().getClientInterval().toMillis()})
+                    .setTaskScheduler(heartbeatTaskScheduler);
+        }
 
         // Les messages des clients commenceront par /app
         // Exemple : /app/chat.sendMessage
         registry.setApplicationDestinationPrefixes("/app");
+
+        // convertAndSendToUser(user, "/queue/messages") cible /user/{user}/queue/messages
+        registry.setUserDestinationPrefix("/user");
+
+        // Le canal sortant est traité par un pool : sans cette option,
+        // deux messages d'une même session pourraient être écrits dans le désordre
+        registry.setPreservePublishOrder(true);
+
+        // Canal broker : synchrone par défaut, sur un pool si chat.channels.broker.core-pool-size > 0
+        Executor brokerExecutor = channelExecutor("broker", properties.getChannels().getBroker());
+        if (brokerExecutor != null) {
+            registry.configureBrokerChannel().executor(brokerExecutor);
+        }
+    }
+
+    /**
+     * Relaie /topic et /queue vers un broker STOMP externe partagé par tous les nœuds
+     *
+     * - Un message publié sur un nœud atteint les abonnés de tous les nœuds
+     * - Chaque nœud diffuse ses utilisateurs connectés (userRegistryBroadcast) :
+     *   SimpUserRegistry voit alors les sessions de tout le cluster
+     * - Un message pour un utilisateur inconnu localement est relayé aux autres nœuds
+     *   (userDestinationBroadcast) : convertAndSendToUser fonctionne d'un nœud à l'autre
+     * - Les en-têtes posés par le broker sur ces messages relayés sont retirés
+     *   avant leur renvoi (voir BrokerRelayHeaderInterceptor)
+     */
+    private void enableBrokerRelay(MessageBrokerRegistry registry, ChatProperties.Broker broker) {
+        StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(broker.getRelayHost())
+                .setRelayPort(broker.getRelayPort())
+                .setClientLogin(broker.getClientLogin())
+                .setClientPasscode(broker.getClientPasscode())
+                .setSystemLogin(broker.getSystemLogin())
+                .setSystemPasscode(broker.getSystemPasscode())
+                .setUserRegistryBroadcast(broker.getUserRegistryBroadcast())
+                .setUserDestinationBroadcast(broker.getUserDestinationBroadcast());
+
+        if (broker.getVirtualHost() != null && !broker.getVirtualHost().isBlank()) {
+            relay.setVirtualHost(broker.getVirtualHost());
+        }
+
+        // Nettoie les messages relayés d'un nœud à l'autre avant leur renvoi au broker
+        registry.configureBrokerChannel().interceptors(new BrokerRelayHeaderInterceptor());
+    }
+
+    /**
+     * Configure le canal des messages entrants (client -> serveur)
+     *
+     * - Attribue un Principal unique à chaque session lors du CONNECT
+     * - Enregistre l'encodage demandé par la session (si chat.transport.binary-encoding)
+     * - Limite le débit des trames SEND (si chat.rate-limit.enabled) : une trame refusée
+     *   n'est pas traitée et le client est prévenu sur /user/queue/errors
+     * - Traite les messages sur le pool chat.channels.inbound (ou des threads virtuels) :
+     *   un appel lent ne bloque plus les autres sessions au-delà de ce pool
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new UserAssignmentInterceptor());
+        if (properties.getTransport().isBinaryEncoding()) {
+            registration.interceptors(new EncodingNegotiationInterceptor(encodingRegistry));
+        }
+        if (properties.getRateLimit().isEnabled()) {
+            registration.interceptors(new RateLimitInterceptor(
+                    properties.getRateLimit(), meterRegistry, messagingTemplate));
+        }
+
+        Executor executor = channelExecutor("inbound", properties.getChannels().getInbound());
+        if (executor != null) {
+            registration.executor(executor);
+        }
+    }
+
+    /**
+     * Configure le canal des messages sortants (serveur -> client)
+     *
+     * - Écrit les trames sur le pool chat.channels.outbound (ou des threads virtuels)
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        Executor executor = channelExecutor("outbound", properties.getChannels().getOutbound());
+        if (executor != null) {
+            registration.executor(executor);
+        }
+    }
+
+    private Executor channelExecutor(String channel, ChatProperties.Channels.Pool pool) {
+        return ChannelExecutors.create(channel, pool, properties.getChannels().isVirtualThreads(), meterRegistry);
+    }
+
+    /**
+     * Ajoute le convertisseur binaire des ChatMessage aux convertisseurs par défaut
+     *
+     * Il ne s'applique qu'aux messages dont le content-type est ChatMessageBinaryConverter.MIME_TYPE,
+     * les autres restent convertis en JSON par Jackson.
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new ChatMessageBinaryConverter());
+        return true;
+    }
+
+    /**
+     * Configure le transport WebSocket
+     *
+     * - Limites dures par session : au-delà, Spring ferme la session
+     * - En deçà, la politique chat.transport.overflow-policy s'applique aux clients lents
+     *   (voir SlowConsumerSessionDecorator)
+     * - Chaque session note si son transport accepte les trames binaires
+     * - Chaque session est surveillée par la roue d'inactivité (si chat.heartbeat.idle-timeout > 0)
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        ChatProperties.Transport transport = properties.getTransport();
+        registration
+                .setSendBufferSizeLimit((int) transport.getSendBufferSizeLimit().toBytes())
+                .setSendTimeLimit((int) transport.getSendTimeLimit().toMillis())
+                .addDecoratorFactory(TransportCapabilityHandlerDecorator::new);
+        if (idleSessionReaper.isEnabled()) {
+            registration.addDecoratorFactory(handler -> new IdleSessionHandlerDecorator(handler, idleSessionReaper));
+        }
     }
 
     /**
      * Configure les endpoints WebSocket
      *
-     * - /ws : point de connexion principal
-     * - SockJS : fallback pour les navigateurs qui ne supportent pas WebSocket
+     * - /ws-native : WebSocket natif, sans trames SockJS ni requête /info préalable.
+     *   Endpoint principal : tous les navigateurs actuels supportent WebSocket
+     * - /ws : SockJS, en repli quand WebSocket est bloqué (proxy d'entreprise, réseau restrictif)
      * - CORS : autorise les connexions depuis Angular (localhost:4200)
+     * - Pendant l'arrêt progressif, les poignées de main sont refusées (503 et Retry-After)
+     * - Les agents présentent le jeton chat.support.access-token pour obtenir le rôle SUPPORT
+     * - Chaque poignée de main est horodatée pour chat.connection.setup.duration
+     * - Ordre de réception préservé par session
      */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        DrainHandshakeInterceptor drainInterceptor =
+                new DrainHandshakeInterceptor(drainService, properties.getDrain().getReconnectWindow());
+        SupportAuthenticationInterceptor supportInterceptor =
+                new SupportAuthenticationInterceptor(properties.getSupport().getAccessToken());
+
         registry
-                .addEndpoint("/ws")  // URL de connexion WebSocket
+                .addEndpoint("/ws-native")
+                .setAllowedOrigins("http://localhost:4200")
+                .addInterceptors(drainInterceptor, supportInterceptor, new HandshakeTimingInterceptor());
+
+        registry
+                .addEndpoint("/ws")  // URL de connexion SockJS
                 .setAllowedOrigins("http://localhost:4200")  // Autorise Angular
+                .addInterceptors(drainInterceptor, supportInterceptor, new HandshakeTimingInterceptor())
                 .withSockJS();  // SockJS est une couche de compatibilité. Si le navigateur ne supporte pas WebSocket natif, SockJS utilise d'autres techniques
+
+        // Traite les trames d'une même session dans l'ordre de réception
+        // (le JOIN doit ouvrir la conversation avant le premier message)
+        registry.setPreserveReceiveOrder(true);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.CategoryAvailability;
+import com.example.yourcaryourway.service.AvailabilityService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Recherche des catégories disponibles dans une agence
+ *
+ * GET /api/availability?locationId=...&from=2025-12-15T14:00&to=2025-12-22T14:00
+ */
+@RestController
+public class AvailabilityController {
+
+    private final AvailabilityService availabilityService;
+
+    public AvailabilityController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    /**
+     * Catégories ACRISS avec au moins un véhicule libre sur toute la période
+     *
+     * @param locationId Agence de prise en charge
+     * @param from Début de la location (ISO-8601, heure locale de l'agence)
+     * @param to Fin de la location
+     * @return Les catégories disponibles, par code ACRISS (400 si la période est vide)
+     */
+    @GetMapping("/availability")
+    public List<CategoryAvailability> search(
+            @RequestParam String locationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return availabilityService.search(locationId, from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
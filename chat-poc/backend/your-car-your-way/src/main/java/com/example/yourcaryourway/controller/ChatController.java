@@ -1,19 +1,30 @@
 package com.example.yourcaryourway.controller;
 
 import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.StompPrincipal;
+import com.example.yourcaryourway.service.ChatHistoryService;
+import com.example.yourcaryourway.service.ChatMetrics;
+import com.example.yourcaryourway.service.ConversationService;
+import com.example.yourcaryourway.service.MessageLogSampler;
+import com.example.yourcaryourway.service.PresenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 /**
  * Contrôleur gérant les messages du chat
  *
  * Ce contrôleur reçoit les messages des clients via WebSocket
- * et les redistribue à tous les utilisateurs connectés
+ * et les route vers les seuls participants de leur conversation.
+ * Les messages délivrés sont ensuite ajoutés à l'historique de la conversation.
+ * Chaque message reçu est compté et son traitement mesuré (voir ChatMetrics).
+ * Les messages ne sont logués que par échantillon, sans leur contenu (voir MessageLogSampler).
  */
 
 @Controller
@@ -21,27 +32,96 @@ public class ChatController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
 
+    private final ConversationService conversationService;
+
+    private final ChatHistoryService historyService;
+
+    private final ChatMetrics metrics;
+
+    private final MessageLogSampler logSampler;
+
+    private final PresenceService presenceService;
+
+    public ChatController(ConversationService conversationService, ChatHistoryService historyService,
+                          ChatMetrics metrics, MessageLogSampler logSampler, PresenceService presenceService) {
+        this.conversationService = conversationService;
+        this.historyService = historyService;
+        this.metrics = metrics;
+        this.logSampler = logSampler;
+        this.presenceService = presenceService;
+    }
+
     /**
      * Gère l'envoi d'un message de chat
      * Flux :
      * 1. Client envoie un message vers /app/chat.sendMessage
      * 2. Le serveur reçoit le message ici
-     * 3. Le serveur diffuse le message vers /topic/public
-     * 4. Tous les clients abonnés à /topic/public reçoivent le message
+     * 3. Le serveur retrouve la conversation de l'expéditeur, dont il déduit le nom
+     *    et le rôle de l'expéditeur : le type, le nom et le rôle envoyés par le client sont remplacés
+     * 4. Le client et l'agent de la conversation reçoivent le message sur /user/queue/messages
+     * 5. Le message est ajouté à l'historique de la conversation
      *
      * @param chatMessage Le message envoyé par un utilisateur
-     * @return Le message qui sera diffusé à tous les clients
+     * @param principal Le Principal de la session de l'expéditeur
      */
     @MessageMapping("/chat.sendMessage")
-    @SendTo("/topic/public")
-    public ChatMessage sendMessage(@Payload ChatMessage chatMessage) {
-        logger.info("Message reçu de {} ({}): {}",
-                chatMessage.getSender(),
-                chatMessage.getSenderRole(),
-                chatMessage.getContent());
-
-        // Le message est automatiquement diffusé à tous les abonnés de /topic/public
-        return chatMessage;
+    public void sendMessage(@Payload ChatMessage chatMessage, Principal principal) {
+        long start = System.nanoTime();
+        try {
+            route(chatMessage, principal);
+        } finally {
+            metrics.recordHandling(ChatMetrics.Handler.SEND_MESSAGE, start);
+        }
+    }
+
+    private void route(ChatMessage chatMessage, Principal principal) {
+        if (principal == null) {
+            metrics.recordInbound(ChatMessage.SenderRole.CLIENT);
+            logger.warn("Message ignoré : session sans utilisateur");
+            return;
+        }
+
+        if (logger.isInfoEnabled() && logSampler.shouldLog()) {
+            logger.info("Message reçu de la session {} ({}, conversation {}) : {}",
+                    principal.getName(),
+                    roleOf(principal),
+                    chatMessage.getConversationId(),
+                    MessageLogSampler.redact(chatMessage.getContent()));
+        }
+
+        conversationService.findConversation(principal.getName(), chatMessage.getConversationId())
+                .ifPresentOrElse(
+                        conversation -> {
+                            identifySender(conversation, principal.getName(), chatMessage);
+                            // Compté avec le rôle déduit de la conversation, pas celui annoncé par le client
+                            metrics.recordInbound(chatMessage.getSenderRole());
+                            conversationService.deliver(conversation, chatMessage);
+                            historyService.append(chatMessage);
+                        },
+                        () -> {
+                            metrics.recordInbound(roleOf(principal));
+                            logger.warn("Message ignoré : la session {} ne participe à aucune conversation",
+                                    principal.getName());
+                        }
+                );
+    }
+
+    /**
+     * Renseigne le type, le nom et le rôle d'un message d'après la conversation
+     *
+     * L'expéditeur est le client de la conversation ou son agent : un message ne peut pas
+     * se faire passer pour l'autre participant, ni arriver sans type ou sans rôle
+     * (ce qui ferait échouer son écriture dans l'historique).
+     */
+    private static void identifySender(Conversation conversation, String user, ChatMessage chatMessage) {
+        chatMessage.setType(ChatMessage.MessageType.CHAT);
+        if (user.equals(conversation.getClientUser())) {
+            chatMessage.setSender(conversation.getClientName());
+            chatMessage.setSenderRole(ChatMessage.SenderRole.CLIENT);
+        } else {
+            chatMessage.setSender(conversation.getAgentName());
+            chatMessage.setSenderRole(ChatMessage.SenderRole.SUPPORT);
+        }
     }
 
     /**
@@ -49,29 +129,86 @@ public class ChatController {
      * Flux :
      * 1. Client se connecte et envoie un message vers /app/chat.addUser
      * 2. Le serveur enregistre le nom d'utilisateur dans la session WebSocket
-     * 3. Un message "JOIN" est diffusé à tous pour annoncer l'arrivée
+     * 3. CLIENT : une conversation privée est ouverte, le message JOIN y est diffusé
+     *    et le client attend qu'un agent lui soit assigné.
+     *    Un client qui se reconnecte envoie l'identifiant de sa conversation précédente :
+     *    elle est reprise et ses derniers messages lui sont rejoués sur /user/queue/history
+     *    SUPPORT : l'agent est enregistré et reçoit les clients en attente.
+     *    Le rôle est celui du Principal de la session (jeton présenté à la poignée de main),
+     *    le rôle annoncé dans le message est ignoré
+     * 4. La session apparaît dans la présence avec son rôle (voir PresenceService)
      *
      * @param chatMessage Message contenant le nom de l'utilisateur
      * @param headerAccessor Pour accéder aux attributs de session WebSocket
-     * @return Message d'annonce diffusé à tous
      */
 
     @MessageMapping("/chat.addUser")
-    @SendTo("/topic/public")
-    public ChatMessage addUser(
+    public void addUser(
             @Payload ChatMessage chatMessage,
             SimpMessageHeaderAccessor headerAccessor) {
+        long start = System.nanoTime();
+        // Compté avec le rôle attribué par le serveur à la session, pas celui annoncé dans le JOIN
+        metrics.recordInbound(roleOf(headerAccessor.getUser()));
+        try {
+            join(chatMessage, headerAccessor);
+        } finally {
+            metrics.recordHandling(ChatMetrics.Handler.ADD_USER, start);
+        }
+    }
+
+    private void join(ChatMessage chatMessage, SimpMessageHeaderAccessor headerAccessor) {
+        if (chatMessage.getSender() == null || chatMessage.getSender().isBlank()) {
+            logger.warn("JOIN ignoré : nom d'utilisateur absent");
+            return;
+        }
+        Principal principal = headerAccessor.getUser();
+        if (principal == null) {
+            logger.warn("Impossible d'ouvrir une conversation : session sans utilisateur");
+            return;
+        }
+
+        // Le rôle est celui attribué par le serveur à la connexion, jamais celui annoncé par le client
+        ChatMessage.SenderRole role = roleOf(principal);
+        if (chatMessage.getSenderRole() != null && chatMessage.getSenderRole() != role) {
+            logger.warn("JOIN de {} : rôle annoncé {} ignoré, rôle de la session {}",
+                    principal.getName(), chatMessage.getSenderRole(), role);
+        }
+        chatMessage.setType(ChatMessage.MessageType.JOIN);
+        chatMessage.setSenderRole(role);
 
         // Stocke le nom d'utilisateur dans la session WebSocket
         // Cela permet de savoir qui se déconnecte plus tard
         headerAccessor.getSessionAttributes().put("username", chatMessage.getSender());
-        headerAccessor.getSessionAttributes().put("role", chatMessage.getSenderRole());
+        headerAccessor.getSessionAttributes().put("role", role);
+
+        logger.info("Nouvel utilisateur connecté : {} ({})", chatMessage.getSender(), role);
+
+        presenceService.joined(principal.getName(), chatMessage.getSender(), role);
 
-        logger.info("Nouvel utilisateur connecté : {} ({})",
-                chatMessage.getSender(),
-                chatMessage.getSenderRole());
+        if (role == ChatMessage.SenderRole.SUPPORT) {
+            // L'agent reçoit son propre JOIN puis les conversations en attente
+            conversationService.sendToUser(principal.getName(), chatMessage);
+            conversationService.registerAgent(principal.getName(), chatMessage.getSender());
+        } else {
+            // Diffuse le JOIN aux seuls participants de la conversation du client,
+            // puis place le client dans la file d'attente des agents
+            Conversation conversation = conversationService.openConversation(
+                    principal.getName(), chatMessage.getSender(), chatMessage.getConversationId());
+
+            // Reconnexion : les derniers messages sont rejoués avant l'annonce du retour
+            if (conversation.getId().equals(chatMessage.getConversationId())) {
+                conversationService.sendHistory(principal.getName(), historyService.replay(conversation.getId()));
+            }
+
+            conversationService.deliver(conversation, chatMessage);
+            historyService.append(chatMessage);
+            conversationService.requestAgent(conversation);
+        }
+    }
 
-        // Diffuse un message JOIN à tous les utilisateurs
-        return chatMessage;
+    private static ChatMessage.SenderRole roleOf(Principal principal) {
+        return principal instanceof StompPrincipal stompPrincipal
+                ? stompPrincipal.getRole()
+                : ChatMessage.SenderRole.CLIENT;
     }
 }
@@ -0,0 +1,84 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryCursor;
+import com.example.yourcaryourway.model.HistoryPage;
+import com.example.yourcaryourway.service.ChatHistoryService;
+import com.example.yourcaryourway.service.ConversationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Contrôleur servant l'historique des conversations
+ *
+ * Le client charge les messages plus anciens en s'abonnant à /app/conversation.history :
+ * la page est renvoyée directement sur cet abonnement, sans passer par le broker.
+ */
+@Controller
+public class ChatHistoryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatHistoryController.class);
+
+    // Taille de page quand le client n'en précise pas
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final ConversationService conversationService;
+
+    private final ChatHistoryService historyService;
+
+    public ChatHistoryController(ConversationService conversationService, ChatHistoryService historyService) {
+        this.conversationService = conversationService;
+        this.historyService = historyService;
+    }
+
+    /**
+     * Charge une page de messages plus anciens
+     * Flux :
+     * 1. Client s'abonne à /app/conversation.history avec les en-têtes
+     *    conversationId (agents), before (jeton reçu dans la page précédente) et limit
+     * 2. Le serveur vérifie que l'utilisateur participe à la conversation
+     * 3. La page est renvoyée sur l'abonnement (mémoire pour les pages récentes, base au-delà)
+     *
+     * @param conversationId Conversation visée (un client lit toujours la sienne)
+     * @param before Curseur de la page précédente, absent pour la page la plus récente
+     * @param limit Nombre de messages demandés
+     * @param principal Le Principal de la session
+     * @return La page demandée, vide si l'utilisateur n'y a pas accès
+     */
+    @SubscribeMapping("/conversation.history")
+    public HistoryPage loadOlder(
+            @Header(name = "conversationId", required = false) String conversationId,
+            @Header(name = "before", required = false) String before,
+            @Header(name = "limit", required = false) Integer limit,
+            Principal principal) {
+
+        if (principal == null) {
+            logger.warn("Historique refusé : session sans utilisateur");
+            return new HistoryPage(conversationId, List.of(), null);
+        }
+
+        HistoryCursor cursor;
+        try {
+            cursor = before != null ? HistoryCursor.decode(before) : null;
+        } catch (IllegalArgumentException e) {
+            logger.warn("Historique refusé : curseur invalide");
+            return new HistoryPage(conversationId, List.of(), null);
+        }
+
+        Optional<Conversation> conversation = conversationService.findConversation(principal.getName(), conversationId);
+        if (conversation.isEmpty()) {
+            logger.warn("Historique refusé : {} ne participe pas à la conversation {}",
+                    principal.getName(), conversationId);
+            return new HistoryPage(conversationId, List.of(), null);
+        }
+
+        return historyService.page(conversation.get().getId(), cursor, limit != null ? limit : DEFAULT_PAGE_SIZE);
+    }
+}
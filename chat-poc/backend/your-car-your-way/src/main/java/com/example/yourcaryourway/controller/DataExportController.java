@@ -0,0 +1,62 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.service.DataExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+
+/**
+ * Export des données personnelles d'un utilisateur (RGPD)
+ *
+ * GET /api/users/{userId}/export?format=json|ndjson
+ *
+ * La réponse est écrite au fil de la lecture en base (StreamingResponseBody), en pièce jointe.
+ * Le PoC n'a pas d'authentification : en production, seul l'utilisateur lui-même
+ * (ou le DPO) doit pouvoir appeler cet export.
+ */
+@RestController
+public class DataExportController {
+
+    private final DataExportService dataExportService;
+
+    public DataExportController(DataExportService dataExportService) {
+        this.dataExportService = dataExportService;
+    }
+
+    /**
+     * @param userId Utilisateur exporté
+     * @param format json (un document) ou ndjson (une ligne par enregistrement)
+     * @return Les données en pièce jointe, 404 si l'utilisateur n'existe pas, 400 si le format est inconnu
+     */
+    @GetMapping("/users/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String userId,
+                                                        @RequestParam(defaultValue = "json") String format) {
+        DataExportService.Format exportFormat;
+        try {
+            exportFormat = DataExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format inconnu : " + format);
+        }
+        if (!dataExportService.userExists(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Utilisateur inconnu");
+        }
+
+        ContentDisposition attachment = ContentDisposition.attachment()
+                .filename("ycyw-export-" + userId + "." + exportFormat.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment.toString())
+                .body(output -> dataExportService.export(userId, exportFormat, output));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.PresenceUpdate;
+import com.example.yourcaryourway.service.PresenceService;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Contrôleur servant l'état de présence courant
+ *
+ * Un client s'abonne à /topic/presence pour les deltas, puis à /app/presence :
+ * l'instantané est renvoyé directement sur cet abonnement, sans passer par le broker.
+ */
+@Controller
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    public PresenceController(PresenceService presenceService) {
+        this.presenceService = presenceService;
+    }
+
+    /**
+     * Renvoie les agents en ligne et le nombre de clients connectés
+     *
+     * @return L'instantané, numéroté comme les deltas de /topic/presence
+     */
+    @SubscribeMapping("/presence")
+    public PresenceUpdate snapshot() {
+        return presenceService.snapshot();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.Quote;
+import com.example.yourcaryourway.service.PricingService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Prix d'une location pour une ou plusieurs catégories
+ *
+ * GET /api/quotes?acrissCode=ECMR&acrissCode=CDMR&currency=EUR&from=2025-12-15T14:00&to=2025-12-22T14:00
+ */
+@RestController
+public class QuoteController {
+
+    private final PricingService pricingService;
+
+    public QuoteController(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    /**
+     * Prix des catégories demandées, calculés sur une même version des tarifs
+     *
+     * @param acrissCode Catégories ACRISS
+     * @param currency Devise (ISO 4217)
+     * @param from Début de la location (ISO-8601, heure locale de l'agence)
+     * @param to Fin de la location
+     * @return Les prix des catégories qui ont un tarif (400 si la période est vide)
+     */
+    @GetMapping("/quotes")
+    public List<Quote> quotes(
+            @RequestParam List<String> acrissCode,
+            @RequestParam String currency,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return pricingService.quotes(acrissCode, currency, from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationDetail;
+import com.example.yourcaryourway.model.ReservationRequest;
+import com.example.yourcaryourway.model.ReservationSummary;
+import com.example.yourcaryourway.service.ReservationQueryService;
+import com.example.yourcaryourway.service.ReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Création et lecture des réservations
+ *
+ * - POST /api/reservations, en-tête Idempotency-Key : une même clé rejouée rend la même réservation
+ * - GET /api/users/{userId}/reservations?page=0&size=20 : liste, avec la projection de l'offre
+ * - GET /api/reservations/{id} : détail, avec l'offre complète
+ *
+ * Le PoC n'a pas d'authentification : en production, un client ne lit que ses réservations.
+ */
+@RestController
+public class ReservationController {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final ReservationService reservationService;
+
+    private final ReservationQueryService reservationQueryService;
+
+    public ReservationController(ReservationService reservationService,
+                                 ReservationQueryService reservationQueryService) {
+        this.reservationService = reservationService;
+        this.reservationQueryService = reservationQueryService;
+    }
+
+    /**
+     * Crée une réservation en attente de paiement
+     *
+     * @param idempotencyKey Clé choisie par le client, identique pour toutes les tentatives d'une demande
+     * @param request La demande
+     * @return 201 avec la réservation créée, 200 avec la réservation déjà créée sous cette clé,
+     *         400 si la demande est invalide, 409 si la clé a servi pour une autre demande
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<Reservation> create(@RequestHeader(IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+                                              @RequestBody ReservationRequest request) {
+        try {
+            ReservationService.CreationResult result = reservationService.create(idempotencyKey, request);
+            return ResponseEntity.status(result.created() ? HttpStatus.CREATED : HttpStatus.OK)
+                    .body(result.reservation());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * Liste « mes réservations », des plus récentes aux plus anciennes
+     *
+     * @return Une page de réservations (400 si la page ou la taille est invalide)
+     */
+    @GetMapping("/users/{userId}/reservations")
+    public List<ReservationSummary> list(@PathVariable String userId,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        try {
+            return reservationQueryService.listForUser(userId, page, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Réservation avec son offre complète
+     *
+     * @return La réservation (404 si elle n'existe pas)
+     */
+    @GetMapping("/reservations/{id}")
+    public ReservationDetail detail(@PathVariable String id) {
+        return reservationQueryService.detail(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Réservation inconnue"));
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.yourcaryourway.converter;
+
+import com.example.yourcaryourway.model.ChatMessage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Encodage binaire compact d'un ChatMessage (format version 1)
+ *
+ * Format, champ par champ :
+ * - version                  1 octet
+ * - présence des champs      1 octet (un bit par champ, un champ absent n'occupe rien)
+ * - identifiants en UUID     1 octet (bit 0 : id, bit 1 : conversationId)
+ * - type, senderRole         1 octet chacun (ordinal de l'enum)
+ * - id, conversationId       16 octets si UUID, sinon chaîne UTF-8
+ * - timestamp                8 octets : microsecondes depuis l'epoch (UTC),
+ *                            la précision de l'horodatage serveur et de sent_at
+ * - sender, content          longueur (varint) + UTF-8
+ *
+ * Un message horodaté par le serveur fait environ 50 octets + sender + content,
+ * contre 200 octets et plus en JSON.
+ */
+public final class ChatMessageBinaryCodec {
+
+    /**
+     * Version du format, premier octet de chaque message
+     */
+    public static final byte VERSION = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_CONVERSATION_ID = 1 << 1;
+    private static final int HAS_TYPE = 1 << 2;
+    private static final int HAS_SENDER = 1 << 3;
+    private static final int HAS_SENDER_ROLE = 1 << 4;
+    private static final int HAS_CONTENT = 1 << 5;
+    private static final int HAS_TIMESTAMP = 1 << 6;
+
+    private static final int ID_IS_UUID = 1;
+    private static final int CONVERSATION_ID_IS_UUID = 1 << 1;
+
+    private static final ChatMessage.MessageType[] TYPES = ChatMessage.MessageType.values();
+    private static final ChatMessage.SenderRole[] ROLES = ChatMessage.SenderRole.values();
+
+    private ChatMessageBinaryCodec() {
+    }
+
+    /**
+     * Encode un message
+     *
+     * @param message Le message à encoder
+     * @return Les octets du message, au format version 1
+     */
+    public static byte[] encode(ChatMessage message) {
+        UUID id = asUuid(message.getId());
+        UUID conversationId = asUuid(message.getConversationId());
+        byte[] idBytes = id == null ? utf8(message.getId()) : null;
+        byte[] conversationIdBytes = conversationId == null ? utf8(message.getConversationId()) : null;
+        byte[] sender = utf8(message.getSender());
+        byte[] content = utf8(message.getContent());
+
+        int presence = 0;
+        int uuids = 0;
+        // version, présence, UUID et type : toujours présents
+        int size = 4;
+        if (message.getId() != null) {
+            presence |= HAS_ID;
+            size += id != null ? 16 : sizeOf(idBytes);
+            uuids |= id != null ? ID_IS_UUID : 0;
+        }
+        if (message.getConversationId() != null) {
+            presence |= HAS_CONVERSATION_ID;
+            size += conversationId != null ? 16 : sizeOf(conversationIdBytes);
+            uuids |= conversationId != null ? CONVERSATION_ID_IS_UUID : 0;
+        }
+        if (message.getType() != null) {
+            presence |= HAS_TYPE;
+        }
+        if (message.getSenderRole() != null) {
+            presence |= HAS_SENDER_ROLE;
+            size += 1;
+        }
+        if (message.getTimestamp() != null) {
+            presence |= HAS_TIMESTAMP;
+            size += 8;
+        }
+        if (sender != null) {
+            presence |= HAS_SENDER;
+            size += sizeOf(sender);
+        }
+        if (content != null) {
+            presence |= HAS_CONTENT;
+            size += sizeOf(content);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION).put((byte) presence).put((byte) uuids);
+        buffer.put(message.getType() != null ? (byte) message.getType().ordinal() : 0);
+        if (message.getSenderRole() != null) {
+            buffer.put((byte) message.getSenderRole().ordinal());
+        }
+        if (message.getId() != null) {
+            putId(buffer, id, idBytes);
+        }
+        if (message.getConversationId() != null) {
+            putId(buffer, conversationId, conversationIdBytes);
+        }
+        if (message.getTimestamp() != null) {
+            buffer.putLong(toEpochMicros(message.getTimestamp()));
+        }
+        if (sender != null) {
+            putString(buffer, sender);
+        }
+        if (content != null) {
+            putString(buffer, content);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Décode un message
+     *
+     * @param bytes Les octets d'un message au format version 1
+     * @return Le message décodé
+     * @throws IllegalArgumentException si les octets ne sont pas un message valide
+     */
+    public static ChatMessage decode(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Version de format non supportée : " + version);
+            }
+            int presence = buffer.get();
+            int uuids = buffer.get();
+            int type = buffer.get();
+
+            ChatMessage message = new ChatMessage();
+            if ((presence & HAS_TYPE) != 0) {
+                message.setType(TYPES[type]);
+            }
+            if ((presence & HAS_SENDER_ROLE) != 0) {
+                message.setSenderRole(ROLES[buffer.get()]);
+            }
+            if ((presence & HAS_ID) != 0) {
+                message.setId(getId(buffer, (uuids & ID_IS_UUID) != 0));
+            }
+            if ((presence & HAS_CONVERSATION_ID) != 0) {
+                message.setConversationId(getId(buffer, (uuids & CONVERSATION_ID_IS_UUID) != 0));
+            }
+            if ((presence & HAS_TIMESTAMP) != 0) {
+                message.setTimestamp(fromEpochMicros(buffer.getLong()));
+            }
+            if ((presence & HAS_SENDER) != 0) {
+                message.setSender(getString(buffer));
+            }
+            if ((presence & HAS_CONTENT) != 0) {
+                message.setContent(getString(buffer));
+            }
+            return message;
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Message binaire invalide", e);
+        }
+    }
+
+    /**
+     * UUID équivalent à l'identifiant, ou null s'il n'est pas un UUID canonique
+     * (l'identifiant doit se relire à l'identique)
+     */
+    private static UUID asUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void putId(ByteBuffer buffer, UUID uuid, byte[] bytes) {
+        if (uuid != null) {
+            buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        } else {
+            putString(buffer, bytes);
+        }
+    }
+
+    private static String getId(ByteBuffer buffer, boolean uuid) {
+        if (uuid) {
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        return getString(buffer);
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), timestamp);
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] string) {
+        return varIntSize(string.length) + string.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] string) {
+        int length = string.length;
+        while ((length & ~0x7F) != 0) {
+            buffer.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+        buffer.put(string);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Longueur de chaîne invalide : " + length);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.yourcaryourway.converter;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+/**
+ * Convertisseur STOMP des ChatMessage au format binaire (voir ChatMessageBinaryCodec)
+ *
+ * Ne s'applique qu'aux messages dont le content-type est MIME_TYPE :
+ * les clients qui n'ont pas négocié l'encodage binaire restent en JSON.
+ * Le type est un application/octet-stream pour que Spring écrive une trame WebSocket binaire.
+ */
+public class ChatMessageBinaryConverter extends AbstractMessageConverter {
+
+    /**
+     * Content-type des messages encodés en binaire
+     */
+    public static final MimeType MIME_TYPE = new MimeType("application", "octet-stream",
+            Map.of("schema", "chat-message-v" + ChatMessageBinaryCodec.VERSION));
+
+    public ChatMessageBinaryConverter() {
+        super(MIME_TYPE);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ChatMessage.class == clazz;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] bytes)) {
+            return null;
+        }
+        try {
+            return ChatMessageBinaryCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException(message, "Message binaire illisible : " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return ChatMessageBinaryCodec.encode((ChatMessage) payload);
+    }
+}
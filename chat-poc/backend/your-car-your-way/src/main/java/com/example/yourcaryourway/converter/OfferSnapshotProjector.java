@@ -0,0 +1,97 @@
+package com.example.yourcaryourway.converter;
+
+import com.example.yourcaryourway.model.OfferSummary;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Projection d'une offre JSON (offer_snapshot_json) sur les champs des listes, sans arbre
+ *
+ * Le JSON est lu jeton par jeton : seuls vehicle.brand, vehicle.model, days et le nombre
+ * d'éléments de options sont retenus, le reste est sauté sans être matérialisé
+ * (conditions de location, détail des prix...).
+ *
+ * Sert aux réservations enregistrées avant les colonnes offer_* ; les nouvelles
+ * réservations enregistrent leur projection à la création.
+ */
+public final class OfferSnapshotProjector {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private OfferSnapshotProjector() {
+    }
+
+    /**
+     * @param json L'offre, telle qu'enregistrée
+     * @return Sa projection, ou OfferSummary.EMPTY si le JSON est absent ou illisible
+     */
+    public static OfferSummary project(String json) {
+        if (json == null) {
+            return OfferSummary.EMPTY;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return OfferSummary.EMPTY;
+            }
+            String brand = null;
+            String model = null;
+            Integer days = null;
+            int optionCount = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "days" -> days = value.isNumeric() ? parser.getIntValue() : null;
+                    case "options" -> optionCount = countElements(parser, value);
+                    case "vehicle" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String vehicleField = parser.currentName();
+                                parser.nextToken();
+                                if ("brand".equals(vehicleField)) {
+                                    brand = parser.getValueAsString();
+                                } else if ("model".equals(vehicleField)) {
+                                    model = parser.getValueAsString();
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            return new OfferSummary(vehicleName(brand, model), days, optionCount);
+        } catch (IOException e) {
+            return OfferSummary.EMPTY;
+        }
+    }
+
+    private static int countElements(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return 0;
+        }
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * « Marque Modèle », ou null si l'offre ne nomme pas de véhicule
+     */
+    private static String vehicleName(String brand, String model) {
+        if (brand == null) {
+            return model;
+        }
+        return model == null ? brand : brand + ' ' + model;
+    }
+}
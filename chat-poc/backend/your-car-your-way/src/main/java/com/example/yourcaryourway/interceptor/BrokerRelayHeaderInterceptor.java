@@ -0,0 +1,45 @@
+package com.example.yourcaryourway.interceptor;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intercepteur du canal broker qui nettoie les messages relayés entre nœuds
+ *
+ * Flux :
+ * 1. Le nœud A ne connaît pas l'utilisateur : le message part sur /topic/unresolved.user
+ * 2. Le nœud B le reçoit en trame MESSAGE et le renvoie en SEND vers /queue/messages-user{session}
+ * 3. Le SEND reprend alors les en-têtes posés par le broker sur la trame MESSAGE
+ *    (subscription, message-id, destination-type=MULTICAST)
+ * 4. Un broker comme Artemis respecte destination-type : le message partirait en multicast
+ *    vers une file anycast et serait perdu. On retire donc ces en-têtes avant le relais
+ */
+public class BrokerRelayHeaderInterceptor implements ChannelInterceptor {
+
+    /**
+     * En-têtes attribués par le broker à une trame MESSAGE, sans valeur pour un SEND
+     */
+    private static final List<String> BROKER_HEADERS = List.of("subscription", "message-id", "destination-type");
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> nativeHeaders =
+                (Map<String, List<String>>) message.getHeaders().get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+
+        if (nativeHeaders == null || BROKER_HEADERS.stream().noneMatch(nativeHeaders::containsKey)) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        BROKER_HEADERS.forEach(accessor::removeNativeHeader);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
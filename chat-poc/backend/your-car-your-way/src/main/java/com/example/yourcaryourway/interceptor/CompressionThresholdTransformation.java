@@ -0,0 +1,155 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.service.ChatMetrics;
+import jakarta.websocket.Extension;
+import org.apache.tomcat.websocket.Constants;
+import org.apache.tomcat.websocket.MessagePart;
+import org.apache.tomcat.websocket.PerMessageDeflate;
+import org.apache.tomcat.websocket.Transformation;
+import org.apache.tomcat.websocket.TransformationBuilder;
+import org.apache.tomcat.websocket.TransformationResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extension permessage-deflate de Tomcat, avec un seuil de compression
+ *
+ * Tomcat compresse chaque message sortant dès que le client a négocié l'extension :
+ * une trame MESSAGE d'une ligne gagne quelques dizaines d'octets pour le coût d'une compression.
+ * Cette transformation enveloppe la PerMessageDeflate de la session :
+ * - Les messages sortants d'au moins chat.transport.compression-min-size sont compressés par Tomcat
+ *   (conditions de location collées par un agent, rejeu de l'historique...)
+ * - Les plus petits partent tels quels, sans le bit RSV1 (la RFC 7692 laisse ce choix à l'émetteur)
+ * - Les trames reçues sont décompressées par Tomcat, que le client les ait compressées ou non
+ *
+ * Le Deflater de la session est créé une fois à la poignée de main et réutilisé d'un message
+ * à l'autre (contexte conservé, sauf si le client demande server_no_context_takeover) :
+ * aucun Deflater n'est alloué par trame, et un message envoyé tel quel n'alloue rien.
+ *
+ * Installée pour tout le conteneur WebSocket par CompressionConfiguration.
+ */
+public class CompressionThresholdTransformation implements Transformation {
+
+    private final Transformation deflate;
+
+    private final int minSize;
+
+    private final ChatMetrics metrics;
+
+    private volatile Transformation next;
+
+    // Décision prise sur la première partie d'un message, suivie par ses continuations
+    private volatile boolean compressing;
+
+    CompressionThresholdTransformation(Transformation deflate, int minSize, ChatMetrics metrics) {
+        this.deflate = deflate;
+        this.minSize = minSize;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Fabrique de l'extension permessage-deflate du conteneur
+     *
+     * - Côté serveur : la transformation à seuil, ou aucune si chat.transport.compression=false
+     *   (l'extension n'est alors pas acceptée à la poignée de main)
+     * - Côté client (WebSocketStompClient de Tomcat) : la PerMessageDeflate de Tomcat
+     */
+    public static TransformationBuilder builder(ChatProperties.Transport transport, ChatMetrics metrics) {
+        boolean enabled = transport.isCompression();
+        int minSize = (int) transport.getCompressionMinSize().toBytes();
+        return (preferences, isServer) -> {
+            if (isServer && !enabled) {
+                return null;
+            }
+            Transformation deflate = PerMessageDeflate.BUILDER.build(preferences, isServer);
+            if (!isServer || deflate == null) {
+                return deflate;
+            }
+            return new CompressionThresholdTransformation(deflate, minSize, metrics);
+        };
+    }
+
+    @Override
+    public List<MessagePart> sendMessagePart(List<MessagePart> messageParts) throws IOException {
+        // Tomcat envoie une partie à la fois
+        if (messageParts.size() == 1) {
+            return send(messageParts.getFirst(), messageParts);
+        }
+        List<MessagePart> sent = new ArrayList<>();
+        for (MessagePart messagePart : messageParts) {
+            sent.addAll(send(messagePart, List.of(messagePart)));
+        }
+        return sent;
+    }
+
+    private List<MessagePart> send(MessagePart messagePart, List<MessagePart> parts) throws IOException {
+        byte opCode = messagePart.getOpCode();
+        // Trames de contrôle (ping, pong, close) : jamais compressées
+        if ((opCode & 0x08) != 0) {
+            return passThrough(parts);
+        }
+
+        if (opCode != Constants.OPCODE_CONTINUATION) {
+            // Un message fragmenté n'a pas de taille connue à sa première partie : il est compressé
+            compressing = !messagePart.isFin() || messagePart.getPayload().remaining() >= minSize;
+            if (!compressing) {
+                metrics.recordCompressionSkipped();
+            }
+        }
+        if (!compressing) {
+            return passThrough(parts);
+        }
+
+        long start = System.nanoTime();
+        int originalBytes = messagePart.getPayload().remaining();
+        List<MessagePart> compressed = deflate.sendMessagePart(parts);
+        int compressedBytes = 0;
+        for (MessagePart compressedPart : compressed) {
+            compressedBytes += compressedPart.getPayload().remaining();
+        }
+        metrics.recordCompression(originalBytes, compressedBytes, start);
+        return compressed;
+    }
+
+    private List<MessagePart> passThrough(List<MessagePart> parts) throws IOException {
+        return next != null ? next.sendMessagePart(parts) : parts;
+    }
+
+    @Override
+    public void setNext(Transformation transformation) {
+        if (next == null) {
+            next = transformation;
+        }
+        // PerMessageDeflate transmet aux transformations suivantes : une seule propagation
+        deflate.setNext(transformation);
+    }
+
+    @Override
+    public TransformationResult getMoreData(byte opCode, boolean fin, int rsv, ByteBuffer dest) throws IOException {
+        return deflate.getMoreData(opCode, fin, rsv, dest);
+    }
+
+    @Override
+    public boolean validateRsv(int rsv, byte opCode) {
+        return deflate.validateRsv(rsv, opCode);
+    }
+
+    @Override
+    public boolean validateRsvBits(int i) {
+        return deflate.validateRsvBits(i);
+    }
+
+    @Override
+    public Extension getExtensionResponse() {
+        return deflate.getExtensionResponse();
+    }
+
+    @Override
+    public void close() {
+        deflate.close();
+    }
+}
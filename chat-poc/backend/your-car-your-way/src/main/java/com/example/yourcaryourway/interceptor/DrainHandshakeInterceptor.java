@@ -0,0 +1,46 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.service.DrainService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Intercepteur de poignée de main qui refuse les nouvelles connexions pendant l'arrêt progressif
+ *
+ * Le client reçoit 503 avec Retry-After : il retente plus tard, et le répartiteur de charge
+ * le dirige vers un autre nœud (celui-ci ne se déclare plus prêt, voir DrainService).
+ */
+public class DrainHandshakeInterceptor implements HandshakeInterceptor {
+
+    private final DrainService drainService;
+
+    private final String retryAfter;
+
+    public DrainHandshakeInterceptor(DrainService drainService, Duration retryAfter) {
+        this.drainService = drainService;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!drainService.isDraining()) {
+            return true;
+        }
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.service.MessageEncodingRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.util.Map;
+
+/**
+ * Intercepteur du canal entrant qui négocie l'encodage des messages d'une session
+ *
+ * Flux :
+ * 1. Le client ajoute l'en-tête "chat-encoding: binary" à sa trame CONNECT
+ * 2. Si sa connexion accepte les trames binaires (WebSocket direct, pas SockJS),
+ *    sa session est enregistrée dans le MessageEncodingRegistry
+ * 3. Ses ChatMessage lui sont ensuite envoyés au format binaire,
+ *    avec le content-type ChatMessageBinaryConverter.MIME_TYPE
+ *
+ * Sans l'en-tête, ou sur SockJS, la session reste en JSON : les anciens clients
+ * n'ont rien à changer. Doit être placé après UserAssignmentInterceptor.
+ */
+public class EncodingNegotiationInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncodingNegotiationInterceptor.class);
+
+    /**
+     * En-tête STOMP du CONNECT qui demande un encodage
+     */
+    public static final String ENCODING_HEADER = "chat-encoding";
+
+    /**
+     * Valeur de l'en-tête qui demande l'encodage binaire
+     */
+    public static final String BINARY_ENCODING = "binary";
+
+    private final MessageEncodingRegistry encodingRegistry;
+
+    public EncodingNegotiationInterceptor(MessageEncodingRegistry encodingRegistry) {
+        this.encodingRegistry = encodingRegistry;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        if (accessor == null || !SimpMessageType.CONNECT.equals(accessor.getMessageType())
+                || accessor.getUser() == null
+                || !BINARY_ENCODING.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+            return message;
+        }
+
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes != null && Boolean.TRUE.equals(attributes.get(TransportCapabilityHandlerDecorator.BINARY_FRAMES_ATTRIBUTE))) {
+            encodingRegistry.useBinary(accessor.getUser().getName());
+        } else {
+            logger.debug("Encodage binaire refusé pour la session {} : transport texte uniquement", accessor.getSessionId());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.yourcaryourway.interceptor;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+
+/**
+ * Intercepteur de poignée de main qui note l'instant où la connexion commence
+ *
+ * Pour WebSocket, il s'agit de la requête HTTP Upgrade ; pour SockJS, de la requête
+ * qui crée la session (après /info, invisible du serveur).
+ * L'instant est posé dans les attributs de la session : SlowConsumerWebSocketHandler
+ * en déduit la durée jusqu'à la trame CONNECTED (chat.connection.setup.duration).
+ */
+public class HandshakeTimingInterceptor implements HandshakeInterceptor {
+
+    /**
+     * Attribut de session : System.nanoTime() au début de la poignée de main
+     */
+    public static final String HANDSHAKE_START_ATTRIBUTE = "chat.handshakeStart";
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(HANDSHAKE_START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
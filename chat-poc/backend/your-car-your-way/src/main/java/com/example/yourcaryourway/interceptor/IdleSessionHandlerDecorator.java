@@ -0,0 +1,64 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.service.IdleSessionReaper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+
+/**
+ * Décorateur du handler WebSocket qui confie chaque session à IdleSessionReaper
+ *
+ * Toute trame reçue compte comme activité, y compris les heartbeats STOMP
+ * (un saut de ligne seul) qui n'atteignent jamais le canal entrant.
+ * Une session inactive est fermée avec le statut SESSION_NOT_RELIABLE :
+ * Spring publie alors SessionDisconnectEvent, qui libère sa conversation et sa présence.
+ */
+public class IdleSessionHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdleSessionHandlerDecorator.class);
+
+    private static final String ENTRY_ATTRIBUTE = "chat.idleEntry";
+
+    private final IdleSessionReaper reaper;
+
+    public IdleSessionHandlerDecorator(WebSocketHandler delegate, IdleSessionReaper reaper) {
+        super(delegate);
+        this.reaper = reaper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.getAttributes().put(ENTRY_ATTRIBUTE, reaper.register(session.getId(), () -> closeIdle(session)));
+        super.afterConnectionEstablished(session);
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        if (session.getAttributes().get(ENTRY_ATTRIBUTE) instanceof IdleSessionReaper.Entry entry) {
+            entry.touch();
+        }
+        super.handleMessage(session, message);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        if (session.getAttributes().remove(ENTRY_ATTRIBUTE) instanceof IdleSessionReaper.Entry entry) {
+            entry.cancel();
+        }
+        super.afterConnectionClosed(session, closeStatus);
+    }
+
+    private static void closeIdle(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.debug("Fermeture de la session inactive {} : {}", session.getId(), e.getMessage());
+        }
+    }
+}
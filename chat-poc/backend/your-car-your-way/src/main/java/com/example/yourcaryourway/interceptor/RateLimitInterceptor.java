@@ -0,0 +1,251 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatError;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.StompPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Intercepteur du canal entrant qui limite le débit des trames SEND
+ *
+ * Flux :
+ * 1. Chaque trame SEND consomme un jeton du seau de sa session, puis du seau de son utilisateur
+ *    (Principal attribué par le serveur, voir UserAssignmentInterceptor, partagé par ses sessions)
+ * 2. Les limites dépendent du rôle porté par ce Principal (chat.rate-limit.client / support).
+ *    Le nom et le rôle annoncés dans le JOIN ne comptent pas : le client les choisit, il pourrait
+ *    vider le seau d'un autre utilisateur en prenant son nom, ou se déclarer SUPPORT
+ * 3. Sans jeton, la trame est abandonnée : elle n'atteint ni les contrôleurs ni le broker.
+ *    Le client reçoit un ChatError sur /user/queue/errors, un seul par rafale refusée,
+ *    et garde sa connexion (une trame STOMP ERROR la ferait fermer par Spring)
+ * 4. À la déconnexion (trame DISCONNECT, envoyée aussi par Spring si la connexion tombe),
+ *    le seau de la session est retiré, celui de l'utilisateur avec sa dernière session
+ *
+ * Le contrôle ne prend aucun verrou : chaque seau est un AtomicLong mis à jour par CAS
+ * (voir TokenBucket), les seaux sont retrouvés dans des ConcurrentHashMap.
+ * Les refus sont comptés dans chat.ratelimit.rejected{role, scope}.
+ */
+public class RateLimitInterceptor implements ChannelInterceptor {
+
+    private static final ChatMessage.SenderRole[] ROLES = ChatMessage.SenderRole.values();
+
+    static final String ERRORS_DESTINATION = "/queue/errors";
+
+    private final ChatProperties.RateLimit properties;
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private final Map<String, UserState> users = new ConcurrentHashMap<>();
+
+    // Indexés par ordinal du rôle
+    private final Counter[] sessionRejections = new Counter[ROLES.length];
+    private final Counter[] userRejections = new Counter[ROLES.length];
+
+    public RateLimitInterceptor(ChatProperties.RateLimit properties, MeterRegistry meterRegistry,
+                                SimpMessageSendingOperations messagingTemplate) {
+        this.properties = properties;
+        this.messagingTemplate = messagingTemplate;
+        for (ChatMessage.SenderRole role : ROLES) {
+            sessionRejections[role.ordinal()] = rejectionCounter(meterRegistry, role, "session");
+            userRejections[role.ordinal()] = rejectionCounter(meterRegistry, role, "user");
+        }
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, ChatMessage.SenderRole role, String scope) {
+        return Counter.builder("chat.ratelimit.rejected")
+                .description("Trames SEND refusées par la limitation de débit")
+                .tag("role", role.name())
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+
+        if (type == SimpMessageType.DISCONNECT) {
+            sessionClosed(sessionId);
+        } else if (type == SimpMessageType.MESSAGE
+                && !tryAcquire(sessionId, SimpMessageHeaderAccessor.getUser(message.getHeaders()))) {
+            return null;
+        }
+        return message;
+    }
+
+    /**
+     * Consomme un jeton de la session puis de l'utilisateur
+     *
+     * @return false si la trame est refusée
+     */
+    private boolean tryAcquire(String sessionId, Principal principal) {
+        ChatMessage.SenderRole role = principal instanceof StompPrincipal stompPrincipal && stompPrincipal.getRole() != null
+                ? stompPrincipal.getRole() : ChatMessage.SenderRole.CLIENT;
+
+        SessionState session = sessions.get(sessionId);
+        if (session == null) {
+            session = newSession(sessionId, role);
+        }
+        long now = System.nanoTime();
+        if (!session.bucket.tryAcquire(now)) {
+            sessionRejections[role.ordinal()].increment();
+            reject(principal, session, "session");
+            return false;
+        }
+
+        if (principal == null) {
+            session.rejecting = false;
+            return true;
+        }
+        UserState user = session.user;
+        if (user == null) {
+            user = bindUser(session, principal.getName(), role);
+        }
+        if (!user.bucket.tryAcquire(now)) {
+            userRejections[role.ordinal()].increment();
+            reject(principal, session, "utilisateur");
+            return false;
+        }
+        session.rejecting = false;
+        return true;
+    }
+
+    /**
+     * Prévient le client sur /user/queue/errors, au premier refus d'une rafale seulement
+     */
+    private void reject(Principal principal, SessionState session, String scope) {
+        if (session.rejecting || principal == null) {
+            return;
+        }
+        session.rejecting = true;
+
+        messagingTemplate.convertAndSendToUser(principal.getName(), ERRORS_DESTINATION,
+                new ChatError(ChatError.RATE_LIMITED, "Débit de messages dépassé (" + scope + "), réessayez plus tard"));
+    }
+
+    /**
+     * Crée le seau d'une session, avec les limites du rôle de son Principal
+     */
+    private SessionState newSession(String sessionId, ChatMessage.SenderRole role) {
+        ChatProperties.RateLimit.Limits limits = properties.limitsFor(role);
+        SessionState created = new SessionState(new TokenBucket(limits.getSessionRate(), limits.getSessionBurst()));
+        SessionState previous = sessions.putIfAbsent(sessionId, created);
+        return previous != null ? previous : created;
+    }
+
+    /**
+     * Rattache la session au seau de son utilisateur (créé avec sa première session)
+     */
+    private UserState bindUser(SessionState session, String username, ChatMessage.SenderRole role) {
+        UserState user = users.compute(username, (name, existing) -> {
+            UserState state = existing;
+            if (state == null) {
+                ChatProperties.RateLimit.Limits limits = properties.limitsFor(role);
+                state = new UserState(name, new TokenBucket(limits.getUserRate(), limits.getUserBurst()));
+            }
+            state.sessions++;
+            return state;
+        });
+        session.user = user;
+        return user;
+    }
+
+    /**
+     * Retire l'état d'une session fermée (une session peut être annoncée fermée deux fois)
+     */
+    private void sessionClosed(String sessionId) {
+        SessionState session = sessions.remove(sessionId);
+        if (session != null && session.user != null) {
+            release(session.user);
+        }
+    }
+
+    private void release(UserState user) {
+        users.computeIfPresent(user.name, (name, state) -> state != user || --state.sessions > 0 ? state : null);
+    }
+
+    /**
+     * Nombre de sessions et d'utilisateurs suivis
+     */
+    int trackedSessions() {
+        return sessions.size();
+    }
+
+    int trackedUsers() {
+        return users.size();
+    }
+
+    private static final class SessionState {
+        final TokenBucket bucket;
+        volatile UserState user;
+        // Un ChatError a déjà été envoyé pour la rafale refusée en cours
+        volatile boolean rejecting;
+
+        SessionState(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private static final class UserState {
+        final String name;
+        final TokenBucket bucket;
+        // Modifié uniquement dans users.compute (verrou de l'entrée de la map)
+        int sessions;
+
+        UserState(String name, TokenBucket bucket) {
+            this.name = name;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * Seau de jetons sans verrou, sous la forme de l'algorithme GCRA
+     *
+     * Au lieu de compter les jetons restants, le seau garde l'instant théorique
+     * où il serait de nouveau plein (tat). Prendre un jeton avance cet instant d'un intervalle
+     * (1 / débit) ; la trame est refusée si l'instant dépasse maintenant + capacité x intervalle.
+     * Un seul AtomicLong suffit : la mise à jour est un CAS, sans allocation.
+     */
+    static final class TokenBucket {
+
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+            this.capacityNanos = intervalNanos * Math.max(1, burst);
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long next = Math.max(tat, now) + intervalNanos;
+                if (next - now > capacityNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
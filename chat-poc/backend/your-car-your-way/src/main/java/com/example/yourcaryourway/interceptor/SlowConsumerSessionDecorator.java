@@ -0,0 +1,303 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.service.ConversationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Session WebSocket qui applique la politique de débordement aux clients lents
+ *
+ * Spring bufferise les trames d'une session dont l'envoi est en cours
+ * (ConcurrentWebSocketSessionDecorator) et ferme la session au-delà des limites dures.
+ * Avant d'en arriver là, dès que le buffer dépasse chat.transport.slow-consumer-buffer-size
+ * ou qu'un envoi dure plus de chat.transport.slow-consumer-send-time :
+ * - DROP_SYSTEM : les nouvelles trames JOIN/LEAVE sont abandonnées, les messages CHAT passent
+ * - DISCONNECT : la session est fermée (le client se reconnecte et rejoue l'historique)
+ * - DIGEST : plus aucun message n'est bufferisé, seuls les derniers messages CHAT sont gardés
+ *   et envoyés dès que le buffer de Spring est vidé, par le thread qui termine de le vider,
+ *   sans attendre une nouvelle trame ; les plus anciens restent disponibles dans l'historique
+ *   ("Messages précédents")
+ *
+ * Les trames autres que MESSAGE (CONNECTED, RECEIPT, ERROR, heart-beat) ne sont jamais retenues.
+ * Une trame est classée d'après sa commande STOMP et ses en-têtes (chat-type, chat-batch posés
+ * par ConversationService), qu'elle parte en texte ou en binaire : son corps n'est jamais lu.
+ * Chaque décision est comptée dans chat.transport.slow.consumer{policy, decision}.
+ */
+public class SlowConsumerSessionDecorator extends ConcurrentWebSocketSessionDecorator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerSessionDecorator.class);
+
+    private static final String MESSAGE_FRAME = "MESSAGE\n";
+    private static final byte[] MESSAGE_FRAME_BYTES = MESSAGE_FRAME.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Compteur des décisions prises pour les clients lents
+     */
+    public static final String DECISIONS_METRIC = "chat.transport.slow.consumer";
+
+    private final ChatProperties.Transport.OverflowPolicy policy;
+    private final long slowBufferSize;
+    private final long slowSendTimeMillis;
+    private final int digestSize;
+
+    // Décision de la politique quand le client est lent (dropped, disconnected ou digested)
+    private final Counter slowCounter;
+    // Messages retenus évincés du digest (DIGEST uniquement, null sinon)
+    private final Counter evictedCounter;
+
+    // Derniers messages CHAT retenus en mode DIGEST (accès sous verrou)
+    private final Deque<WebSocketMessage<?>> digest = new ArrayDeque<>();
+    private volatile boolean digesting;
+    // Un thread envoie le digest : les nouveaux messages passent derrière lui, dans l'ordre
+    private boolean releasing;
+
+    public SlowConsumerSessionDecorator(WebSocketSession session, int sendTimeLimit, int sendBufferSizeLimit,
+                                        ChatProperties.Transport transport, MeterRegistry meterRegistry) {
+        super(session, sendTimeLimit, sendBufferSizeLimit, OverflowStrategy.TERMINATE);
+        this.policy = transport.getOverflowPolicy();
+        this.slowBufferSize = transport.getSlowConsumerBufferSize().toBytes();
+        this.slowSendTimeMillis = transport.getSlowConsumerSendTime().toMillis();
+        this.digestSize = transport.getDigestSize();
+
+        // Compteurs retrouvés une fois par session : une décision n'interroge pas le registre
+        this.slowCounter = decisionCounter(meterRegistry, switch (policy) {
+            case DROP_SYSTEM -> "dropped";
+            case DISCONNECT -> "disconnected";
+            case DIGEST -> "digested";
+        });
+        this.evictedCounter = policy == ChatProperties.Transport.OverflowPolicy.DIGEST
+                ? decisionCounter(meterRegistry, "evicted") : null;
+    }
+
+    private Counter decisionCounter(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder(DECISIONS_METRIC)
+                .description("Décisions prises pour les clients lents")
+                .tag("policy", policy.name())
+                .tag("decision", decision)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!isMessageFrame(message)) {
+            super.sendMessage(message);
+            if (policy == ChatProperties.Transport.OverflowPolicy.DIGEST) {
+                releaseDigestIfDrained();
+            }
+            return;
+        }
+
+        switch (policy) {
+            case DROP_SYSTEM -> {
+                if (isSlow() && isSystemFrame(message)) {
+                    slowCounter.increment();
+                    return;
+                }
+                super.sendMessage(message);
+            }
+            case DISCONNECT -> {
+                if (isSlow()) {
+                    slowCounter.increment();
+                    logger.warn("Session {} fermée : client trop lent", getId());
+                    close(CloseStatus.SESSION_NOT_RELIABLE);
+                    return;
+                }
+                super.sendMessage(message);
+            }
+            case DIGEST -> sendOrDigest(message);
+        }
+    }
+
+    /**
+     * Mode DIGEST : retient les messages tant que le client est lent,
+     * puis lui envoie les derniers messages CHAT retenus
+     */
+    private void sendOrDigest(WebSocketMessage<?> message) throws IOException {
+        boolean release;
+        synchronized (digest) {
+            // Le mode DIGEST dure jusqu'à ce que le buffer de Spring soit vidé
+            if (isSlow() || (digesting && !releasing && getBufferSize() > 0)) {
+                retain(message);
+                return;
+            }
+            release = digesting;
+            if (release) {
+                digest.addLast(message);
+                if (releasing) {
+                    return;
+                }
+                releasing = true;
+            }
+        }
+
+        if (release) {
+            sendDigest();
+        } else {
+            super.sendMessage(message);
+            releaseDigestIfDrained();
+        }
+    }
+
+    /**
+     * Garde un message du client lent : les JOIN/LEAVE sont abandonnés,
+     * seuls les digestSize derniers messages sont conservés
+     */
+    private void retain(WebSocketMessage<?> message) {
+        if (!digesting) {
+            digesting = true;
+            slowCounter.increment();
+        }
+        if (!isSystemFrame(message)) {
+            digest.addLast(message);
+        }
+        while (digest.size() > digestSize) {
+            digest.removeFirst();
+            evictedCounter.increment();
+        }
+    }
+
+    /**
+     * Appelé après chaque envoi : le thread qui vient de vider le buffer de Spring
+     * envoie les messages retenus, même si aucune autre trame ne suit
+     */
+    private void releaseDigestIfDrained() throws IOException {
+        if (!digesting) {
+            return;
+        }
+        synchronized (digest) {
+            if (!digesting || releasing || isSlow() || getBufferSize() > 0) {
+                return;
+            }
+            releasing = true;
+        }
+        sendDigest();
+    }
+
+    /**
+     * Envoie les messages retenus dans l'ordre, avec ceux arrivés pendant l'envoi
+     * Si le client redevient lent, le reste attend dans le digest le prochain rattrapage
+     */
+    private void sendDigest() throws IOException {
+        while (true) {
+            WebSocketMessage<?> next;
+            synchronized (digest) {
+                if (isSlow()) {
+                    releasing = false;
+                    return;
+                }
+                next = digest.pollFirst();
+                if (next == null) {
+                    releasing = false;
+                    digesting = false;
+                    return;
+                }
+            }
+            super.sendMessage(next);
+        }
+    }
+
+    /**
+     * Vrai si le client ne suit plus : buffer au-delà du seuil ou envoi bloqué trop longtemps
+     */
+    boolean isSlow() {
+        return getBufferSize() > slowBufferSize || getTimeSinceSendStarted() > slowSendTimeMillis;
+    }
+
+    /**
+     * Nombre de messages CHAT retenus en mode DIGEST
+     */
+    int getDigestSize() {
+        synchronized (digest) {
+            return digest.size();
+        }
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        return switch (message) {
+            case TextMessage text -> text.getPayload().startsWith(MESSAGE_FRAME);
+            case BinaryMessage binary -> startsWith(binary.getPayload(), MESSAGE_FRAME_BYTES);
+            default -> false;
+        };
+    }
+
+    /**
+     * Trame JOIN/LEAVE (seule ou regroupée) : sa perte ne fait perdre aucun message de la conversation
+     */
+    private static boolean isSystemFrame(WebSocketMessage<?> message) {
+        String headers = switch (message) {
+            case TextMessage text -> headers(text.getPayload());
+            case BinaryMessage binary -> headers(binary.getPayload());
+            default -> "";
+        };
+        for (String line : headers.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon);
+            String value = line.substring(colon + 1);
+            if (name.equals(ConversationService.BATCH_HEADER)
+                    || (name.equals(ConversationService.TYPE_HEADER) && isSystemType(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSystemType(String type) {
+        return type.equals(ChatMessage.MessageType.JOIN.name()) || type.equals(ChatMessage.MessageType.LEAVE.name());
+    }
+
+    /**
+     * En-têtes d'une trame texte : de la ligne de commande jusqu'à la ligne vide
+     */
+    private static String headers(String frame) {
+        int end = frame.indexOf("\n\n");
+        return end < 0 ? "" : frame.substring(MESSAGE_FRAME.length(), end);
+    }
+
+    /**
+     * En-têtes d'une trame binaire : de la ligne de commande jusqu'à la ligne vide
+     * Les en-têtes comparés sont en ASCII, le corps n'est pas décodé
+     */
+    private static String headers(ByteBuffer frame) {
+        int start = frame.position() + MESSAGE_FRAME_BYTES.length;
+        for (int i = start; i < frame.limit() - 1; i++) {
+            if (frame.get(i) == '\n' && frame.get(i + 1) == '\n') {
+                byte[] headers = new byte[i - start];
+                frame.get(start, headers);
+                return new String(headers, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return "";
+    }
+
+    private static boolean startsWith(ByteBuffer frame, byte[] prefix) {
+        if (frame.remaining() < prefix.length) {
+            return false;
+        }
+        int position = frame.position();
+        for (int i = 0; i < prefix.length; i++) {
+            if (frame.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
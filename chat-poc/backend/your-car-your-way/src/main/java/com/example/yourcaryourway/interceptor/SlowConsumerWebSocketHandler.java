@@ -0,0 +1,155 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.service.ChatMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handler STOMP dont chaque session applique la politique des clients lents
+ *
+ * Remplace le ConcurrentWebSocketSessionDecorator de Spring par SlowConsumerSessionDecorator,
+ * avec les mêmes limites dures (chat.transport.send-*-limit).
+ * Publie chat.transport.buffer.bytes : total des trames en attente sur toutes les sessions,
+ * qui reste borné par nombre de sessions x limite du buffer, même si beaucoup de clients calent.
+ * Publie aussi chat.sessions.active, et mesure chaque envoi de trame sortante
+ * (chat.transport.send.duration, chat.messages.out : voir ChatMetrics).
+ * Compte enfin les connexions par transport, et mesure leur établissement jusqu'à la trame
+ * CONNECTED (chat.connections, chat.connection.setup.duration, voir HandshakeTimingInterceptor).
+ * À l'arrêt progressif, DrainService suit les sessions restantes et leurs trames en attente,
+ * puis ferme les dernières (closeSessions).
+ */
+public class SlowConsumerWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowConsumerWebSocketHandler.class);
+
+    private final ChatProperties.Transport transport;
+    private final MeterRegistry meterRegistry;
+    private final ChatMetrics metrics;
+    private final Map<String, SlowConsumerSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    public SlowConsumerWebSocketHandler(MessageChannel clientInboundChannel, SubscribableChannel clientOutboundChannel,
+                                        ChatProperties.Transport transport, MeterRegistry meterRegistry,
+                                        ChatMetrics metrics) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.transport = transport;
+        this.meterRegistry = meterRegistry;
+        this.metrics = metrics;
+
+        Gauge.builder("chat.transport.buffer.bytes", this, SlowConsumerWebSocketHandler::getBufferedBytes)
+                .description("Octets en attente d'envoi sur l'ensemble des sessions WebSocket")
+                .register(meterRegistry);
+        Gauge.builder("chat.sessions.active", sessions, Map::size)
+                .description("Sessions WebSocket ouvertes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Envoi d'une trame du canal sortant vers sa session : mesuré, et compté par rôle
+     * du destinataire pour les trames MESSAGE.
+     * La trame CONNECTED clôt la mesure de l'établissement de la connexion
+     */
+    @Override
+    public void handleMessage(Message<?> message) throws MessagingException {
+        long start = System.nanoTime();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.CONNECT_ACK) {
+            // Avant l'envoi : le client peut agir dès la réception de CONNECTED
+            recordConnectionSetup(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        }
+        try {
+            super.handleMessage(message);
+        } finally {
+            metrics.recordSend(start);
+            if (type == SimpMessageType.MESSAGE) {
+                metrics.recordOutbound(roleOf(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())));
+            }
+        }
+    }
+
+    /**
+     * Rôle annoncé par la session dans son JOIN (attribut "role", voir ChatController)
+     */
+    private ChatMessage.SenderRole roleOf(String sessionId) {
+        SlowConsumerSessionDecorator session = sessionId != null ? sessions.get(sessionId) : null;
+        return session != null && session.getAttributes().get("role") instanceof ChatMessage.SenderRole role
+                ? role : null;
+    }
+
+    /**
+     * Durée d'établissement de la connexion, mesurée une seule fois (à la trame CONNECTED)
+     */
+    private void recordConnectionSetup(String sessionId) {
+        SlowConsumerSessionDecorator session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session != null
+                && session.getAttributes().remove(HandshakeTimingInterceptor.HANDSHAKE_START_ATTRIBUTE) instanceof Long start) {
+            metrics.recordConnectionSetup(ChatMetrics.Transport.of(session.getLastSession()), start);
+        }
+    }
+
+    /**
+     * Sessions ouvertes
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Octets en attente d'envoi sur l'ensemble des sessions
+     */
+    public long getBufferedBytes() {
+        return sessions.values().stream().mapToLong(SlowConsumerSessionDecorator::getBufferSize).sum();
+    }
+
+    /**
+     * Ferme toutes les sessions ouvertes (arrêt progressif, voir DrainService)
+     *
+     * @param status Statut de fermeture envoyé aux clients
+     * @return Le nombre de sessions fermées
+     */
+    public int closeSessions(CloseStatus status) {
+        int closed = 0;
+        for (SlowConsumerSessionDecorator session : sessions.values()) {
+            try {
+                session.close(status);
+                closed++;
+            } catch (IOException e) {
+                logger.debug("Fermeture de la session {} : {}", session.getId(), e.getMessage());
+            }
+        }
+        return closed;
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        SlowConsumerSessionDecorator decorated = new SlowConsumerSessionDecorator(
+                session, getSendTimeLimit(), getSendBufferSizeLimit(), transport, meterRegistry);
+        sessions.put(session.getId(), decorated);
+        metrics.connectionOpened(ChatMetrics.Transport.of(session));
+        return decorated;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        if (sessions.remove(session.getId()) != null) {
+            metrics.connectionClosed(ChatMetrics.Transport.of(session));
+        }
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Intercepteur de poignée de main qui authentifie les agents SUPPORT
+ *
+ * Le jeton est lu dans le paramètre access_token (un navigateur ne peut pas poser d'en-tête
+ * sur une connexion WebSocket, et SockJS conserve la query string) ou dans l'en-tête
+ * Authorization: Bearer. Un jeton valide inscrit le rôle SUPPORT dans les attributs de session,
+ * repris par UserAssignmentInterceptor au CONNECT. Un jeton invalide est refusé (401) ;
+ * sans jeton, la session est un client anonyme.
+ */
+public class SupportAuthenticationInterceptor implements HandshakeInterceptor {
+
+    // Attribut de session portant le rôle attribué par le serveur
+    public static final String ROLE_ATTRIBUTE = "authenticatedRole";
+
+    static final String TOKEN_PARAMETER = "access_token";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final byte[] accessToken;
+
+    public SupportAuthenticationInterceptor(String accessToken) {
+        this.accessToken = accessToken == null ? new byte[0] : accessToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = token(request);
+        if (token == null) {
+            return true;
+        }
+        // Comparaison en temps constant : la durée ne renseigne pas sur le préfixe correct
+        if (accessToken.length == 0 || !MessageDigest.isEqual(accessToken, token.getBytes(StandardCharsets.UTF_8))) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(ROLE_ATTRIBUTE, ChatMessage.SenderRole.SUPPORT);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static String token(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length()).trim();
+        }
+        String parameter = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst(TOKEN_PARAMETER);
+        return parameter == null || parameter.isEmpty() ? null : UriUtils.decode(parameter, StandardCharsets.UTF_8);
+    }
+}
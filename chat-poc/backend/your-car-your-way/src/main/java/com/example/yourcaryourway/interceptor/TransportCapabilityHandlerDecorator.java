@@ -0,0 +1,33 @@
+package com.example.yourcaryourway.interceptor;
+
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+/**
+ * Décorateur du handler WebSocket qui note ce que le transport de la session sait transporter
+ *
+ * Les transports SockJS (y compris sa variante WebSocket) n'écrivent que du texte :
+ * une trame binaire y serait corrompue. Seules les connexions WebSocket directes
+ * (/ws-native, ou /ws/websocket) acceptent les trames binaires.
+ * L'information est posée dans les attributs de la session, que Spring recopie
+ * dans chaque message STOMP entrant (simpSessionAttributes).
+ */
+public class TransportCapabilityHandlerDecorator extends WebSocketHandlerDecorator {
+
+    /**
+     * Attribut de session : Boolean.TRUE si la session accepte les trames binaires
+     */
+    public static final String BINARY_FRAMES_ATTRIBUTE = "chat.binaryFrames";
+
+    public TransportCapabilityHandlerDecorator(WebSocketHandler delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.getAttributes().put(BINARY_FRAMES_ATTRIBUTE, !(session instanceof SockJsSession));
+        super.afterConnectionEstablished(session);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.StompPrincipal;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Intercepteur du canal entrant qui attribue un Principal à chaque session
+ *
+ * Flux :
+ * 1. Le client envoie la trame STOMP CONNECT (ou STOMP)
+ * 2. Si la session n'a pas encore d'utilisateur, on lui attribue un StompPrincipal unique,
+ *    avec le rôle authentifié à la poignée de main (voir SupportAuthenticationInterceptor),
+ *    CLIENT à défaut
+ * 3. Spring associe ce Principal à la session pour toute sa durée de vie
+ * 4. Les messages privés peuvent ensuite être envoyés avec convertAndSendToUser
+ */
+public class UserAssignmentInterceptor implements ChannelInterceptor {
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+
+        if (accessor != null && SimpMessageType.CONNECT.equals(accessor.getMessageType()) && accessor.getUser() == null) {
+            accessor.setUser(new StompPrincipal(UUID.randomUUID().toString(), role(accessor)));
+        }
+
+        return message;
+    }
+
+    private static ChatMessage.SenderRole role(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Object role = attributes == null ? null : attributes.get(SupportAuthenticationInterceptor.ROLE_ATTRIBUTE);
+        return role instanceof ChatMessage.SenderRole senderRole ? senderRole : ChatMessage.SenderRole.CLIENT;
+    }
+}
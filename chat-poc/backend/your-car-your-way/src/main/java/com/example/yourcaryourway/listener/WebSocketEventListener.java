@@ -1,28 +1,62 @@
 package com.example.yourcaryourway.listener;
 
 import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.service.ChatMetrics;
+import com.example.yourcaryourway.service.ConversationService;
+import com.example.yourcaryourway.service.PresenceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
 
 /**
  * Listener qui écoute les événements WebSocket
  *
  * Gère spécifiquement les déconnexions des utilisateurs
- * pour annoncer leur départ aux autres utilisateurs
+ * pour annoncer leur départ aux participants de leurs conversations.
+ * Suit aussi les abonnements de chaque session pour les métriques (voir ChatMetrics)
+ * et les connexions / déconnexions pour la présence (voir PresenceService).
  */
 
+@Component
 public class WebSocketEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketEventListener.class);
 
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final ConversationService conversationService;
+
+    private final ChatMetrics metrics;
 
-    public WebSocketEventListener(SimpMessageSendingOperations messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    private final PresenceService presenceService;
+
+    public WebSocketEventListener(ConversationService conversationService, ChatMetrics metrics,
+                                  PresenceService presenceService) {
+        this.conversationService = conversationService;
+        this.metrics = metrics;
+        this.presenceService = presenceService;
+    }
+
+    /**
+     * Enregistre une session qui vient de se connecter (trame CONNECTED envoyée)
+     *
+     * Publié avant l'envoi de la trame CONNECTED : la session est enregistrée
+     * avant que le client puisse envoyer son JOIN.
+     *
+     * @param event L'événement de connexion
+     */
+    @EventListener
+    public void handleWebSocketConnectListener(SessionConnectedEvent event) {
+        Principal principal = event.getUser();
+        if (principal != null) {
+            presenceService.connected(principal.getName());
+        }
     }
 
     /**
@@ -33,20 +67,34 @@ public class WebSocketEventListener {
      * 2. Spring détecte la déconnexion
      * 3. Cette méthode est appelée automatiquement
      * 4. On récupère le nom d'utilisateur depuis la session
-     * 5. On diffuse un message LEAVE à tous les autres utilisateurs
+     * 5. On transmet un message LEAVE aux autres participants de ses conversations
      *
      * @param event L'événement de déconnexion contenant les infos de session
      */
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
+        long start = System.nanoTime();
+        try {
+            metrics.sessionClosed(event.getSessionId());
+            if (event.getUser() != null) {
+                presenceService.disconnected(event.getUser().getName());
+            }
+            announceLeave(event);
+        } finally {
+            metrics.recordHandling(ChatMetrics.Handler.DISCONNECT, start);
+        }
+    }
+
+    private void announceLeave(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
 
         // Récupère le nom d'utilisateur depuis la session WebSocket
         String username = (String) headerAccessor.getSessionAttributes().get("username");
         ChatMessage.SenderRole role = (ChatMessage.SenderRole) headerAccessor.getSessionAttributes().get("role");
+        Principal principal = event.getUser();
 
-        if (username != null) {
+        if (username != null && principal != null) {
             logger.info("Utilisateur déconnecté : {} ({})", username, role);
 
             // Crée un message LEAVE pour annoncer le départ
@@ -57,8 +105,31 @@ public class WebSocketEventListener {
                     username + " a quitté le chat"
             );
 
-            // Diffuse le message de départ à tous les utilisateurs connectés
-            messagingTemplate.convertAndSend("/topic/public", chatMessage);
+            // Transmet le message de départ aux participants de ses conversations
+            conversationService.closeSession(principal.getName(), chatMessage);
         }
     }
+
+    /**
+     * Compte un abonnement (SUBSCRIBE) par destination
+     *
+     * @param event L'événement d'abonnement
+     */
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        metrics.subscribed(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId(),
+                headerAccessor.getDestination());
+    }
+
+    /**
+     * Retire un abonnement (UNSUBSCRIBE)
+     *
+     * @param event L'événement de désabonnement
+     */
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        metrics.unsubscribed(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId());
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.yourcaryourway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Disponibilité d'une catégorie ACRISS dans une agence sur une période
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryAvailability {
+
+    // Catégorie ACRISS (ECMR, ICAR...)
+    private String acrissCode;
+
+    // Véhicules de la catégorie en service dans l'agence
+    private int fleetSize;
+
+    // Véhicules retenus par des réservations au moment le plus chargé de la période
+    private int booked;
+
+    // Véhicules libres sur toute la période (fleetSize - booked, jamais négatif)
+    private int available;
+}
@@ -0,0 +1,12 @@
+package com.example.yourcaryourway.model;
+
+/**
+ * Erreur signalée à une session sur /user/queue/errors, sans fermer sa connexion
+ *
+ * @param code Nature de l'erreur (RATE_LIMITED : trames refusées par la limitation de débit)
+ * @param message Explication destinée à l'utilisateur
+ */
+public record ChatError(String code, String message) {
+
+    public static final String RATE_LIMITED = "RATE_LIMITED";
+}
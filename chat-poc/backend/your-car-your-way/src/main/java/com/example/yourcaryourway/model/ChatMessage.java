@@ -21,7 +21,8 @@ public class ChatMessage {
     public enum MessageType {
         JOIN,      // Un utilisateur rejoint le chat
         LEAVE,     // Un utilisateur quitte le chat
-        CHAT       // Message normal de conversation
+        CHAT,      // Message normal de conversation
+        RECONNECT  // Demande de reconnexion envoyée par le serveur avant son arrêt (voir DrainService)
     }
 
     /**
@@ -35,6 +36,9 @@ public class ChatMessage {
     // Identifiant unique du message
     private String id;
 
+    // Identifiant de la conversation à laquelle appartient le message
+    private String conversationId;
+
     // Type de message (JOIN, LEAVE, CHAT)
     private MessageType type;
 
@@ -0,0 +1,57 @@
+package com.example.yourcaryourway.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Conversation privée entre un CLIENT et l'agent SUPPORT qui lui est assigné
+ *
+ * Les participants sont identifiés par le nom du Principal de leur session STOMP,
+ * c'est ce nom qui sert à router les messages via les destinations /user/...
+ */
+@Data
+@NoArgsConstructor
+public class Conversation {
+
+    // Identifiant unique de la conversation
+    private String id;
+
+    // Nom affiché du client
+    private String clientName;
+
+    // Principal STOMP de la session du client
+    private String clientUser;
+
+    // Nom affiché de l'agent assigné (null tant qu'aucun agent n'est disponible)
+    // Les champs d'assignation sont volatile : ils sont écrits par le thread qui dispatche
+    // et lus par les threads qui routent les messages
+    private volatile String agentName;
+
+    // Principal STOMP de la session de l'agent assigné
+    private volatile String agentUser;
+
+    // Passe à true quand le client quitte la conversation
+    private volatile boolean closed;
+
+    // Date d'ouverture de la conversation
+    private LocalDateTime createdAt;
+
+    /**
+     * Constructeur pour ouvrir une nouvelle conversation pour un client
+     */
+    public Conversation(String clientName, String clientUser) {
+        this.id = java.util.UUID.randomUUID().toString();
+        this.clientName = clientName;
+        this.clientUser = clientUser;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Indique si un agent SUPPORT est assigné à la conversation
+     */
+    public boolean hasAgent() {
+        return agentUser != null;
+    }
+}
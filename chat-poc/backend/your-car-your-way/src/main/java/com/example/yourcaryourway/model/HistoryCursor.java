@@ -0,0 +1,64 @@
+package com.example.yourcaryourway.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position dans l'historique d'une conversation, pour la pagination par clé
+ *
+ * Les messages sont ordonnés par (timestamp, id) : une page contient les
+ * messages strictement antérieurs au curseur. Côté client, le curseur est
+ * un jeton opaque (Base64 URL de "timestamp|id").
+ */
+public record HistoryCursor(LocalDateTime timestamp, String id) implements Comparable<HistoryCursor> {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Curseur positionné sur un message
+     */
+    public static HistoryCursor of(ChatMessage message) {
+        return new HistoryCursor(message.getTimestamp(), message.getId());
+    }
+
+    /**
+     * Décode un jeton reçu du client
+     *
+     * @throws IllegalArgumentException si le jeton est invalide
+     */
+    public static HistoryCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Curseur d'historique invalide");
+            }
+            return new HistoryCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur d'historique invalide", e);
+        }
+    }
+
+    /**
+     * Encode le curseur en jeton opaque
+     */
+    public String encode() {
+        String value = timestamp.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Indique si un message est strictement antérieur au curseur
+     */
+    public boolean isAfter(ChatMessage message) {
+        return compareTo(of(message)) > 0;
+    }
+
+    @Override
+    public int compareTo(HistoryCursor other) {
+        int byTimestamp = timestamp.compareTo(other.timestamp);
+        return byTimestamp != 0 ? byTimestamp : id.compareTo(other.id);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.yourcaryourway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de l'historique d'une conversation
+ *
+ * Les messages sont dans l'ordre chronologique. Pour charger les messages
+ * plus anciens, le client renvoie nextCursor (null quand tout est chargé).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+
+    // Conversation à laquelle appartiennent les messages
+    private String conversationId;
+
+    // Messages de la page, du plus ancien au plus récent
+    private List<ChatMessage> messages;
+
+    // Jeton à renvoyer pour obtenir la page précédente
+    private String nextCursor;
+}
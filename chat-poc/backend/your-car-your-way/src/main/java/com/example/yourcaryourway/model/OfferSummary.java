@@ -0,0 +1,18 @@
+package com.example.yourcaryourway.model;
+
+/**
+ * Projection compacte de l'offre d'une réservation (offer_snapshot_json) pour les listes
+ *
+ * Enregistrée avec la réservation (colonnes offer_*) : une liste n'analyse pas le JSON.
+ *
+ * @param vehicleName Marque et modèle présentés au client, null si l'offre ne portait que sur la catégorie
+ * @param days Jours de location facturés
+ * @param optionCount Nombre d'options choisies
+ */
+public record OfferSummary(String vehicleName, Integer days, Integer optionCount) {
+
+    /**
+     * Offre illisible ou vide
+     */
+    public static final OfferSummary EMPTY = new OfferSummary(null, null, null);
+}
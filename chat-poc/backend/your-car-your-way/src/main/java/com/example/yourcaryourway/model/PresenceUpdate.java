@@ -0,0 +1,39 @@
+package com.example.yourcaryourway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Présence des utilisateurs, publiée sur /topic/presence
+ *
+ * - Delta (snapshot = false) : changements depuis la publication précédente,
+ *   regroupés sur un intervalle (chat.presence.tick)
+ * - Instantané (snapshot = true) : renvoyé à l'abonnement à /app/presence,
+ *   agentsJoined contient alors tous les agents en ligne
+ *
+ * Le client applique l'instantané, puis les deltas de numéro supérieur.
+ * Seuls les agents SUPPORT sont nommés : les clients ne sont que comptés.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceUpdate {
+
+    // Numéro de la dernière publication prise en compte
+    private long sequence;
+
+    private boolean snapshot;
+
+    // Nombre d'agents SUPPORT et de clients en ligne
+    private int agentsOnline;
+
+    private int clientsOnline;
+
+    // Agents arrivés et partis depuis la publication précédente
+    private List<String> agentsJoined;
+
+    private List<String> agentsLeft;
+}
@@ -0,0 +1,41 @@
+package com.example.yourcaryourway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Prix d'une location pour une catégorie, calculé sur un tarif (voir PricingService)
+ *
+ * days = 7 × weeks + extraDays : les semaines complètes au tarif hebdomadaire,
+ * les jours restants au tarif journalier, plafonnés à une semaine.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Quote {
+
+    private String acrissCode;
+
+    // Tarif appliqué, et version des tarifs sur laquelle le prix a été calculé
+    private String ratePlanId;
+
+    private long pricingVersion;
+
+    // Jours de location (périodes de 24 heures entamées)
+    private int days;
+
+    private int weeks;
+
+    private int extraDays;
+
+    private BigDecimal dailyRate;
+
+    private BigDecimal weeklyRate;
+
+    private BigDecimal totalPrice;
+
+    private String currency;
+}
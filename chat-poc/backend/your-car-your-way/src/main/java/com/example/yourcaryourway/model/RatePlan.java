@@ -0,0 +1,33 @@
+package com.example.yourcaryourway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Tarif d'une catégorie ACRISS dans une devise, sur une période de validité (table rate_plan)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatePlan {
+
+    private String id;
+
+    private String acrissCode;
+
+    // Prix d'un jour de location, et d'une semaine complète
+    private BigDecimal dailyRate;
+
+    private BigDecimal weeklyRate;
+
+    private String currency;
+
+    // Jours de prise en charge couverts par le tarif, bornes incluses
+    private LocalDate validFrom;
+
+    private LocalDate validUntil;
+}
@@ -0,0 +1,78 @@
+package com.example.yourcaryourway.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Réservation d'un véhicule (table reservation)
+ *
+ * Le client réserve une catégorie ACRISS dans une agence de prise en charge :
+ * le véhicule lui-même est attribué au comptoir.
+ */
+@Data
+@NoArgsConstructor
+public class Reservation {
+
+    /**
+     * Statuts d'une réservation
+     */
+    public enum Status {
+        PENDING,    // En attente de paiement
+        CONFIRMED,  // Payée
+        MODIFIED,   // Modifiée après confirmation
+        CANCELLED,  // Annulée
+        COMPLETED;  // Véhicule restitué
+
+        /**
+         * Vrai si la réservation retient un véhicule de sa catégorie sur sa période
+         */
+        public boolean holdsVehicle() {
+            return this == PENDING || this == CONFIRMED || this == MODIFIED;
+        }
+    }
+
+    private String id;
+
+    private String userId;
+
+    // Agences de prise en charge et de restitution
+    private String pickupLocationId;
+
+    private String returnLocationId;
+
+    // Numéro communiqué au client (YCYW-00001)
+    private String reservationNumber;
+
+    private Status status;
+
+    // Catégorie ACRISS réservée (ECMR, ICAR...)
+    private String acrissCode;
+
+    // Période de location, en heure locale de l'agence
+    private LocalDateTime startAt;
+
+    private LocalDateTime endAt;
+
+    private BigDecimal totalPrice;
+
+    private String currency;
+
+    // Offre telle que présentée au client au moment de la réservation (JSON)
+    private String offerSnapshotJson;
+
+    // Projection de l'offre pour les listes (colonnes offer_*)
+    private OfferSummary offerSummary;
+
+    // Clé fournie par le client pour rejouer sa requête sans doublon
+    private String idempotencyKey;
+
+    /**
+     * Vrai si la réservation retient un véhicule (voir Status.holdsVehicle)
+     */
+    public boolean holdsVehicle() {
+        return status != null && status.holdsVehicle();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.yourcaryourway.model;
+
+/**
+ * Événement publié après la création, la modification ou l'annulation d'une réservation
+ *
+ * Les index en mémoire (disponibilités) retirent l'état précédent et ajoutent le nouveau.
+ *
+ * @param previous Réservation avant le changement, null pour une création
+ * @param current Réservation après le changement
+ */
+public record ReservationChangedEvent(Reservation previous, Reservation current) {
+}
@@ -0,0 +1,12 @@
+package com.example.yourcaryourway.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Vue détail d'une réservation, avec son offre analysée
+ *
+ * @param reservation La réservation (sans le JSON brut de l'offre)
+ * @param offer L'offre telle que présentée au client, partagée par le cache : à ne pas modifier
+ */
+public record ReservationDetail(Reservation reservation, JsonNode offer) {
+}
@@ -0,0 +1,33 @@
+package com.example.yourcaryourway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Demande de réservation envoyée par le client (corps de POST /reservations)
+ *
+ * Le prix n'en fait pas partie : il est recalculé sur les tarifs en vigueur (voir PricingService).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+
+    private String userId;
+
+    private String pickupLocationId;
+
+    private String returnLocationId;
+
+    private String acrissCode;
+
+    // Période de location, en heure locale de l'agence
+    private LocalDateTime startAt;
+
+    private LocalDateTime endAt;
+
+    private String currency;
+}
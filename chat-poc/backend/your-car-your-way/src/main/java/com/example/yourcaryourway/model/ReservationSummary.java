@@ -0,0 +1,42 @@
+package com.example.yourcaryourway.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de la liste « mes réservations » : colonnes de la réservation et projection de son offre
+ *
+ * L'offre complète (JSON) n'est lue que par la vue détail (voir ReservationQueryService).
+ */
+@Data
+@NoArgsConstructor
+public class ReservationSummary {
+
+    private String id;
+
+    private String reservationNumber;
+
+    private Reservation.Status status;
+
+    private String acrissCode;
+
+    private String pickupLocationId;
+
+    private LocalDateTime startAt;
+
+    private LocalDateTime endAt;
+
+    private BigDecimal totalPrice;
+
+    private String currency;
+
+    // Projection de l'offre (voir OfferSummary)
+    private String vehicleName;
+
+    private Integer days;
+
+    private Integer optionCount;
+}
@@ -0,0 +1,44 @@
+package com.example.yourcaryourway.model;
+
+import java.security.Principal;
+
+/**
+ * Principal anonyme attaché à chaque session STOMP
+ *
+ * Le PoC n'a pas d'authentification : chaque session reçoit un identifiant
+ * unique à la connexion, ce qui permet d'utiliser les destinations /user/...
+ * (convertAndSendToUser) pour adresser un message à une seule session.
+ *
+ * Le rôle est attribué par le serveur, jamais repris du client : une session anonyme
+ * est un CLIENT. Le rôle SUPPORT vient du jeton présenté à la poignée de main
+ * (voir SupportAuthenticationInterceptor et UserAssignmentInterceptor).
+ */
+public class StompPrincipal implements Principal {
+
+    private final String name;
+
+    private final ChatMessage.SenderRole role;
+
+    public StompPrincipal(String name) {
+        this(name, ChatMessage.SenderRole.CLIENT);
+    }
+
+    public StompPrincipal(String name, ChatMessage.SenderRole role) {
+        this.name = name;
+        this.role = role;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public ChatMessage.SenderRole getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return "StompPrincipal[" + name + ", " + role + "]";
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.yourcaryourway.repository;
+
+import com.example.yourcaryourway.model.CategoryAvailability;
+import com.example.yourcaryourway.model.Reservation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Accès JDBC au parc (vehicle) et aux réservations (reservation) pour les disponibilités
+ *
+ * - Chargement de l'index en mémoire : parc par agence et catégorie, réservations en cours ou à venir
+ * - Recherche par SQL seul, quand l'index n'est pas chargé
+ */
+@Repository
+public class AvailabilityRepository {
+
+    // Statuts qui retiennent un véhicule (voir Reservation.Status.holdsVehicle)
+    private static final String HOLDING_STATUSES = "('PENDING', 'CONFIRMED', 'MODIFIED')";
+
+    private static final String SELECT_FLEET =
+            "SELECT location_id, acriss_code, COUNT(*) AS fleet FROM vehicle"
+                    + " WHERE available = TRUE GROUP BY location_id, acriss_code";
+
+    private static final String SELECT_HOLDING_RESERVATIONS =
+            "SELECT id, pickup_location_id, acriss_code, status, start_at, end_at FROM reservation"
+                    + " WHERE status IN " + HOLDING_STATUSES + " AND end_at > ?";
+
+    // Parc de l'agence, et réservations qui chevauchent la période (index pickup_location_id, acriss_code, dates)
+    private static final String SELECT_AVAILABILITY =
+            "SELECT f.acriss_code, f.fleet, COALESCE(b.booked, 0) AS booked FROM"
+                    + " (SELECT acriss_code, COUNT(*) AS fleet FROM vehicle"
+                    + "   WHERE location_id = ? AND available = TRUE GROUP BY acriss_code) f"
+                    + " LEFT JOIN (SELECT acriss_code, COUNT(*) AS booked FROM reservation"
+                    + "   WHERE pickup_location_id = ? AND status IN " + HOLDING_STATUSES
+                    + "   AND start_at < ? AND end_at > ? GROUP BY acriss_code) b"
+                    + " ON b.acriss_code = f.acriss_code"
+                    + " ORDER BY f.acriss_code";
+
+    /**
+     * Véhicules en service d'une catégorie dans une agence
+     */
+    public record FleetCount(String locationId, String acrissCode, int fleet) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AvailabilityRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Parc en service, par agence et catégorie
+     */
+    public List<FleetCount> findFleet() {
+        return jdbcTemplate.query(SELECT_FLEET, (rs, rowNum) ->
+                new FleetCount(rs.getString("location_id"), rs.getString("acriss_code"), rs.getInt("fleet")));
+    }
+
+    /**
+     * Parcourt les réservations qui retiennent un véhicule après une date, sans les garder en liste
+     *
+     * Seules les colonnes utiles aux disponibilités sont lues (pas l'offre JSON).
+     */
+    public void forEachHoldingReservation(LocalDateTime endingAfter, Consumer<Reservation> consumer) {
+        jdbcTemplate.query(SELECT_HOLDING_RESERVATIONS, rs -> {
+            Reservation reservation = new Reservation();
+            reservation.setId(rs.getString("id"));
+            reservation.setPickupLocationId(rs.getString("pickup_location_id"));
+            reservation.setAcrissCode(rs.getString("acriss_code"));
+            reservation.setStatus(Reservation.Status.valueOf(rs.getString("status")));
+            reservation.setStartAt(rs.getTimestamp("start_at").toLocalDateTime());
+            reservation.setEndAt(rs.getTimestamp("end_at").toLocalDateTime());
+            consumer.accept(reservation);
+        }, Timestamp.valueOf(endingAfter));
+    }
+
+    /**
+     * Disponibilités d'une agence sur une période, par SQL seul
+     *
+     * Toute réservation qui chevauche la période compte, même si elle ne croise pas les autres :
+     * le résultat est un majorant des véhicules réservés (l'index en mémoire calcule le pic exact).
+     */
+    public List<CategoryAvailability> findAvailability(String locationId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT_AVAILABILITY, (rs, rowNum) -> {
+            int fleet = rs.getInt("fleet");
+            int booked = rs.getInt("booked");
+            return new CategoryAvailability(rs.getString("acriss_code"), fleet, booked, Math.max(0, fleet - booked));
+        }, locationId, locationId, Timestamp.valueOf(to), Timestamp.valueOf(from));
+    }
+}
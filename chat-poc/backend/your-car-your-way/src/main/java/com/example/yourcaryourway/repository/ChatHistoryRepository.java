@@ -0,0 +1,221 @@
+package com.example.yourcaryourway.repository;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Accès JDBC aux tables conversation et chat_message
+ *
+ * Les insertions se font en une seule requête multi-lignes
+ * (INSERT ... VALUES (...), (...), ...) pour limiter les allers-retours
+ */
+@Repository
+public class ChatHistoryRepository {
+
+    private static final String INSERT_CONVERSATION =
+            "INSERT INTO conversation (id, client_name, created_at) VALUES ";
+    private static final String CONVERSATION_ROW = "(?, ?, ?)";
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO chat_message (id, conversation_id, type, sender, sender_role, content, sent_at) VALUES ";
+    private static final String MESSAGE_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ASSIGN_AGENT =
+            "UPDATE conversation SET agent_name = ? WHERE id = ?";
+
+    private static final String CLOSE_CONVERSATION =
+            "UPDATE conversation SET closed_at = ? WHERE id = ?";
+
+    private static final String REOPEN_CONVERSATION =
+            "UPDATE conversation SET closed_at = NULL, agent_name = NULL WHERE id = ?";
+
+    private static final String SELECT_CONVERSATION =
+            "SELECT id, client_name, created_at FROM conversation WHERE id = ?";
+
+    // Pagination par clé sur l'index (conversation_id, sent_at, id) : pas d'OFFSET,
+    // le coût d'une page ne dépend pas de sa position dans l'historique
+    private static final String SELECT_LATEST_MESSAGES =
+            "SELECT id, conversation_id, type, sender, sender_role, content, sent_at FROM chat_message"
+                    + " WHERE conversation_id = ?"
+                    + " ORDER BY sent_at DESC, id DESC LIMIT ?";
+
+    private static final String SELECT_MESSAGES_BEFORE =
+            "SELECT id, conversation_id, type, sender, sender_role, content, sent_at FROM chat_message"
+                    + " WHERE conversation_id = ? AND (sent_at < ? OR (sent_at = ? AND id < ?))"
+                    + " ORDER BY sent_at DESC, id DESC LIMIT ?";
+
+    private static final RowMapper<ChatMessage> MESSAGE_MAPPER = (rs, rowNum) -> {
+        ChatMessage message = new ChatMessage();
+        message.setId(rs.getString("id"));
+        message.setConversationId(rs.getString("conversation_id"));
+        message.setType(ChatMessage.MessageType.valueOf(rs.getString("type")));
+        message.setSender(rs.getString("sender"));
+        message.setSenderRole(ChatMessage.SenderRole.valueOf(rs.getString("sender_role")));
+        message.setContent(rs.getString("content"));
+        message.setTimestamp(rs.getTimestamp("sent_at").toLocalDateTime());
+        return message;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChatHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insère plusieurs conversations en une seule requête
+     *
+     * L'agent est enregistré à part (assignAgents) : il est assigné après l'ouverture
+     */
+    public void insertConversations(List<Conversation> conversations) {
+        if (conversations.isEmpty()) {
+            return;
+        }
+
+        List<Object> args = new ArrayList<>(conversations.size() * 3);
+        for (Conversation conversation : conversations) {
+            args.add(conversation.getId());
+            args.add(conversation.getClientName());
+            args.add(Timestamp.valueOf(conversation.getCreatedAt()));
+        }
+
+        jdbcTemplate.update(multiRowInsert(INSERT_CONVERSATION, CONVERSATION_ROW, conversations.size()), args.toArray());
+    }
+
+    /**
+     * Insère plusieurs messages en une seule requête
+     */
+    public void insertMessages(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        List<Object> args = new ArrayList<>(messages.size() * 7);
+        for (ChatMessage message : messages) {
+            args.add(message.getId());
+            args.add(message.getConversationId());
+            args.add(message.getType().name());
+            args.add(message.getSender());
+            args.add(message.getSenderRole().name());
+            args.add(message.getContent());
+            args.add(Timestamp.valueOf(message.getTimestamp()));
+        }
+
+        jdbcTemplate.update(multiRowInsert(INSERT_MESSAGE, MESSAGE_ROW, messages.size()), args.toArray());
+    }
+
+    /**
+     * Enregistre l'agent assigné à des conversations (conversationId, agentName)
+     */
+    public void assignAgents(List<Object[]> assignments) {
+        if (assignments.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(assignments.size());
+        for (Object[] assignment : assignments) {
+            args.add(new Object[]{assignment[1], assignment[0]});
+        }
+        jdbcTemplate.batchUpdate(ASSIGN_AGENT, args);
+    }
+
+    /**
+     * Marque des conversations comme fermées (conversationId, date de fermeture)
+     */
+    public void closeConversations(List<Object[]> closings) {
+        if (closings.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(closings.size());
+        for (Object[] closing : closings) {
+            args.add(new Object[]{Timestamp.valueOf((LocalDateTime) closing[1]), closing[0]});
+        }
+        jdbcTemplate.batchUpdate(CLOSE_CONVERSATION, args);
+    }
+
+    /**
+     * Rouvre des conversations (client revenu après une déconnexion)
+     */
+    public void reopenConversations(List<String> conversationIds) {
+        if (conversationIds.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(conversationIds.size());
+        for (String conversationId : conversationIds) {
+            args.add(new Object[]{conversationId});
+        }
+        jdbcTemplate.batchUpdate(REOPEN_CONVERSATION, args);
+    }
+
+    /**
+     * Retrouve une conversation enregistrée (sans ses participants, propres à une session)
+     */
+    public Optional<Conversation> findConversation(String conversationId) {
+        List<Conversation> found = jdbcTemplate.query(SELECT_CONVERSATION, (rs, rowNum) -> {
+            Conversation conversation = new Conversation();
+            conversation.setId(rs.getString("id"));
+            conversation.setClientName(rs.getString("client_name"));
+            conversation.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            return conversation;
+        }, conversationId);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Messages d'une conversation antérieurs à un curseur
+     *
+     * @param before Curseur exclusif, ou null pour partir du message le plus récent
+     * @param limit Nombre maximal de messages
+     * @return Les messages dans l'ordre chronologique
+     */
+    public List<ChatMessage> findMessagesBefore(String conversationId, HistoryCursor before, int limit) {
+        List<ChatMessage> messages;
+        if (before == null) {
+            messages = jdbcTemplate.query(SELECT_LATEST_MESSAGES, MESSAGE_MAPPER, conversationId, limit);
+        } else {
+            Timestamp sentAt = Timestamp.valueOf(before.timestamp());
+            messages = jdbcTemplate.query(SELECT_MESSAGES_BEFORE, MESSAGE_MAPPER,
+                    conversationId, sentAt, sentAt, before.id(), limit);
+        }
+
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Nombre de messages enregistrés pour une conversation
+     */
+    public int countMessages(String conversationId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM chat_message WHERE conversation_id = ?", Integer.class, conversationId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Construit "INSERT ... VALUES (?, ...), (?, ...)" pour le nombre de lignes demandé
+     */
+    private static String multiRowInsert(String insert, String row, int rows) {
+        StringBuilder sql = new StringBuilder(insert.length() + rows * (row.length() + 2));
+        sql.append(insert);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+}
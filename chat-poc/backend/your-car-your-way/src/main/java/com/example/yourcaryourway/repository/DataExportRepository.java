@@ -0,0 +1,186 @@
+package com.example.yourcaryourway.repository;
+
+import com.example.yourcaryourway.config.ExportProperties;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Lecture des données personnelles d'un utilisateur pour leur export (RGPD)
+ *
+ * Les lignes sont parcourues une à une et remises à l'appelant, jamais gardées en liste :
+ * seules fetchSize lignes sont en mémoire à la fois, quel que soit l'historique de l'utilisateur.
+ * Avec MySQL, le pilote ne respecte fetchSize qu'avec useCursorFetch=true dans l'URL.
+ *
+ * Chaque ligne est une Map ordonnée, clés en camelCase ; les secrets (password_hash,
+ * psp_token_id) ne sont pas lus. offer_snapshot_json est rendu tel quel (RawValue),
+ * sans être analysé.
+ */
+@Repository
+public class DataExportRepository {
+
+    private static final String SELECT_USER_EXISTS = "SELECT COUNT(*) FROM `user` WHERE id = ?";
+
+    private static final String SELECT_USER =
+            "SELECT id, email, first_name, last_name, birth_date, street, city, postal_code, country, locale,"
+                    + " currency, email_verified, created_at, updated_at FROM `user` WHERE id = ?";
+
+    private static final String SELECT_DRIVER_LICENSE =
+            "SELECT id, country_code, number, expiry_date, document_url, uploaded_at FROM driver_license WHERE user_id = ?";
+
+    private static final String SELECT_PAYMENT_METHODS =
+            "SELECT id, card_last4, card_brand, expiry_date, is_default, created_at FROM payment_method"
+                    + " WHERE user_id = ? ORDER BY created_at, id";
+
+    private static final String SELECT_CONSENTS =
+            "SELECT id, consent_type, granted, granted_at, ip_address FROM consent WHERE user_id = ? ORDER BY consent_type";
+
+    // Documents joints à leur réservation : les lignes d'une réservation se suivent (tri par réservation)
+    private static final String SELECT_RESERVATIONS =
+            "SELECT r.id, r.reservation_number, r.status, r.pickup_location_id, r.return_location_id, r.acriss_code,"
+                    + " r.start_at, r.end_at, r.total_price, r.currency, r.offer_snapshot_json, r.created_at, r.updated_at,"
+                    + " d.id AS document_id, d.document_type, d.url AS document_url, d.filename AS document_filename,"
+                    + " d.generated_at AS document_generated_at"
+                    + " FROM reservation r LEFT JOIN document d ON d.reservation_id = r.id"
+                    + " WHERE r.user_id = ? ORDER BY r.created_at, r.id, d.generated_at, d.id";
+
+    // Colonnes de la réservation dans SELECT_RESERVATIONS, avant celles du document
+    private static final int RESERVATION_COLUMNS = 13;
+
+    private static final String DOCUMENT_PREFIX = "document_";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataExportRepository(JdbcTemplate jdbcTemplate, ExportProperties properties) {
+        // JdbcTemplate dédié : le fetchSize de l'export ne s'applique pas aux autres requêtes
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+    }
+
+    public boolean userExists(String userId) {
+        Integer count = jdbcTemplate.queryForObject(SELECT_USER_EXISTS, Integer.class, userId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Profil de l'utilisateur (sans le hash du mot de passe)
+     */
+    public void forEachUser(String userId, Consumer<Map<String, Object>> consumer) {
+        forEachRow(SELECT_USER, userId, consumer);
+    }
+
+    public void forEachDriverLicense(String userId, Consumer<Map<String, Object>> consumer) {
+        forEachRow(SELECT_DRIVER_LICENSE, userId, consumer);
+    }
+
+    /**
+     * Moyens de paiement (sans le jeton du prestataire de paiement)
+     */
+    public void forEachPaymentMethod(String userId, Consumer<Map<String, Object>> consumer) {
+        forEachRow(SELECT_PAYMENT_METHODS, userId, consumer);
+    }
+
+    public void forEachConsent(String userId, Consumer<Map<String, Object>> consumer) {
+        forEachRow(SELECT_CONSENTS, userId, consumer);
+    }
+
+    /**
+     * Réservations, chacune avec ses documents (clé documents), par date de création
+     *
+     * Une réservation est remise dès que la ligne suivante en change : seule la réservation
+     * en cours et ses documents sont gardés.
+     */
+    public void forEachReservation(String userId, Consumer<Map<String, Object>> consumer) {
+        ReservationGrouper grouper = new ReservationGrouper(consumer);
+        jdbcTemplate.query(SELECT_RESERVATIONS, grouper, userId);
+        grouper.finish();
+    }
+
+    private void forEachRow(String sql, String userId, Consumer<Map<String, Object>> consumer) {
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumer.accept(toMap(rs, 1, columnCount(rs))), userId);
+    }
+
+    private static int columnCount(ResultSet rs) throws SQLException {
+        return rs.getMetaData().getColumnCount();
+    }
+
+    /**
+     * Colonnes first à last de la ligne courante, dates en java.time
+     */
+    private static Map<String, Object> toMap(ResultSet rs, int first, int last) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = first; i <= last; i++) {
+            String column = JdbcUtils.lookupColumnName(metaData, i).toLowerCase(Locale.ROOT);
+            if (column.startsWith(DOCUMENT_PREFIX) && first > 1) {
+                column = column.substring(DOCUMENT_PREFIX.length());
+            }
+            Object value;
+            if (column.endsWith("_json")) {
+                String json = rs.getString(i);
+                column = column.substring(0, column.length() - "_json".length());
+                value = json != null ? new RawValue(json) : null;
+            } else {
+                value = JdbcUtils.getResultSetValue(rs, i);
+                if (value instanceof Timestamp timestamp) {
+                    value = timestamp.toLocalDateTime();
+                } else if (value instanceof Date date) {
+                    value = date.toLocalDate();
+                }
+            }
+            row.put(JdbcUtils.convertUnderscoreNameToPropertyName(column), value);
+        }
+        return row;
+    }
+
+    /**
+     * Regroupe les lignes réservation × document consécutives d'une même réservation
+     */
+    private static final class ReservationGrouper implements RowCallbackHandler {
+
+        private final Consumer<Map<String, Object>> consumer;
+
+        private Map<String, Object> reservation;
+
+        private List<Map<String, Object>> documents;
+
+        ReservationGrouper(Consumer<Map<String, Object>> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String id = rs.getString("id");
+            if (reservation == null || !id.equals(reservation.get("id"))) {
+                finish();
+                reservation = toMap(rs, 1, RESERVATION_COLUMNS);
+                documents = new ArrayList<>();
+                reservation.put("documents", documents);
+            }
+            if (rs.getString("document_id") != null) {
+                documents.add(toMap(rs, RESERVATION_COLUMNS + 1, columnCount(rs)));
+            }
+        }
+
+        void finish() {
+            if (reservation != null) {
+                consumer.accept(reservation);
+                reservation = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.yourcaryourway.repository;
+
+import com.example.yourcaryourway.model.RatePlan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * Accès JDBC à la table rate_plan
+ *
+ * Les tarifs sont lus en entier par PricingService, qui les garde en mémoire :
+ * aucun devis ne lit la base.
+ */
+@Repository
+public class RatePlanRepository {
+
+    private static final String SELECT_ALL =
+            "SELECT id, acriss_code, daily_rate, weekly_rate, currency, valid_from, valid_until FROM rate_plan";
+
+    private static final String INSERT =
+            "INSERT INTO rate_plan (id, acriss_code, daily_rate, weekly_rate, currency, valid_from, valid_until)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE =
+            "UPDATE rate_plan SET acriss_code = ?, daily_rate = ?, weekly_rate = ?, currency = ?,"
+                    + " valid_from = ?, valid_until = ? WHERE id = ?";
+
+    private static final String DELETE = "DELETE FROM rate_plan WHERE id = ?";
+
+    private static final RowMapper<RatePlan> RATE_PLAN_MAPPER = (rs, rowNum) -> new RatePlan(
+            rs.getString("id"),
+            rs.getString("acriss_code"),
+            rs.getBigDecimal("daily_rate"),
+            rs.getBigDecimal("weekly_rate"),
+            rs.getString("currency"),
+            rs.getDate("valid_from").toLocalDate(),
+            rs.getDate("valid_until").toLocalDate());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RatePlanRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Tous les tarifs
+     */
+    public List<RatePlan> findAll() {
+        return jdbcTemplate.query(SELECT_ALL, RATE_PLAN_MAPPER);
+    }
+
+    public void insert(RatePlan ratePlan) {
+        jdbcTemplate.update(INSERT, ratePlan.getId(), ratePlan.getAcrissCode(), ratePlan.getDailyRate(),
+                ratePlan.getWeeklyRate(), ratePlan.getCurrency(),
+                Date.valueOf(ratePlan.getValidFrom()), Date.valueOf(ratePlan.getValidUntil()));
+    }
+
+    /**
+     * @return Vrai si le tarif existait
+     */
+    public boolean update(RatePlan ratePlan) {
+        return jdbcTemplate.update(UPDATE, ratePlan.getAcrissCode(), ratePlan.getDailyRate(),
+                ratePlan.getWeeklyRate(), ratePlan.getCurrency(), Date.valueOf(ratePlan.getValidFrom()),
+                Date.valueOf(ratePlan.getValidUntil()), ratePlan.getId()) > 0;
+    }
+
+    /**
+     * @return Vrai si le tarif existait
+     */
+    public boolean delete(String id) {
+        return jdbcTemplate.update(DELETE, id) > 0;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.yourcaryourway.repository;
+
+import com.example.yourcaryourway.converter.OfferSnapshotProjector;
+import com.example.yourcaryourway.model.OfferSummary;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Accès JDBC à la table reservation
+ */
+@Repository
+public class ReservationRepository {
+
+    private static final String INSERT =
+            "INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id, reservation_number,"
+                    + " status, acriss_code, start_at, end_at, total_price, currency, offer_snapshot_json,"
+                    + " offer_vehicle_name, offer_days, offer_option_count, idempotency_key)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_RESERVATION =
+            "SELECT id, user_id, pickup_location_id, return_location_id, reservation_number, status, acriss_code,"
+                    + " start_at, end_at, total_price, currency, offer_snapshot_json, offer_vehicle_name, offer_days,"
+                    + " offer_option_count, idempotency_key FROM reservation";
+
+    private static final String SELECT_BY_IDEMPOTENCY_KEY = SELECT_RESERVATION + " WHERE idempotency_key = ?";
+
+    private static final String SELECT_BY_ID = SELECT_RESERVATION + " WHERE id = ?";
+
+    // Le JSON de l'offre n'est lu que pour les réservations sans projection (enregistrées avant les colonnes offer_*)
+    private static final String SELECT_SUMMARIES_BY_USER =
+            "SELECT id, reservation_number, status, acriss_code, pickup_location_id, start_at, end_at, total_price,"
+                    + " currency, offer_vehicle_name, offer_days, offer_option_count,"
+                    + " CASE WHEN offer_days IS NULL THEN offer_snapshot_json END AS unprojected_offer"
+                    + " FROM reservation WHERE user_id = ? ORDER BY start_at DESC, id LIMIT ? OFFSET ?";
+
+    private static final RowMapper<Reservation> RESERVATION_MAPPER = (rs, rowNum) -> {
+        Reservation reservation = new Reservation();
+        reservation.setId(rs.getString("id"));
+        reservation.setUserId(rs.getString("user_id"));
+        reservation.setPickupLocationId(rs.getString("pickup_location_id"));
+        reservation.setReturnLocationId(rs.getString("return_location_id"));
+        reservation.setReservationNumber(rs.getString("reservation_number"));
+        reservation.setStatus(Reservation.Status.valueOf(rs.getString("status")));
+        reservation.setAcrissCode(rs.getString("acriss_code"));
+        reservation.setStartAt(rs.getTimestamp("start_at").toLocalDateTime());
+        reservation.setEndAt(rs.getTimestamp("end_at").toLocalDateTime());
+        reservation.setTotalPrice(rs.getBigDecimal("total_price"));
+        reservation.setCurrency(rs.getString("currency"));
+        reservation.setOfferSnapshotJson(rs.getString("offer_snapshot_json"));
+        reservation.setOfferSummary(rs.getObject("offer_days") != null
+                ? offerSummary(rs)
+                : OfferSnapshotProjector.project(reservation.getOfferSnapshotJson()));
+        reservation.setIdempotencyKey(rs.getString("idempotency_key"));
+        return reservation;
+    };
+
+    private static final RowMapper<ReservationSummary> SUMMARY_MAPPER = (rs, rowNum) -> {
+        ReservationSummary summary = new ReservationSummary();
+        summary.setId(rs.getString("id"));
+        summary.setReservationNumber(rs.getString("reservation_number"));
+        summary.setStatus(Reservation.Status.valueOf(rs.getString("status")));
+        summary.setAcrissCode(rs.getString("acriss_code"));
+        summary.setPickupLocationId(rs.getString("pickup_location_id"));
+        summary.setStartAt(rs.getTimestamp("start_at").toLocalDateTime());
+        summary.setEndAt(rs.getTimestamp("end_at").toLocalDateTime());
+        summary.setTotalPrice(rs.getBigDecimal("total_price"));
+        summary.setCurrency(rs.getString("currency"));
+        String unprojected = rs.getString("unprojected_offer");
+        OfferSummary offer = unprojected == null ? offerSummary(rs) : OfferSnapshotProjector.project(unprojected);
+        summary.setVehicleName(offer.vehicleName());
+        summary.setDays(offer.days());
+        summary.setOptionCount(offer.optionCount());
+        return summary;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException si la clé d'idempotence
+     *         ou le numéro de réservation existe déjà
+     */
+    public void insert(Reservation reservation) {
+        OfferSummary offer = reservation.getOfferSummary() != null ? reservation.getOfferSummary() : OfferSummary.EMPTY;
+        jdbcTemplate.update(INSERT, reservation.getId(), reservation.getUserId(), reservation.getPickupLocationId(),
+                reservation.getReturnLocationId(), reservation.getReservationNumber(), reservation.getStatus().name(),
+                reservation.getAcrissCode(), Timestamp.valueOf(reservation.getStartAt()),
+                Timestamp.valueOf(reservation.getEndAt()), reservation.getTotalPrice(), reservation.getCurrency(),
+                reservation.getOfferSnapshotJson(), offer.vehicleName(), offer.days(), offer.optionCount(),
+                reservation.getIdempotencyKey());
+    }
+
+    /**
+     * Réservation créée par une requête de même clé d'idempotence
+     */
+    public Optional<Reservation> findByIdempotencyKey(String idempotencyKey) {
+        return jdbcTemplate.query(SELECT_BY_IDEMPOTENCY_KEY, RESERVATION_MAPPER, idempotencyKey).stream().findFirst();
+    }
+
+    public Optional<Reservation> findById(String id) {
+        return jdbcTemplate.query(SELECT_BY_ID, RESERVATION_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Réservations d'un utilisateur pour la liste, des plus récentes aux plus anciennes
+     *
+     * Projection de l'offre lue dans les colonnes offer_* ; le JSON n'est transféré et projeté
+     * que pour les réservations qui n'en ont pas.
+     */
+    public List<ReservationSummary> findSummariesByUser(String userId, int limit, int offset) {
+        return jdbcTemplate.query(SELECT_SUMMARIES_BY_USER, SUMMARY_MAPPER, userId, limit, offset);
+    }
+
+    private static OfferSummary offerSummary(ResultSet rs) throws SQLException {
+        return new OfferSummary(rs.getString("offer_vehicle_name"), rs.getObject("offer_days", Integer.class),
+                rs.getObject("offer_option_count", Integer.class));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.CategoryAvailability;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationChangedEvent;
+import com.example.yourcaryourway.repository.AvailabilityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche des catégories ACRISS disponibles dans une agence sur une période
+ *
+ * En SQL, chaque recherche parcourt les réservations qui chevauchent la période.
+ * Ce service garde en mémoire, par agence et par catégorie :
+ * - le parc en service (véhicules available)
+ * - un calendrier horaire des véhicules retenus par les réservations (voir BookingCalendar)
+ *
+ * Une catégorie est disponible si son parc dépasse le pic de réservations simultanées
+ * sur la période : deux locations qui se suivent dans la période ne retiennent qu'un véhicule.
+ *
+ * L'index est chargé au démarrage (réservations en cours ou à venir), puis tenu à jour
+ * par les ReservationChangedEvent. reload le reconstruit entièrement (changement du parc).
+ * Tant qu'il n'est pas chargé, la recherche passe par SQL (AvailabilityRepository.findAvailability).
+ *
+ * Métrique : availability.search.duration{source=memory|sql}
+ */
+@Service
+public class AvailabilityService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityService.class);
+
+    private final AvailabilityRepository repository;
+
+    private final Timer memorySearches;
+
+    private final Timer sqlSearches;
+
+    // Agence -> catégorie (triées par code ACRISS) ; null tant que l'index n'est pas chargé
+    private volatile Map<String, Map<String, Category>> locations;
+
+    // Sérialise les mises à jour de l'index et son rechargement
+    private final Object updateLock = new Object();
+
+    private volatile boolean running;
+
+    public AvailabilityService(AvailabilityRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.memorySearches = searchTimer(meterRegistry, "memory");
+        this.sqlSearches = searchTimer(meterRegistry, "sql");
+    }
+
+    private static Timer searchTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("availability.search.duration")
+                .description("Durée d'une recherche de disponibilités")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Catégories disponibles dans une agence sur une période
+     *
+     * @param locationId Agence de prise en charge
+     * @param from Début de la location (heure locale de l'agence)
+     * @param to Fin de la location
+     * @return Les catégories avec au moins un véhicule libre sur toute la période, par code ACRISS
+     * @throws IllegalArgumentException si la période ne se termine pas après son début
+     */
+    public List<CategoryAvailability> search(String locationId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("La période doit se terminer après son début");
+        }
+
+        long start = System.nanoTime();
+        Map<String, Map<String, Category>> index = locations;
+        if (index == null) {
+            List<CategoryAvailability> available = repository.findAvailability(locationId, from, to).stream()
+                    .filter(category -> category.getAvailable() > 0)
+                    .toList();
+            sqlSearches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return available;
+        }
+
+        List<CategoryAvailability> available = new ArrayList<>();
+        Map<String, Category> categories = index.get(locationId);
+        if (categories != null) {
+            long fromSlot = BookingCalendar.slotOf(from);
+            long toSlot = BookingCalendar.slotAfter(to);
+            for (Map.Entry<String, Category> entry : categories.entrySet()) {
+                Category category = entry.getValue();
+                int fleet = category.fleet;
+                if (fleet == 0) {
+                    continue;
+                }
+                int booked = category.calendar.peak(fromSlot, toSlot);
+                if (booked < fleet) {
+                    available.add(new CategoryAvailability(entry.getKey(), fleet, booked, fleet - booked));
+                }
+            }
+        }
+        memorySearches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return available;
+    }
+
+    /**
+     * Reconstruit l'index depuis la base, puis le remplace d'un coup
+     *
+     * Les recherches continuent sur l'ancien index pendant le chargement ;
+     * les changements de réservation attendent la fin du rechargement.
+     */
+    public void reload() {
+        synchronized (updateLock) {
+            long start = System.nanoTime();
+            Map<String, Map<String, Category>> index = new ConcurrentHashMap<>();
+            for (AvailabilityRepository.FleetCount fleet : repository.findFleet()) {
+                category(index, fleet.locationId(), fleet.acrissCode()).fleet = fleet.fleet();
+            }
+
+            // Marge d'un jour : les périodes sont en heure locale des agences
+            int[] reservations = {0};
+            repository.forEachHoldingReservation(LocalDateTime.now().minusDays(1), reservation -> {
+                book(index, reservation, 1);
+                reservations[0]++;
+            });
+
+            locations = index;
+            logger.info("Index des disponibilités chargé : {} agence(s), {} réservation(s) en {} ms",
+                    index.size(), reservations[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Reporte une création, une modification ou une annulation de réservation dans l'index
+     */
+    @EventListener
+    public void onReservationChanged(ReservationChangedEvent event) {
+        synchronized (updateLock) {
+            Map<String, Map<String, Category>> index = locations;
+            if (index == null) {
+                return;
+            }
+            if (event.previous() != null && event.previous().holdsVehicle()) {
+                book(index, event.previous(), -1);
+            }
+            if (event.current() != null && event.current().holdsVehicle()) {
+                book(index, event.current(), 1);
+            }
+        }
+    }
+
+    /**
+     * Vrai quand les recherches sont servies par l'index en mémoire
+     */
+    public boolean isLoaded() {
+        return locations != null;
+    }
+
+    private static void book(Map<String, Map<String, Category>> index, Reservation reservation, int count) {
+        category(index, reservation.getPickupLocationId(), reservation.getAcrissCode()).calendar.add(
+                BookingCalendar.slotOf(reservation.getStartAt()), BookingCalendar.slotAfter(reservation.getEndAt()), count);
+    }
+
+    private static Category category(Map<String, Map<String, Category>> index, String locationId, String acrissCode) {
+        return index.computeIfAbsent(locationId, id -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(acrissCode, code -> new Category());
+    }
+
+    @Override
+    public void start() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            logger.warn("Index des disponibilités non chargé, recherche par SQL", e);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Une catégorie d'une agence : parc en service et calendrier des réservations
+     */
+    private static final class Category {
+
+        // Une catégorie réservée sans véhicule en service garde un parc de 0
+        private volatile int fleet;
+
+        private final BookingCalendar calendar = new BookingCalendar();
+    }
+}
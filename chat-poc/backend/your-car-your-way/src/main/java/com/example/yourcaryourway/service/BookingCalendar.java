@@ -0,0 +1,83 @@
+package com.example.yourcaryourway.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendrier des réservations d'une catégorie dans une agence : véhicules retenus, heure par heure
+ *
+ * Chaque heure est une case qui compte les réservations en cours. Les cases sont rangées
+ * par pages de PAGE_SLOTS heures, allouées à la première réservation qui les touche :
+ * seules les périodes réservées occupent de la mémoire (2 octets par heure).
+ *
+ * Une réservation occupe toutes les heures qu'elle touche : 10h30-12h15 retient 10h, 11h et 12h.
+ * Le pic sur une période est le maximum de ses cases, sans requête ni tri.
+ *
+ * Écritures sérialisées par AvailabilityService ; les lectures ne prennent aucun verrou
+ * (une recherche concurrente d'une écriture voit l'état avant ou après, case par case).
+ */
+final class BookingCalendar {
+
+    // 1024 heures par page (environ six semaines)
+    static final int PAGE_SHIFT = 10;
+    static final int PAGE_SLOTS = 1 << PAGE_SHIFT;
+    private static final int SLOT_MASK = PAGE_SLOTS - 1;
+
+    private static final long SECONDS_PER_SLOT = 3600;
+
+    private final Map<Long, short[]> pages = new ConcurrentHashMap<>();
+
+    /**
+     * Case de l'heure qui contient cet instant (heures depuis l'époque, l'heure locale lue comme UTC)
+     */
+    static long slotOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_SLOT);
+    }
+
+    /**
+     * Case qui suit la dernière heure touchée par une période se terminant à cet instant
+     */
+    static long slotAfter(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC) + SECONDS_PER_SLOT - 1, SECONDS_PER_SLOT);
+    }
+
+    /**
+     * Ajoute (count > 0) ou retire (count < 0) des réservations sur les cases [fromSlot, toSlot)
+     */
+    void add(long fromSlot, long toSlot, int count) {
+        for (long slot = fromSlot; slot < toSlot; slot++) {
+            short[] page = pages.computeIfAbsent(slot >> PAGE_SHIFT, key -> new short[PAGE_SLOTS]);
+            int index = (int) (slot & SLOT_MASK);
+            page[index] = (short) Math.max(0, page[index] + count);
+        }
+    }
+
+    /**
+     * Nombre maximal de réservations simultanées sur les cases [fromSlot, toSlot)
+     */
+    int peak(long fromSlot, long toSlot) {
+        int peak = 0;
+        long slot = fromSlot;
+        while (slot < toSlot) {
+            long pageEnd = ((slot >> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+            long end = Math.min(toSlot, pageEnd);
+            short[] page = pages.get(slot >> PAGE_SHIFT);
+            if (page != null) {
+                for (int i = (int) (slot & SLOT_MASK), last = (int) ((end - 1) & SLOT_MASK); i <= last; i++) {
+                    peak = Math.max(peak, page[i]);
+                }
+            }
+            slot = end;
+        }
+        return peak;
+    }
+
+    /**
+     * Pages allouées
+     */
+    int getPageCount() {
+        return pages.size();
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryCursor;
+import com.example.yourcaryourway.model.HistoryPage;
+import com.example.yourcaryourway.repository.ChatHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Historique des conversations : enregistrement et relecture paginée
+ *
+ * - Les écritures partent en base via le ChatHistoryWriter (écriture différée)
+ * - Les derniers messages de chaque conversation restent en mémoire dans un
+ *   tampon circulaire de chat.history.replay-size messages
+ * - Les pages récentes (rejeu à la reconnexion) sont servies depuis ce tampon,
+ *   seules les pages plus anciennes interrogent la base. Une page qui déborde du tampon
+ *   fusionne la base et le tampon : ses messages les plus récents ne sont peut-être
+ *   pas encore écrits par le ChatHistoryWriter
+ *
+ * La pagination se fait par clé sur (timestamp, id), jamais par OFFSET.
+ */
+@Service
+public class ChatHistoryService {
+
+    private static final Comparator<ChatMessage> CHRONOLOGICAL =
+            Comparator.comparing(ChatMessage::getTimestamp).thenComparing(ChatMessage::getId);
+
+    /**
+     * Derniers messages d'une conversation, du plus ancien au plus récent
+     */
+    private static final class Buffer {
+
+        private final String clientName;
+        private final LocalDateTime createdAt;
+        private final ChatMessage[] ring;
+        private int next;
+        private int size;
+
+        // true tant que le tampon contient tout l'historique de la conversation
+        private boolean complete;
+
+        // false tant que les derniers messages enregistrés n'ont pas été lus en base
+        private boolean loaded;
+
+        // false une fois la conversation fermée : le tampon peut alors être évincé
+        private volatile boolean active = true;
+
+        private Buffer(String clientName, LocalDateTime createdAt, int capacity, boolean fresh) {
+            this.clientName = clientName;
+            this.createdAt = createdAt;
+            this.ring = new ChatMessage[capacity];
+            this.complete = fresh;
+            this.loaded = fresh;
+        }
+
+        private synchronized void add(ChatMessage message) {
+            if (size == ring.length) {
+                complete = false;
+            } else {
+                size++;
+            }
+            ring[next] = message;
+            next = (next + 1) % ring.length;
+        }
+
+        /**
+         * Complète le tampon avec les messages lus en base (sans doublon)
+         */
+        private synchronized void load(List<ChatMessage> stored, boolean all) {
+            Map<String, ChatMessage> merged = new LinkedHashMap<>();
+            stored.forEach(message -> merged.put(message.getId(), message));
+            snapshot().forEach(message -> merged.put(message.getId(), message));
+
+            List<ChatMessage> messages = new ArrayList<>(merged.values());
+            messages.sort(CHRONOLOGICAL);
+            int from = Math.max(0, messages.size() - ring.length);
+
+            size = 0;
+            next = 0;
+            for (ChatMessage message : messages.subList(from, messages.size())) {
+                add(message);
+            }
+            complete = all && from == 0;
+            loaded = true;
+        }
+
+        /**
+         * Messages du tampon strictement antérieurs au curseur (tous si null)
+         */
+        private synchronized List<ChatMessage> before(HistoryCursor cursor) {
+            List<ChatMessage> messages = new ArrayList<>(size);
+            for (ChatMessage message : snapshot()) {
+                if (cursor == null || cursor.isAfter(message)) {
+                    messages.add(message);
+                }
+            }
+            return messages;
+        }
+
+        private synchronized List<ChatMessage> snapshot() {
+            List<ChatMessage> messages = new ArrayList<>(size);
+            int start = (next - size + ring.length) % ring.length;
+            for (int i = 0; i < size; i++) {
+                messages.add(ring[(start + i) % ring.length]);
+            }
+            // Deux participants peuvent écrire en même temps : l'ordre d'ajout
+            // n'est pas forcément l'ordre (timestamp, id) de la pagination
+            messages.sort(CHRONOLOGICAL);
+            return messages;
+        }
+    }
+
+    private final ChatHistoryWriter writer;
+    private final ChatHistoryRepository repository;
+    private final int replaySize;
+    private final int maxPageSize;
+    private final int retainedConversations;
+
+    // Tampons des conversations ouvertes et des dernières conversations fermées
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+
+    // Conversations fermées, de la plus ancienne à la plus récente, pour l'éviction
+    private final Queue<String> retired = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger retiredCount = new AtomicInteger();
+
+    private final Counter memoryPages;
+    private final Counter databasePages;
+
+    public ChatHistoryService(ChatHistoryWriter writer,
+                              ChatHistoryRepository repository,
+                              ChatProperties properties,
+                              MeterRegistry meterRegistry) {
+        ChatProperties.History history = properties.getHistory();
+        this.writer = writer;
+        this.repository = repository;
+        this.replaySize = history.getReplaySize();
+        this.maxPageSize = history.getMaxPageSize();
+        this.retainedConversations = history.getRetainedConversations();
+
+        this.memoryPages = Counter.builder("chat.history.pages")
+                .tag("source", "memory")
+                .description("Pages d'historique servies")
+                .register(meterRegistry);
+        this.databasePages = Counter.builder("chat.history.pages")
+                .tag("source", "database")
+                .description("Pages d'historique servies")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre l'ouverture d'une nouvelle conversation
+     */
+    public void recordOpen(Conversation conversation) {
+        buffers.put(conversation.getId(),
+                new Buffer(conversation.getClientName(), conversation.getCreatedAt(), replaySize, true));
+        writer.recordOpen(conversation);
+    }
+
+    /**
+     * Enregistre l'agent assigné à une conversation
+     */
+    public void recordAssignment(Conversation conversation, String agentName) {
+        writer.recordAssignment(conversation, agentName);
+    }
+
+    /**
+     * Enregistre la fermeture d'une conversation
+     *
+     * Ses derniers messages restent en mémoire pour une éventuelle reconnexion,
+     * dans la limite de chat.history.retained-conversations conversations fermées
+     */
+    public void recordClose(Conversation conversation) {
+        writer.recordClose(conversation);
+
+        Buffer buffer = buffers.get(conversation.getId());
+        if (buffer != null) {
+            buffer.active = false;
+            retired.offer(conversation.getId());
+            retiredCount.incrementAndGet();
+            evictRetired();
+        }
+    }
+
+    /**
+     * Ajoute un message délivré à l'historique de sa conversation
+     */
+    public void append(ChatMessage chatMessage) {
+        Buffer buffer = chatMessage.getConversationId() != null ? buffers.get(chatMessage.getConversationId()) : null;
+        if (buffer != null) {
+            buffer.add(chatMessage);
+        }
+        writer.append(chatMessage);
+    }
+
+    /**
+     * Reprend une conversation fermée pour un client qui se reconnecte
+     *
+     * Le PoC n'a pas d'authentification : la reprise exige l'identifiant de la
+     * conversation (non devinable) et le même nom de client.
+     *
+     * @param conversationId Conversation précédente du client
+     * @param clientName Nom affiché du client
+     * @param clientUser Principal de la nouvelle session du client
+     * @return La conversation reprise, ou vide si elle est inconnue, ouverte ailleurs ou à un autre client
+     */
+    public Optional<Conversation> resume(String conversationId, String clientName, String clientUser) {
+        Buffer buffer = buffers.get(conversationId);
+        if (buffer == null) {
+            Optional<Conversation> stored = repository.findConversation(conversationId);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            Buffer loaded = new Buffer(stored.get().getClientName(), stored.get().getCreatedAt(), replaySize, false);
+            loaded.active = false;
+            buffer = buffers.computeIfAbsent(conversationId, id -> loaded);
+        }
+
+        if (!buffer.clientName.equals(clientName)) {
+            return Optional.empty();
+        }
+
+        synchronized (buffer) {
+            if (buffer.active) {
+                return Optional.empty();
+            }
+            buffer.active = true;
+        }
+
+        Conversation conversation = new Conversation(clientName, clientUser);
+        conversation.setId(conversationId);
+        conversation.setCreatedAt(buffer.createdAt);
+        writer.recordReopen(conversation);
+        return Optional.of(conversation);
+    }
+
+    /**
+     * Derniers messages d'une conversation, rejoués à la reconnexion
+     */
+    public HistoryPage replay(String conversationId) {
+        return page(conversationId, null, replaySize);
+    }
+
+    /**
+     * Page de messages antérieurs à un curseur
+     *
+     * @param conversationId Conversation visée
+     * @param before Curseur exclusif, ou null pour la page la plus récente
+     * @param limit Nombre de messages demandés (borné par chat.history.max-page-size)
+     */
+    public HistoryPage page(String conversationId, HistoryCursor before, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+
+        List<ChatMessage> buffered = List.of();
+        Buffer buffer = buffers.get(conversationId);
+        if (buffer != null) {
+            boolean fromDatabase = loadTail(conversationId, buffer);
+
+            List<ChatMessage> older = buffer.before(before);
+            boolean complete;
+            synchronized (buffer) {
+                complete = buffer.complete;
+            }
+
+            if (older.size() >= size || complete) {
+                (fromDatabase ? databasePages : memoryPages).increment();
+                List<ChatMessage> messages = older.subList(Math.max(0, older.size() - size), older.size());
+                boolean hasMore = older.size() > size || !complete;
+                return toPage(conversationId, new ArrayList<>(messages), hasMore);
+            }
+            buffered = older;
+        }
+
+        // Page plus ancienne que le tampon : lecture en base, une ligne de plus pour savoir s'il en reste,
+        // complétée par le tampon (messages pas encore écrits en base)
+        databasePages.increment();
+        List<ChatMessage> messages = repository.findMessagesBefore(conversationId, before, size + 1);
+        if (!buffered.isEmpty()) {
+            messages = merge(messages, buffered);
+        }
+        boolean hasMore = messages.size() > size;
+        if (hasMore) {
+            messages = messages.subList(messages.size() - size, messages.size());
+        }
+        return toPage(conversationId, messages, hasMore);
+    }
+
+    /**
+     * Réunit les messages lus en base et ceux du tampon, sans doublon, dans l'ordre (timestamp, id)
+     */
+    private static List<ChatMessage> merge(List<ChatMessage> stored, List<ChatMessage> buffered) {
+        Map<String, ChatMessage> merged = new LinkedHashMap<>();
+        stored.forEach(message -> merged.put(message.getId(), message));
+        buffered.forEach(message -> merged.put(message.getId(), message));
+
+        List<ChatMessage> messages = new ArrayList<>(merged.values());
+        messages.sort(CHRONOLOGICAL);
+        return messages;
+    }
+
+    /**
+     * Charge en base les derniers messages d'une conversation reprise après un redémarrage
+     *
+     * Un seul thread interroge la base par conversation : les autres attendent le résultat
+     *
+     * @return true si la base a été interrogée
+     */
+    private boolean loadTail(String conversationId, Buffer buffer) {
+        synchronized (buffer) {
+            if (buffer.loaded) {
+                return false;
+            }
+            List<ChatMessage> stored = repository.findMessagesBefore(conversationId, null, replaySize);
+            buffer.load(stored, stored.size() < replaySize);
+            return true;
+        }
+    }
+
+    private HistoryPage toPage(String conversationId, List<ChatMessage> messages, boolean hasMore) {
+        String nextCursor = hasMore && !messages.isEmpty() ? HistoryCursor.of(messages.get(0)).encode() : null;
+        return new HistoryPage(conversationId, messages, nextCursor);
+    }
+
+    /**
+     * Évince les tampons des conversations fermées les plus anciennes
+     */
+    private void evictRetired() {
+        while (retiredCount.get() > retainedConversations) {
+            String conversationId = retired.poll();
+            if (conversationId == null) {
+                return;
+            }
+            retiredCount.decrementAndGet();
+            // Une conversation reprise entre-temps garde son tampon
+            buffers.computeIfPresent(conversationId, (id, buffer) -> buffer.active ? buffer : null);
+        }
+    }
+}
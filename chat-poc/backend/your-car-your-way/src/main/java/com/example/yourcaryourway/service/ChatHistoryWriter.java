@@ -0,0 +1,426 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.repository.ChatHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Écriture différée (write-behind) de l'historique du chat
+ *
+ * - Les threads WebSocket déposent les écritures dans une file bornée et repartent
+ * - Un thread dédié vide la file par lots et les écrit en requêtes multi-lignes
+ * - File pleine : l'écriture est abandonnée sans attendre (chat.history.dropped{reason=queue-full}),
+ *   un thread WebSocket n'est jamais bloqué par une base lente
+ * - À l'arrêt de l'application, les écritures en attente sont vidées en base ; une fois l'arrêt
+ *   commencé, plus rien n'est déposé dans la file : l'appelant écrit lui-même
+ *
+ * L'ordre de dépôt est conservé : une conversation est toujours insérée
+ * avant ses messages, son agent et sa fermeture.
+ *
+ * Échecs d'écriture :
+ * - Ligne refusée par la base (contrainte, valeur invalide) : le lot est coupé en deux
+ *   jusqu'à isoler la ligne fautive, seule écartée (chat.history.rejected) ;
+ *   les autres lignes du lot sont enregistrées
+ * - Base indisponible : le lot est réessayé, avec une attente croissante et plafonnée,
+ *   au plus chat.history.max-write-attempts fois, puis abandonné (reason=write-failed)
+ * - Arrêt qui dépasse chat.history.shutdown-timeout : les écritures encore en attente
+ *   sont comptées (reason=shutdown) et signalées dans les logs
+ */
+@Component
+public class ChatHistoryWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatHistoryWriter.class);
+
+    // Attente avant la première nouvelle tentative, doublée à chaque échec
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    // Attente maximale entre deux tentatives
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5_000;
+
+    /**
+     * Nature d'une écriture en attente
+     */
+    private enum Kind {
+        OPEN,       // Ouverture d'une conversation
+        ASSIGN,     // Assignation d'un agent
+        MESSAGE,    // Message de la conversation
+        CLOSE,      // Fermeture de la conversation
+        REOPEN      // Reprise de la conversation par son client
+    }
+
+    /**
+     * Écriture en attente dans la file
+     */
+    private record Entry(Kind kind, Conversation conversation, ChatMessage message, Object[] row) {
+    }
+
+    private final ChatHistoryRepository repository;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long shutdownTimeoutMillis;
+    private final int maxWriteAttempts;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Counter writtenCounter;
+    private final Counter rejectedCounter;
+    private final Counter queueFullCounter;
+    private final Counter writeFailedCounter;
+    private final Counter shutdownDroppedCounter;
+
+    // Dépôt (lecture) contre début de l'arrêt (écriture) : une écriture ne peut pas entrer
+    // dans la file après que le thread d'écriture et stop() l'ont vidée une dernière fois
+    private final ReadWriteLock submitLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private volatile boolean stopped;
+    // Une écriture a été abandonnée depuis le dernier dépôt réussi (un seul log par saturation)
+    private volatile boolean overflowing;
+    private Thread worker;
+
+    public ChatHistoryWriter(ChatHistoryRepository repository, ChatProperties properties, MeterRegistry meterRegistry) {
+        ChatProperties.History history = properties.getHistory();
+        this.repository = repository;
+        this.queue = new ArrayBlockingQueue<>(history.getQueueCapacity());
+        this.batchSize = history.getBatchSize();
+        this.flushIntervalMillis = history.getFlushInterval().toMillis();
+        this.shutdownTimeoutMillis = history.getShutdownTimeout().toMillis();
+        this.maxWriteAttempts = Math.max(1, history.getMaxWriteAttempts());
+
+        Gauge.builder("chat.history.queue.depth", queue, BlockingQueue::size)
+                .description("Écritures d'historique en attente")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("chat.history.batch.size")
+                .description("Nombre d'écritures par lot")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("chat.history.written")
+                .description("Écritures d'historique enregistrées en base")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("chat.history.rejected")
+                .description("Écritures refusées par la base, isolées du reste de leur lot")
+                .register(meterRegistry);
+        this.queueFullCounter = droppedCounter(meterRegistry, "queue-full");
+        this.writeFailedCounter = droppedCounter(meterRegistry, "write-failed");
+        this.shutdownDroppedCounter = droppedCounter(meterRegistry, "shutdown");
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("chat.history.dropped")
+                .description("Écritures non enregistrées (file pleine, base indisponible, arrêt)")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre l'ouverture d'une conversation
+     */
+    public void recordOpen(Conversation conversation) {
+        submit(new Entry(Kind.OPEN, conversation, null, null));
+    }
+
+    /**
+     * Enregistre l'agent assigné à une conversation
+     */
+    public void recordAssignment(Conversation conversation, String agentName) {
+        submit(new Entry(Kind.ASSIGN, null, null, new Object[]{conversation.getId(), agentName}));
+    }
+
+    /**
+     * Enregistre la fermeture d'une conversation
+     */
+    public void recordClose(Conversation conversation) {
+        submit(new Entry(Kind.CLOSE, null, null, new Object[]{conversation.getId(), LocalDateTime.now()}));
+    }
+
+    /**
+     * Enregistre la reprise d'une conversation fermée
+     */
+    public void recordReopen(Conversation conversation) {
+        submit(new Entry(Kind.REOPEN, conversation, null, null));
+    }
+
+    /**
+     * Ajoute un message à l'historique de sa conversation
+     *
+     * @param chatMessage Message déjà rattaché à une conversation (conversationId renseigné)
+     */
+    public void append(ChatMessage chatMessage) {
+        if (chatMessage.getConversationId() == null) {
+            logger.warn("Message {} non historisé : aucune conversation", chatMessage.getId());
+            return;
+        }
+        submit(new Entry(Kind.MESSAGE, null, chatMessage, null));
+    }
+
+    /**
+     * Nombre d'écritures en attente
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        stopped = false;
+        worker = new Thread(this::run, "chat-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        // Attend les dépôts en cours : les suivants verront stopped et écriront eux-mêmes
+        submitLock.writeLock().lock();
+        try {
+            running = false;
+            stopped = true;
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        if (worker == null) {
+            flushRemaining();
+            return;
+        }
+
+        try {
+            worker.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (worker.isAlive()) {
+            abandonRemaining();
+            return;
+        }
+
+        // Écritures déposées pendant l'arrêt du thread d'écriture
+        flushRemaining();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Phase 0 : arrêté après le serveur web et le broker STOMP,
+     * une fois que plus aucun message n'arrive
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Dépose une écriture dans la file, sans attendre : file pleine, l'écriture est abandonnée
+     */
+    private void submit(Entry entry) {
+        submitLock.readLock().lock();
+        try {
+            if (!stopped) {
+                offer(entry);
+                return;
+            }
+        } finally {
+            submitLock.readLock().unlock();
+        }
+
+        // Après le début de l'arrêt, plus personne ne vide la file : écriture immédiate
+        write(List.of(entry));
+    }
+
+    private void offer(Entry entry) {
+        if (queue.offer(entry)) {
+            if (overflowing) {
+                overflowing = false;
+            }
+            return;
+        }
+
+        queueFullCounter.increment();
+        if (!overflowing) {
+            overflowing = true;
+            logger.error("Historique : file pleine ({} écritures), les nouvelles écritures sont abandonnées",
+                    queue.size());
+        }
+    }
+
+    /**
+     * Boucle du thread d'écriture : attend une première écriture, puis vide la file par lots
+     */
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Historique : erreur inattendue du thread d'écriture", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Arrêt forcé : le thread d'écriture n'a pas vidé la file à temps (base lente ou indisponible)
+     *
+     * Les écritures en attente ne peuvent pas être faites ici sans risquer de doubler
+     * le lot en cours du thread d'écriture (et de changer l'ordre) : elles sont comptées
+     * et signalées. Le thread d'écriture est interrompu, ce qui abandonne son lot en cours.
+     */
+    private void abandonRemaining() {
+        List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        worker.interrupt();
+        if (!remaining.isEmpty()) {
+            shutdownDroppedCounter.increment(remaining.size());
+            logger.error("Historique : {} écriture(s) non enregistrée(s), arrêt après {} ms",
+                    remaining.size(), shutdownTimeoutMillis);
+        }
+    }
+
+    /**
+     * Vide la file sur le thread appelant
+     */
+    private void flushRemaining() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Écrit un lot en regroupant les écritures consécutives de même nature
+     * en une seule requête, sans changer leur ordre
+     */
+    private void write(List<Entry> batch) {
+        batchSizeSummary.record(batch.size());
+
+        int start = 0;
+        while (start < batch.size()) {
+            Kind kind = batch.get(start).kind();
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).kind() == kind) {
+                end++;
+            }
+
+            writeWithRetry(kind, batch.subList(start, end));
+            start = end;
+        }
+    }
+
+    /**
+     * Écrit une suite d'écritures de même nature
+     *
+     * - Refus d'une ligne par la base : la suite est coupée en deux, chaque moitié écrite à part,
+     *   jusqu'à isoler la ligne fautive, seule écartée
+     * - Autre échec (base indisponible, connexion perdue) : nouvelle tentative après une attente
+     *   croissante et plafonnée ; la suite est abandonnée après chat.history.max-write-attempts
+     *   essais, ou à l'interruption du thread (arrêt forcé)
+     */
+    private void writeWithRetry(Kind kind, List<Entry> run) {
+        long backoff = RETRY_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeRun(kind, run);
+                writtenCounter.increment(run.size());
+                return;
+            } catch (RuntimeException e) {
+                if (isRowError(e)) {
+                    isolate(kind, run, e);
+                    return;
+                }
+
+                if (attempt >= maxWriteAttempts) {
+                    writeFailedCounter.increment(run.size());
+                    logger.error("Historique : {} écriture(s) {} non enregistrée(s) après {} essais",
+                            run.size(), kind, attempt, e);
+                    return;
+                }
+
+                logger.warn("Historique : échec d'écriture de {} {}, nouvel essai dans {} ms",
+                        run.size(), kind, backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    shutdownDroppedCounter.increment(run.size());
+                    logger.error("Historique : {} écriture(s) {} non enregistrée(s), arrêt forcé", run.size(), kind);
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Écarte la ligne refusée, ou coupe la suite en deux pour la retrouver
+     */
+    private void isolate(Kind kind, List<Entry> run, RuntimeException e) {
+        if (run.size() == 1) {
+            Entry entry = run.get(0);
+            rejectedCounter.increment();
+            logger.error("Historique : écriture {} refusée ({})", kind,
+                    entry.message() != null ? "message " + entry.message().getId() : "conversation", e);
+            return;
+        }
+
+        int middle = run.size() / 2;
+        writeWithRetry(kind, run.subList(0, middle));
+        writeWithRetry(kind, run.subList(middle, run.size()));
+    }
+
+    /**
+     * Vrai si l'échec vient d'une ligne du lot (valeur absente ou invalide, contrainte non respectée),
+     * faux s'il vient de la base elle-même : réessayer la même ligne échouerait de nouveau
+     */
+    private static boolean isRowError(RuntimeException e) {
+        return !(e instanceof DataAccessException)
+                || e instanceof DataIntegrityViolationException
+                || e instanceof InvalidDataAccessApiUsageException;
+    }
+
+    private void writeRun(Kind kind, List<Entry> run) {
+        switch (kind) {
+            case OPEN -> repository.insertConversations(run.stream().map(Entry::conversation).toList());
+            case MESSAGE -> repository.insertMessages(run.stream().map(Entry::message).toList());
+            case ASSIGN -> repository.assignAgents(run.stream().map(Entry::row).toList());
+            case CLOSE -> repository.closeConversations(run.stream().map(Entry::row).toList());
+            case REOPEN -> repository.reopenConversations(run.stream().map(entry -> entry.conversation().getId()).toList());
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Métriques du chemin des messages, exposées par Actuator (/actuator/prometheus)
+ *
+ * - chat.messages.in{role} : messages reçus par ChatController, par rôle de l'expéditeur
+ *   (déduit par le serveur : conversation ou Principal de la session, jamais le rôle annoncé)
+ * - chat.messages.out{role} : trames MESSAGE envoyées aux sessions, par rôle du destinataire
+ * - chat.handler.duration{handler} : durée de sendMessage, addUser et de la gestion d'une déconnexion
+ * - chat.transport.send.duration : envoi d'une trame sur sa session WebSocket
+ * - chat.subscriptions{destination} : abonnements actifs par destination
+ * - chat.connections{transport} et chat.connections.opened{transport} : connexions ouvertes
+ *   et ouvertures, en WebSocket natif ou par SockJS
+ * - chat.connection.setup.duration{transport} : de la poignée de main à la trame CONNECTED
+ * - chat.compression.messages{result} : messages sortants compressés (permessage-deflate)
+ *   ou envoyés tels quels, sous le seuil chat.transport.compression-min-size
+ * - chat.compression.bytes{stage} : octets des messages compressés, avant et après compression
+ * - chat.compression.duration : compression d'un message (coût CPU par trame)
+ *
+ * Les sessions actives (chat.sessions.active) sont publiées par SlowConsumerWebSocketHandler,
+ * la profondeur des files des canaux entrant et sortant par ChannelExecutors
+ * (chat.channel.queue.depth). Le canal broker n'a pas de file par défaut (envoi synchrone,
+ * chat.channels.broker.core-pool-size=0) : sa jauge n'existe qu'avec un pool configuré.
+ *
+ * Tous les compteurs et timers sont créés au démarrage : l'enregistrement d'une mesure
+ * ne fait ni recherche dans le registre ni allocation (pas de Timer.Sample, pas de tags
+ * construits à la volée). Les timers publient un histogramme (percentiles calculés par Prometheus)
+ * plutôt que des percentiles calculés ici.
+ */
+@Component
+public class ChatMetrics {
+
+    /**
+     * Traitements mesurés par chat.handler.duration
+     */
+    public enum Handler {
+        SEND_MESSAGE("sendMessage"),
+        ADD_USER("addUser"),
+        DISCONNECT("disconnect");
+
+        private final String tag;
+
+        Handler(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Transport d'une connexion : WebSocket natif (/ws-native, ou /ws/websocket sans trames SockJS)
+     * ou SockJS (/ws, repli des navigateurs et réseaux sans WebSocket)
+     */
+    public enum Transport {
+        WEBSOCKET("websocket"),
+        SOCKJS("sockjs");
+
+        private final String tag;
+
+        Transport(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Transport d'une session non décorée (celle reçue par les handlers WebSocket)
+         */
+        public static Transport of(WebSocketSession session) {
+            return session instanceof SockJsSession ? SOCKJS : WEBSOCKET;
+        }
+    }
+
+    /**
+     * Destinations suivies par chat.subscriptions, les autres sont regroupées sous "other"
+     * (le nombre de séries reste borné quoi que les clients demandent)
+     */
+    static final String[] DESTINATIONS = {"/user/queue/messages", "/user/queue/history", "/app/conversation.history",
+            "/topic/presence", "/app/presence"};
+
+    private static final String OTHER_DESTINATION = "other";
+
+    private static final String UNKNOWN_ROLE = "unknown";
+
+    private static final ChatMessage.SenderRole[] ROLES = ChatMessage.SenderRole.values();
+
+    // Indexés par ordinal du rôle, la dernière case pour un rôle absent
+    private final Counter[] inbound = new Counter[ROLES.length + 1];
+    private final Counter[] outbound = new Counter[ROLES.length + 1];
+
+    private final Timer[] handlers = new Timer[Handler.values().length];
+
+    private final Timer sendTimer;
+
+    // Indexés par ordinal du transport
+    private final AtomicInteger[] connections = new AtomicInteger[Transport.values().length];
+    private final Counter[] connectionsOpened = new Counter[Transport.values().length];
+    private final Timer[] connectionSetup = new Timer[Transport.values().length];
+
+    private final Counter compressedMessages;
+    private final Counter uncompressedMessages;
+    private final Counter compressionOriginalBytes;
+    private final Counter compressionCompressedBytes;
+    private final Timer compressionTimer;
+
+    private final Map<String, AtomicInteger> subscriptions = new ConcurrentHashMap<>();
+
+    // Destination de chaque abonnement (UNSUBSCRIBE ne porte que l'identifiant), par session
+    private final Map<String, Map<String, AtomicInteger>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry meterRegistry) {
+        for (int i = 0; i <= ROLES.length; i++) {
+            String role = i < ROLES.length ? ROLES[i].name() : UNKNOWN_ROLE;
+            inbound[i] = Counter.builder("chat.messages.in")
+                    .description("Messages reçus des clients")
+                    .tag("role", role)
+                    .register(meterRegistry);
+            outbound[i] = Counter.builder("chat.messages.out")
+                    .description("Messages envoyés aux sessions")
+                    .tag("role", role)
+                    .register(meterRegistry);
+        }
+
+        for (Handler handler : Handler.values()) {
+            handlers[handler.ordinal()] = Timer.builder("chat.handler.duration")
+                    .description("Durée de traitement d'un message ou d'une déconnexion")
+                    .tag("handler", handler.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        this.sendTimer = Timer.builder("chat.transport.send.duration")
+                .description("Envoi d'une trame sur sa session WebSocket (bufferisation comprise)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        for (String destination : DESTINATIONS) {
+            registerSubscriptionGauge(meterRegistry, destination);
+        }
+        registerSubscriptionGauge(meterRegistry, OTHER_DESTINATION);
+
+        for (Transport transport : Transport.values()) {
+            AtomicInteger count = new AtomicInteger();
+            connections[transport.ordinal()] = count;
+            Gauge.builder("chat.connections", count, AtomicInteger::get)
+                    .description("Connexions ouvertes par transport")
+                    .tag("transport", transport.tag)
+                    .register(meterRegistry);
+            connectionsOpened[transport.ordinal()] = Counter.builder("chat.connections.opened")
+                    .description("Connexions ouvertes depuis le démarrage, par transport")
+                    .tag("transport", transport.tag)
+                    .register(meterRegistry);
+            connectionSetup[transport.ordinal()] = Timer.builder("chat.connection.setup.duration")
+                    .description("Durée entre la poignée de main et la trame CONNECTED")
+                    .tag("transport", transport.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        this.compressedMessages = Counter.builder("chat.compression.messages")
+                .description("Messages sortants compressés ou envoyés tels quels")
+                .tag("result", "compressed")
+                .register(meterRegistry);
+        this.uncompressedMessages = Counter.builder("chat.compression.messages")
+                .description("Messages sortants compressés ou envoyés tels quels")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+        this.compressionOriginalBytes = Counter.builder("chat.compression.bytes")
+                .description("Octets des messages compressés, avant et après compression")
+                .baseUnit("bytes")
+                .tag("stage", "original")
+                .register(meterRegistry);
+        this.compressionCompressedBytes = Counter.builder("chat.compression.bytes")
+                .description("Octets des messages compressés, avant et après compression")
+                .baseUnit("bytes")
+                .tag("stage", "compressed")
+                .register(meterRegistry);
+        this.compressionTimer = Timer.builder("chat.compression.duration")
+                .description("Compression permessage-deflate d'un message sortant")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void registerSubscriptionGauge(MeterRegistry meterRegistry, String destination) {
+        AtomicInteger count = new AtomicInteger();
+        subscriptions.put(destination, count);
+        Gauge.builder("chat.subscriptions", count, AtomicInteger::get)
+                .description("Abonnements actifs")
+                .tag("destination", destination)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compte un message reçu d'un client
+     */
+    public void recordInbound(ChatMessage.SenderRole role) {
+        inbound[indexOf(role)].increment();
+    }
+
+    /**
+     * Compte une trame MESSAGE envoyée à une session
+     */
+    public void recordOutbound(ChatMessage.SenderRole role) {
+        outbound[indexOf(role)].increment();
+    }
+
+    /**
+     * Enregistre la durée d'un traitement
+     *
+     * @param handler Le traitement mesuré
+     * @param startNanos Valeur de System.nanoTime() au début du traitement
+     */
+    public void recordHandling(Handler handler, long startNanos) {
+        handlers[handler.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Enregistre la durée d'envoi d'une trame
+     *
+     * @param startNanos Valeur de System.nanoTime() au début de l'envoi
+     */
+    public void recordSend(long startNanos) {
+        sendTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Compte une connexion ouverte
+     */
+    public void connectionOpened(Transport transport) {
+        connections[transport.ordinal()].incrementAndGet();
+        connectionsOpened[transport.ordinal()].increment();
+    }
+
+    /**
+     * Retire une connexion fermée
+     */
+    public void connectionClosed(Transport transport) {
+        connections[transport.ordinal()].decrementAndGet();
+    }
+
+    /**
+     * Enregistre la durée d'établissement d'une connexion
+     *
+     * @param transport Le transport de la connexion
+     * @param handshakeStartNanos Valeur de System.nanoTime() au début de la poignée de main
+     */
+    public void recordConnectionSetup(Transport transport, long handshakeStartNanos) {
+        connectionSetup[transport.ordinal()].record(System.nanoTime() - handshakeStartNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Enregistre la compression d'un message (ou d'une partie de message fragmenté)
+     *
+     * @param originalBytes Taille avant compression
+     * @param compressedBytes Taille après compression
+     * @param startNanos Valeur de System.nanoTime() au début de la compression
+     */
+    public void recordCompression(int originalBytes, int compressedBytes, long startNanos) {
+        compressionTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        compressedMessages.increment();
+        compressionOriginalBytes.increment(originalBytes);
+        compressionCompressedBytes.increment(compressedBytes);
+    }
+
+    /**
+     * Compte un message envoyé sans compression (sous le seuil)
+     */
+    public void recordCompressionSkipped() {
+        uncompressedMessages.increment();
+    }
+
+    /**
+     * Compte un abonnement d'une session
+     */
+    public void subscribed(String sessionId, String subscriptionId, String destination) {
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        AtomicInteger count = subscriptions.getOrDefault(destination, subscriptions.get(OTHER_DESTINATION));
+        if (sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .putIfAbsent(subscriptionId, count) == null) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Retire un abonnement d'une session
+     */
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        Map<String, AtomicInteger> session = sessionSubscriptions.get(sessionId);
+        AtomicInteger count = session != null ? session.remove(subscriptionId) : null;
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * Retire tous les abonnements d'une session fermée
+     * (une session peut être annoncée fermée deux fois : DISCONNECT puis fermeture de la connexion)
+     */
+    public void sessionClosed(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Map<String, AtomicInteger> session = sessionSubscriptions.remove(sessionId);
+        if (session != null) {
+            session.values().forEach(AtomicInteger::decrementAndGet);
+        }
+    }
+
+    private static int indexOf(ChatMessage.SenderRole role) {
+        return role != null ? role.ordinal() : ROLES.length;
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service gérant les conversations privées CLIENT / SUPPORT
+ *
+ * Chaque client obtient sa propre conversation, et seul l'agent qui lui est
+ * assigné en reçoit les messages. Les messages sont routés session par session
+ * via /user/{principal}/queue/messages : le coût d'envoi d'un message reste
+ * constant (2 destinataires) quel que soit le nombre d'utilisateurs connectés.
+ * Un message adressé à plusieurs sessions n'est converti qu'une fois (voir sendToUsers).
+ * Les JOIN/LEAVE d'une même session sont regroupés en une trame (voir SystemEventBatcher).
+ *
+ * L'assignation des agents est déléguée au SupportDispatcher,
+ * l'historique au ChatHistoryService.
+ */
+@Service
+public class ConversationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationService.class);
+
+    /**
+     * Destination privée sur laquelle chaque session reçoit ses messages
+     * Côté client, l'abonnement se fait sur /user/queue/messages
+     */
+    public static final String MESSAGES_DESTINATION = "/queue/messages";
+
+    /**
+     * Destination privée sur laquelle un client reçoit l'historique rejoué à sa reconnexion
+     * Côté client, l'abonnement se fait sur /user/queue/history
+     */
+    public static final String HISTORY_DESTINATION = "/queue/history";
+
+    /**
+     * En-tête d'une trame qui regroupe plusieurs JOIN/LEAVE : son corps est un tableau
+     * JSON de ChatMessage, l'en-tête donne leur nombre
+     */
+    public static final String BATCH_HEADER = "chat-batch";
+
+    /**
+     * En-tête d'une trame qui porte un seul ChatMessage : son type (CHAT, JOIN, LEAVE, RECONNECT)
+     * Il permet de classer la trame sans décoder son corps, JSON ou binaire (voir SlowConsumerSessionDecorator)
+     */
+    public static final String TYPE_HEADER = "chat-type";
+
+    /**
+     * En-tête de la trame RECONNECT : délai en millisecondes avant que le client se reconnecte
+     */
+    public static final String RECONNECT_DELAY_HEADER = "reconnect-delay";
+
+    /**
+     * Préfixe des destinations propres à un utilisateur (voir WebSocketConfig)
+     */
+    private static final String USER_DESTINATION_PREFIX = "/user/";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final SupportDispatcher dispatcher;
+
+    private final ChatHistoryService historyService;
+
+    private final MessageEncodingRegistry encodingRegistry;
+
+    private final MessageConverter messageConverter;
+
+    private final SystemEventBatcher systemEventBatcher;
+
+    // Conversations ouvertes, indexées par leur identifiant
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+
+    // Conversation de chaque client, indexée par le Principal de sa session
+    private final Map<String, Conversation> conversationsByClient = new ConcurrentHashMap<>();
+
+    public ConversationService(SimpMessageSendingOperations messagingTemplate,
+                               SupportDispatcher dispatcher,
+                               ChatHistoryService historyService,
+                               MessageEncodingRegistry encodingRegistry,
+                               @Qualifier("brokerMessageConverter") MessageConverter messageConverter,
+                               SystemEventBatcher systemEventBatcher) {
+        this.messagingTemplate = messagingTemplate;
+        this.dispatcher = dispatcher;
+        this.historyService = historyService;
+        this.encodingRegistry = encodingRegistry;
+        this.messageConverter = messageConverter;
+        this.systemEventBatcher = systemEventBatcher;
+        systemEventBatcher.setFlushHandler(this::sendBatch);
+    }
+
+    /**
+     * Ouvre la conversation d'un client (ou retourne celle déjà ouverte pour sa session)
+     *
+     * @param clientUser Principal de la session du client
+     * @param clientName Nom affiché du client
+     * @return La conversation du client
+     */
+    public Conversation openConversation(String clientUser, String clientName) {
+        return openConversation(clientUser, clientName, null);
+    }
+
+    /**
+     * Ouvre la conversation d'un client, en reprenant sa conversation précédente
+     * s'il se reconnecte
+     *
+     * @param clientUser Principal de la session du client
+     * @param clientName Nom affiché du client
+     * @param previousConversationId Conversation d'une session précédente (peut être null)
+     * @return La conversation du client : reprise si son identifiant vaut previousConversationId
+     */
+    public Conversation openConversation(String clientUser, String clientName, String previousConversationId) {
+        Conversation existing = conversationsByClient.get(clientUser);
+        if (existing != null) {
+            return existing;
+        }
+
+        // La reprise peut lire la base : elle se fait hors de computeIfAbsent
+        Optional<Conversation> resumed = previousConversationId != null
+                ? historyService.resume(previousConversationId, clientName, clientUser)
+                : Optional.empty();
+
+        Conversation conversation = conversationsByClient.computeIfAbsent(clientUser, user -> {
+            if (resumed.isPresent() && conversations.putIfAbsent(previousConversationId, resumed.get()) == null) {
+                logger.info("Conversation {} reprise par {}", previousConversationId, clientName);
+                return resumed.get();
+            }
+
+            Conversation opened = new Conversation(clientName, user);
+            conversations.put(opened.getId(), opened);
+            historyService.recordOpen(opened);
+
+            logger.info("Conversation {} ouverte pour {}", opened.getId(), clientName);
+            return opened;
+        });
+
+        // Reprise concurrente perdue : la conversation reprise redevient fermée
+        if (resumed.isPresent() && conversation != resumed.get()) {
+            historyService.recordClose(resumed.get());
+        }
+        return conversation;
+    }
+
+    /**
+     * Place une conversation sans agent dans la file d'attente
+     * et assigne les clients en attente aux agents disponibles
+     *
+     * @param conversation La conversation qui attend un agent
+     */
+    public void requestAgent(Conversation conversation) {
+        if (!conversation.hasAgent()) {
+            dispatcher.enqueue(conversation, false);
+            notifyAssignments(dispatcher.dispatch());
+        }
+    }
+
+    /**
+     * Enregistre un agent SUPPORT et lui assigne des conversations en attente
+     *
+     * @param agentUser Principal de la session de l'agent
+     * @param agentName Nom affiché de l'agent
+     */
+    public void registerAgent(String agentUser, String agentName) {
+        notifyAssignments(dispatcher.registerAgent(agentUser, agentName));
+    }
+
+    /**
+     * Retrouve la conversation à laquelle un utilisateur peut écrire
+     *
+     * - Un client écrit toujours dans sa propre conversation
+     * - Un agent doit préciser la conversation, qui doit lui être assignée
+     *
+     * @param user Principal de l'expéditeur
+     * @param conversationId Conversation visée (utilisée pour les agents)
+     * @return La conversation, ou vide si l'utilisateur n'y participe pas
+     */
+    public Optional<Conversation> findConversation(String user, String conversationId) {
+        Conversation conversation = conversationsByClient.get(user);
+        if (conversation != null) {
+            return Optional.of(conversation);
+        }
+
+        if (conversationId == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(conversations.get(conversationId))
+                .filter(candidate -> user.equals(candidate.getAgentUser()));
+    }
+
+    /**
+     * Délivre un message aux seuls participants d'une conversation
+     *
+     * L'identifiant et l'horodatage sont attribués par le serveur :
+     * ce sont eux qui sont enregistrés dans l'historique.
+     *
+     * @param conversation La conversation cible
+     * @param chatMessage Le message à délivrer
+     */
+    public void deliver(Conversation conversation, ChatMessage chatMessage) {
+        stamp(conversation, chatMessage);
+        sendToUsers(chatMessage, conversation.getClientUser(), conversation.getAgentUser());
+    }
+
+    /**
+     * Attribue l'identifiant, l'horodatage et la conversation d'un message avant son envoi
+     *
+     * Tout message ajouté à l'historique passe par ici : l'horodatage est celui relu en base,
+     * un curseur (timestamp, id) pris sur le message envoyé retrouve donc la même ligne.
+     */
+    private static void stamp(Conversation conversation, ChatMessage chatMessage) {
+        chatMessage.setId(UUID.randomUUID().toString());
+        // Précision de la colonne sent_at : la microseconde
+        chatMessage.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        chatMessage.setConversationId(conversation.getId());
+    }
+
+    /**
+     * Envoie un message à une seule session, dans l'encodage qu'elle a négocié
+     *
+     * @param user Principal de la session destinataire
+     * @param chatMessage Le message à envoyer
+     */
+    public void sendToUser(String user, ChatMessage chatMessage) {
+        sendToUsers(chatMessage, user);
+    }
+
+    /**
+     * Envoie un même message à plusieurs sessions
+     *
+     * Le message n'est converti qu'une fois par encodage (JSON, binaire) : les sessions
+     * d'un même encodage partagent le même tableau d'octets jusqu'au broker,
+     * seuls les en-têtes (destination) sont propres à chaque session.
+     * Les JOIN/LEAVE sont retenus par le SystemEventBatcher, puis envoyés par sendBatch.
+     *
+     * @param chatMessage Le message à envoyer
+     * @param users Principal des sessions destinataires (les valeurs null sont ignorées)
+     */
+    public void sendToUsers(ChatMessage chatMessage, String... users) {
+        boolean batched = systemEventBatcher.isEnabled();
+        boolean systemEvent = chatMessage.getType() == ChatMessage.MessageType.JOIN
+                || chatMessage.getType() == ChatMessage.MessageType.LEAVE;
+        Map<MimeType, Message<?>> encoded = new HashMap<>(2);
+        for (String user : users) {
+            if (user == null) {
+                continue;
+            }
+            if (batched) {
+                if (systemEvent) {
+                    systemEventBatcher.offer(user, chatMessage);
+                    continue;
+                }
+                // Les JOIN/LEAVE en attente partent avant le message
+                systemEventBatcher.flush(user);
+            }
+            Message<?> message = encoded.computeIfAbsent(encodingRegistry.contentTypeFor(user),
+                    contentType -> encode(chatMessage, contentType));
+            messagingTemplate.send(userDestination(user, MESSAGES_DESTINATION), message);
+        }
+    }
+
+    /**
+     * Envoie les JOIN/LEAVE regroupés d'une session
+     *
+     * - Un seul événement : trame habituelle, dans l'encodage de la session
+     * - Plusieurs : une trame JSON (tableau de ChatMessage) avec l'en-tête chat-batch
+     *
+     * @param user Principal de la session destinataire
+     * @param events Les événements, dans leur ordre d'émission
+     */
+    public void sendBatch(String user, List<ChatMessage> events) {
+        if (events.size() == 1) {
+            Message<?> message = encode(events.get(0), encodingRegistry.contentTypeFor(user));
+            messagingTemplate.send(userDestination(user, MESSAGES_DESTINATION), message);
+            return;
+        }
+        messagingTemplate.convertAndSendToUser(user, MESSAGES_DESTINATION, events,
+                Map.of(BATCH_HEADER, String.valueOf(events.size())));
+    }
+
+    /**
+     * Demande à une session de se reconnecter, après un délai (arrêt progressif, voir DrainService)
+     *
+     * Les JOIN/LEAVE en attente de la session partent avant la demande.
+     * La trame est en JSON, quel que soit l'encodage de la session : son content-type l'indique.
+     *
+     * @param user Principal de la session destinataire
+     * @param delayMillis Délai avant la reconnexion, propre à la session
+     */
+    public void sendReconnect(String user, long delayMillis) {
+        if (systemEventBatcher.isEnabled()) {
+            systemEventBatcher.flush(user);
+        }
+        ChatMessage reconnect = new ChatMessage(ChatMessage.MessageType.RECONNECT, null, null,
+                "Redémarrage du serveur : reconnexion automatique");
+        messagingTemplate.convertAndSendToUser(user, MESSAGES_DESTINATION, reconnect,
+                Map.of(TYPE_HEADER, reconnect.getType().name(), RECONNECT_DELAY_HEADER, String.valueOf(delayMillis)));
+    }
+
+    /**
+     * Envoie une page d'historique à une seule session
+     *
+     * @param user Principal de la session destinataire
+     * @param page La page à envoyer
+     */
+    public void sendHistory(String user, HistoryPage page) {
+        messagingTemplate.convertAndSendToUser(user, HISTORY_DESTINATION, page);
+    }
+
+    /**
+     * Ferme les conversations liées à une session qui se déconnecte
+     *
+     * - Client : la conversation est fermée, l'agent est prévenu et sa place libérée
+     * - Agent : ses clients sont prévenus puis remis en tête de la file d'attente
+     *
+     * @param user Principal de la session déconnectée
+     * @param leaveMessage Message LEAVE à transmettre aux autres participants
+     */
+    public void closeSession(String user, ChatMessage leaveMessage) {
+        Conversation conversation = conversationsByClient.remove(user);
+        if (conversation != null) {
+            conversation.setClosed(true);
+            conversations.remove(conversation.getId());
+            dispatcher.cancel(conversation);
+
+            stamp(conversation, leaveMessage);
+            sendToUser(conversation.getAgentUser(), leaveMessage);
+            dispatcher.release(conversation);
+
+            historyService.append(leaveMessage);
+            historyService.recordClose(conversation);
+
+            logger.info("Conversation {} fermée", conversation.getId());
+
+            // La place libérée chez l'agent profite au premier client en attente
+            notifyAssignments(dispatcher.dispatch());
+            return;
+        }
+
+        List<Conversation> orphans = dispatcher.unregisterAgent(user);
+        for (Conversation orphan : orphans) {
+            ChatMessage agentLeft = new ChatMessage(
+                    leaveMessage.getType(),
+                    leaveMessage.getSender(),
+                    leaveMessage.getSenderRole(),
+                    leaveMessage.getContent()
+            );
+            stamp(orphan, agentLeft);
+            sendToUser(orphan.getClientUser(), agentLeft);
+            historyService.append(agentLeft);
+
+            if (!orphan.isClosed()) {
+                dispatcher.enqueue(orphan, true);
+            }
+        }
+
+        if (!orphans.isEmpty()) {
+            logger.info("{} conversation(s) à réassigner après le départ de {}", orphans.size(), leaveMessage.getSender());
+            notifyAssignments(dispatcher.dispatch());
+        }
+    }
+
+    /**
+     * Nombre de conversations actuellement ouvertes
+     */
+    public int getOpenConversationCount() {
+        return conversations.size();
+    }
+
+    /**
+     * Convertit un message dans l'encodage donné, avec les convertisseurs du broker
+     * Le type du message est repris dans l'en-tête chat-type de la trame
+     */
+    private Message<?> encode(ChatMessage chatMessage, MimeType contentType) {
+        Map<String, Object> headers = Map.of(
+                MessageHeaders.CONTENT_TYPE, contentType,
+                NativeMessageHeaderAccessor.NATIVE_HEADERS, Map.of(TYPE_HEADER, List.of(chatMessage.getType().name())));
+        Message<?> message = messageConverter.toMessage(chatMessage, new MessageHeaders(headers));
+        if (message == null) {
+            throw new MessageConversionException("Aucun convertisseur pour ChatMessage en " + contentType);
+        }
+        return message;
+    }
+
+    /**
+     * Destination d'un utilisateur, comme SimpMessagingTemplate.convertAndSendToUser
+     */
+    private static String userDestination(String user, String destination) {
+        return USER_DESTINATION_PREFIX + StringUtils.replace(user, "/", "%2F") + destination;
+    }
+
+    /**
+     * Prévient les participants des conversations qui viennent d'être assignées
+     */
+    private void notifyAssignments(List<SupportDispatcher.Assignment> assignments) {
+        for (SupportDispatcher.Assignment assignment : assignments) {
+            Conversation conversation = assignment.conversation();
+            String agentName = assignment.agent().getName();
+
+            logger.info("Conversation {} assignée à {}", conversation.getId(), agentName);
+
+            ChatMessage agentJoined = new ChatMessage(
+                    ChatMessage.MessageType.JOIN,
+                    agentName,
+                    ChatMessage.SenderRole.SUPPORT,
+                    agentName + " a rejoint la conversation"
+            );
+            stamp(conversation, agentJoined);
+            sendToUser(conversation.getClientUser(), agentJoined);
+
+            historyService.recordAssignment(conversation, agentName);
+            historyService.append(agentJoined);
+
+            ChatMessage clientWaiting = new ChatMessage(
+                    ChatMessage.MessageType.JOIN,
+                    conversation.getClientName(),
+                    ChatMessage.SenderRole.CLIENT,
+                    conversation.getClientName() + " a rejoint le chat"
+            );
+            stamp(conversation, clientWaiting);
+            sendToUser(assignment.agent().getUser(), clientWaiting);
+        }
+    }
+}
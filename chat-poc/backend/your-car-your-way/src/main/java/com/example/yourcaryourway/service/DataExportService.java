@@ -0,0 +1,178 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.repository.DataExportRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Export des données personnelles d'un utilisateur (droit d'accès RGPD / CCPA)
+ *
+ * Profil, permis, moyens de paiement, consentements et réservations (avec leurs documents
+ * et l'offre JSON) sont écrits au fil de la lecture (DataExportRepository) : aucune section
+ * n'est chargée en entier, la mémoire ne dépend pas de l'historique de l'utilisateur.
+ *
+ * Deux formats :
+ * - JSON : un seul document {"exportedAt", "user", "driverLicense", "paymentMethods", "consents", "reservations"}
+ * - NDJSON : une ligne par enregistrement, avec son type ({"type":"reservation", ...})
+ *
+ * Métrique : data.export.duration{format=json|ndjson}
+ */
+@Service
+public class DataExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataExportService.class);
+
+    /**
+     * Formats d'export
+     */
+    public enum Format {
+        JSON("application/json", "json"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final DataExportRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Format, Timer> exports = new EnumMap<>(Format.class);
+
+    public DataExportService(DataExportRepository repository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        for (Format format : Format.values()) {
+            exports.put(format, Timer.builder("data.export.duration")
+                    .description("Durée d'un export des données personnelles")
+                    .tag("format", format.getExtension())
+                    .register(meterRegistry));
+        }
+    }
+
+    public boolean userExists(String userId) {
+        return repository.userExists(userId);
+    }
+
+    /**
+     * Écrit les données de l'utilisateur dans le flux, au fil de leur lecture
+     *
+     * Le flux n'est pas fermé. Une erreur d'écriture (client parti) interrompt la lecture.
+     */
+    public void export(String userId, Format format, OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (format == Format.NDJSON) {
+                generator.setRootValueSeparator(null);
+                writeLines(userId, generator);
+            } else {
+                writeDocument(userId, generator);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long duration = System.nanoTime() - start;
+        exports.get(format).record(duration, TimeUnit.NANOSECONDS);
+        logger.info("Export des données d'un utilisateur ({}) en {} ms", format.getExtension(),
+                TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    private void writeDocument(String userId, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("exportedAt", LocalDateTime.now());
+        writeSingle(generator, "user", consumer -> repository.forEachUser(userId, consumer));
+        writeSingle(generator, "driverLicense", consumer -> repository.forEachDriverLicense(userId, consumer));
+        writeArray(generator, "paymentMethods", consumer -> repository.forEachPaymentMethod(userId, consumer));
+        writeArray(generator, "consents", consumer -> repository.forEachConsent(userId, consumer));
+        writeArray(generator, "reservations", consumer -> repository.forEachReservation(userId, consumer));
+        generator.writeEndObject();
+    }
+
+    private static void writeSingle(JsonGenerator generator, String field,
+                                    Consumer<Consumer<Map<String, Object>>> rows) throws IOException {
+        generator.writeFieldName(field);
+        boolean[] written = {false};
+        rows.accept(row -> {
+            write(generator, row);
+            written[0] = true;
+        });
+        if (!written[0]) {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeArray(JsonGenerator generator, String field,
+                                   Consumer<Consumer<Map<String, Object>>> rows) throws IOException {
+        generator.writeArrayFieldStart(field);
+        rows.accept(row -> write(generator, row));
+        generator.writeEndArray();
+    }
+
+    private void writeLines(String userId, JsonGenerator generator) {
+        repository.forEachUser(userId, row -> writeLine(generator, "user", row));
+        repository.forEachDriverLicense(userId, row -> writeLine(generator, "driverLicense", row));
+        repository.forEachPaymentMethod(userId, row -> writeLine(generator, "paymentMethod", row));
+        repository.forEachConsent(userId, row -> writeLine(generator, "consent", row));
+        repository.forEachReservation(userId, row -> writeLine(generator, "reservation", row));
+    }
+
+    private static void writeLine(JsonGenerator generator, String type, Map<String, Object> row) {
+        writing(() -> {
+            generator.writeStartObject();
+            generator.writeStringField("type", type);
+            for (Map.Entry<String, Object> field : row.entrySet()) {
+                generator.writeObjectField(field.getKey(), field.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+    }
+
+    private static void write(JsonGenerator generator, Map<String, Object> row) {
+        writing(() -> generator.writeObject(row));
+    }
+
+    // Les lignes sont remises par des Consumer : IOException traverse la lecture en UncheckedIOException
+    private static void writing(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
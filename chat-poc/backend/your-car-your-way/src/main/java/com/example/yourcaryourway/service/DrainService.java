@@ -0,0 +1,152 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChannelExecutors;
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.interceptor.SlowConsumerWebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Arrêt progressif du nœud : les sessions WebSocket passent sur les autres nœuds sans perte
+ *
+ * Sans lui, l'arrêt de Spring ferme toutes les sessions d'un coup (GOING_AWAY) :
+ * les clients se reconnectent ensemble sur les nœuds restants, et les trames
+ * encore dans le canal sortant sont perdues.
+ *
+ * À la fermeture du contexte, avant l'arrêt du broker et des canaux :
+ * 1. Les nouvelles poignées de main sont refusées (503, voir DrainHandshakeInterceptor)
+ *    et le nœud se déclare hors service (readiness REFUSING_TRAFFIC)
+ * 2. Chaque session reçoit une trame RECONNECT avec son propre délai, tiré au hasard
+ *    dans chat.drain.reconnect-window : les reconnexions s'étalent sur la fenêtre
+ * 3. Les sessions partent d'elles-mêmes, jusqu'à chat.drain.timeout
+ * 4. Les trames en attente (canaux entrant et sortant, tampons des clients lents)
+ *    sont envoyées, jusqu'à chat.drain.flush-timeout
+ * 5. Les sessions restantes sont fermées avec SERVICE_RESTARTED (1012)
+ *
+ * Le délai de grâce de l'orchestrateur (terminationGracePeriodSeconds) doit couvrir
+ * timeout + flush-timeout, sinon le processus est tué avant la fin.
+ */
+@Service
+public class DrainService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrainService.class);
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final ChatProperties.Drain drain;
+
+    private final PresenceService presenceService;
+
+    private final ConversationService conversationService;
+
+    private final SlowConsumerWebSocketHandler webSocketHandler;
+
+    private final List<Executor> channelExecutors;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean draining;
+
+    public DrainService(ChatProperties properties, PresenceService presenceService,
+                        ConversationService conversationService, SlowConsumerWebSocketHandler webSocketHandler,
+                        @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+                        @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor,
+                        ApplicationEventPublisher eventPublisher) {
+        this.drain = properties.getDrain();
+        this.presenceService = presenceService;
+        this.conversationService = conversationService;
+        this.webSocketHandler = webSocketHandler;
+        this.channelExecutors = List.of(inboundExecutor, outboundExecutor);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Vrai dès le début de l'arrêt progressif : les nouvelles connexions sont refusées
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Déclenché à la fermeture du contexte, avant l'arrêt des beans (broker, canaux, handler WebSocket)
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        if (drain.isEnabled() && !draining) {
+            drain();
+        }
+    }
+
+    /**
+     * Vide le nœud de ses sessions (voir la description de la classe)
+     */
+    public void drain() {
+        long start = System.nanoTime();
+        draining = true;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        // Copie : les sessions qui partent quittent l'ensemble pendant le parcours
+        List<String> users = List.copyOf(presenceService.getConnectedUsers());
+        long window = drain.getReconnectWindow().toMillis();
+        for (String user : users) {
+            long delay = window > 0 ? ThreadLocalRandom.current().nextLong(window + 1) : 0;
+            conversationService.sendReconnect(user, delay);
+        }
+        logger.info("Arrêt progressif : {} session(s) invitée(s) à se reconnecter sous {}", users.size(),
+                drain.getReconnectWindow());
+
+        boolean left = await(() -> webSocketHandler.getSessionCount() == 0, drain.getTimeout());
+        boolean flushed = await(this::isFlushed, drain.getFlushTimeout());
+        int closed = webSocketHandler.closeSessions(CloseStatus.SERVICE_RESTARTED);
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        if (left && flushed) {
+            logger.info("Arrêt progressif terminé en {} ms", elapsed.toMillis());
+        } else {
+            logger.warn("Arrêt progressif terminé en {} ms : {} session(s) fermée(s), {} octet(s) non envoyé(s)",
+                    elapsed.toMillis(), closed, webSocketHandler.getBufferedBytes());
+        }
+    }
+
+    /**
+     * Plus aucune trame en attente : ni dans les canaux, ni dans les tampons des sessions
+     */
+    private boolean isFlushed() {
+        for (Executor executor : channelExecutors) {
+            if (ChannelExecutors.pendingMessages(executor) > 0) {
+                return false;
+            }
+        }
+        return webSocketHandler.getBufferedBytes() == 0;
+    }
+
+    private static boolean await(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
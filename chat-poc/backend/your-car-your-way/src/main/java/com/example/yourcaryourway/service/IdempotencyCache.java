@@ -0,0 +1,180 @@
+package com.example.yourcaryourway.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Résultats récents indexés par clé d'idempotence, avec fusion des calculs en cours
+ *
+ * - Première requête d'une clé : elle calcule le résultat, les autres l'attendent
+ * - Requêtes suivantes : le résultat gardé, pendant ttl après la fin du calcul
+ * - Calcul en échec : l'erreur est transmise aux requêtes en attente, puis la clé est oubliée
+ *   (une nouvelle tentative recalcule)
+ *
+ * Au plus maxEntries clés : au-delà, les plus anciennes terminées sont oubliées.
+ * Les clés sont rangées par ordre d'arrivée dans une file : avec un ttl commun,
+ * c'est aussi l'ordre d'expiration, la purge ne parcourt que le début de la file.
+ *
+ * Le cache ne vaut que pour ce nœud : la contrainte unique en base reste la garde finale.
+ *
+ * @param <V> Type du résultat
+ */
+final class IdempotencyCache<V> {
+
+    /**
+     * Origine d'un résultat
+     */
+    enum Outcome {
+        COMPUTED,   // Calculé par cette requête
+        IN_FLIGHT,  // Attendu sur le calcul d'une requête concurrente
+        CACHED      // Gardé d'un calcul terminé
+    }
+
+    /**
+     * Résultat d'une requête et son origine
+     */
+    record Result<V>(V value, Outcome outcome) {
+    }
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // Clés par ordre d'arrivée (une clé oubliée puis revenue peut y figurer deux fois)
+    private final Queue<Entry<V>> arrivals = new ConcurrentLinkedQueue<>();
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final LongSupplier nanoClock;
+
+    IdempotencyCache(long ttlNanos, int maxEntries) {
+        this(ttlNanos, maxEntries, System::nanoTime);
+    }
+
+    IdempotencyCache(long ttlNanos, int maxEntries, LongSupplier nanoClock) {
+        this.ttlNanos = ttlNanos;
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Résultat d'une clé : calculé par computation si la clé est inconnue ou expirée
+     *
+     * @throws RuntimeException L'exception du calcul, y compris pour les requêtes qui l'attendaient
+     */
+    Result<V> get(String key, Supplier<V> computation) {
+        while (true) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isExpired(nanoClock.getAsLong())) {
+                    entries.remove(key, entry);
+                    continue;
+                }
+                boolean done = entry.future.isDone();
+                return new Result<>(join(entry.future), done ? Outcome.CACHED : Outcome.IN_FLIGHT);
+            }
+
+            Entry<V> created = new Entry<>(key);
+            if (entries.putIfAbsent(key, created) != null) {
+                // Une requête concurrente vient de créer la clé : l'attendre
+                continue;
+            }
+            arrivals.add(created);
+            evict();
+            return new Result<>(compute(created, computation), Outcome.COMPUTED);
+        }
+    }
+
+    private V compute(Entry<V> entry, Supplier<V> computation) {
+        V value;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(entry.key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        entry.expiresAt = nanoClock.getAsLong() + ttlNanos;
+        entry.future.complete(value);
+        return value;
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Oublie les clés expirées en tête de file, puis les plus anciennes au-delà de maxEntries
+     *
+     * Une clé en cours de calcul n'est jamais oubliée : sa place est rendue en fin de file.
+     */
+    private void evict() {
+        long now = nanoClock.getAsLong();
+        int inFlight = 0;
+        Entry<V> head;
+        while ((head = arrivals.peek()) != null) {
+            boolean current = entries.get(head.key) == head;
+            boolean overCapacity = entries.size() > maxEntries;
+            if (current && !head.isExpired(now) && !overCapacity) {
+                return;
+            }
+            if (!arrivals.remove(head)) {
+                // Retirée par une purge concurrente
+                continue;
+            }
+            if (!current) {
+                continue;
+            }
+            if (head.future.isDone()) {
+                entries.remove(head.key, head);
+            } else {
+                arrivals.add(head);
+                if (++inFlight >= entries.size()) {
+                    // Toutes les clés restantes sont en cours de calcul
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Nombre de clés en mémoire, terminées ou en cours
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+
+        private final String key;
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        // Fin de conservation, fixée à la fin du calcul
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            return future.isDone() && now - expiresAt >= 0;
+        }
+    }
+}
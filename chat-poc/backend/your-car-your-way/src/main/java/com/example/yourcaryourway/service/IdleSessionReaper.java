@@ -0,0 +1,243 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fermeture des sessions WebSocket inactives, par une roue de temporisation
+ *
+ * Une connexion mobile coupée sans fermeture TCP garde sa session, ses abonnements
+ * et sa conversation jusqu'à ce que le système s'en aperçoive (plusieurs minutes).
+ * Les clients envoient un heartbeat STOMP toutes les chat.heartbeat.client-interval :
+ * une session qui ne reçoit aucune trame pendant chat.heartbeat.idle-timeout est fermée.
+ *
+ * Plutôt qu'un minuteur par session (une tâche planifiée, annulée et recréée à chaque trame),
+ * les sessions sont rangées dans une roue de idle-timeout / reaper-tick cases :
+ * - Une trame reçue ne fait qu'écrire le numéro de la case courante dans l'entrée (touch)
+ * - À chaque tick, seule la case qui arrive à échéance est parcourue : une entrée active
+ *   depuis est déplacée vers la case de sa nouvelle échéance, les autres sont fermées
+ * - Une session fermée est marquée, puis oubliée quand sa case est parcourue
+ *
+ * Le coût d'un tick est proportionnel aux sessions de sa case, pas au nombre total
+ * de sessions (voir IdleSessionReaperLoadTest pour 100 000 sessions).
+ * La fermeture est détectée avec au plus un tick de retard.
+ */
+@Component
+public class IdleSessionReaper implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdleSessionReaper.class);
+
+    private final TaskScheduler scheduler;
+
+    private final Duration tick;
+
+    // Délai d'inactivité en nombre de ticks (0 : désactivé)
+    private final long timeoutTicks;
+
+    // Une case de plus que le délai : une échéance ne tombe jamais dans la case parcourue
+    private final Queue<Entry>[] wheel;
+
+    // Case courante, avancée par le seul thread du tick
+    private volatile long currentTick;
+
+    private final AtomicInteger tracked = new AtomicInteger();
+
+    private final Counter reaped;
+
+    private volatile ScheduledFuture<?> ticking;
+
+    @SuppressWarnings("unchecked")
+    public IdleSessionReaper(ChatProperties properties,
+                             @Qualifier("heartbeatTaskScheduler") TaskScheduler scheduler,
+                             MeterRegistry meterRegistry) {
+        ChatProperties.Heartbeat heartbeat = properties.getHeartbeat();
+        this.scheduler = scheduler;
+        this.tick = heartbeat.getReaperTick();
+        long tickMillis = Math.max(1, tick.toMillis());
+        this.timeoutTicks = heartbeat.getIdleTimeout().isNegative() ? 0
+                : (heartbeat.getIdleTimeout().toMillis() + tickMillis - 1) / tickMillis;
+        this.wheel = new Queue[(int) timeoutTicks + 1];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        Gauge.builder("chat.idle.sessions", tracked, AtomicInteger::get)
+                .description("Sessions surveillées par la roue d'inactivité")
+                .register(meterRegistry);
+        this.reaped = Counter.builder("chat.idle.reaped")
+                .description("Sessions fermées faute de trame reçue pendant chat.heartbeat.idle-timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Vrai si les sessions inactives sont fermées (délai non nul)
+     */
+    public boolean isEnabled() {
+        return timeoutTicks > 0;
+    }
+
+    /**
+     * Surveille une nouvelle session
+     *
+     * @param sessionId Identifiant de la session (pour les logs)
+     * @param onIdle Fermeture de la session, appelée par le thread du tick
+     * @return L'entrée à toucher à chaque trame reçue et à annuler à la fermeture
+     */
+    public Entry register(String sessionId, Runnable onIdle) {
+        Entry entry = new Entry(sessionId, onIdle, currentTick);
+        tracked.incrementAndGet();
+        wheel[slot(entry.lastTick + timeoutTicks)].add(entry);
+        return entry;
+    }
+
+    /**
+     * Avance la roue d'une case et traite les sessions arrivées à échéance
+     * Appelée à chaque chat.heartbeat.reaper-tick par le planificateur
+     */
+    void tick() {
+        long now = currentTick + 1;
+        currentTick = now;
+
+        Queue<Entry> due = wheel[slot(now)];
+        int expired = 0;
+        Entry entry;
+        while ((entry = due.poll()) != null) {
+            if (entry.closed) {
+                continue;
+            }
+            long deadline = entry.lastTick + timeoutTicks;
+            if (deadline > now) {
+                // Active depuis son placement : déplacée vers sa nouvelle échéance (jamais cette case)
+                wheel[slot(deadline)].add(entry);
+            } else if (expire(entry)) {
+                expired++;
+            }
+        }
+
+        // Une ligne par tick : après une coupure réseau, des milliers de sessions expirent ensemble
+        if (expired > 0) {
+            reaped.increment(expired);
+            logger.info("{} session(s) fermée(s) : aucune trame reçue depuis {}", expired, tick.multipliedBy(timeoutTicks));
+        }
+    }
+
+    private boolean expire(Entry entry) {
+        if (!entry.markClosed()) {
+            return false;
+        }
+        logger.debug("Session {} inactive, fermeture", entry.sessionId);
+        try {
+            entry.onIdle.run();
+        } catch (RuntimeException e) {
+            logger.warn("Fermeture de la session inactive {} impossible", entry.sessionId, e);
+        }
+        return true;
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % wheel.length);
+    }
+
+    /**
+     * Nombre de sessions surveillées
+     */
+    public int getTrackedCount() {
+        return tracked.get();
+    }
+
+    @Override
+    public void start() {
+        if (isEnabled()) {
+            ticking = scheduler.scheduleAtFixedRate(this::tickSafely, tick);
+        }
+    }
+
+    @Override
+    public void stop() {
+        ScheduledFuture<?> scheduled = ticking;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            ticking = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ticking != null;
+    }
+
+    /**
+     * Une exception arrêterait la tâche périodique : elle est loguée, la roue continue de tourner
+     */
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            logger.warn("Tour de la roue d'inactivité impossible", e);
+        }
+    }
+
+    /**
+     * Session surveillée : quelques champs, aucune tâche planifiée par session
+     */
+    public final class Entry {
+
+        private final String sessionId;
+
+        private final Runnable onIdle;
+
+        // Case de la dernière trame reçue
+        private volatile long lastTick;
+
+        private volatile boolean closed;
+
+        private Entry(String sessionId, Runnable onIdle, long lastTick) {
+            this.sessionId = sessionId;
+            this.onIdle = onIdle;
+            this.lastTick = lastTick;
+        }
+
+        /**
+         * Note une trame reçue : sans allocation ni verrou,
+         * et sans écriture si la session a déjà reçu une trame pendant ce tick
+         */
+        public void touch() {
+            long now = currentTick;
+            if (lastTick != now) {
+                lastTick = now;
+            }
+        }
+
+        /**
+         * Arrête la surveillance d'une session fermée
+         */
+        public void cancel() {
+            markClosed();
+        }
+
+        private boolean markClosed() {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+            }
+            tracked.decrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.converter.ChatMessageBinaryConverter;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodage des messages négocié par chaque session
+ *
+ * Par défaut une session reçoit ses ChatMessage en JSON. Une session qui a demandé
+ * l'encodage binaire au CONNECT (voir EncodingNegotiationInterceptor) les reçoit
+ * au format ChatMessageBinaryCodec. Les sessions sont indexées par leur Principal,
+ * unique par session (voir UserAssignmentInterceptor).
+ */
+@Component
+public class MessageEncodingRegistry {
+
+    // Principal des sessions qui reçoivent les messages en binaire
+    private final Set<String> binaryUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Passe une session à l'encodage binaire
+     *
+     * @param user Principal de la session
+     */
+    public void useBinary(String user) {
+        binaryUsers.add(user);
+    }
+
+    /**
+     * Vrai si la session reçoit ses messages en binaire
+     *
+     * @param user Principal de la session
+     */
+    public boolean isBinary(String user) {
+        return binaryUsers.contains(user);
+    }
+
+    /**
+     * Content-type des ChatMessage envoyés à une session : JSON par défaut, binaire si négocié
+     *
+     * @param user Principal de la session destinataire
+     */
+    public MimeType contentTypeFor(String user) {
+        return isBinary(user) ? ChatMessageBinaryConverter.MIME_TYPE : MimeTypeUtils.APPLICATION_JSON;
+    }
+
+    /**
+     * Oublie l'encodage d'une session déconnectée
+     */
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Principal principal = event.getUser();
+        if (principal != null) {
+            binaryUsers.remove(principal.getName());
+        }
+    }
+}
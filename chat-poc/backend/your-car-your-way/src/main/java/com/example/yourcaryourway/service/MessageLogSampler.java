@@ -0,0 +1,82 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Échantillonnage et limitation des logs écrits pour chaque message
+ *
+ * Sous charge, une ligne de log par message devient le plafond de débit (formatage,
+ * écriture console) : seul un message sur chat.logging.message-sample-rate est logué,
+ * dans la limite de chat.logging.max-message-lines-per-second lignes par seconde.
+ * Le contenu des messages (données personnelles des clients) n'est jamais logué :
+ * redact() n'en garde que la longueur et une empreinte, suffisante pour retrouver
+ * un message signalé sans l'exposer.
+ */
+@Component
+public class MessageLogSampler {
+
+    private static final int FINGERPRINT_BYTES = 6;
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int sampleRate;
+
+    private final int maxLinesPerSecond;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Fenêtre d'une seconde : début (System.nanoTime) et lignes déjà écrites
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger windowLines = new AtomicInteger();
+
+    public MessageLogSampler(ChatProperties properties) {
+        this.sampleRate = Math.max(1, properties.getLogging().getMessageSampleRate());
+        this.maxLinesPerSecond = properties.getLogging().getMaxMessageLinesPerSecond();
+    }
+
+    /**
+     * Indique si le message courant doit être logué
+     * Sans allocation : un compteur pour l'échantillonnage, une fenêtre d'une seconde pour la limite
+     */
+    public boolean shouldLog() {
+        if (sequence.getAndIncrement() % sampleRate != 0) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= ONE_SECOND && windowStart.compareAndSet(start, now)) {
+            windowLines.set(0);
+        }
+        return windowLines.incrementAndGet() <= maxLinesPerSecond;
+    }
+
+    /**
+     * Remplace un contenu par sa longueur et une empreinte SHA-256 tronquée
+     *
+     * @param content Le contenu d'un message (peut être null)
+     * @return Par exemple "42 car., sha256:3f2a9c0b1d7e"
+     */
+    public static String redact(String content) {
+        if (content == null) {
+            return "vide";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return content.length() + " car., sha256:" + HexFormat.of().formatHex(digest, 0, FINGERPRINT_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 est fourni par toutes les JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
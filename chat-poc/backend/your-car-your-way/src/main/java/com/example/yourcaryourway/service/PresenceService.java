@@ -0,0 +1,279 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.PresenceUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registre de présence des sessions connectées
+ *
+ * Flux :
+ * 1. SessionConnectedEvent : la session est enregistrée, sans rôle (voir WebSocketEventListener)
+ * 2. JOIN (ChatController.addUser) : la session est indexée par rôle avec le nom annoncé
+ * 3. SessionDisconnectEvent : la session est retirée de l'index
+ * 4. À chaque intervalle (chat.presence.tick), les changements sont publiés en un seul
+ *    delta sur /topic/presence : une arrivée suivie d'un départ dans le même intervalle
+ *    n'est pas publiée
+ *
+ * L'index par rôle est une ConcurrentHashMap par rôle : le nombre d'agents ou de clients
+ * en ligne se lit en O(1), sans parcourir les sessions. La charge des agents est celle
+ * du SupportDispatcher.
+ */
+@Service
+public class PresenceService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+
+    /**
+     * Topic sur lequel les changements de présence sont publiés
+     */
+    public static final String PRESENCE_TOPIC = "/topic/presence";
+
+    /**
+     * Agent en ligne et sa charge courante
+     */
+    public record OnlineAgent(String name, int activeChats) {
+    }
+
+    /**
+     * Session connectée ; rôle et nom sont connus au JOIN
+     */
+    private static final class Session {
+
+        private volatile String name;
+        private volatile ChatMessage.SenderRole role;
+    }
+
+    /**
+     * Changement de présence d'un agent, en attente de publication
+     */
+    private record AgentChange(String name, boolean online) {
+    }
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final SupportDispatcher dispatcher;
+
+    private final TaskScheduler scheduler;
+
+    private final Duration tick;
+
+    // Sessions connectées, indexées par Principal
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // Sessions annoncées par un JOIN, par rôle (la map de chaque rôle est créée une fois pour toutes)
+    private final Map<ChatMessage.SenderRole, Map<String, Session>> online = new EnumMap<>(ChatMessage.SenderRole.class);
+
+    // Arrivées et départs d'agents depuis la dernière publication, indexés par Principal
+    private final Map<String, AgentChange> pendingAgents = new ConcurrentHashMap<>();
+
+    // Vrai si un compteur a changé depuis la dernière publication
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Compteurs de la dernière publication (lus et écrits par la seule tâche de publication)
+    private int publishedAgents;
+    private int publishedClients;
+
+    private volatile ScheduledFuture<?> publication;
+
+    public PresenceService(SimpMessageSendingOperations messagingTemplate,
+                           SupportDispatcher dispatcher,
+                           @Qualifier("chatTaskScheduler") TaskScheduler scheduler,
+                           ChatProperties properties) {
+        this.messagingTemplate = messagingTemplate;
+        this.dispatcher = dispatcher;
+        this.scheduler = scheduler;
+        this.tick = properties.getPresence().getTick();
+        for (ChatMessage.SenderRole role : ChatMessage.SenderRole.values()) {
+            online.put(role, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Enregistre une session qui vient de se connecter (avant son JOIN)
+     *
+     * @param user Principal de la session
+     */
+    public void connected(String user) {
+        sessions.putIfAbsent(user, new Session());
+    }
+
+    /**
+     * Principal des sessions connectées à ce nœud
+     */
+    public Set<String> getConnectedUsers() {
+        return Collections.unmodifiableSet(sessions.keySet());
+    }
+
+    /**
+     * Indexe une session par le rôle annoncé dans son JOIN
+     *
+     * Sans effet si la session n'est pas (ou plus) connectée, ou a déjà annoncé son rôle :
+     * un JOIN traité après la déconnexion ne recrée pas la session.
+     *
+     * @param user Principal de la session
+     * @param name Nom affiché
+     * @param role Rôle annoncé (CLIENT si absent)
+     */
+    public void joined(String user, String name, ChatMessage.SenderRole role) {
+        ChatMessage.SenderRole joinedRole = role != null ? role : ChatMessage.SenderRole.CLIENT;
+        sessions.computeIfPresent(user, (key, session) -> {
+            if (session.role == null) {
+                session.name = name;
+                session.role = joinedRole;
+                online.get(joinedRole).put(user, session);
+                if (joinedRole == ChatMessage.SenderRole.SUPPORT) {
+                    pendingAgents.put(user, new AgentChange(name, true));
+                }
+                changed.set(true);
+            }
+            return session;
+        });
+    }
+
+    /**
+     * Retire une session déconnectée (une session peut être annoncée fermée deux fois)
+     *
+     * @param user Principal de la session
+     */
+    public void disconnected(String user) {
+        Session session = sessions.remove(user);
+        if (session == null || session.role == null) {
+            return;
+        }
+
+        online.get(session.role).remove(user);
+        if (session.role == ChatMessage.SenderRole.SUPPORT) {
+            // Un agent arrivé depuis la dernière publication repart sans avoir été annoncé
+            pendingAgents.compute(user, (key, pending) ->
+                    pending != null && pending.online() ? null : new AgentChange(session.name, false));
+        }
+        changed.set(true);
+    }
+
+    /**
+     * Nombre de sessions en ligne pour un rôle, en O(1)
+     */
+    public int getOnlineCount(ChatMessage.SenderRole role) {
+        return online.get(role).size();
+    }
+
+    /**
+     * Nombre de sessions connectées, y compris celles qui n'ont pas encore envoyé leur JOIN
+     */
+    public int getConnectedCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Agents SUPPORT en ligne et leur nombre de conversations
+     */
+    public List<OnlineAgent> getOnlineAgents() {
+        List<OnlineAgent> agents = new ArrayList<>();
+        online.get(ChatMessage.SenderRole.SUPPORT).forEach((user, session) -> {
+            SupportDispatcher.Agent agent = dispatcher.getAgent(user);
+            agents.add(new OnlineAgent(session.name, agent != null ? agent.getActiveChats() : 0));
+        });
+        return agents;
+    }
+
+    /**
+     * Instantané de la présence, renvoyé à l'abonnement à /app/presence
+     *
+     * Les changements pas encore publiés arrivent dans le delta suivant
+     * (numéro supérieur) : appliquer une arrivée ou un départ déjà connu est sans effet.
+     */
+    public PresenceUpdate snapshot() {
+        long current = sequence.get();
+        List<String> agents = new ArrayList<>();
+        for (Session session : online.get(ChatMessage.SenderRole.SUPPORT).values()) {
+            agents.add(session.name);
+        }
+        return new PresenceUpdate(current, true,
+                getOnlineCount(ChatMessage.SenderRole.SUPPORT),
+                getOnlineCount(ChatMessage.SenderRole.CLIENT),
+                agents, List.of());
+    }
+
+    /**
+     * Publie les changements depuis la publication précédente, s'il y en a
+     *
+     * Appelée à chaque intervalle par le planificateur (jamais en parallèle)
+     */
+    public void publish() {
+        if (!changed.getAndSet(false)) {
+            return;
+        }
+
+        List<String> joined = new ArrayList<>();
+        List<String> left = new ArrayList<>();
+        for (String user : pendingAgents.keySet()) {
+            AgentChange change = pendingAgents.remove(user);
+            if (change != null) {
+                (change.online() ? joined : left).add(change.name());
+            }
+        }
+
+        int agents = getOnlineCount(ChatMessage.SenderRole.SUPPORT);
+        int clients = getOnlineCount(ChatMessage.SenderRole.CLIENT);
+        if (joined.isEmpty() && left.isEmpty() && agents == publishedAgents && clients == publishedClients) {
+            return;
+        }
+        publishedAgents = agents;
+        publishedClients = clients;
+
+        messagingTemplate.convertAndSend(PRESENCE_TOPIC,
+                new PresenceUpdate(sequence.incrementAndGet(), false, agents, clients, joined, left));
+    }
+
+    @Override
+    public void start() {
+        publication = scheduler.scheduleAtFixedRate(this::publishSafely, tick);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledFuture<?> scheduled = publication;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            publication = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return publication != null;
+    }
+
+    /**
+     * Une exception arrêterait la tâche périodique : elle est loguée, la publication continue
+     */
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            logger.warn("Publication de la présence impossible", e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.Quote;
+import com.example.yourcaryourway.model.RatePlan;
+import com.example.yourcaryourway.repository.RatePlanRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul du prix d'une location à partir des tarifs (table rate_plan)
+ *
+ * Les tarifs sont gardés en mémoire dans un instantané immuable et versionné (voir RatePlanSnapshot) :
+ * un devis ne fait aucun aller-retour en base. reload relit toute la table, construit
+ * un nouvel instantané, puis le publie d'un coup : un devis voit l'ancien ou le nouveau, jamais un mélange.
+ *
+ * Les modifications passent par saveRatePlan et deleteRatePlan, qui rechargent l'instantané.
+ * Une modification faite hors de ce service (autre instance, SQL direct) n'est visible qu'après reload.
+ *
+ * Règle de prix :
+ * - jours de location : périodes de 24 heures entamées, au moins 1
+ * - chaque semaine complète au tarif hebdomadaire
+ * - les jours restants au tarif journalier, plafonnés au tarif hebdomadaire
+ * Le tarif appliqué est celui du jour de prise en charge. Calcul en BigDecimal, arrondi au centime.
+ *
+ * Métrique : pricing.rate.plans (tarifs en mémoire)
+ */
+@Service
+public class PricingService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingService.class);
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final RatePlanRepository repository;
+
+    // Publié d'un coup par reload, lu sans verrou par les devis
+    private volatile RatePlanSnapshot snapshot = RatePlanSnapshot.EMPTY;
+
+    private volatile boolean running;
+
+    public PricingService(RatePlanRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        Gauge.builder("pricing.rate.plans", this, service -> service.snapshot.size())
+                .description("Nombre de tarifs en mémoire")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prix d'une location pour une catégorie
+     *
+     * @param acrissCode Catégorie ACRISS
+     * @param currency Devise du tarif (ISO 4217)
+     * @param startAt Début de la location, qui choisit le tarif
+     * @param endAt Fin de la location
+     * @return Le prix, ou vide si aucun tarif ne couvre le jour de prise en charge
+     * @throws IllegalArgumentException si la période ne se termine pas après son début
+     */
+    public Optional<Quote> quote(String acrissCode, String currency, LocalDateTime startAt, LocalDateTime endAt) {
+        int days = rentalDays(startAt, endAt);
+        RatePlanSnapshot current = snapshot;
+        return Optional.ofNullable(quote(current, acrissCode, currency, startAt, days));
+    }
+
+    /**
+     * Prix d'une même location pour plusieurs catégories, tous calculés sur la même version des tarifs
+     *
+     * @return Les prix, dans l'ordre des catégories, sans celles qui n'ont pas de tarif
+     * @throws IllegalArgumentException si la période ne se termine pas après son début
+     */
+    public List<Quote> quotes(Collection<String> acrissCodes, String currency, LocalDateTime startAt, LocalDateTime endAt) {
+        int days = rentalDays(startAt, endAt);
+        RatePlanSnapshot current = snapshot;
+        List<Quote> quotes = new ArrayList<>(acrissCodes.size());
+        for (String acrissCode : acrissCodes) {
+            Quote quote = quote(current, acrissCode, currency, startAt, days);
+            if (quote != null) {
+                quotes.add(quote);
+            }
+        }
+        return quotes;
+    }
+
+    private static int rentalDays(LocalDateTime startAt, LocalDateTime endAt) {
+        if (!startAt.isBefore(endAt)) {
+            throw new IllegalArgumentException("La période doit se terminer après son début");
+        }
+        long minutes = Duration.between(startAt, endAt).toMinutes();
+        return (int) Math.max(1, (minutes + MINUTES_PER_DAY - 1) / MINUTES_PER_DAY);
+    }
+
+    private static Quote quote(RatePlanSnapshot current, String acrissCode, String currency,
+                               LocalDateTime startAt, int days) {
+        RatePlan ratePlan = current.find(acrissCode, currency, startAt.toLocalDate());
+        if (ratePlan == null) {
+            return null;
+        }
+        int weeks = days / 7;
+        int extraDays = days % 7;
+        BigDecimal weeklyRate = ratePlan.getWeeklyRate();
+        BigDecimal dailyRate = ratePlan.getDailyRate();
+        BigDecimal extra = dailyRate.multiply(BigDecimal.valueOf(extraDays)).min(weeklyRate);
+        BigDecimal total = weeklyRate.multiply(BigDecimal.valueOf(weeks))
+                .add(extraDays > 0 ? extra : BigDecimal.ZERO)
+                .setScale(2, RoundingMode.HALF_UP);
+        return new Quote(acrissCode, ratePlan.getId(), current.getVersion(), days, weeks, extraDays,
+                dailyRate, weeklyRate, total, ratePlan.getCurrency());
+    }
+
+    /**
+     * Crée ou remplace un tarif, puis recharge les tarifs en mémoire
+     *
+     * @return Le tarif enregistré (identifiant attribué s'il n'en avait pas)
+     * @throws IllegalArgumentException si la période de validité ou les prix sont incohérents
+     */
+    public RatePlan saveRatePlan(RatePlan ratePlan) {
+        if (ratePlan.getValidUntil().isBefore(ratePlan.getValidFrom())) {
+            throw new IllegalArgumentException("La fin de validité précède son début");
+        }
+        if (ratePlan.getDailyRate().signum() < 0 || ratePlan.getWeeklyRate().signum() < 0) {
+            throw new IllegalArgumentException("Les prix ne peuvent pas être négatifs");
+        }
+        if (ratePlan.getId() == null) {
+            ratePlan.setId(UUID.randomUUID().toString());
+            repository.insert(ratePlan);
+        } else if (!repository.update(ratePlan)) {
+            repository.insert(ratePlan);
+        }
+        reload();
+        return ratePlan;
+    }
+
+    /**
+     * Supprime un tarif, puis recharge les tarifs en mémoire
+     *
+     * @return Vrai si le tarif existait
+     */
+    public boolean deleteRatePlan(String id) {
+        boolean deleted = repository.delete(id);
+        if (deleted) {
+            reload();
+        }
+        return deleted;
+    }
+
+    /**
+     * Relit tous les tarifs et publie un nouvel instantané, de version suivante
+     *
+     * Les devis continuent sur l'ancien instantané pendant le chargement.
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        RatePlanSnapshot loaded = new RatePlanSnapshot(snapshot.getVersion() + 1, repository.findAll());
+        snapshot = loaded;
+        logger.info("Tarifs chargés : {} tarif(s), version {} en {} ms", loaded.size(), loaded.getVersion(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Version des tarifs en mémoire (0 tant qu'ils ne sont pas chargés)
+     */
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    @Override
+    public void start() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            logger.warn("Tarifs non chargés, aucun devis possible avant reload", e);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
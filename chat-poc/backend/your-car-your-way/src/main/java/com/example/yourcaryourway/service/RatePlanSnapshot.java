@@ -0,0 +1,150 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.RatePlan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantané immuable des tarifs, indexé par catégorie et devise
+ *
+ * Les tarifs d'une catégorie dans une devise sont découpés en périodes disjointes,
+ * triées par premier jour : le tarif d'un jour est trouvé par recherche dichotomique.
+ * Si deux tarifs se chevauchent, celui qui commence le plus tard l'emporte sur sa période
+ * de validité, puis le précédent reprend : un tarif des fêtes (20 décembre - 3 janvier)
+ * interrompt le tarif d'hiver (1er décembre - 28 février) sans le remplacer.
+ *
+ * Construit une fois par PricingService, jamais modifié ensuite : les devis le lisent sans verrou.
+ */
+final class RatePlanSnapshot {
+
+    static final RatePlanSnapshot EMPTY = new RatePlanSnapshot(0, List.of());
+
+    private final long version;
+
+    private final int size;
+
+    // "ECMR/EUR" -> tarifs triés par début de validité
+    private final Map<String, Plans> plans;
+
+    RatePlanSnapshot(long version, List<RatePlan> ratePlans) {
+        this.version = version;
+        this.size = ratePlans.size();
+
+        Map<String, List<RatePlan>> grouped = new HashMap<>();
+        for (RatePlan ratePlan : ratePlans) {
+            grouped.computeIfAbsent(key(ratePlan.getAcrissCode(), ratePlan.getCurrency()), k -> new ArrayList<>())
+                    .add(ratePlan);
+        }
+        Map<String, Plans> index = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((key, group) -> index.put(key, new Plans(group)));
+        this.plans = Map.copyOf(index);
+    }
+
+    private static String key(String acrissCode, String currency) {
+        return acrissCode + '/' + currency;
+    }
+
+    /**
+     * Tarif d'une catégorie dans une devise pour un jour de prise en charge
+     *
+     * @return Le tarif, ou null si aucun ne couvre ce jour
+     */
+    RatePlan find(String acrissCode, String currency, LocalDate day) {
+        Plans candidates = plans.get(key(acrissCode, currency));
+        return candidates != null ? candidates.find(day.toEpochDay()) : null;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Tarifs d'une catégorie dans une devise, en périodes disjointes (tableaux parallèles triés)
+     */
+    private static final class Plans {
+
+        private final long[] validFrom;
+
+        private final long[] validUntil;
+
+        // Tarif appliqué sur chaque période
+        private final RatePlan[] ratePlans;
+
+        Plans(List<RatePlan> group) {
+            List<Period> periods = new ArrayList<>();
+            group.stream()
+                    .sorted(Comparator.comparing(RatePlan::getValidFrom))
+                    .forEach(ratePlan -> overlay(periods, ratePlan));
+
+            validFrom = new long[periods.size()];
+            validUntil = new long[periods.size()];
+            ratePlans = new RatePlan[periods.size()];
+            for (int i = 0; i < periods.size(); i++) {
+                Period period = periods.get(i);
+                validFrom[i] = period.from();
+                validUntil[i] = period.until();
+                ratePlans[i] = period.ratePlan();
+            }
+        }
+
+        /**
+         * Pose un tarif sur les périodes déjà construites, qui commencent toutes avant lui (ou le même jour)
+         *
+         * Une période qu'il recouvre est coupée : la partie avant lui et la partie après lui sont gardées.
+         */
+        private static void overlay(List<Period> periods, RatePlan ratePlan) {
+            long from = ratePlan.getValidFrom().toEpochDay();
+            long until = ratePlan.getValidUntil().toEpochDay();
+            if (until < from) {
+                return;
+            }
+
+            int insertAt = periods.size();
+            for (int i = periods.size() - 1; i >= 0; i--) {
+                Period period = periods.get(i);
+                if (period.until() < from) {
+                    break;
+                }
+                insertAt = i;
+                periods.remove(i);
+                if (period.until() > until) {
+                    periods.add(i, new Period(Math.max(period.from(), until + 1), period.until(), period.ratePlan()));
+                    insertAt = i;
+                }
+                if (period.from() < from) {
+                    periods.add(i, new Period(period.from(), from - 1, period.ratePlan()));
+                    insertAt = i + 1;
+                }
+            }
+            periods.add(insertAt, new Period(from, until, ratePlan));
+        }
+
+        RatePlan find(long day) {
+            int index = Arrays.binarySearch(validFrom, day);
+            if (index < 0) {
+                // Dernière période commencée avant ce jour
+                index = -index - 2;
+            }
+            if (index < 0 || day > validUntil[index]) {
+                return null;
+            }
+            return ratePlans[index];
+        }
+    }
+
+    /**
+     * Jours (epoch day, bornes incluses) où s'applique un tarif
+     */
+    private record Period(long from, long until, RatePlan ratePlan) {
+    }
+}
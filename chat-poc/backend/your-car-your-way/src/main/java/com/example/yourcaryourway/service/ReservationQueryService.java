@@ -0,0 +1,152 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ReservationProperties;
+import com.example.yourcaryourway.model.ReservationDetail;
+import com.example.yourcaryourway.model.ReservationSummary;
+import com.example.yourcaryourway.repository.ReservationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lecture des réservations d'un client : liste « mes réservations » et vue détail
+ *
+ * L'offre d'une réservation (offer_snapshot_json) peut peser plusieurs kilo-octets.
+ * - Liste : la projection enregistrée avec la réservation (OfferSummary, colonnes offer_*),
+ *   sans lire ni analyser le JSON
+ * - Détail : le JSON est analysé, et l'arbre gardé dans un cache borné par réservation
+ *
+ * Une entrée du cache n'est servie que si le JSON relu en base est identique à celui analysé :
+ * une offre modifiée (sur ce nœud ou un autre) est analysée à nouveau.
+ * Au-delà de offer-cache-size entrées, les plus anciennes sont oubliées.
+ *
+ * Métrique : reservation.offer.reads{source=cache|parse}
+ */
+@Service
+public class ReservationQueryService {
+
+    private final ReservationRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxPageSize;
+
+    private final int offerCacheSize;
+
+    // Réservation -> offre analysée
+    private final Map<String, ParsedOffer> offers = new ConcurrentHashMap<>();
+
+    // Réservations du cache, de la plus ancienne à la plus récente, pour l'éviction
+    private final Queue<String> arrivals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger arrivalCount = new AtomicInteger();
+
+    private final Counter cachedOffers;
+
+    private final Counter parsedOffers;
+
+    public ReservationQueryService(ReservationRepository repository, ObjectMapper objectMapper,
+                                   ReservationProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = properties.getMaxPageSize();
+        this.offerCacheSize = properties.getOfferCacheSize();
+        this.cachedOffers = offerCounter(meterRegistry, "cache");
+        this.parsedOffers = offerCounter(meterRegistry, "parse");
+    }
+
+    private static Counter offerCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("reservation.offer.reads")
+                .description("Offres de réservation lues pour la vue détail")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Page de la liste des réservations d'un client, des plus récentes aux plus anciennes
+     *
+     * @param page Numéro de page, à partir de 0
+     * @param size Réservations par page, plafonné à reservation.max-page-size
+     * @throws IllegalArgumentException si la page ou la taille est négative ou nulle
+     */
+    public List<ReservationSummary> listForUser(String userId, int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Page ou taille de page invalide");
+        }
+        int limit = Math.min(size, maxPageSize);
+        if (page > Integer.MAX_VALUE / limit) {
+            throw new IllegalArgumentException("Page ou taille de page invalide");
+        }
+        return repository.findSummariesByUser(userId, limit, page * limit);
+    }
+
+    /**
+     * Réservation avec son offre complète
+     *
+     * @return La réservation, ou vide si elle n'existe pas
+     */
+    public Optional<ReservationDetail> detail(String reservationId) {
+        return repository.findById(reservationId).map(reservation -> {
+            JsonNode offer = offer(reservation.getId(), reservation.getOfferSnapshotJson());
+            reservation.setOfferSnapshotJson(null);
+            return new ReservationDetail(reservation, offer);
+        });
+    }
+
+    private JsonNode offer(String reservationId, String json) {
+        ParsedOffer cached = offers.get(reservationId);
+        if (cached != null && cached.json().equals(json)) {
+            cachedOffers.increment();
+            return cached.offer();
+        }
+
+        JsonNode offer;
+        try {
+            offer = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        parsedOffers.increment();
+        if (offers.put(reservationId, new ParsedOffer(json, offer)) == null) {
+            arrivals.offer(reservationId);
+            arrivalCount.incrementAndGet();
+            evictOldest();
+        }
+        return offer;
+    }
+
+    /**
+     * Nombre d'offres analysées en mémoire
+     */
+    public int getCachedOfferCount() {
+        return offers.size();
+    }
+
+    private void evictOldest() {
+        while (arrivalCount.get() > offerCacheSize) {
+            String reservationId = arrivals.poll();
+            if (reservationId == null) {
+                return;
+            }
+            arrivalCount.decrementAndGet();
+            offers.remove(reservationId);
+        }
+    }
+
+    /**
+     * Offre analysée, avec le JSON dont elle provient
+     */
+    private record ParsedOffer(String json, JsonNode offer) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ReservationProperties;
+import com.example.yourcaryourway.model.OfferSummary;
+import com.example.yourcaryourway.model.Quote;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationChangedEvent;
+import com.example.yourcaryourway.model.ReservationRequest;
+import com.example.yourcaryourway.repository.ReservationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Création des réservations, idempotente par clé fournie par le client
+ *
+ * Un client mobile rejoue sa requête quand la réponse se perd : la même clé d'idempotence
+ * doit rendre la même réservation, sans rien recalculer ni écrire.
+ * - Clé connue de ce nœud (IdempotencyCache) : résultat gardé, ou attente du calcul en cours
+ *   si la première requête n'a pas encore répondu
+ * - Clé inconnue : la réservation enregistrée sous cette clé est relue en base (autre nœud,
+ *   clé oubliée du cache), sinon elle est créée
+ * - Deux nœuds qui créent la même clé en même temps : la contrainte unique idempotency_key
+ *   rejette le second, qui relit la réservation du premier
+ *
+ * Une clé déjà utilisée pour une autre demande est refusée (IllegalStateException).
+ * La réservation est créée en attente de paiement, au prix des tarifs en vigueur (PricingService),
+ * puis publiée (ReservationChangedEvent) pour l'index des disponibilités.
+ *
+ * Métrique : reservation.create.requests{outcome=created|stored|in_flight|cached}
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    // Numéros YCYW-XXXXXXXX sans caractères ambigus (0/O, 1/I)
+    private static final char[] NUMBER_ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+
+    private static final int NUMBER_LENGTH = 8;
+
+    /**
+     * Réservation rendue au client
+     *
+     * @param reservation La réservation
+     * @param created Vrai si cette requête l'a créée, faux pour une requête rejouée
+     */
+    public record CreationResult(Reservation reservation, boolean created) {
+    }
+
+    private final ReservationRepository repository;
+
+    private final PricingService pricingService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper;
+
+    private final IdempotencyCache<CreationResult> idempotencyCache;
+
+    private final Counter storedRequests;
+
+    private final Map<IdempotencyCache.Outcome, Counter> requests = new EnumMap<>(IdempotencyCache.Outcome.class);
+
+    public ReservationService(ReservationRepository repository, PricingService pricingService,
+                              ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                              ReservationProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.pricingService = pricingService;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.idempotencyCache = new IdempotencyCache<>(properties.getIdempotencyTtl().toNanos(),
+                properties.getIdempotencyCacheSize());
+        this.storedRequests = requestCounter(meterRegistry, "stored");
+        requests.put(IdempotencyCache.Outcome.COMPUTED, requestCounter(meterRegistry, "created"));
+        requests.put(IdempotencyCache.Outcome.IN_FLIGHT, requestCounter(meterRegistry, "in_flight"));
+        requests.put(IdempotencyCache.Outcome.CACHED, requestCounter(meterRegistry, "cached"));
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("reservation.create.requests")
+                .description("Demandes de création de réservation, par origine de la réponse")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Crée une réservation, ou rend celle déjà créée sous la même clé
+     *
+     * @param idempotencyKey Clé choisie par le client, identique pour toutes les tentatives d'une demande
+     * @param request La demande
+     * @return La réservation, et si cette requête l'a créée
+     * @throws IllegalArgumentException si la clé ou la demande est invalide, ou sans tarif
+     * @throws IllegalStateException si la clé a déjà servi pour une autre demande
+     */
+    public CreationResult create(String idempotencyKey, ReservationRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Clé d'idempotence absente ou trop longue");
+        }
+
+        IdempotencyCache.Result<CreationResult> result =
+                idempotencyCache.get(idempotencyKey, () -> createOnce(idempotencyKey, request));
+        CreationResult creation = result.value();
+        if (result.outcome() == IdempotencyCache.Outcome.COMPUTED && !creation.created()) {
+            storedRequests.increment();
+        } else {
+            requests.get(result.outcome()).increment();
+        }
+
+        if (!matches(creation.reservation(), request)) {
+            throw new IllegalStateException("Clé d'idempotence déjà utilisée pour une autre demande");
+        }
+        if (result.outcome() != IdempotencyCache.Outcome.COMPUTED) {
+            return new CreationResult(creation.reservation(), false);
+        }
+        return creation;
+    }
+
+    private CreationResult createOnce(String idempotencyKey, ReservationRequest request) {
+        Optional<Reservation> stored = repository.findByIdempotencyKey(idempotencyKey);
+        if (stored.isPresent()) {
+            return new CreationResult(stored.get(), false);
+        }
+
+        validate(request);
+        Quote quote = pricingService.quote(request.getAcrissCode(), request.getCurrency(),
+                        request.getStartAt(), request.getEndAt())
+                .orElseThrow(() -> new IllegalArgumentException("Aucun tarif pour cette catégorie à cette date"));
+
+        Reservation reservation = new Reservation();
+        reservation.setId(UUID.randomUUID().toString());
+        reservation.setUserId(request.getUserId());
+        reservation.setPickupLocationId(request.getPickupLocationId());
+        reservation.setReturnLocationId(request.getReturnLocationId());
+        reservation.setReservationNumber(reservationNumber());
+        reservation.setStatus(Reservation.Status.PENDING);
+        reservation.setAcrissCode(request.getAcrissCode());
+        reservation.setStartAt(request.getStartAt());
+        reservation.setEndAt(request.getEndAt());
+        reservation.setTotalPrice(quote.getTotalPrice());
+        reservation.setCurrency(quote.getCurrency());
+        reservation.setOfferSnapshotJson(toJson(quote));
+        reservation.setOfferSummary(new OfferSummary(null, quote.getDays(), 0));
+        reservation.setIdempotencyKey(idempotencyKey);
+
+        try {
+            repository.insert(reservation);
+        } catch (DuplicateKeyException e) {
+            // Même clé créée entre-temps par un autre nœud : sa réservation fait foi
+            return repository.findByIdempotencyKey(idempotencyKey)
+                    .map(existing -> new CreationResult(existing, false))
+                    .orElseThrow(() -> e);
+        }
+        logger.info("Réservation {} créée ({}, {} → {})", reservation.getReservationNumber(),
+                reservation.getAcrissCode(), reservation.getStartAt(), reservation.getEndAt());
+        eventPublisher.publishEvent(new ReservationChangedEvent(null, reservation));
+        return new CreationResult(reservation, true);
+    }
+
+    private static void validate(ReservationRequest request) {
+        if (request.getUserId() == null || request.getPickupLocationId() == null
+                || request.getReturnLocationId() == null || request.getAcrissCode() == null
+                || request.getCurrency() == null || request.getStartAt() == null || request.getEndAt() == null) {
+            throw new IllegalArgumentException("Demande de réservation incomplète");
+        }
+        if (!request.getStartAt().isBefore(request.getEndAt())) {
+            throw new IllegalArgumentException("La période doit se terminer après son début");
+        }
+    }
+
+    /**
+     * Vrai si la réservation correspond à la demande (même client, agences, catégorie et période)
+     */
+    private static boolean matches(Reservation reservation, ReservationRequest request) {
+        return Objects.equals(reservation.getUserId(), request.getUserId())
+                && Objects.equals(reservation.getPickupLocationId(), request.getPickupLocationId())
+                && Objects.equals(reservation.getReturnLocationId(), request.getReturnLocationId())
+                && Objects.equals(reservation.getAcrissCode(), request.getAcrissCode())
+                && Objects.equals(reservation.getStartAt(), request.getStartAt())
+                && Objects.equals(reservation.getEndAt(), request.getEndAt())
+                && Objects.equals(reservation.getCurrency(), request.getCurrency());
+    }
+
+    private String toJson(Quote quote) {
+        try {
+            return objectMapper.writeValueAsString(quote);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String reservationNumber() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder number = new StringBuilder("YCYW-");
+        for (int i = 0; i < NUMBER_LENGTH; i++) {
+            number.append(NUMBER_ALPHABET[random.nextInt(NUMBER_ALPHABET.length)]);
+        }
+        return number.toString();
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.Conversation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Répartiteur des clients en attente vers les agents SUPPORT
+ *
+ * - Les clients attendent dans une file concurrente (sans verrou)
+ * - Chaque client est assigné à l'agent le moins chargé
+ * - Un agent ne dépasse jamais chat.dispatch.max-chats-per-agent conversations
+ * - Les clients d'un agent qui se déconnecte repassent en tête de file
+ *
+ * Aucun verrou global : la réservation d'une place chez un agent se fait par CAS
+ * sur son compteur de conversations, et un ticket d'attente ne peut être retiré
+ * qu'une seule fois (CAS sur son état).
+ */
+@Component
+public class SupportDispatcher {
+
+    /**
+     * Agent SUPPORT connecté et sa charge courante
+     */
+    public static final class Agent {
+
+        private final String user;
+        private final String name;
+        private final AtomicInteger activeChats = new AtomicInteger();
+        private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+        private volatile boolean online = true;
+
+        Agent(String user, String name) {
+            this.user = user;
+            this.name = name;
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getActiveChats() {
+            return activeChats.get();
+        }
+    }
+
+    /**
+     * Assignation d'une conversation à un agent, à notifier aux participants
+     */
+    public record Assignment(Conversation conversation, Agent agent) {
+    }
+
+    /**
+     * Ticket d'un client dans la file d'attente
+     */
+    private static final class Ticket {
+
+        private final Conversation conversation;
+        private final long enqueuedAt;
+        private final AtomicBoolean waiting = new AtomicBoolean(true);
+
+        private Ticket(Conversation conversation, long enqueuedAt) {
+            this.conversation = conversation;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final int maxChatsPerAgent;
+
+    // Agents connectés, indexés par Principal
+    private final Map<String, Agent> agents = new ConcurrentHashMap<>();
+
+    // File d'attente des clients (les clients réassignés repassent en tête)
+    private final Deque<Ticket> queue = new ConcurrentLinkedDeque<>();
+
+    // Ticket en attente de chaque conversation, pour pouvoir l'annuler
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    // Profondeur de la file (ConcurrentLinkedDeque.size() est en O(n))
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter assignedCounter;
+
+    public SupportDispatcher(ChatProperties properties, MeterRegistry meterRegistry) {
+        this.maxChatsPerAgent = properties.getDispatch().getMaxChatsPerAgent();
+
+        Gauge.builder("chat.dispatch.queue.depth", queueDepth, AtomicInteger::get)
+                .description("Clients en attente d'un agent")
+                .register(meterRegistry);
+        Gauge.builder("chat.dispatch.agents.online", agents, Map::size)
+                .description("Agents SUPPORT connectés")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("chat.dispatch.wait")
+                .description("Temps d'attente d'un client avant assignation")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.assignedCounter = Counter.builder("chat.dispatch.assigned")
+                .description("Conversations assignées à un agent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre un agent et lui assigne des clients en attente
+     *
+     * @return Les assignations effectuées
+     */
+    public List<Assignment> registerAgent(String user, String name) {
+        agents.putIfAbsent(user, new Agent(user, name));
+        return dispatch();
+    }
+
+    /**
+     * Retire un agent qui se déconnecte
+     *
+     * Ses conversations sont détachées : l'appelant prévient les clients
+     * puis les remet en tête de file avec enqueue(conversation, true)
+     *
+     * @return Les conversations qui n'ont plus d'agent
+     */
+    public List<Conversation> unregisterAgent(String user) {
+        Agent agent = agents.remove(user);
+        if (agent == null) {
+            return List.of();
+        }
+        agent.online = false;
+
+        List<Conversation> orphans = new ArrayList<>();
+        for (String conversationId : agent.conversations.keySet()) {
+            // Seul le thread qui retire la conversation de l'agent la récupère
+            Conversation orphan = agent.conversations.remove(conversationId);
+            if (orphan != null) {
+                orphan.setAgentUser(null);
+                orphan.setAgentName(null);
+                orphans.add(orphan);
+            }
+        }
+        return orphans;
+    }
+
+    /**
+     * Place une conversation dans la file d'attente
+     *
+     * @param front true pour un client réassigné, qui passe avant les nouveaux
+     */
+    public void enqueue(Conversation conversation, boolean front) {
+        Ticket ticket = new Ticket(conversation, System.nanoTime());
+        if (tickets.putIfAbsent(conversation.getId(), ticket) != null) {
+            return;
+        }
+
+        if (front) {
+            queue.offerFirst(ticket);
+        } else {
+            queue.offerLast(ticket);
+        }
+        queueDepth.incrementAndGet();
+    }
+
+    /**
+     * Retire une conversation de la file (client parti avant d'être assigné)
+     */
+    public void cancel(Conversation conversation) {
+        Ticket ticket = tickets.remove(conversation.getId());
+        if (ticket != null && ticket.waiting.compareAndSet(true, false)) {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    /**
+     * Libère la place occupée par une conversation chez son agent
+     */
+    public void release(Conversation conversation) {
+        String agentUser = conversation.getAgentUser();
+        Agent agent = agentUser != null ? agents.get(agentUser) : null;
+
+        if (agent != null && agent.conversations.remove(conversation.getId()) != null) {
+            agent.activeChats.decrementAndGet();
+        }
+    }
+
+    /**
+     * Assigne autant de clients en attente que les agents peuvent en accepter
+     *
+     * Peut être appelée en parallèle depuis plusieurs threads : une place est
+     * d'abord réservée chez un agent, puis un ticket est retiré de la file.
+     *
+     * @return Les assignations effectuées
+     */
+    public List<Assignment> dispatch() {
+        List<Assignment> assignments = new ArrayList<>();
+
+        while (queueDepth.get() > 0) {
+            Agent agent = reserveLeastLoadedAgent();
+            if (agent == null) {
+                break;
+            }
+
+            Ticket ticket = take();
+            if (ticket == null) {
+                agent.activeChats.decrementAndGet();
+                break;
+            }
+
+            Conversation conversation = ticket.conversation;
+            conversation.setAgentName(agent.name);
+            conversation.setAgentUser(agent.user);
+            agent.conversations.put(conversation.getId(), conversation);
+
+            // Le client a pu partir pendant l'assignation : la place est rendue
+            if (conversation.isClosed()) {
+                if (agent.conversations.remove(conversation.getId()) != null) {
+                    agent.activeChats.decrementAndGet();
+                }
+                continue;
+            }
+
+            // L'agent a pu se déconnecter pendant l'assignation : le client repasse en tête
+            if (!agent.online) {
+                if (agent.conversations.remove(conversation.getId()) != null) {
+                    conversation.setAgentUser(null);
+                    conversation.setAgentName(null);
+                    enqueue(conversation, true);
+                }
+                continue;
+            }
+
+            waitTimer.record(System.nanoTime() - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+            assignedCounter.increment();
+            assignments.add(new Assignment(conversation, agent));
+        }
+
+        return assignments;
+    }
+
+    /**
+     * Nombre de clients en attente d'un agent
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Agent connecté pour un Principal donné
+     */
+    public Agent getAgent(String user) {
+        return agents.get(user);
+    }
+
+    /**
+     * Réserve une place chez l'agent en ligne le moins chargé
+     *
+     * @return L'agent réservé, ou null si tous les agents sont pleins
+     */
+    private Agent reserveLeastLoadedAgent() {
+        while (true) {
+            Agent best = null;
+            int bestLoad = maxChatsPerAgent;
+
+            for (Agent agent : agents.values()) {
+                int load = agent.activeChats.get();
+                if (agent.online && load < bestLoad) {
+                    best = agent;
+                    bestLoad = load;
+                }
+            }
+
+            if (best == null) {
+                return null;
+            }
+
+            // Un autre thread a pu prendre la place entre-temps : on recommence
+            if (best.activeChats.compareAndSet(bestLoad, bestLoad + 1)) {
+                return best;
+            }
+        }
+    }
+
+    /**
+     * Retire le premier ticket encore en attente de la file
+     */
+    private Ticket take() {
+        Ticket ticket;
+        while ((ticket = queue.pollFirst()) != null) {
+            if (ticket.waiting.compareAndSet(true, false)) {
+                tickets.remove(ticket.conversation.getId(), ticket);
+                queueDepth.decrementAndGet();
+                return ticket;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Regroupement des trames JOIN/LEAVE par session destinataire
+ *
+ * Lors d'une vague de reconnexions (redémarrage d'un répartiteur de charge), chaque session
+ * reçoit plusieurs événements système en quelques millisecondes : son propre JOIN, l'arrivée
+ * de son agent, et pour un agent les arrivées et départs de ses clients.
+ * Ces événements sont retenus pendant chat.system-events.batch-window, puis envoyés
+ * en une seule trame par session (voir ConversationService.sendBatch).
+ *
+ * Ordre : avant un message CHAT, les événements en attente de la session destinataire
+ * sont envoyés (flush(user)) ; un JOIN n'arrive pas après le premier message de la conversation.
+ * Le verrou de la session est gardé du retrait de ses événements jusqu'à leur envoi :
+ * un flush(user) concurrent de celui du planificateur attend que la trame soit partie.
+ */
+@Component
+public class SystemEventBatcher implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SystemEventBatcher.class);
+
+    private final TaskScheduler scheduler;
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    // Événements en attente, indexés par Principal du destinataire
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+    private final DistributionSummary batchSize;
+
+    private volatile BiConsumer<String, List<ChatMessage>> flushHandler = (user, events) -> {
+    };
+
+    private volatile ScheduledFuture<?> flushing;
+
+    public SystemEventBatcher(ChatProperties properties,
+                              @Qualifier("chatTaskScheduler") TaskScheduler scheduler,
+                              MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.window = properties.getSystemEvents().getBatchWindow();
+        this.maxBatchSize = Math.max(1, properties.getSystemEvents().getMaxBatchSize());
+        this.batchSize = DistributionSummary.builder("chat.system.batch.size")
+                .description("Événements JOIN/LEAVE par trame envoyée")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Vrai si les événements système sont regroupés (fenêtre non nulle)
+     */
+    public boolean isEnabled() {
+        return !window.isZero() && !window.isNegative();
+    }
+
+    /**
+     * Définit l'envoi d'une trame regroupée (appelé par ConversationService)
+     */
+    public void setFlushHandler(BiConsumer<String, List<ChatMessage>> flushHandler) {
+        this.flushHandler = flushHandler;
+    }
+
+    /**
+     * Retient un événement système pour une session
+     *
+     * @param user Principal de la session destinataire
+     * @param event Le message JOIN ou LEAVE
+     */
+    public void offer(String user, ChatMessage event) {
+        while (true) {
+            Batch batch = pending.computeIfAbsent(user, key -> new Batch());
+            synchronized (batch) {
+                // Trame envoyée entre-temps : l'événement part dans la suivante
+                if (batch.sent) {
+                    continue;
+                }
+                batch.events.add(event);
+                if (batch.events.size() >= maxBatchSize) {
+                    send(user, batch);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Envoie les événements en attente d'une session, avant un message qui ne doit pas les précéder
+     * Si le planificateur est en train de les envoyer, attend que leur trame soit partie
+     */
+    public void flush(String user) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Batch batch = pending.get(user);
+        if (batch == null) {
+            return;
+        }
+        synchronized (batch) {
+            if (!batch.sent) {
+                send(user, batch);
+            }
+        }
+    }
+
+    /**
+     * Envoie les événements en attente de toutes les sessions
+     * Appelée à chaque fenêtre par le planificateur
+     */
+    public void flush() {
+        for (String user : pending.keySet()) {
+            flush(user);
+        }
+    }
+
+    /**
+     * Nombre de sessions qui ont des événements en attente
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Envoie une trame, sous le verrou de batch : elle ne quitte la file qu'une fois partie
+     */
+    private void send(String user, Batch batch) {
+        try {
+            batchSize.record(batch.events.size());
+            flushHandler.accept(user, batch.events);
+        } finally {
+            batch.sent = true;
+            pending.remove(user, batch);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (isEnabled()) {
+            flushing = scheduler.scheduleAtFixedRate(this::flushSafely, window);
+        }
+    }
+
+    /**
+     * À l'arrêt, les événements en attente partent immédiatement
+     */
+    @Override
+    public void stop() {
+        ScheduledFuture<?> scheduled = flushing;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            flushing = null;
+        }
+        flushSafely();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return flushing != null;
+    }
+
+    /**
+     * Une exception arrêterait la tâche périodique : elle est loguée, les envois continuent
+     */
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Envoi des événements JOIN/LEAVE regroupés impossible", e);
+        }
+    }
+
+    /**
+     * Événements en attente d'une session ; l'objet sert aussi de verrou à la session
+     */
+    private static final class Batch {
+
+        private final List<ChatMessage> events = new ArrayList<>();
+
+        private boolean sent;
+    }
+}
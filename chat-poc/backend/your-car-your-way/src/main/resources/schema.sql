@@ -0,0 +1,172 @@
+-- ============================================
+-- Schéma embarqué (H2) chargé au démarrage
+-- Reprend les tables de database/schema.sql utilisées par le backend
+-- ============================================
+
+-- ============================================
+-- TABLE: conversation
+-- ============================================
+CREATE TABLE IF NOT EXISTS conversation (
+    id VARCHAR(36) PRIMARY KEY,
+    client_name VARCHAR(100) NOT NULL,
+    agent_name VARCHAR(100),
+    created_at TIMESTAMP(6) NOT NULL,
+    closed_at TIMESTAMP(6) NULL
+);
+
+-- ============================================
+-- TABLE: chat_message
+-- ============================================
+CREATE TABLE IF NOT EXISTS chat_message (
+    id VARCHAR(36) PRIMARY KEY,
+    conversation_id VARCHAR(36) NOT NULL,
+    type VARCHAR(10) NOT NULL,
+    sender VARCHAR(100) NOT NULL,
+    sender_role VARCHAR(10) NOT NULL,
+    content CLOB,
+    sent_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_chat_message_conversation FOREIGN KEY (conversation_id)
+        REFERENCES conversation(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_conversation_client_name ON conversation(client_name, created_at);
+CREATE INDEX IF NOT EXISTS idx_chat_message_conversation_sent ON chat_message(conversation_id, sent_at, id);
+
+-- ============================================
+-- TABLE: vehicle
+-- Sans clé étrangère vers location (table absente du schéma embarqué)
+-- ============================================
+CREATE TABLE IF NOT EXISTS vehicle (
+    id VARCHAR(36) PRIMARY KEY,
+    location_id VARCHAR(36) NOT NULL,
+    acriss_code VARCHAR(4) NOT NULL,
+    brand VARCHAR(50) NOT NULL,
+    model VARCHAR(50) NOT NULL,
+    seats INT NOT NULL,
+    doors INT NOT NULL,
+    transmission VARCHAR(10) NOT NULL,
+    fuel_type VARCHAR(10) NOT NULL,
+    image_url VARCHAR(500),
+    available BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- ============================================
+-- TABLE: reservation
+-- Sans clés étrangères vers user et location ; offer_snapshot_json est une colonne JSON en MySQL
+-- ============================================
+CREATE TABLE IF NOT EXISTS reservation (
+    id VARCHAR(36) PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL,
+    pickup_location_id VARCHAR(36) NOT NULL,
+    return_location_id VARCHAR(36) NOT NULL,
+    reservation_number VARCHAR(20) NOT NULL UNIQUE,
+    status VARCHAR(10) NOT NULL,
+    acriss_code VARCHAR(4) NOT NULL,
+    start_at TIMESTAMP NOT NULL,
+    end_at TIMESTAMP NOT NULL,
+    total_price DECIMAL(10,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    offer_snapshot_json CLOB NOT NULL,
+    offer_vehicle_name VARCHAR(101) NULL,
+    offer_days INT NULL,
+    offer_option_count INT NULL,
+    idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_vehicle_location_acriss ON vehicle(location_id, acriss_code);
+CREATE INDEX IF NOT EXISTS idx_reservation_pickup_acriss_dates ON reservation(pickup_location_id, acriss_code, start_at, end_at);
+
+-- ============================================
+-- TABLE: rate_plan
+-- ============================================
+CREATE TABLE IF NOT EXISTS rate_plan (
+    id VARCHAR(36) PRIMARY KEY,
+    acriss_code VARCHAR(4) NOT NULL,
+    daily_rate DECIMAL(10,2) NOT NULL,
+    weekly_rate DECIMAL(10,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    valid_from DATE NOT NULL,
+    valid_until DATE NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_plan_acriss_dates ON rate_plan(acriss_code, valid_from, valid_until);
+
+-- ============================================
+-- TABLES: user, driver_license, payment_method, consent, document
+-- Données personnelles exportées par DataExportService (RGPD)
+-- user est un mot réservé de H2 : nom entre backticks, comme dans les requêtes
+-- ============================================
+CREATE TABLE IF NOT EXISTS `user` (
+    id VARCHAR(36) PRIMARY KEY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    birth_date DATE,
+    street VARCHAR(255),
+    city VARCHAR(100),
+    postal_code VARCHAR(20),
+    country VARCHAR(100),
+    locale VARCHAR(10) DEFAULT 'en-US',
+    currency VARCHAR(3) DEFAULT 'USD',
+    email_verified BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS driver_license (
+    id VARCHAR(36) PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL UNIQUE,
+    country_code VARCHAR(3) NOT NULL,
+    number VARCHAR(50) NOT NULL,
+    expiry_date DATE NOT NULL,
+    document_url VARCHAR(500) NOT NULL,
+    uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_driver_license_user FOREIGN KEY (user_id)
+        REFERENCES `user`(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS payment_method (
+    id VARCHAR(36) PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL,
+    psp_token_id VARCHAR(255) NOT NULL UNIQUE,
+    card_last4 VARCHAR(4) NOT NULL,
+    card_brand VARCHAR(20) NOT NULL,
+    expiry_date DATE NOT NULL,
+    is_default BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_payment_method_user FOREIGN KEY (user_id)
+        REFERENCES `user`(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS consent (
+    id VARCHAR(36) PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL,
+    consent_type VARCHAR(20) NOT NULL,
+    granted BOOLEAN NOT NULL,
+    granted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ip_address VARCHAR(45),
+    CONSTRAINT fk_consent_user FOREIGN KEY (user_id)
+        REFERENCES `user`(id) ON DELETE CASCADE,
+    CONSTRAINT uk_user_consent_type UNIQUE (user_id, consent_type)
+);
+
+CREATE TABLE IF NOT EXISTS document (
+    id VARCHAR(36) PRIMARY KEY,
+    reservation_id VARCHAR(36) NOT NULL,
+    document_type VARCHAR(20) NOT NULL,
+    url VARCHAR(500) NOT NULL,
+    filename VARCHAR(255) NOT NULL,
+    generated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_document_reservation FOREIGN KEY (reservation_id)
+        REFERENCES reservation(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservation_user_created ON reservation(user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_payment_method_user_id ON payment_method(user_id);
+CREATE INDEX IF NOT EXISTS idx_consent_user_id ON consent(user_id);
+CREATE INDEX IF NOT EXISTS idx_document_reservation_id ON document(reservation_id);
@@ -0,0 +1,130 @@
+package com.example.yourcaryourway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour ChannelExecutors
+ *
+ * Vérifie le dimensionnement des pools, l'option threads virtuels
+ * et les métriques de file d'attente et de threads actifs
+ */
+@DisplayName("Tests des exécuteurs de canaux ChannelExecutors")
+class ChannelExecutorsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private double gauge(String name, String channel) {
+        return meterRegistry.get(name).tag("channel", channel).gauge().value();
+    }
+
+    @Test
+    @DisplayName("Devrait créer un pool dimensionné par les propriétés")
+    void shouldCreateSizedThreadPool() {
+        // When
+        Executor executor = ChannelExecutors.create("inbound",
+                new ChatProperties.Channels.Pool(2, 4, 100), false, meterRegistry);
+
+        // Then
+        assertThat(executor).isInstanceOf(ThreadPoolTaskExecutor.class);
+        ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) executor;
+        assertThat(pool.getCorePoolSize()).isEqualTo(2);
+        assertThat(pool.getMaxPoolSize()).isEqualTo(4);
+        assertThat(pool.getQueueCapacity()).isEqualTo(100);
+        assertThat(pool.getThreadNamePrefix()).isEqualTo("chat-inbound-");
+    }
+
+    @Test
+    @DisplayName("Devrait garder l'exécuteur de Spring quand le pool est à 0 thread")
+    void shouldKeepDefaultExecutorWhenPoolIsEmpty() {
+        // When
+        Executor executor = ChannelExecutors.create("broker",
+                new ChatProperties.Channels.Pool(0, 0, 0), false, meterRegistry);
+
+        // Then
+        assertThat(executor).isNull();
+        assertThat(meterRegistry.find("chat.channel.queue.depth").gauge()).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait publier la file d'attente et les threads actifs du pool")
+    void shouldPublishQueueDepthAndActiveThreads() throws Exception {
+        // Given - un seul thread, bloqué par le premier message
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) ChannelExecutors.create("outbound",
+                new ChatProperties.Channels.Pool(1, 1, 10), false, meterRegistry);
+        executor.initialize();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // When
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            executor.execute(() -> { });
+            executor.execute(() -> { });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Then
+            assertThat(gauge("chat.channel.active.threads", "outbound")).isEqualTo(1.0);
+            assertThat(gauge("chat.channel.queue.depth", "outbound")).isEqualTo(2.0);
+            assertThat(ChannelExecutors.pendingMessages(executor)).isEqualTo(3);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait traiter les messages sur des threads virtuels")
+    void shouldRunOnVirtualThreads() throws Exception {
+        // Given
+        Executor executor = ChannelExecutors.create("inbound",
+                new ChatProperties.Channels.Pool(2, 4, 100), true, meterRegistry);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            // When
+            executor.execute(() -> {
+                thread.set(Thread.currentThread());
+                started.countDown();
+                await(release);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Then
+            assertThat(thread.get().isVirtual()).isTrue();
+            assertThat(thread.get().getName()).startsWith("chat-inbound-");
+            assertThat(gauge("chat.channel.active.threads", "inbound")).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            ((AutoCloseable) executor).close();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.yourcaryourway.config;
+
+import org.apache.tomcat.websocket.PerMessageDeflate;
+import org.apache.tomcat.websocket.Transformation;
+import org.apache.tomcat.websocket.TransformationBuilder;
+import org.apache.tomcat.websocket.TransformationFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests unitaires pour CompressionConfiguration.PerMessageDeflateInstaller
+ *
+ * La fabrique de Tomcat est partagée par la JVM : d'autres contextes Spring (tests d'intégration)
+ * peuvent y être installés, seules les fabriques installées par le test sont vérifiées.
+ */
+@DisplayName("Tests de l'installation de permessage-deflate dans Tomcat")
+class CompressionConfigurationTest {
+
+    private static Transformation negotiate() {
+        return TransformationFactory.getInstance().create(PerMessageDeflate.NAME, List.of(List.of()), true);
+    }
+
+    private static CompressionConfiguration.PerMessageDeflateInstaller installer(Transformation transformation) {
+        TransformationBuilder builder = (preferences, isServer) -> transformation;
+        return new CompressionConfiguration.PerMessageDeflateInstaller(builder);
+    }
+
+    @Test
+    @DisplayName("Devrait déléguer au dernier contexte ouvert, puis au précédent à sa fermeture")
+    void shouldDelegateToLatestOpenContext() {
+        // Given
+        Transformation first = mock(Transformation.class);
+        Transformation second = mock(Transformation.class);
+        CompressionConfiguration.PerMessageDeflateInstaller firstContext = installer(first);
+        CompressionConfiguration.PerMessageDeflateInstaller secondContext = installer(second);
+
+        // When
+        firstContext.afterPropertiesSet();
+        secondContext.afterPropertiesSet();
+
+        // Then
+        assertThat(negotiate()).isSameAs(second);
+
+        // When - le second contexte est fermé
+        secondContext.destroy();
+
+        // Then
+        assertThat(negotiate()).isSameAs(first);
+
+        // When - le premier aussi
+        firstContext.destroy();
+
+        // Then - plus aucune fabrique du test n'est utilisée
+        assertThat(negotiate()).isNotSameAs(first).isNotSameAs(second);
+    }
+}
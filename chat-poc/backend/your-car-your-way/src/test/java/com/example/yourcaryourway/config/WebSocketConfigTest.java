@@ -1,9 +1,12 @@
 package com.example.yourcaryourway.config;
 
+import com.example.yourcaryourway.interceptor.SlowConsumerWebSocketHandler;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.socket.WebSocketHandler;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -19,6 +22,10 @@ public class WebSocketConfigTest {
     @Autowired(required = false)
     private WebSocketConfig webSocketConfig;
 
+    @Autowired
+    @Qualifier("subProtocolWebSocketHandler")
+    private WebSocketHandler subProtocolWebSocketHandler;
+
     @Test
     @DisplayName("La configuration WebSocket devrait être chargée")
     void shouldLoadWebSocketConfiguration() {
@@ -40,4 +47,10 @@ public class WebSocketConfigTest {
         assertThat(webSocketConfig)
                 .isInstanceOf(org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer.class);
     }
+
+    @Test
+    @DisplayName("Les sessions devraient appliquer la politique des clients lents")
+    void shouldUseSlowConsumerWebSocketHandler() {
+        assertThat(subProtocolWebSocketHandler).isInstanceOf(SlowConsumerWebSocketHandler.class);
+    }
 }
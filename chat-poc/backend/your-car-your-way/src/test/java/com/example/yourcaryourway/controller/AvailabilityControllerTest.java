@@ -0,0 +1,62 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.CategoryAvailability;
+import com.example.yourcaryourway.service.AvailabilityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour AvailabilityController
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du contrôleur AvailabilityController")
+class AvailabilityControllerTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 12, 15, 14, 0);
+
+    @Mock
+    private AvailabilityService availabilityService;
+
+    private AvailabilityController availabilityController;
+
+    @BeforeEach
+    void setUp() {
+        availabilityController = new AvailabilityController(availabilityService);
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer les catégories disponibles")
+    void shouldReturnAvailableCategories() {
+        // Given
+        List<CategoryAvailability> available = List.of(new CategoryAvailability("ECMR", 3, 1, 2));
+        when(availabilityService.search("cdg", FROM, FROM.plusDays(7))).thenReturn(available);
+
+        // When / Then
+        assertThat(availabilityController.search("cdg", FROM, FROM.plusDays(7))).isEqualTo(available);
+    }
+
+    @Test
+    @DisplayName("Une période vide devrait être refusée avec 400")
+    void shouldRejectEmptyPeriod() {
+        // Given
+        when(availabilityService.search("cdg", FROM, FROM)).thenThrow(new IllegalArgumentException("Période vide"));
+
+        // When / Then
+        assertThatThrownBy(() -> availabilityController.search("cdg", FROM, FROM))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
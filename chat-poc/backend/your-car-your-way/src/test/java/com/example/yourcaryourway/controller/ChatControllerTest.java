@@ -1,35 +1,87 @@
 package com.example.yourcaryourway.controller;
 
 
+import com.example.yourcaryourway.config.ChatProperties;
 import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryPage;
+import com.example.yourcaryourway.model.StompPrincipal;
+import com.example.yourcaryourway.service.ChatHistoryService;
+import com.example.yourcaryourway.service.ChatMetrics;
+import com.example.yourcaryourway.service.ConversationService;
+import com.example.yourcaryourway.service.MessageLogSampler;
+import com.example.yourcaryourway.service.PresenceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests unitaires pour ChatController
  *
- * On teste que les messages sont bien traités et retournés
+ * On teste que les messages sont bien traités et routés vers la bonne conversation
  */
+@ExtendWith(MockitoExtension.class)
 @DisplayName("Tests du contrôleur ChatController")
 public class ChatControllerTest {
 
+    @Mock
+    private ConversationService conversationService;
+
+    @Mock
+    private ChatHistoryService historyService;
+
+    @Mock
+    private PresenceService presenceService;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private ChatController chatController;
 
     @BeforeEach
     public void beforeEach() {
-        chatController = new ChatController();
+        meterRegistry = new SimpleMeterRegistry();
+        chatController = new ChatController(conversationService, historyService, new ChatMetrics(meterRegistry),
+                new MessageLogSampler(new ChatProperties()), presenceService);
+    }
+
+    /**
+     * Méthode helper pour créer un header accessor avec une session et un Principal
+     */
+    private SimpMessageHeaderAccessor createHeaderAccessor(Map<String, Object> sessionAttributes) {
+        return createHeaderAccessor(sessionAttributes, ChatMessage.SenderRole.CLIENT);
+    }
+
+    /**
+     * Méthode helper pour créer un header accessor dont le Principal a le rôle donné
+     * (attribué par le serveur à la connexion, voir UserAssignmentInterceptor)
+     */
+    private SimpMessageHeaderAccessor createHeaderAccessor(Map<String, Object> sessionAttributes,
+                                                           ChatMessage.SenderRole role) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        headerAccessor.setSessionAttributes(sessionAttributes);
+        headerAccessor.setUser(new StompPrincipal("session-user", role));
+        return headerAccessor;
     }
 
     @Test
-    @DisplayName("Devrait retourner le message envoyé")
-    void shouldReturnSentMessage() {
+    @DisplayName("Devrait router le message vers la conversation de l'expéditeur")
+    void shouldDeliverSentMessageToConversation() {
         // Given
         ChatMessage inputMessage = new ChatMessage(
                 ChatMessage.MessageType.CHAT,
@@ -37,15 +89,162 @@ public class ChatControllerTest {
                 ChatMessage.SenderRole.CLIENT,
                 "Bonjour !"
         );
+        Conversation conversation = new Conversation("Jean Dupont", "client-user");
+        when(conversationService.findConversation("client-user", null)).thenReturn(Optional.of(conversation));
 
         // When
-        ChatMessage returnedMessage = chatController.sendMessage(inputMessage);
+        chatController.sendMessage(inputMessage, new StompPrincipal("client-user"));
 
         // Then
-        assertThat(returnedMessage).isNotNull();
-        assertThat(returnedMessage.getSender()).isEqualTo("Jean Dupont");
-        assertThat(returnedMessage.getContent()).isEqualTo("Bonjour !");
-        assertThat(returnedMessage.getType()).isEqualTo(ChatMessage.MessageType.CHAT);
+        verify(conversationService).deliver(conversation, inputMessage);
+        verify(historyService).append(inputMessage);
+    }
+
+    @Test
+    @DisplayName("Le type, le nom et le rôle d'un message devraient venir de la conversation, pas du client")
+    void shouldIdentifySenderFromConversation() {
+        // Given - un client se présente comme agent, sans type
+        ChatMessage inputMessage = new ChatMessage(null, "Agent Smith", ChatMessage.SenderRole.SUPPORT, "Bonjour !");
+        Conversation conversation = new Conversation("Jean Dupont", "client-user");
+        when(conversationService.findConversation("client-user", null)).thenReturn(Optional.of(conversation));
+
+        // When
+        chatController.sendMessage(inputMessage, new StompPrincipal("client-user"));
+
+        // Then
+        assertThat(inputMessage.getType()).isEqualTo(ChatMessage.MessageType.CHAT);
+        assertThat(inputMessage.getSender()).isEqualTo("Jean Dupont");
+        assertThat(inputMessage.getSenderRole()).isEqualTo(ChatMessage.SenderRole.CLIENT);
+        verify(historyService).append(inputMessage);
+    }
+
+    @Test
+    @DisplayName("Devrait compter les messages reçus par rôle et mesurer leur traitement")
+    void shouldRecordInboundMetrics() {
+        // Given - l'agent de la conversation envoie un message qui se dit CLIENT
+        ChatMessage inputMessage = new ChatMessage(
+                ChatMessage.MessageType.CHAT,
+                "Agent Smith",
+                ChatMessage.SenderRole.CLIENT,
+                "Bonjour !"
+        );
+        Conversation conversation = new Conversation("Jean Dupont", "client-user");
+        conversation.setAgentName("Agent Smith");
+        conversation.setAgentUser("agent-user");
+        when(conversationService.findConversation("agent-user", null)).thenReturn(Optional.of(conversation));
+
+        // When
+        chatController.sendMessage(inputMessage, new StompPrincipal("agent-user", ChatMessage.SenderRole.SUPPORT));
+
+        // Then
+        assertThat(meterRegistry.get("chat.messages.in").tag("role", "SUPPORT").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("chat.messages.in").tag("role", "CLIENT").counter().count()).isEqualTo(0.0);
+        assertThat(meterRegistry.get("chat.handler.duration").tag("handler", "sendMessage").timer().count()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Devrait compter un JOIN avec le rôle de la session, pas celui annoncé")
+    void shouldRecordJoinWithSessionRole() {
+        // Given - un client qui se dit SUPPORT
+        ChatMessage joinMessage = new ChatMessage(
+                ChatMessage.MessageType.JOIN, "Faux Agent", ChatMessage.SenderRole.SUPPORT, "Bonjour");
+        when(conversationService.openConversation("session-user", "Faux Agent", null))
+                .thenReturn(new Conversation("Faux Agent", "session-user"));
+
+        // When
+        chatController.addUser(joinMessage, createHeaderAccessor(new HashMap<>()));
+
+        // Then
+        assertThat(meterRegistry.get("chat.messages.in").tag("role", "CLIENT").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("chat.messages.in").tag("role", "SUPPORT").counter().count()).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien délivrer si l'expéditeur n'a pas de conversation")
+    void shouldIgnoreMessageWithoutConversation() {
+        // Given
+        ChatMessage inputMessage = new ChatMessage(
+                ChatMessage.MessageType.CHAT,
+                "Intrus",
+                ChatMessage.SenderRole.SUPPORT,
+                "Bonjour !"
+        );
+        inputMessage.setConversationId("conversation-inconnue");
+        when(conversationService.findConversation("intrus", "conversation-inconnue")).thenReturn(Optional.empty());
+
+        // When
+        chatController.sendMessage(inputMessage, new StompPrincipal("intrus"));
+
+        // Then
+        verify(conversationService, never()).deliver(any(), any());
+        verify(historyService, never()).append(any());
+    }
+
+    @Test
+    @DisplayName("Devrait ouvrir une conversation, y diffuser le JOIN et demander un agent")
+    void shouldOpenConversationForClient() {
+        // Given
+        ChatMessage joinMessage = new ChatMessage(
+                ChatMessage.MessageType.JOIN,
+                "Jean Dupont",
+                ChatMessage.SenderRole.CLIENT,
+                "Jean Dupont a rejoint le chat"
+        );
+        Conversation conversation = new Conversation("Jean Dupont", "session-user");
+        when(conversationService.openConversation("session-user", "Jean Dupont", null)).thenReturn(conversation);
+
+        // When
+        chatController.addUser(joinMessage, createHeaderAccessor(new HashMap<>()));
+
+        // Then
+        verify(conversationService).deliver(conversation, joinMessage);
+        verify(historyService).append(joinMessage);
+        verify(conversationService).requestAgent(conversation);
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer l'historique quand le client reprend sa conversation")
+    void shouldReplayHistoryWhenClientResumesConversation() {
+        // Given
+        Conversation conversation = new Conversation("Jean Dupont", "session-user");
+        ChatMessage rejoinMessage = new ChatMessage(
+                ChatMessage.MessageType.JOIN,
+                "Jean Dupont",
+                ChatMessage.SenderRole.CLIENT,
+                "Jean Dupont est de retour"
+        );
+        rejoinMessage.setConversationId(conversation.getId());
+        HistoryPage replay = new HistoryPage(conversation.getId(), List.of(), null);
+        when(conversationService.openConversation("session-user", "Jean Dupont", conversation.getId()))
+                .thenReturn(conversation);
+        when(historyService.replay(conversation.getId())).thenReturn(replay);
+
+        // When
+        chatController.addUser(rejoinMessage, createHeaderAccessor(new HashMap<>()));
+
+        // Then
+        verify(conversationService).sendHistory("session-user", replay);
+        verify(conversationService).deliver(conversation, rejoinMessage);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas rejouer d'historique pour une nouvelle conversation")
+    void shouldNotReplayHistoryForNewConversation() {
+        // Given
+        ChatMessage joinMessage = new ChatMessage(
+                ChatMessage.MessageType.JOIN,
+                "Jean Dupont",
+                ChatMessage.SenderRole.CLIENT,
+                "Jean Dupont a rejoint le chat"
+        );
+        when(conversationService.openConversation("session-user", "Jean Dupont", null))
+                .thenReturn(new Conversation("Jean Dupont", "session-user"));
+
+        // When
+        chatController.addUser(joinMessage, createHeaderAccessor(new HashMap<>()));
+
+        // Then
+        verify(conversationService, never()).sendHistory(any(), any());
     }
 
     @Test
@@ -60,19 +259,45 @@ public class ChatControllerTest {
         );
 
         Map<String, Object> sessionAttributes = new HashMap<>();
-        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
-        headerAccessor.setSessionAttributes(sessionAttributes);
+        SimpMessageHeaderAccessor headerAccessor = createHeaderAccessor(sessionAttributes, ChatMessage.SenderRole.SUPPORT);
 
         // When
-        ChatMessage returnedMessage = chatController.addUser(joinMessage, headerAccessor);
+        chatController.addUser(joinMessage, headerAccessor);
 
         // Then
-        assertThat(returnedMessage).isNotNull();
-        assertThat(returnedMessage.getType()).isEqualTo(ChatMessage.MessageType.JOIN);
+        verify(conversationService).sendToUser("session-user", joinMessage);
+        verify(conversationService).registerAgent("session-user", "Sophie Support");
+        verify(presenceService).joined("session-user", "Sophie Support", ChatMessage.SenderRole.SUPPORT);
+        verify(conversationService, never()).openConversation(any(), any(), any());
         assertThat(sessionAttributes.get("username")).isEqualTo("Sophie Support");
         assertThat(sessionAttributes.get("role")).isEqualTo(ChatMessage.SenderRole.SUPPORT);
     }
 
+    @Test
+    @DisplayName("Ne devrait pas enregistrer d'agent quand un client annonce le rôle SUPPORT")
+    void shouldIgnoreSupportRoleClaimedByClient() {
+        // Given - session CLIENT dont le JOIN se prétend SUPPORT
+        ChatMessage joinMessage = new ChatMessage(
+                ChatMessage.MessageType.JOIN,
+                "Faux Agent",
+                ChatMessage.SenderRole.SUPPORT,
+                "Faux Agent a rejoint le chat"
+        );
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        when(conversationService.openConversation("session-user", "Faux Agent", null))
+                .thenReturn(new Conversation("Faux Agent", "session-user"));
+
+        // When
+        chatController.addUser(joinMessage, createHeaderAccessor(sessionAttributes));
+
+        // Then - traité comme un client : conversation ouverte, aucun agent enregistré
+        verify(conversationService, never()).registerAgent(any(), any());
+        verify(conversationService).openConversation("session-user", "Faux Agent", null);
+        verify(presenceService).joined("session-user", "Faux Agent", ChatMessage.SenderRole.CLIENT);
+        assertThat(joinMessage.getSenderRole()).isEqualTo(ChatMessage.SenderRole.CLIENT);
+        assertThat(sessionAttributes.get("role")).isEqualTo(ChatMessage.SenderRole.CLIENT);
+    }
+
     @Test
     @DisplayName("Devrait stocker le username dans la session")
     void shouldStoreUsernameInSession() {
@@ -86,8 +311,9 @@ public class ChatControllerTest {
         );
 
         Map<String, Object> sessionAttributes = new HashMap<>();
-        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
-        headerAccessor.setSessionAttributes(sessionAttributes);
+        SimpMessageHeaderAccessor headerAccessor = createHeaderAccessor(sessionAttributes);
+        when(conversationService.openConversation("session-user", username, null))
+                .thenReturn(new Conversation(username, "session-user"));
 
         // When
         chatController.addUser(message, headerAccessor);
@@ -110,8 +336,7 @@ public class ChatControllerTest {
         );
 
         Map<String, Object> sessionAttributes = new HashMap<>();
-        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
-        headerAccessor.setSessionAttributes(sessionAttributes);
+        SimpMessageHeaderAccessor headerAccessor = createHeaderAccessor(sessionAttributes, role);
 
         // When
         chatController.addUser(message, headerAccessor);
@@ -0,0 +1,91 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryCursor;
+import com.example.yourcaryourway.model.HistoryPage;
+import com.example.yourcaryourway.model.StompPrincipal;
+import com.example.yourcaryourway.service.ChatHistoryService;
+import com.example.yourcaryourway.service.ConversationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour ChatHistoryController
+ *
+ * Vérifie que seuls les participants d'une conversation en lisent l'historique
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du contrôleur ChatHistoryController")
+class ChatHistoryControllerTest {
+
+    @Mock
+    private ConversationService conversationService;
+
+    @Mock
+    private ChatHistoryService historyService;
+
+    private ChatHistoryController historyController;
+
+    @BeforeEach
+    void setUp() {
+        historyController = new ChatHistoryController(conversationService, historyService);
+    }
+
+    @Test
+    @DisplayName("Devrait servir la page demandée à un participant")
+    void shouldServePageToParticipant() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        HistoryCursor cursor = new HistoryCursor(LocalDateTime.of(2025, 10, 6, 9, 0), "message-1");
+        HistoryPage page = new HistoryPage(conversation.getId(), List.of(), null);
+        when(conversationService.findConversation("client-1", null)).thenReturn(Optional.of(conversation));
+        when(historyService.page(conversation.getId(), cursor, 20)).thenReturn(page);
+
+        // When
+        HistoryPage result = historyController.loadOlder(null, cursor.encode(), 20, new StompPrincipal("client-1"));
+
+        // Then
+        assertThat(result).isSameAs(page);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser l'historique à un non-participant")
+    void shouldRefuseNonParticipant() {
+        // Given
+        when(conversationService.findConversation("intrus", "conversation-1")).thenReturn(Optional.empty());
+
+        // When
+        HistoryPage result = historyController.loadOlder("conversation-1", null, null, new StompPrincipal("intrus"));
+
+        // Then
+        assertThat(result.getMessages()).isEmpty();
+        assertThat(result.getNextCursor()).isNull();
+        verify(historyService, never()).page(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un curseur invalide")
+    void shouldRefuseInvalidCursor() {
+        // When
+        HistoryPage result = historyController.loadOlder(null, "pas-un-curseur", null, new StompPrincipal("client-1"));
+
+        // Then
+        assertThat(result.getMessages()).isEmpty();
+        verify(historyService, never()).page(any(), any(), anyInt());
+    }
+}
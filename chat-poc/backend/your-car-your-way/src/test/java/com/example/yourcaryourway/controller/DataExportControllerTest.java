@@ -0,0 +1,82 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.service.DataExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour DataExportController
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du contrôleur DataExportController")
+class DataExportControllerTest {
+
+    @Mock
+    private DataExportService dataExportService;
+
+    private DataExportController dataExportController;
+
+    @BeforeEach
+    void setUp() {
+        dataExportController = new DataExportController(dataExportService);
+    }
+
+    @Test
+    @DisplayName("Devrait rendre l'export NDJSON en pièce jointe, écrit par le service")
+    void shouldStreamExportAsAttachment() throws Exception {
+        // Given
+        when(dataExportService.userExists("user-1")).thenReturn(true);
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = dataExportController.export("user-1", "ndjson");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.parseMediaType("application/x-ndjson"));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"ycyw-export-user-1.ndjson\"");
+        verify(dataExportService).export("user-1", DataExportService.Format.NDJSON, output);
+    }
+
+    @Test
+    @DisplayName("Un utilisateur inconnu devrait répondre 404")
+    void shouldRejectUnknownUser() {
+        // Given
+        when(dataExportService.userExists("unknown")).thenReturn(false);
+
+        // When / Then
+        assertThatThrownBy(() -> dataExportController.export("unknown", "json"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    @DisplayName("Un format inconnu devrait répondre 400")
+    void shouldRejectUnknownFormat() {
+        // When / Then
+        assertThatThrownBy(() -> dataExportController.export("user-1", "xml"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(dataExportService);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.Quote;
+import com.example.yourcaryourway.service.PricingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour QuoteController
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du contrôleur QuoteController")
+class QuoteControllerTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 12, 15, 14, 0);
+
+    @Mock
+    private PricingService pricingService;
+
+    private QuoteController quoteController;
+
+    @BeforeEach
+    void setUp() {
+        quoteController = new QuoteController(pricingService);
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer les prix des catégories demandées")
+    void shouldReturnQuotes() {
+        // Given
+        List<Quote> quotes = List.of(new Quote("ECMR", "rp-ecmr", 1, 7, 1, 0, new BigDecimal("39.90"),
+                new BigDecimal("210.00"), new BigDecimal("210.00"), "EUR"));
+        when(pricingService.quotes(List.of("ECMR"), "EUR", FROM, FROM.plusDays(7))).thenReturn(quotes);
+
+        // When / Then
+        assertThat(quoteController.quotes(List.of("ECMR"), "EUR", FROM, FROM.plusDays(7))).isEqualTo(quotes);
+    }
+
+    @Test
+    @DisplayName("Une période vide devrait être refusée avec 400")
+    void shouldRejectEmptyPeriod() {
+        // Given
+        when(pricingService.quotes(List.of("ECMR"), "EUR", FROM, FROM))
+                .thenThrow(new IllegalArgumentException("Période vide"));
+
+        // When / Then
+        assertThatThrownBy(() -> quoteController.quotes(List.of("ECMR"), "EUR", FROM, FROM))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
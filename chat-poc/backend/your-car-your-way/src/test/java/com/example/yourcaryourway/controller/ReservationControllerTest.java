@@ -0,0 +1,130 @@
+package com.example.yourcaryourway.controller;
+
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationDetail;
+import com.example.yourcaryourway.model.ReservationRequest;
+import com.example.yourcaryourway.model.ReservationSummary;
+import com.example.yourcaryourway.service.ReservationQueryService;
+import com.example.yourcaryourway.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour ReservationController
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du contrôleur ReservationController")
+class ReservationControllerTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 12, 15, 14, 0);
+
+    private static final ReservationRequest REQUEST =
+            new ReservationRequest("user-1", "cdg", "cdg", "ECMR", FROM, FROM.plusDays(3), "EUR");
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private ReservationQueryService reservationQueryService;
+
+    private ReservationController reservationController;
+
+    @BeforeEach
+    void setUp() {
+        reservationController = new ReservationController(reservationService, reservationQueryService);
+    }
+
+    @Test
+    @DisplayName("Une réservation créée devrait répondre 201, une requête rejouée 200")
+    void shouldDistinguishCreatedAndReplayed() {
+        // Given
+        Reservation reservation = new Reservation();
+        reservation.setId("reservation-1");
+        when(reservationService.create("key-1", REQUEST))
+                .thenReturn(new ReservationService.CreationResult(reservation, true))
+                .thenReturn(new ReservationService.CreationResult(reservation, false));
+
+        // When
+        ResponseEntity<Reservation> created = reservationController.create("key-1", REQUEST);
+        ResponseEntity<Reservation> replayed = reservationController.create("key-1", REQUEST);
+
+        // Then
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(replayed.getBody()).isSameAs(reservation);
+    }
+
+    @Test
+    @DisplayName("Une demande invalide devrait répondre 400")
+    void shouldRejectInvalidRequest() {
+        // Given
+        when(reservationService.create("key-1", REQUEST)).thenThrow(new IllegalArgumentException("Aucun tarif"));
+
+        // When / Then
+        assertThatThrownBy(() -> reservationController.create("key-1", REQUEST))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    @DisplayName("Une clé déjà utilisée pour une autre demande devrait répondre 409")
+    void shouldRejectReusedKey() {
+        // Given
+        when(reservationService.create("key-1", REQUEST)).thenThrow(new IllegalStateException("Clé déjà utilisée"));
+
+        // When / Then
+        assertThatThrownBy(() -> reservationController.create("key-1", REQUEST))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    @DisplayName("La liste devrait rendre la page du service, une taille invalide répondre 400")
+    void shouldListReservations() {
+        // Given
+        ReservationSummary summary = new ReservationSummary();
+        summary.setId("reservation-1");
+        when(reservationQueryService.listForUser("user-1", 0, 20)).thenReturn(List.of(summary));
+        when(reservationQueryService.listForUser("user-1", 0, 0))
+                .thenThrow(new IllegalArgumentException("Page ou taille de page invalide"));
+
+        // When
+        List<ReservationSummary> page = reservationController.list("user-1", 0, 20);
+
+        // Then
+        assertThat(page).containsExactly(summary);
+        assertThatThrownBy(() -> reservationController.list("user-1", 0, 0))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    @DisplayName("Le détail d'une réservation inconnue devrait répondre 404")
+    void shouldReturnDetailOrNotFound() {
+        // Given
+        ReservationDetail detail = new ReservationDetail(new Reservation(), null);
+        when(reservationQueryService.detail("reservation-1")).thenReturn(Optional.of(detail));
+        when(reservationQueryService.detail("inconnue")).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThat(reservationController.detail("reservation-1")).isSameAs(detail);
+        assertThatThrownBy(() -> reservationController.detail("inconnue"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.yourcaryourway.converter;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour ChatMessageBinaryCodec
+ *
+ * Vérifie qu'un message relu depuis le binaire est identique
+ * au même message relu depuis le JSON
+ */
+@DisplayName("Tests de l'encodage binaire ChatMessageBinaryCodec")
+class ChatMessageBinaryCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static ChatMessage serverMessage(String content) {
+        ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, "Jean Dupont", ChatMessage.SenderRole.CLIENT, content);
+        message.setConversationId(UUID.randomUUID().toString());
+        message.setTimestamp(LocalDateTime.of(2025, 10, 17, 14, 30, 5, 123_456_000));
+        return message;
+    }
+
+    @Test
+    @DisplayName("Devrait relire le message à l'identique, comme en JSON")
+    void shouldRoundTripLikeJson() throws Exception {
+        // Given
+        ChatMessage message = serverMessage("Bonjour, ma réservation commence à 9h ✓");
+
+        // When
+        ChatMessage fromBinary = ChatMessageBinaryCodec.decode(ChatMessageBinaryCodec.encode(message));
+        ChatMessage fromJson = objectMapper.readValue(objectMapper.writeValueAsBytes(message), ChatMessage.class);
+
+        // Then
+        assertThat(fromBinary).isEqualTo(message);
+        assertThat(fromBinary).isEqualTo(fromJson);
+    }
+
+    @Test
+    @DisplayName("Devrait être plus compact que le JSON")
+    void shouldBeSmallerThanJson() throws Exception {
+        // Given
+        ChatMessage message = serverMessage("Bonjour");
+
+        // When
+        int binarySize = ChatMessageBinaryCodec.encode(message).length;
+        int jsonSize = objectMapper.writeValueAsBytes(message).length;
+
+        // Then - en-tête, 2 UUID de 16 octets, horodatage sur 8 octets, sender et content
+        assertThat(binarySize).isEqualTo(5 + 16 + 16 + 8 + 12 + 8);
+        assertThat(binarySize).isLessThan(jsonSize / 2);
+    }
+
+    @Test
+    @DisplayName("Devrait conserver les champs absents et les identifiants qui ne sont pas des UUID")
+    void shouldKeepNullFieldsAndNonUuidIdentifiers() {
+        // Given
+        ChatMessage message = new ChatMessage();
+        message.setId("message-1");
+        message.setConversationId("conversation-1");
+        message.setTimestamp(null);
+        message.setContent("x".repeat(300));
+
+        // When
+        ChatMessage decoded = ChatMessageBinaryCodec.decode(ChatMessageBinaryCodec.encode(message));
+
+        // Then
+        assertThat(decoded).isEqualTo(message);
+        assertThat(decoded.getType()).isNull();
+        assertThat(decoded.getSender()).isNull();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un message tronqué ou d'une autre version")
+    void shouldRejectInvalidBytes() {
+        byte[] bytes = ChatMessageBinaryCodec.encode(serverMessage("Bonjour"));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        byte[] otherVersion = bytes.clone();
+        otherVersion[0] = 9;
+
+        assertThatThrownBy(() -> ChatMessageBinaryCodec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChatMessageBinaryCodec.decode(otherVersion)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.yourcaryourway.converter;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour ChatMessageBinaryConverter
+ */
+@DisplayName("Tests du convertisseur ChatMessageBinaryConverter")
+class ChatMessageBinaryConverterTest {
+
+    private final ChatMessageBinaryConverter converter = new ChatMessageBinaryConverter();
+
+    private static MessageHeaders headers(MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        if (contentType != null) {
+            accessor.setContentType(contentType);
+        }
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    @Test
+    @DisplayName("Devrait encoder en binaire un ChatMessage adressé avec le content-type binaire")
+    void shouldConvertWithBinaryContentType() {
+        // Given
+        ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, "Jean", ChatMessage.SenderRole.CLIENT, "Bonjour");
+        message.setTimestamp(message.getTimestamp().truncatedTo(ChronoUnit.MICROS));
+
+        // When
+        Message<?> converted = converter.toMessage(message, headers(ChatMessageBinaryConverter.MIME_TYPE));
+
+        // Then - le type octet-stream fait écrire une trame WebSocket binaire
+        assertThat(converted).isNotNull();
+        assertThat(converted.getPayload()).isInstanceOf(byte[].class);
+        assertThat(MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(
+                (MimeType) converted.getHeaders().get(MessageHeaders.CONTENT_TYPE))).isTrue();
+        assertThat(converter.fromMessage(converted, ChatMessage.class)).isEqualTo(message);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas s'appliquer sans content-type : le JSON reste l'encodage par défaut")
+    void shouldLeaveDefaultMessagesToJson() {
+        // Given
+        ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, "Jean", ChatMessage.SenderRole.CLIENT, "Bonjour");
+
+        // When / Then
+        assertThat(converter.toMessage(message, headers(null))).isNull();
+        assertThat(converter.toMessage(message, headers(MimeTypeUtils.APPLICATION_JSON))).isNull();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.yourcaryourway.converter;
+
+import com.example.yourcaryourway.model.OfferSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour OfferSnapshotProjector
+ */
+@DisplayName("Tests de la projection des offres OfferSnapshotProjector")
+class OfferSnapshotProjectorTest {
+
+    @Test
+    @DisplayName("Devrait retenir le véhicule, les jours et le nombre d'options")
+    void shouldProjectListFields() {
+        // Given
+        String json = "{\"vehicle\":{\"brand\":\"Toyota\",\"model\":\"Corolla\",\"acrissCode\":\"ECMR\"},"
+                + "\"dailyRate\":35.00,\"terms\":{\"deposit\":{\"amount\":800}},\"days\":4,"
+                + "\"options\":[{\"code\":\"GPS\",\"price\":25.00},{\"code\":\"CHILD_SEAT\",\"price\":15.00}],"
+                + "\"totalPrice\":140.00}";
+
+        // When
+        OfferSummary summary = OfferSnapshotProjector.project(json);
+
+        // Then
+        assertThat(summary).isEqualTo(new OfferSummary("Toyota Corolla", 4, 2));
+    }
+
+    @Test
+    @DisplayName("Une offre sans véhicule ni options devrait garder les jours")
+    void shouldProjectCategoryOnlyOffer() {
+        // Given : offre issue d'un devis (catégorie seule)
+        String json = "{\"acrissCode\":\"ECMR\",\"currency\":\"EUR\",\"days\":9,\"total\":289.80}";
+
+        // When
+        OfferSummary summary = OfferSnapshotProjector.project(json);
+
+        // Then
+        assertThat(summary).isEqualTo(new OfferSummary(null, 9, 0));
+    }
+
+    @Test
+    @DisplayName("Un JSON absent ou illisible devrait donner une projection vide")
+    void shouldReturnEmptyForMissingOrMalformedJson() {
+        // When / Then
+        assertThat(OfferSnapshotProjector.project(null)).isEqualTo(OfferSummary.EMPTY);
+        assertThat(OfferSnapshotProjector.project("[1, 2]")).isEqualTo(OfferSummary.EMPTY);
+        assertThat(OfferSnapshotProjector.project("{\"days\":4,\"vehicle\":")).isEqualTo(OfferSummary.EMPTY);
+    }
+}
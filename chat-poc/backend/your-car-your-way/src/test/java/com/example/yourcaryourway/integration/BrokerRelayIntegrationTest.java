@@ -0,0 +1,233 @@
+package com.example.yourcaryourway.integration;
+
+import com.example.yourcaryourway.YourCarYourWayApplication;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests d'intégration du mode relais (chat.broker.mode=relay)
+ *
+ * Deux nœuds de l'application tournent dans la même JVM et partagent
+ * un broker STOMP Artemis embarqué : un message envoyé depuis un nœud
+ * doit atteindre un utilisateur connecté à l'autre nœud.
+ */
+@DisplayName("Tests d'intégration du relais STOMP entre deux nœuds")
+class BrokerRelayIntegrationTest {
+
+    private static EmbeddedActiveMQ broker;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startClusterOfTwoNodes() throws Exception {
+        int stompPort = freePort();
+
+        // Les préfixes /queue/ et /topic/ donnent aux destinations STOMP
+        // la sémantique file (anycast) ou diffusion (multicast)
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://localhost:" + stompPort
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+
+        nodeA = startNode("node-a", stompPort);
+        nodeB = startNode("node-b", stompPort);
+
+        await(() -> relay(nodeA).isBrokerAvailable() && relay(nodeB).isBrokerAvailable());
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, int stompPort) {
+        // Arguments de ligne de commande : ils priment sur application.properties
+        return new SpringApplicationBuilder(YourCarYourWayApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.application.name=" + name,
+                        "--chat.broker.mode=relay",
+                        "--chat.broker.relay-host=localhost",
+                        "--chat.broker.relay-port=" + stompPort);
+    }
+
+    private static StompBrokerRelayMessageHandler relay(ConfigurableApplicationContext node) {
+        return node.getBean(StompBrokerRelayMessageHandler.class);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    /**
+     * Méthode helper pour connecter une session STOMP à un nœud
+     */
+    private StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        MappingJackson2MessageConverter messageConverter = new MappingJackson2MessageConverter();
+        messageConverter.getObjectMapper().registerModule(new JavaTimeModule());
+        messageConverter.getObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        stompClient.setMessageConverter(messageConverter);
+
+        CompletableFuture<StompSession> sessionFuture = new CompletableFuture<>();
+        stompClient.connectAsync("http://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {
+            @Override
+            public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+                sessionFuture.complete(session);
+            }
+        });
+        return sessionFuture.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Méthode helper pour s'abonner à une destination
+     */
+    private BlockingQueue<ChatMessage> subscribe(StompSession session, String destination) {
+        BlockingQueue<ChatMessage> received = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((ChatMessage) payload);
+            }
+        });
+        return received;
+    }
+
+    /**
+     * Attend que le nœud voie une session abonnée à une destination et retourne son utilisateur
+     */
+    private String awaitSubscribedUser(ConfigurableApplicationContext node, String destination) throws InterruptedException {
+        SimpUserRegistry registry = node.getBean(SimpUserRegistry.class);
+        await(() -> !registry.findSubscriptions(subscription -> subscription.getDestination().equals(destination)).isEmpty());
+        return registry.findSubscriptions(subscription -> subscription.getDestination().equals(destination))
+                .iterator().next().getSession().getUser().getName();
+    }
+
+    @Test
+    @DisplayName("Un message privé envoyé depuis le nœud A devrait atteindre un client du nœud B")
+    void shouldDeliverUserMessageAcrossNodes() throws Exception {
+        // Given - un client connecté au nœud B
+        StompSession client = connect(nodeB);
+        BlockingQueue<ChatMessage> received = subscribe(client, "/user/queue/messages");
+        String user = awaitSubscribedUser(nodeB, "/user/queue/messages");
+
+        // When - le nœud A, qui ne connaît pas cette session, lui envoie un message
+        ChatMessage message = new ChatMessage(
+                ChatMessage.MessageType.CHAT, "Agent Support", ChatMessage.SenderRole.SUPPORT, "Réponse du nœud A");
+        nodeA.getBean(SimpMessagingTemplate.class).convertAndSendToUser(user, "/queue/messages", message);
+
+        // Then
+        ChatMessage delivered = received.poll(5, TimeUnit.SECONDS);
+        assertThat(delivered).isNotNull();
+        assertThat(delivered.getContent()).isEqualTo("Réponse du nœud A");
+
+        client.disconnect();
+    }
+
+    @Test
+    @DisplayName("Une diffusion sur /topic depuis le nœud A devrait atteindre les abonnés du nœud B")
+    void shouldBroadcastTopicAcrossNodes() throws Exception {
+        // Given
+        StompSession client = connect(nodeB);
+        BlockingQueue<ChatMessage> received = subscribe(client, "/topic/announcements");
+        awaitSubscribedUser(nodeB, "/topic/announcements");
+
+        // When
+        ChatMessage announcement = new ChatMessage(
+                ChatMessage.MessageType.CHAT, "Système", ChatMessage.SenderRole.SUPPORT, "Maintenance à 22h");
+        nodeA.getBean(SimpMessagingTemplate.class).convertAndSend("/topic/announcements", announcement);
+
+        // Then
+        ChatMessage delivered = received.poll(5, TimeUnit.SECONDS);
+        assertThat(delivered).isNotNull();
+        assertThat(delivered.getContent()).isEqualTo("Maintenance à 22h");
+
+        client.disconnect();
+    }
+
+    @Test
+    @DisplayName("Le registre des utilisateurs devrait être partagé entre les nœuds")
+    void shouldShareUserRegistryAcrossNodes() throws Exception {
+        // Given
+        StompSession client = connect(nodeB);
+        subscribe(client, "/user/queue/messages");
+        String user = awaitSubscribedUser(nodeB, "/user/queue/messages");
+
+        // Then - le nœud A finit par voir la session du nœud B (diffusion périodique du registre)
+        SimpUserRegistry registryA = nodeA.getBean(SimpUserRegistry.class);
+        for (int i = 0; i < 150 && registryA.getUser(user) == null; i++) {
+            Thread.sleep(100);
+        }
+        SimpUser remote = registryA.getUser(user);
+        assertThat(remote).isNotNull();
+        assertThat(remote.getSessions()).hasSize(1);
+
+        client.disconnect();
+    }
+}
@@ -1,17 +1,29 @@
 package com.example.yourcaryourway.integration;
 
 
+import com.example.yourcaryourway.converter.ChatMessageBinaryConverter;
+import com.example.yourcaryourway.interceptor.EncodingNegotiationInterceptor;
+import com.example.yourcaryourway.model.ChatError;
 import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.HistoryPage;
+import com.example.yourcaryourway.model.PresenceUpdate;
+import com.example.yourcaryourway.service.ConversationService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.CompositeMessageConverter;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
 import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 import org.springframework.web.socket.sockjs.client.SockJsClient;
@@ -21,7 +33,9 @@ import org.springframework.web.socket.sockjs.client.WebSocketTransport;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -30,17 +44,27 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
  * Tests d'intégration pour le système de chat WebSocket
  *
  * Ces tests vérifient que l'ensemble de la chaîne fonctionne :
- * Client → WebSocket → Controller → Broadcast → Clients
+ * Client → WebSocket → Controller → Conversation → Participants
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "chat.support.access-token=" + ChatIntegrationTest.SUPPORT_TOKEN)
 @DisplayName("Tests d'intégration du chat WebSocket")
 public class ChatIntegrationTest {
 
+    static final String SUPPORT_TOKEN = "test-support-token";
+
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private WebSocketStompClient stompClient;
     private String wsUrl;
+    private MappingJackson2MessageConverter messageConverter;
 
     @BeforeEach
     void setUp() {
@@ -53,7 +77,7 @@ public class ChatIntegrationTest {
         stompClient = new WebSocketStompClient(sockJsClient);
 
         // Configurer le converter avec le support des dates Java 8
-        MappingJackson2MessageConverter messageConverter = new MappingJackson2MessageConverter();
+        messageConverter = new MappingJackson2MessageConverter();
         messageConverter.getObjectMapper().registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
         messageConverter.getObjectMapper().disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
@@ -84,36 +108,121 @@ public class ChatIntegrationTest {
         session.disconnect();
     }
 
-    @Test
-    @DisplayName("Devrait recevoir un message après l'avoir envoyé")
-    void shouldReceiveMessageAfterSending() throws Exception {
-        // Given
+    /**
+     * Méthode helper pour connecter une session STOMP
+     */
+    private StompSession connect() throws Exception {
+        return connect(wsUrl);
+    }
+
+    /**
+     * Méthode helper pour connecter une session d'agent (jeton SUPPORT à la poignée de main)
+     */
+    private StompSession connectAgent() throws Exception {
+        return connect(wsUrl + "?access_token=" + SUPPORT_TOKEN);
+    }
+
+    private StompSession connect(String url) throws Exception {
         CompletableFuture<StompSession> sessionFuture = new CompletableFuture<>();
-        CompletableFuture<ChatMessage> messageFuture = new CompletableFuture<>();
 
-        // Connect
-        stompClient.connectAsync(wsUrl, new StompSessionHandlerAdapter() {
+        stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
             @Override
             public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
                 sessionFuture.complete(session);
             }
         });
 
-        StompSession session = sessionFuture.get(5, TimeUnit.SECONDS);
+        return sessionFuture.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Méthode helper pour s'abonner à la file privée de la session
+     */
+    private BlockingQueue<ChatMessage> subscribePrivateQueue(StompSession session) {
+        BlockingQueue<ChatMessage> received = new LinkedBlockingQueue<>();
+
+        session.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return payloadType(headers);
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                addReceived(received, payload);
+            }
+        });
+
+        return received;
+    }
+
+    /**
+     * Type d'une trame de /user/queue/messages : les JOIN/LEAVE regroupés arrivent en tableau
+     */
+    private static Type payloadType(StompHeaders headers) {
+        return headers.containsKey(ConversationService.BATCH_HEADER) ? ChatMessage[].class : ChatMessage.class;
+    }
+
+    private static void addReceived(BlockingQueue<ChatMessage> received, Object payload) {
+        if (payload instanceof ChatMessage[] batch) {
+            received.addAll(List.of(batch));
+        } else {
+            received.add((ChatMessage) payload);
+        }
+    }
 
-        // Subscribe to topic
-        session.subscribe("/topic/public", new StompFrameHandler() {
+    /**
+     * Méthode helper pour attendre le prochain message d'un type donné
+     */
+    private ChatMessage nextMessageOfType(BlockingQueue<ChatMessage> queue, ChatMessage.MessageType type) throws InterruptedException {
+        ChatMessage message;
+        do {
+            message = queue.poll(5, TimeUnit.SECONDS);
+        } while (message != null && message.getType() != type);
+        return message;
+    }
+
+    /**
+     * Méthode helper pour annoncer l'arrivée d'un utilisateur
+     */
+    private void join(StompSession session, String username, ChatMessage.SenderRole role) {
+        session.send("/app/chat.addUser", new ChatMessage(
+                ChatMessage.MessageType.JOIN,
+                username,
+                role,
+                username + " a rejoint le chat"
+        ));
+    }
+
+    /**
+     * Méthode helper pour s'abonner à une destination qui renvoie des pages d'historique
+     */
+    private BlockingQueue<HistoryPage> subscribeHistory(StompSession session, StompHeaders headers) {
+        BlockingQueue<HistoryPage> received = new LinkedBlockingQueue<>();
+
+        session.subscribe(headers, new StompFrameHandler() {
             @Override
             public Type getPayloadType(StompHeaders headers) {
-                return ChatMessage.class;
+                return HistoryPage.class;
             }
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                messageFuture.complete((ChatMessage) payload);
+                received.add((HistoryPage) payload);
             }
         });
 
+        return received;
+    }
+
+    @Test
+    @DisplayName("Devrait recevoir un message après l'avoir envoyé")
+    void shouldReceiveMessageAfterSending() throws Exception {
+        // Given
+        StompSession session = connect();
+        BlockingQueue<ChatMessage> received = subscribePrivateQueue(session);
+        join(session, "Test User", ChatMessage.SenderRole.CLIENT);
+
         // When - Send message
         ChatMessage sentMessage = new ChatMessage(
                 ChatMessage.MessageType.CHAT,
@@ -125,89 +234,398 @@ public class ChatIntegrationTest {
         session.send("/app/chat.sendMessage", sentMessage);
 
         // Then - Should receive the message
-        ChatMessage receivedMessage = messageFuture.get(5, TimeUnit.SECONDS);
+        ChatMessage receivedMessage = nextMessageOfType(received, ChatMessage.MessageType.CHAT);
 
         assertThat(receivedMessage).isNotNull();
         assertThat(receivedMessage.getSender()).isEqualTo("Test User");
         assertThat(receivedMessage.getContent()).isEqualTo("Test message from integration test");
-        assertThat(receivedMessage.getType()).isEqualTo(ChatMessage.MessageType.CHAT);
+        assertThat(receivedMessage.getConversationId()).isNotNull();
 
         // Cleanup
         session.disconnect();
     }
 
     @Test
-    @DisplayName("Devrait diffuser le message à plusieurs clients")
-    void shouldBroadcastMessageToMultipleClients() throws Exception {
-        // Given - Two clients
-        CompletableFuture<StompSession> session1Future = new CompletableFuture<>();
-        CompletableFuture<StompSession> session2Future = new CompletableFuture<>();
-        CompletableFuture<ChatMessage> client1Message = new CompletableFuture<>();
-        CompletableFuture<ChatMessage> client2Message = new CompletableFuture<>();
-
-        // Connect client 1
-        stompClient.connectAsync(wsUrl, new StompSessionHandlerAdapter() {
+    @DisplayName("Devrait délivrer le message au client et à son agent uniquement")
+    void shouldDeliverMessageOnlyToConversationParticipants() throws Exception {
+        // Given - Un agent et deux clients
+        StompSession agent = connectAgent();
+        StompSession client1 = connect();
+        StompSession client2 = connect();
+
+        BlockingQueue<ChatMessage> agentMessages = subscribePrivateQueue(agent);
+        BlockingQueue<ChatMessage> client1Messages = subscribePrivateQueue(client1);
+        BlockingQueue<ChatMessage> client2Messages = subscribePrivateQueue(client2);
+
+        join(agent, "Agent Support", ChatMessage.SenderRole.SUPPORT);
+        assertThat(nextMessageOfType(agentMessages, ChatMessage.MessageType.JOIN)).isNotNull();
+        join(client1, "Client 1", ChatMessage.SenderRole.CLIENT);
+        join(client2, "Client 2", ChatMessage.SenderRole.CLIENT);
+
+        // When - Client 1 envoie un message
+        ChatMessage message = new ChatMessage(
+                ChatMessage.MessageType.CHAT,
+                "Client 1",
+                ChatMessage.SenderRole.CLIENT,
+                "Message privé"
+        );
+
+        client1.send("/app/chat.sendMessage", message);
+
+        // Then - Le client 1 et l'agent le reçoivent, pas le client 2
+        ChatMessage msg1 = nextMessageOfType(client1Messages, ChatMessage.MessageType.CHAT);
+        ChatMessage agentMsg = nextMessageOfType(agentMessages, ChatMessage.MessageType.CHAT);
+
+        assertThat(msg1.getContent()).isEqualTo("Message privé");
+        assertThat(agentMsg.getContent()).isEqualTo("Message privé");
+        assertThat(agentMsg.getConversationId()).isEqualTo(msg1.getConversationId());
+        assertThat(client2Messages.stream().noneMatch(m -> m.getType() == ChatMessage.MessageType.CHAT)).isTrue();
+
+        // Cleanup
+        agent.disconnect();
+        client1.disconnect();
+        client2.disconnect();
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer l'historique de la conversation à la reconnexion du client")
+    void shouldReplayHistoryOnReconnect() throws Exception {
+        // Given - Un client écrit puis se déconnecte
+        StompSession first = connect();
+        BlockingQueue<ChatMessage> firstMessages = subscribePrivateQueue(first);
+        join(first, "Client Fidèle", ChatMessage.SenderRole.CLIENT);
+        first.send("/app/chat.sendMessage", new ChatMessage(
+                ChatMessage.MessageType.CHAT, "Client Fidèle", ChatMessage.SenderRole.CLIENT, "Avant la coupure"));
+        String conversationId = nextMessageOfType(firstMessages, ChatMessage.MessageType.CHAT).getConversationId();
+
+        int openBefore = conversationService.getOpenConversationCount();
+        first.disconnect();
+        for (int i = 0; i < 50 && conversationService.getOpenConversationCount() >= openBefore; i++) {
+            Thread.sleep(100);
+        }
+
+        // When - Il se reconnecte avec l'identifiant de sa conversation
+        StompSession second = connect();
+        StompHeaders replayHeaders = new StompHeaders();
+        replayHeaders.setDestination("/user/queue/history");
+        BlockingQueue<HistoryPage> replays = subscribeHistory(second, replayHeaders);
+        BlockingQueue<ChatMessage> secondMessages = subscribePrivateQueue(second);
+
+        ChatMessage rejoin = new ChatMessage(
+                ChatMessage.MessageType.JOIN, "Client Fidèle", ChatMessage.SenderRole.CLIENT, "Client Fidèle est de retour");
+        rejoin.setConversationId(conversationId);
+        second.send("/app/chat.addUser", rejoin);
+
+        // Then - L'historique est rejoué et la conversation est la même
+        HistoryPage replay = replays.poll(5, TimeUnit.SECONDS);
+        assertThat(replay).isNotNull();
+        assertThat(replay.getConversationId()).isEqualTo(conversationId);
+        assertThat(replay.getMessages().stream().anyMatch(m -> "Avant la coupure".equals(m.getContent()))).isTrue();
+        assertThat(nextMessageOfType(secondMessages, ChatMessage.MessageType.JOIN).getConversationId()).isEqualTo(conversationId);
+
+        // When - Il demande la page la plus récente via l'abonnement "load older"
+        StompHeaders olderHeaders = new StompHeaders();
+        olderHeaders.setDestination("/app/conversation.history");
+        olderHeaders.set("limit", "1");
+        HistoryPage latest = subscribeHistory(second, olderHeaders).poll(5, TimeUnit.SECONDS);
+
+        // Then - Une page d'un message, avec un curseur vers les messages précédents
+        assertThat(latest).isNotNull();
+        assertThat(latest.getMessages().size()).isEqualTo(1);
+        assertThat(latest.getNextCursor()).isNotNull();
+
+        // Cleanup
+        second.disconnect();
+    }
+
+    @Test
+    @DisplayName("Devrait négocier l'encodage binaire sur une connexion WebSocket directe uniquement")
+    void shouldNegotiateBinaryEncodingOnNativeWebSocketOnly() throws Exception {
+        // Given - Un client en WebSocket direct et un client SockJS demandent l'encodage binaire
+        WebSocketStompClient nativeClient = new WebSocketStompClient(new StandardWebSocketClient());
+        nativeClient.setMessageConverter(new CompositeMessageConverter(
+                List.of(new ChatMessageBinaryConverter(), messageConverter)));
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.set(EncodingNegotiationInterceptor.ENCODING_HEADER, EncodingNegotiationInterceptor.BINARY_ENCODING);
+
+        StompSession binarySession = connectWith(nativeClient, "ws://localhost:" + port + "/ws/websocket", connectHeaders);
+        StompSession sockJsSession = connectWith(stompClient, wsUrl, connectHeaders);
+
+        BlockingQueue<MimeType> binaryTypes = new LinkedBlockingQueue<>();
+        BlockingQueue<ChatMessage> binaryMessages = subscribePrivateQueue(binarySession, binaryTypes);
+        BlockingQueue<MimeType> sockJsTypes = new LinkedBlockingQueue<>();
+        BlockingQueue<ChatMessage> sockJsMessages = subscribePrivateQueue(sockJsSession, sockJsTypes);
+
+        // When
+        join(binarySession, "Client Binaire", ChatMessage.SenderRole.CLIENT);
+        binarySession.send("/app/chat.sendMessage", new ChatMessage(
+                ChatMessage.MessageType.CHAT, "Client Binaire", ChatMessage.SenderRole.CLIENT, "Message compact"));
+        join(sockJsSession, "Client SockJS", ChatMessage.SenderRole.CLIENT);
+
+        // Then - Le client direct reçoit du binaire, le client SockJS reste en JSON
+        ChatMessage binary = nextMessageOfType(binaryMessages, ChatMessage.MessageType.CHAT);
+        assertThat(binary).isNotNull();
+        assertThat(binary.getContent()).isEqualTo("Message compact");
+        assertThat(binary.getConversationId()).isNotNull();
+        assertThat(binaryTypes.stream().allMatch(ChatMessageBinaryConverter.MIME_TYPE::equals)).isTrue();
+
+        assertThat(nextMessageOfType(sockJsMessages, ChatMessage.MessageType.JOIN)).isNotNull();
+        assertThat(sockJsTypes.stream().noneMatch(ChatMessageBinaryConverter.MIME_TYPE::equals)).isTrue();
+
+        // Cleanup
+        binarySession.disconnect();
+        sockJsSession.disconnect();
+    }
+
+    @Test
+    @DisplayName("Devrait accepter le WebSocket natif sur /ws-native et mesurer chaque transport")
+    void shouldConnectThroughNativeEndpointAndMeasureTransports() throws Exception {
+        // Given
+        double nativeSetups = connectionSetups("websocket");
+        double sockJsSetups = connectionSetups("sockjs");
+        WebSocketStompClient nativeClient = new WebSocketStompClient(new StandardWebSocketClient());
+        nativeClient.setMessageConverter(messageConverter);
+
+        // When - un client en WebSocket natif, un autre par SockJS
+        StompSession nativeSession = connectWith(nativeClient, "ws://localhost:" + port + "/ws-native", new StompHeaders());
+        StompSession sockJsSession = connect();
+        BlockingQueue<ChatMessage> received = subscribePrivateQueue(nativeSession);
+        join(nativeSession, "Client Natif", ChatMessage.SenderRole.CLIENT);
+        nativeSession.send("/app/chat.sendMessage", new ChatMessage(
+                ChatMessage.MessageType.CHAT, "Client Natif", ChatMessage.SenderRole.CLIENT, "Sans SockJS"));
+
+        // Then - le chat fonctionne, chaque connexion est comptée sous son transport
+        assertThat(nextMessageOfType(received, ChatMessage.MessageType.CHAT).getContent()).isEqualTo("Sans SockJS");
+        assertThat(connectionSetups("websocket")).isEqualTo(nativeSetups + 1);
+        assertThat(connectionSetups("sockjs")).isEqualTo(sockJsSetups + 1);
+        assertThat(meterRegistry.get("chat.connections").tag("transport", "websocket").gauge().value()).isGreaterThanOrEqualTo(1.0);
+        assertThat(meterRegistry.get("chat.connections").tag("transport", "sockjs").gauge().value()).isGreaterThanOrEqualTo(1.0);
+
+        // Cleanup
+        nativeSession.disconnect();
+        sockJsSession.disconnect();
+    }
+
+    private double connectionSetups(String transport) {
+        return meterRegistry.get("chat.connection.setup.duration").tag("transport", transport).timer().count();
+    }
+
+    @Test
+    @DisplayName("Devrait compresser les longs messages sortants et envoyer les courts tels quels")
+    void shouldCompressOnlyLargeOutboundMessages() throws Exception {
+        // Given - un client qui demande l'extension permessage-deflate
+        double compressed = compressionMessages("compressed");
+        double skipped = compressionMessages("skipped");
+        double originalBytes = compressionBytes("original");
+        double compressedBytes = compressionBytes("compressed");
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(messageConverter);
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+        String terms = "Le véhicule est restitué avec le plein, dans l'agence de départ, avant 18h. ".repeat(40);
+
+        // When - la trame CONNECTED et le JOIN sont courts, les conditions de location dépassent le seuil
+        StompSession session = connectWith(client, "ws://localhost:" + port + "/ws-native", handshakeHeaders, new StompHeaders());
+        BlockingQueue<ChatMessage> received = subscribePrivateQueue(session);
+        join(session, "Client Compressé", ChatMessage.SenderRole.CLIENT);
+        session.send("/app/chat.sendMessage", new ChatMessage(
+                ChatMessage.MessageType.CHAT, "Client Compressé", ChatMessage.SenderRole.CLIENT, terms));
+
+        // Then - le message arrive intact, compressé ; les trames courtes sont parties telles quelles
+        assertThat(nextMessageOfType(received, ChatMessage.MessageType.CHAT).getContent()).isEqualTo(terms);
+        assertThat(compressionMessages("compressed")).isGreaterThan(compressed);
+        assertThat(compressionMessages("skipped")).isGreaterThan(skipped);
+        assertThat(compressionBytes("compressed") - compressedBytes)
+                .isLessThan((compressionBytes("original") - originalBytes) / 4);
+
+        // Cleanup
+        session.disconnect();
+    }
+
+    private double compressionMessages(String result) {
+        return meterRegistry.get("chat.compression.messages").tag("result", result).counter().count();
+    }
+
+    private double compressionBytes(String stage) {
+        return meterRegistry.get("chat.compression.bytes").tag("stage", stage).counter().count();
+    }
+
+    @Test
+    @DisplayName("Devrait prévenir un client qui inonde le serveur sans fermer sa connexion")
+    void shouldWarnFloodWithoutClosingConnection() throws Exception {
+        // Given - un client abonné à ses erreurs
+        StompSession session = connect();
+        BlockingQueue<ChatError> errors = subscribeErrors(session);
+        BlockingQueue<ChatMessage> received = subscribePrivateQueue(session);
+        join(session, "Client Bavard", ChatMessage.SenderRole.CLIENT);
+
+        // When - bien plus de messages que la rafale tolérée (chat.rate-limit.client.session-burst)
+        for (int i = 0; i < 50; i++) {
+            session.send("/app/chat.sendMessage", new ChatMessage(
+                    ChatMessage.MessageType.CHAT, "Client Bavard", ChatMessage.SenderRole.CLIENT, "Message " + i));
+        }
+
+        // Then - le client est prévenu, seuls les premiers messages sont délivrés, la session reste ouverte
+        ChatError error = errors.poll(5, TimeUnit.SECONDS);
+        assertThat(error).isNotNull();
+        assertThat(error.code()).isEqualTo(ChatError.RATE_LIMITED);
+        Thread.sleep(500);
+        assertThat(received.stream().filter(m -> m.getType() == ChatMessage.MessageType.CHAT).count()).isLessThan(20L);
+        assertThat(session.isConnected()).isTrue();
+
+        // Cleanup
+        session.disconnect();
+    }
+
+    @Test
+    @DisplayName("Devrait appliquer les limites SUPPORT à une session ouverte avec le jeton agent")
+    void shouldApplySupportLimitsToAuthenticatedAgent() throws Exception {
+        // Given - un agent authentifié à la poignée de main, abonné à ses erreurs
+        StompSession agent = connectAgent();
+        BlockingQueue<ChatError> errors = subscribeErrors(agent);
+        join(agent, "Agent Rapide", ChatMessage.SenderRole.SUPPORT);
+        double supportRejections = supportSessionRejections();
+
+        // When - plus que la rafale d'un client (10), moins que celle d'un agent (chat.rate-limit.support.session-burst)
+        for (int i = 0; i < 30; i++) {
+            agent.send("/app/chat.sendMessage", new ChatMessage(
+                    ChatMessage.MessageType.CHAT, "Agent Rapide", ChatMessage.SenderRole.SUPPORT, "Réponse " + i));
+        }
+
+        // Then - aucune trame refusée
+        assertThat(errors.poll(1, TimeUnit.SECONDS)).isNull();
+        assertThat(supportSessionRejections()).isEqualTo(supportRejections);
+
+        // When - au-delà de la rafale d'un agent
+        for (int i = 0; i < 60; i++) {
+            agent.send("/app/chat.sendMessage", new ChatMessage(
+                    ChatMessage.MessageType.CHAT, "Agent Rapide", ChatMessage.SenderRole.SUPPORT, "Relance " + i));
+        }
+
+        // Then - l'agent est prévenu, le refus est compté pour le rôle SUPPORT
+        ChatError error = errors.poll(5, TimeUnit.SECONDS);
+        assertThat(error).isNotNull();
+        assertThat(error.code()).isEqualTo(ChatError.RATE_LIMITED);
+        assertThat(supportSessionRejections()).isGreaterThan(supportRejections);
+
+        // Cleanup
+        agent.disconnect();
+    }
+
+    private double supportSessionRejections() {
+        return meterRegistry.get("chat.ratelimit.rejected").tag("role", "SUPPORT").tag("scope", "session").counter().count();
+    }
+
+    /**
+     * Méthode helper pour s'abonner aux erreurs signalées à la session
+     */
+    private BlockingQueue<ChatError> subscribeErrors(StompSession session) {
+        BlockingQueue<ChatError> errors = new LinkedBlockingQueue<>();
+        session.subscribe("/user/queue/errors", new StompFrameHandler() {
             @Override
-            public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
-                session1Future.complete(session);
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatError.class;
             }
-        });
 
-        // Connect client 2
-        stompClient.connectAsync(wsUrl, new StompSessionHandlerAdapter() {
             @Override
-            public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
-                session2Future.complete(session);
+            public void handleFrame(StompHeaders headers, Object payload) {
+                errors.add((ChatError) payload);
             }
         });
+        return errors;
+    }
+
+    @Test
+    @DisplayName("Devrait publier l'arrivée d'un agent sur /topic/presence et l'inclure dans l'instantané")
+    void shouldPublishAgentPresence() throws Exception {
+        // Given - un observateur abonné aux deltas de présence
+        StompSession observer = connect();
+        BlockingQueue<PresenceUpdate> updates = subscribePresence(observer, "/topic/presence");
+
+        // When
+        StompSession agent = connectAgent();
+        join(agent, "Agent Présent", ChatMessage.SenderRole.SUPPORT);
+
+        // Then - l'arrivée est publiée au tick suivant, puis servie par l'instantané
+        PresenceUpdate delta;
+        do {
+            delta = updates.poll(5, TimeUnit.SECONDS);
+        } while (delta != null && !delta.getAgentsJoined().contains("Agent Présent"));
+        assertThat(delta).isNotNull();
+        assertThat(delta.isSnapshot()).isFalse();
+
+        PresenceUpdate snapshot = subscribePresence(observer, "/app/presence").poll(5, TimeUnit.SECONDS);
+        assertThat(snapshot.isSnapshot()).isTrue();
+        assertThat(snapshot.getAgentsJoined().contains("Agent Présent")).isTrue();
+        assertThat(snapshot.getSequence() >= delta.getSequence()).isTrue();
+
+        // Cleanup
+        agent.disconnect();
+        observer.disconnect();
+    }
 
-        StompSession session1 = session1Future.get(5, TimeUnit.SECONDS);
-        StompSession session2 = session2Future.get(5, TimeUnit.SECONDS);
+    /**
+     * Méthode helper pour s'abonner à une destination de présence
+     */
+    private BlockingQueue<PresenceUpdate> subscribePresence(StompSession session, String destination) {
+        BlockingQueue<PresenceUpdate> received = new LinkedBlockingQueue<>();
 
-        // Both clients subscribe
-        session1.subscribe("/topic/public", new StompFrameHandler() {
+        session.subscribe(destination, new StompFrameHandler() {
             @Override
             public Type getPayloadType(StompHeaders headers) {
-                return ChatMessage.class;
+                return PresenceUpdate.class;
             }
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
-                client1Message.complete((ChatMessage) payload);
+                received.add((PresenceUpdate) payload);
             }
         });
 
-        session2.subscribe("/topic/public", new StompFrameHandler() {
-            @Override
-            public Type getPayloadType(StompHeaders headers) {
-                return ChatMessage.class;
-            }
+        return received;
+    }
+
+    /**
+     * Méthode helper pour connecter une session STOMP avec des en-têtes de CONNECT
+     */
+    private StompSession connectWith(WebSocketStompClient client, String url, StompHeaders connectHeaders) throws Exception {
+        return connectWith(client, url, new WebSocketHttpHeaders(), connectHeaders);
+    }
+
+    private StompSession connectWith(WebSocketStompClient client, String url, WebSocketHttpHeaders handshakeHeaders,
+                                     StompHeaders connectHeaders) throws Exception {
+        CompletableFuture<StompSession> sessionFuture = new CompletableFuture<>();
 
+        client.connectAsync(url, handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {
             @Override
-            public void handleFrame(StompHeaders headers, Object payload) {
-                client2Message.complete((ChatMessage) payload);
+            public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+                sessionFuture.complete(session);
             }
         });
 
-        // When - Client 1 sends a message
-        ChatMessage message = new ChatMessage(
-                ChatMessage.MessageType.CHAT,
-                "Client 1",
-                ChatMessage.SenderRole.CLIENT,
-                "Broadcast test"
-        );
+        return sessionFuture.get(5, TimeUnit.SECONDS);
+    }
 
-        session1.send("/app/chat.sendMessage", message);
+    /**
+     * Méthode helper pour s'abonner à la file privée en notant le content-type des trames reçues
+     */
+    private BlockingQueue<ChatMessage> subscribePrivateQueue(StompSession session, BlockingQueue<MimeType> contentTypes) {
+        BlockingQueue<ChatMessage> received = new LinkedBlockingQueue<>();
 
-        // Then - Both clients should receive it
-        ChatMessage msg1 = client1Message.get(5, TimeUnit.SECONDS);
-        ChatMessage msg2 = client2Message.get(5, TimeUnit.SECONDS);
+        session.subscribe("/user/queue/messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return payloadType(headers);
+            }
 
-        assertThat(msg1.getContent()).isEqualTo("Broadcast test");
-        assertThat(msg2.getContent()).isEqualTo("Broadcast test");
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                contentTypes.add(headers.getContentType());
+                addReceived(received, payload);
+            }
+        });
 
-        // Cleanup
-        session1.disconnect();
-        session2.disconnect();
+        return received;
     }
 }
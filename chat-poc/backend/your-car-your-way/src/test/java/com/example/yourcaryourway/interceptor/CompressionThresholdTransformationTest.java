@@ -0,0 +1,212 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.service.ChatMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tomcat.websocket.Constants;
+import org.apache.tomcat.websocket.MessagePart;
+import org.apache.tomcat.websocket.PerMessageDeflate;
+import org.apache.tomcat.websocket.Transformation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour CompressionThresholdTransformation
+ *
+ * La compression est celle de la PerMessageDeflate de Tomcat, sans transformation suivante :
+ * les parties renvoyées sont celles qui seraient écrites sur la connexion.
+ * Seuil de 1 Ko.
+ */
+@DisplayName("Tests de la compression à seuil CompressionThresholdTransformation")
+class CompressionThresholdTransformationTest {
+
+    private static final int RSV1 = 0b100;
+
+    private static final String FRAME = "MESSAGE\ndestination:/user/queue/messages\n\n"
+            + "{\"type\":\"CHAT\",\"sender\":\"Agent\",\"content\":\"Le véhicule est restitué avec le plein\"}";
+
+    private ChatProperties.Transport transport;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ChatMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        transport = new ChatProperties.Transport();
+        transport.setCompressionMinSize(DataSize.ofKilobytes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ChatMetrics(meterRegistry);
+    }
+
+    private Transformation serverTransformation() {
+        return CompressionThresholdTransformation.builder(transport, metrics).build(List.of(List.of()), true);
+    }
+
+    private static MessagePart part(byte opCode, boolean fin, String text) {
+        MessagePart part = mock(MessagePart.class);
+        when(part.getOpCode()).thenReturn(opCode);
+        when(part.isFin()).thenReturn(fin);
+        when(part.getPayload()).thenReturn(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        return part;
+    }
+
+    private static String inflate(List<MessagePart> parts) throws Exception {
+        Inflater inflater = new Inflater(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (MessagePart part : parts) {
+            ByteBuffer payload = part.getPayload().duplicate();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            inflater.setInput(bytes);
+            int read;
+            while ((read = inflater.inflate(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        // Fin de message retirée par l'émetteur (RFC 7692, 7.2.1)
+        inflater.setInput(new byte[]{0, 0, -1, -1});
+        int read;
+        while ((read = inflater.inflate(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        inflater.end();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private double counter(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    @DisplayName("Un message sous le seuil devrait partir tel quel")
+    void shouldSendSmallMessageUncompressed() throws Exception {
+        // Given
+        Transformation transformation = serverTransformation();
+        MessagePart small = part(Constants.OPCODE_TEXT, true, FRAME);
+
+        // When
+        List<MessagePart> sent = transformation.sendMessagePart(List.of(small));
+
+        // Then - la partie d'origine, sans RSV1 ni compression
+        assertThat(sent).containsExactly(small);
+        assertThat(counter("chat.compression.messages", "result", "skipped")).isEqualTo(1.0);
+        assertThat(counter("chat.compression.messages", "result", "compressed")).isZero();
+    }
+
+    @Test
+    @DisplayName("Un message au-dessus du seuil devrait être compressé")
+    void shouldCompressLargeMessage() throws Exception {
+        // Given
+        Transformation transformation = serverTransformation();
+        String terms = FRAME.repeat(20);
+
+        // When
+        List<MessagePart> sent = transformation.sendMessagePart(List.of(part(Constants.OPCODE_TEXT, true, terms)));
+
+        // Then
+        assertThat(sent).hasSize(1);
+        assertThat(sent.getFirst().getRsv() & RSV1).isEqualTo(RSV1);
+        assertThat(sent.getFirst().isFin()).isTrue();
+        assertThat(inflate(sent)).isEqualTo(terms);
+        double original = counter("chat.compression.bytes", "stage", "original");
+        double compressed = counter("chat.compression.bytes", "stage", "compressed");
+        assertThat(original).isEqualTo(terms.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(compressed).isEqualTo(sent.getFirst().getPayload().remaining());
+        assertThat(compressed).isLessThan(original / 10);
+        assertThat(meterRegistry.get("chat.compression.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Le contexte de compression devrait être réutilisé d'un message à l'autre")
+    void shouldReuseDeflaterAcrossMessages() throws Exception {
+        // Given - un premier message compressé
+        Transformation transformation = serverTransformation();
+        String terms = FRAME.repeat(20);
+        List<MessagePart> first = transformation.sendMessagePart(List.of(part(Constants.OPCODE_TEXT, true, terms)));
+        int firstSize = first.getFirst().getPayload().remaining();
+
+        // When - le même texte, entrecoupé d'un message court envoyé tel quel
+        transformation.sendMessagePart(List.of(part(Constants.OPCODE_TEXT, true, FRAME)));
+        List<MessagePart> second = transformation.sendMessagePart(List.of(part(Constants.OPCODE_TEXT, true, terms)));
+
+        // Then - le second ne coûte que des références au premier, toujours dans la fenêtre du Deflater
+        assertThat(second.getFirst().getPayload().remaining()).isLessThan(firstSize / 2);
+    }
+
+    @Test
+    @DisplayName("Les parties d'un message fragmenté devraient toutes être compressées")
+    void shouldCompressFragmentedMessage() throws Exception {
+        // Given - une première partie courte : la taille du message n'est pas connue
+        Transformation transformation = serverTransformation();
+        String head = FRAME;
+        String tail = FRAME.repeat(2);
+
+        // When
+        List<MessagePart> first = transformation.sendMessagePart(List.of(part(Constants.OPCODE_TEXT, false, head)));
+        List<MessagePart> last = transformation.sendMessagePart(List.of(part(Constants.OPCODE_CONTINUATION, true, tail)));
+
+        // Then
+        List<MessagePart> sent = new ArrayList<>(first);
+        sent.addAll(last);
+        assertThat(sent.getFirst().getRsv() & RSV1).isEqualTo(RSV1);
+        assertThat(inflate(sent)).isEqualTo(head + tail);
+        assertThat(counter("chat.compression.messages", "result", "skipped")).isZero();
+    }
+
+    @Test
+    @DisplayName("Une trame de contrôle devrait partir telle quelle")
+    void shouldPassControlFramesThrough() throws Exception {
+        // Given
+        Transformation transformation = serverTransformation();
+        MessagePart ping = part(Constants.OPCODE_PING, true, FRAME.repeat(20));
+
+        // When / Then
+        assertThat(transformation.sendMessagePart(List.of(ping))).containsExactly(ping);
+        assertThat(counter("chat.compression.messages", "result", "skipped")).isZero();
+    }
+
+    @Test
+    @DisplayName("Un seuil nul devrait tout compresser, comme Tomcat")
+    void shouldCompressEverythingWithoutThreshold() throws Exception {
+        // Given
+        transport.setCompressionMinSize(DataSize.ofBytes(0));
+        Transformation transformation = serverTransformation();
+
+        // When
+        List<MessagePart> sent = transformation.sendMessagePart(List.of(part(Constants.OPCODE_TEXT, true, FRAME)));
+
+        // Then
+        assertThat(sent.getFirst().getRsv() & RSV1).isEqualTo(RSV1);
+        assertThat(inflate(sent)).isEqualTo(FRAME);
+    }
+
+    @Test
+    @DisplayName("Compression désactivée : l'extension devrait être refusée côté serveur seulement")
+    void shouldRefuseExtensionWhenDisabled() {
+        // Given
+        transport.setCompression(false);
+
+        // When
+        Transformation server = CompressionThresholdTransformation.builder(transport, metrics).build(List.of(List.of()), true);
+        Transformation client = CompressionThresholdTransformation.builder(transport, metrics).build(List.of(List.of()), false);
+
+        // Then
+        assertThat(server).isNull();
+        assertThat(client).isInstanceOf(PerMessageDeflate.class);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.service.DrainService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.time.Duration;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour DrainHandshakeInterceptor
+ */
+@DisplayName("Tests du refus des connexions pendant l'arrêt progressif")
+class DrainHandshakeInterceptorTest {
+
+    private DrainService drainService;
+
+    private DrainHandshakeInterceptor interceptor;
+
+    private MockHttpServletResponse servletResponse;
+
+    @BeforeEach
+    void setUp() {
+        drainService = mock(DrainService.class);
+        interceptor = new DrainHandshakeInterceptor(drainService, Duration.ofSeconds(20));
+        servletResponse = new MockHttpServletResponse();
+    }
+
+    private boolean handshake() throws Exception {
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        boolean accepted = interceptor.beforeHandshake(
+                new ServletServerHttpRequest(new MockHttpServletRequest("GET", "/ws-native")),
+                response, mock(WebSocketHandler.class), new HashMap<>());
+        response.flush();
+        return accepted;
+    }
+
+    @Test
+    @DisplayName("Devrait accepter la poignée de main en fonctionnement normal")
+    void shouldAcceptHandshake() throws Exception {
+        // When / Then
+        assertThat(handshake()).isTrue();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser la poignée de main avec 503 et Retry-After pendant l'arrêt progressif")
+    void shouldRefuseHandshakeWhileDraining() throws Exception {
+        // Given
+        when(drainService.isDraining()).thenReturn(true);
+
+        // When / Then
+        assertThat(handshake()).isFalse();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(servletResponse.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("20");
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatError;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.StompPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests unitaires pour RateLimitInterceptor
+ *
+ * Les débits sont très bas (0,001 trame/s) : aucun jeton n'est rendu pendant un test,
+ * seule la rafale compte
+ */
+@DisplayName("Tests de la limitation de débit RateLimitInterceptor")
+class RateLimitInterceptorTest {
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        ChatProperties.RateLimit properties = new ChatProperties.RateLimit();
+        properties.getClient().setSessionRate(0.001);
+        properties.getClient().setSessionBurst(3);
+        properties.getClient().setUserRate(0.001);
+        properties.getClient().setUserBurst(4);
+        properties.getSupport().setSessionRate(0.001);
+        properties.getSupport().setSessionBurst(6);
+        properties.getSupport().setUserRate(0.001);
+        properties.getSupport().setUserBurst(100);
+
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new RateLimitInterceptor(properties, meterRegistry, messagingTemplate);
+    }
+
+    private static Principal client(String name) {
+        return new StompPrincipal(name);
+    }
+
+    /**
+     * Attributs de session d'un JOIN : nom et rôle choisis par le client
+     */
+    private static Map<String, Object> joined(String username, ChatMessage.SenderRole role) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("username", username);
+        attributes.put("role", role);
+        return attributes;
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, Principal user,
+                                         Map<String, Object> attributes) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        accessor.setSessionAttributes(attributes);
+        if (command == StompCommand.SEND) {
+            accessor.setDestination("/app/chat.sendMessage");
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, Principal user) {
+        return frame(command, sessionId, user, new HashMap<>());
+    }
+
+    /**
+     * Envoie des trames SEND jusqu'au premier refus
+     *
+     * @return Le nombre de trames acceptées
+     */
+    private int sendUntilRejected(String sessionId, Principal user, Map<String, Object> attributes) {
+        for (int accepted = 0; accepted < 1_000; accepted++) {
+            if (interceptor.preSend(frame(StompCommand.SEND, sessionId, user, attributes), channel) == null) {
+                return accepted;
+            }
+        }
+        return 1_000;
+    }
+
+    private int sendUntilRejected(String sessionId, Principal user) {
+        return sendUntilRejected(sessionId, user, new HashMap<>());
+    }
+
+    private double rejected(ChatMessage.SenderRole role, String scope) {
+        return meterRegistry.get("chat.ratelimit.rejected").tag("role", role.name()).tag("scope", scope).counter().count();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser les trames d'une session au-delà de sa rafale")
+    void shouldRejectBeyondSessionBurst() {
+        // When
+        int accepted = sendUntilRejected("session-1", client("user-1"));
+
+        // Then
+        assertThat(accepted).isEqualTo(3);
+        assertThat(rejected(ChatMessage.SenderRole.CLIENT, "session")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait prévenir une seule fois par rafale refusée, sans trame ERROR")
+    void shouldNotifyOncePerRejectedBurst() {
+        // Given
+        sendUntilRejected("session-1", client("user-1"));
+
+        // When - les trames suivantes sont refusées sans nouvel avertissement
+        for (int i = 0; i < 5; i++) {
+            assertThat(interceptor.preSend(frame(StompCommand.SEND, "session-1", client("user-1")), channel)).isNull();
+        }
+
+        // Then - un ChatError sur /user/queue/errors : la connexion reste ouverte
+        ArgumentCaptor<Object> errors = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(1)).convertAndSendToUser(eq("user-1"), eq("/queue/errors"), errors.capture());
+        ChatError error = (ChatError) errors.getValue();
+        assertThat(error.code()).isEqualTo(ChatError.RATE_LIMITED);
+        assertThat(error.message()).contains("Débit de messages dépassé");
+    }
+
+    @Test
+    @DisplayName("Le rôle annoncé par le client ne devrait pas changer ses limites")
+    void shouldIgnoreRoleDeclaredByClient() {
+        // When - le JOIN déclare SUPPORT, le Principal attribué par le serveur est un client
+        int accepted = sendUntilRejected("session-1", client("user-1"),
+                joined("Agent Smith", ChatMessage.SenderRole.SUPPORT));
+
+        // Then
+        assertThat(accepted).isEqualTo(3);
+        assertThat(rejected(ChatMessage.SenderRole.CLIENT, "session")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait appliquer les limites du rôle attribué par le serveur")
+    void shouldApplyPrincipalRoleLimits() {
+        // When
+        int accepted = sendUntilRejected("session-1", new StompPrincipal("agent-1", ChatMessage.SenderRole.SUPPORT));
+
+        // Then
+        assertThat(accepted).isEqualTo(6);
+        assertThat(rejected(ChatMessage.SenderRole.SUPPORT, "session")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait partager le seau d'un utilisateur entre ses sessions")
+    void shouldShareUserBucketAcrossSessions() {
+        // Given
+        Principal user = client("user-1");
+
+        // When - 3 trames sur la première session, la 4e passe sur la seconde puis le seau est vide
+        int first = sendUntilRejected("session-1", user);
+        int second = sendUntilRejected("session-2", user);
+
+        // Then
+        assertThat(first).isEqualTo(3);
+        assertThat(second).isEqualTo(1);
+        assertThat(rejected(ChatMessage.SenderRole.CLIENT, "user")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Prendre le nom d'un autre utilisateur ne devrait pas vider son seau")
+    void shouldNotShareUserBucketByDisplayName() {
+        // Given - un attaquant rejoint deux fois sous le nom de sa victime et vide son seau d'utilisateur
+        Principal attacker = client("attacker");
+        sendUntilRejected("session-attacker-1", attacker, joined("Jean Dupont", ChatMessage.SenderRole.CLIENT));
+        sendUntilRejected("session-attacker-2", attacker, joined("Jean Dupont", ChatMessage.SenderRole.CLIENT));
+        assertThat(rejected(ChatMessage.SenderRole.CLIENT, "user")).isEqualTo(1.0);
+
+        // When
+        int accepted = sendUntilRejected("session-victim", client("victim"), joined("Jean Dupont", ChatMessage.SenderRole.CLIENT));
+
+        // Then - la victime garde toute sa rafale
+        assertThat(accepted).isEqualTo(3);
+        assertThat(rejected(ChatMessage.SenderRole.CLIENT, "user")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait oublier une session déconnectée, et son utilisateur avec sa dernière session")
+    void shouldEvictStateOnDisconnect() {
+        // Given
+        Principal user = client("user-1");
+        interceptor.preSend(frame(StompCommand.SEND, "session-1", user), channel);
+        interceptor.preSend(frame(StompCommand.SEND, "session-2", user), channel);
+
+        // When
+        interceptor.preSend(frame(StompCommand.DISCONNECT, "session-1", user), channel);
+        interceptor.preSend(frame(StompCommand.DISCONNECT, "session-1", user), channel);
+
+        // Then - l'utilisateur garde son seau tant qu'il lui reste une session
+        assertThat(interceptor.trackedSessions()).isEqualTo(1);
+        assertThat(interceptor.trackedUsers()).isEqualTo(1);
+
+        // When
+        interceptor.preSend(frame(StompCommand.DISCONNECT, "session-2", user), channel);
+
+        // Then
+        assertThat(interceptor.trackedSessions()).isZero();
+        assertThat(interceptor.trackedUsers()).isZero();
+    }
+
+    @Test
+    @DisplayName("Les trames autres que SEND ne devraient pas consommer de jeton")
+    void shouldOnlyLimitSendFrames() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            interceptor.preSend(frame(StompCommand.SUBSCRIBE, "session-1", client("user-1")), channel);
+        }
+
+        // Then
+        assertThat(sendUntilRejected("session-1", client("user-1"))).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Le seau devrait se remplir au débit configuré")
+    void shouldRefillAtConfiguredRate() {
+        // Given - 10 jetons par seconde, rafale de 2
+        RateLimitInterceptor.TokenBucket bucket = new RateLimitInterceptor.TokenBucket(10, 2);
+        long now = 0;
+
+        // When / Then
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isFalse();
+        assertThat(bucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(99))).isFalse();
+        assertThat(bucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(100))).isTrue();
+        assertThat(bucket.tryAcquire(now + TimeUnit.SECONDS.toNanos(10))).isTrue();
+        assertThat(bucket.tryAcquire(now + TimeUnit.SECONDS.toNanos(10))).isTrue();
+        assertThat(bucket.tryAcquire(now + TimeUnit.SECONDS.toNanos(10))).isFalse();
+    }
+}
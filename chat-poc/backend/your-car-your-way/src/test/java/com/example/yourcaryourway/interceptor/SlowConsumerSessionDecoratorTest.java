@@ -0,0 +1,285 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.service.ConversationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour SlowConsumerSessionDecorator
+ *
+ * Un client lent est simulé par une session dont le premier envoi reste bloqué :
+ * les trames suivantes s'accumulent dans le buffer jusqu'au seuil "slow-consumer"
+ */
+@DisplayName("Tests de la politique des clients lents SlowConsumerSessionDecorator")
+class SlowConsumerSessionDecoratorTest {
+
+    private static final int SLOW_BUFFER_SIZE = 200;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSession session;
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch sendBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseSend = new CountDownLatch(1);
+    private Thread blockedSender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+
+        // Le premier envoi bloque jusqu'à releaseSend : le client ne lit plus
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (sent.isEmpty()) {
+                sendBlocked.countDown();
+                releaseSend.await(5, TimeUnit.SECONDS);
+            }
+            sent.add(payload(message));
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        releaseSend.countDown();
+        if (blockedSender != null) {
+            blockedSender.join(5_000);
+        }
+    }
+
+    private SlowConsumerSessionDecorator decorator(ChatProperties.Transport.OverflowPolicy policy) {
+        ChatProperties.Transport transport = new ChatProperties.Transport();
+        transport.setOverflowPolicy(policy);
+        transport.setSlowConsumerBufferSize(DataSize.ofBytes(SLOW_BUFFER_SIZE));
+        transport.setDigestSize(2);
+        return new SlowConsumerSessionDecorator(session, 10_000, 1024 * 1024, transport, meterRegistry);
+    }
+
+    /**
+     * Trame MESSAGE telle que l'écrit Spring pour un ChatMessage envoyé par ConversationService
+     */
+    private static String stompFrame(String type, String content) {
+        return "MESSAGE\ndestination:/user/queue/messages\ncontent-type:application/json\n"
+                + ConversationService.TYPE_HEADER + ":" + type + "\nsubscription:sub-0\n\n"
+                + "{\"type\":\"" + type + "\",\"content\":\"" + content + "\"}\u0000";
+    }
+
+    private static TextMessage frame(String type, String content) {
+        return new TextMessage(stompFrame(type, content));
+    }
+
+    /**
+     * Même trame, pour une session qui a négocié l'encodage binaire
+     */
+    private static BinaryMessage binaryFrame(String type, String content) {
+        return new BinaryMessage(stompFrame(type, content).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String payload(WebSocketMessage<?> message) {
+        if (message instanceof BinaryMessage binary) {
+            return StandardCharsets.UTF_8.decode(binary.getPayload().duplicate()).toString();
+        }
+        return (String) message.getPayload();
+    }
+
+    /**
+     * Bloque un premier envoi puis remplit le buffer au-delà du seuil
+     */
+    private void stall(SlowConsumerSessionDecorator decorator) throws Exception {
+        stall(decorator, SlowConsumerSessionDecoratorTest::frame);
+    }
+
+    private void stall(SlowConsumerSessionDecorator decorator,
+                       BiFunction<String, String, WebSocketMessage<?>> frames) throws Exception {
+        blockedSender = new Thread(() -> {
+            try {
+                decorator.sendMessage(frames.apply("CHAT", "premier"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        blockedSender.start();
+        assertThat(sendBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        while (!decorator.isSlow()) {
+            decorator.sendMessage(frames.apply("CHAT", "en attente"));
+        }
+    }
+
+    private double decisions(ChatProperties.Transport.OverflowPolicy policy, String decision) {
+        return meterRegistry.get(SlowConsumerSessionDecorator.DECISIONS_METRIC)
+                .tag("policy", policy.name())
+                .tag("decision", decision)
+                .counter().count();
+    }
+
+    @Test
+    @DisplayName("DROP_SYSTEM devrait abandonner les JOIN/LEAVE mais garder les messages CHAT")
+    void shouldDropSystemFramesButKeepChat() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DROP_SYSTEM);
+        stall(decorator);
+        int bufferSize = decorator.getBufferSize();
+
+        // When
+        decorator.sendMessage(frame("LEAVE", "Jean a quitté le chat"));
+        int afterLeave = decorator.getBufferSize();
+        decorator.sendMessage(frame("CHAT", "Bonjour"));
+
+        // Then
+        assertThat(afterLeave).isEqualTo(bufferSize);
+        assertThat(decorator.getBufferSize()).isGreaterThan(bufferSize);
+        assertThat(decisions(ChatProperties.Transport.OverflowPolicy.DROP_SYSTEM, "dropped")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("DROP_SYSTEM devrait aussi classer les trames d'une session binaire")
+    void shouldDropSystemFramesOfBinarySession() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DROP_SYSTEM);
+        stall(decorator, SlowConsumerSessionDecoratorTest::binaryFrame);
+        int bufferSize = decorator.getBufferSize();
+
+        // When - un JOIN seul, puis des JOIN/LEAVE regroupés (en-tête chat-batch, sans chat-type)
+        decorator.sendMessage(binaryFrame("JOIN", "Paul a rejoint le chat"));
+        decorator.sendMessage(new BinaryMessage(("MESSAGE\ndestination:/user/queue/messages\n"
+                + ConversationService.BATCH_HEADER + ":2\nsubscription:sub-0\n\n[]\u0000").getBytes(StandardCharsets.UTF_8)));
+        int afterSystemFrames = decorator.getBufferSize();
+        decorator.sendMessage(binaryFrame("CHAT", "Bonjour"));
+
+        // Then
+        assertThat(afterSystemFrames).isEqualTo(bufferSize);
+        assertThat(decorator.getBufferSize()).isGreaterThan(bufferSize);
+        assertThat(decisions(ChatProperties.Transport.OverflowPolicy.DROP_SYSTEM, "dropped")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Le classement ne devrait dépendre que des en-têtes, pas du contenu du message")
+    void shouldClassifyByHeadersOnly() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DROP_SYSTEM);
+        stall(decorator);
+        int bufferSize = decorator.getBufferSize();
+
+        // When - un message CHAT qui cite un JOIN dans son contenu
+        decorator.sendMessage(frame("CHAT", "\"type\":\"JOIN\""));
+
+        // Then
+        assertThat(decorator.getBufferSize()).isGreaterThan(bufferSize);
+        assertThat(decisions(ChatProperties.Transport.OverflowPolicy.DROP_SYSTEM, "dropped")).isZero();
+    }
+
+    @Test
+    @DisplayName("Les trames autres que MESSAGE ne devraient jamais être retenues")
+    void shouldAlwaysForwardNonMessageFrames() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DIGEST);
+        stall(decorator);
+        int bufferSize = decorator.getBufferSize();
+
+        // When - heart-beat
+        decorator.sendMessage(new TextMessage("\n"));
+
+        // Then
+        assertThat(decorator.getBufferSize()).isEqualTo(bufferSize + 1);
+    }
+
+    @Test
+    @DisplayName("DISCONNECT devrait fermer la session d'un client lent")
+    void shouldDisconnectSlowConsumer() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DISCONNECT);
+        stall(decorator);
+
+        // When
+        decorator.sendMessage(frame("CHAT", "Bonjour"));
+
+        // Then
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(decisions(ChatProperties.Transport.OverflowPolicy.DISCONNECT, "disconnected")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("DIGEST devrait garder les derniers messages CHAT et les envoyer une fois le retard rattrapé")
+    void shouldDigestWhileSlowThenFlushLatestChats() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DIGEST);
+        stall(decorator);
+        int bufferSize = decorator.getBufferSize();
+
+        // When - le client lent ne reçoit plus rien, seuls les 2 derniers CHAT sont gardés
+        decorator.sendMessage(frame("CHAT", "message 1"));
+        decorator.sendMessage(frame("JOIN", "Paul a rejoint le chat"));
+        decorator.sendMessage(frame("CHAT", "message 2"));
+        decorator.sendMessage(frame("CHAT", "message 3"));
+
+        // Then
+        assertThat(decorator.getBufferSize()).isEqualTo(bufferSize);
+        assertThat(decorator.getDigestSize()).isEqualTo(2);
+        assertThat(decisions(ChatProperties.Transport.OverflowPolicy.DIGEST, "digested")).isEqualTo(1.0);
+        assertThat(decisions(ChatProperties.Transport.OverflowPolicy.DIGEST, "evicted")).isEqualTo(1.0);
+
+        // When - le client rattrape son retard
+        releaseSend.countDown();
+        blockedSender.join(5_000);
+        decorator.sendMessage(frame("CHAT", "message 4"));
+
+        // Then
+        assertThat(decorator.getDigestSize()).isZero();
+        assertThat(sent.subList(sent.size() - 3, sent.size()))
+                .extracting(payload -> payload.substring(payload.indexOf("\"content\"")))
+                .containsExactly(
+                        "\"content\":\"message 2\"}\u0000",
+                        "\"content\":\"message 3\"}\u0000",
+                        "\"content\":\"message 4\"}\u0000");
+    }
+
+    @Test
+    @DisplayName("DIGEST devrait envoyer les messages retenus dès que le buffer est vidé, sans attendre une autre trame")
+    void shouldFlushDigestOnceBufferDrains() throws Exception {
+        // Given
+        SlowConsumerSessionDecorator decorator = decorator(ChatProperties.Transport.OverflowPolicy.DIGEST);
+        stall(decorator);
+        decorator.sendMessage(frame("CHAT", "message 1"));
+        decorator.sendMessage(frame("CHAT", "message 2"));
+
+        // When - le client rattrape son retard, plus aucun message n'est envoyé
+        releaseSend.countDown();
+        blockedSender.join(5_000);
+
+        // Then
+        assertThat(decorator.getDigestSize()).isZero();
+        assertThat(decorator.getBufferSize()).isZero();
+        assertThat(sent.subList(sent.size() - 2, sent.size()))
+                .extracting(payload -> payload.substring(payload.indexOf("\"content\"")))
+                .containsExactly(
+                        "\"content\":\"message 1\"}\u0000",
+                        "\"content\":\"message 2\"}\u0000");
+    }
+}
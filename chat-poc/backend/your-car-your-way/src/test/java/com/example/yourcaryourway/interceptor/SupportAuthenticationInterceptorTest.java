@@ -0,0 +1,106 @@
+package com.example.yourcaryourway.interceptor;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests unitaires pour SupportAuthenticationInterceptor
+ */
+@DisplayName("Tests de l'authentification des agents à la poignée de main")
+class SupportAuthenticationInterceptorTest {
+
+    private SupportAuthenticationInterceptor interceptor;
+
+    private MockHttpServletResponse servletResponse;
+
+    private Map<String, Object> attributes;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new SupportAuthenticationInterceptor("secret-agent");
+        servletResponse = new MockHttpServletResponse();
+        attributes = new HashMap<>();
+    }
+
+    private boolean handshake(MockHttpServletRequest servletRequest) throws Exception {
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest),
+                response, mock(WebSocketHandler.class), attributes);
+        response.flush();
+        return accepted;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws-native");
+        if (token != null) {
+            request.setQueryString("access_token=" + token);
+            request.addParameter("access_token", token);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("Devrait accepter une session anonyme sans lui attribuer de rôle")
+    void shouldAcceptAnonymousHandshake() throws Exception {
+        // When / Then
+        assertThat(handshake(request(null))).isTrue();
+        assertThat(attributes).doesNotContainKey(SupportAuthenticationInterceptor.ROLE_ATTRIBUTE);
+    }
+
+    @Test
+    @DisplayName("Devrait attribuer le rôle SUPPORT au jeton passé en paramètre")
+    void shouldAuthenticateTokenParameter() throws Exception {
+        // When / Then
+        assertThat(handshake(request("secret-agent"))).isTrue();
+        assertThat(attributes.get(SupportAuthenticationInterceptor.ROLE_ATTRIBUTE))
+                .isEqualTo(ChatMessage.SenderRole.SUPPORT);
+    }
+
+    @Test
+    @DisplayName("Devrait attribuer le rôle SUPPORT au jeton de l'en-tête Authorization")
+    void shouldAuthenticateBearerHeader() throws Exception {
+        // Given
+        MockHttpServletRequest request = request(null);
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer secret-agent");
+
+        // When / Then
+        assertThat(handshake(request)).isTrue();
+        assertThat(attributes.get(SupportAuthenticationInterceptor.ROLE_ATTRIBUTE))
+                .isEqualTo(ChatMessage.SenderRole.SUPPORT);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un jeton invalide avec 401")
+    void shouldRefuseInvalidToken() throws Exception {
+        // When / Then
+        assertThat(handshake(request("devine"))).isFalse();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        assertThat(attributes).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser tout jeton quand aucun n'est configuré")
+    void shouldRefuseTokenWhenNoneConfigured() throws Exception {
+        // Given
+        interceptor = new SupportAuthenticationInterceptor("");
+
+        // When / Then
+        assertThat(handshake(request("secret-agent"))).isFalse();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+    }
+}
@@ -2,6 +2,11 @@ package com.example.yourcaryourway.listener;
 
 
 import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.StompPrincipal;
+import com.example.yourcaryourway.service.ChatMetrics;
+import com.example.yourcaryourway.service.ConversationService;
+import com.example.yourcaryourway.service.PresenceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -11,11 +16,13 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,22 +35,31 @@ import static org.mockito.Mockito.*;
  * Tests unitaires pour WebSocketEventListener
  *
  * Vérifie que les déconnexions sont correctement gérées
+ * et transmises au service des conversations
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Tests du WebSocketEventListener")
 class WebSocketEventListenerTest {
 
+    private static final String PRINCIPAL = "session-user";
+
+    @Mock
+    private ConversationService conversationService;
+
     @Mock
-    private SimpMessageSendingOperations messagingTemplate;
+    private PresenceService presenceService;
 
     @Captor
     private ArgumentCaptor<ChatMessage> messageCaptor;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private WebSocketEventListener listener;
 
     @BeforeEach
     void setUp() {
-        listener = new WebSocketEventListener(messagingTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new WebSocketEventListener(conversationService, new ChatMetrics(meterRegistry), presenceService);
     }
 
     /**
@@ -67,11 +83,68 @@ class WebSocketEventListenerTest {
                 headerAccessor.getMessageHeaders()
         );
 
-        return new SessionDisconnectEvent(this, message, "sessionId", null);
+        return new SessionDisconnectEvent(this, message, "sessionId", CloseStatus.NORMAL, new StompPrincipal(PRINCIPAL));
+    }
+
+    /**
+     * Méthode helper pour créer un SessionSubscribeEvent sur la session "sessionId"
+     */
+    private SessionSubscribeEvent createSubscribeEvent(String subscriptionId, String destination) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headerAccessor.setSessionId("sessionId");
+        headerAccessor.setSubscriptionId(subscriptionId);
+        headerAccessor.setDestination(destination);
+
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+        return new SessionSubscribeEvent(this, message, new StompPrincipal(PRINCIPAL));
+    }
+
+    private double subscriptions(String destination) {
+        return meterRegistry.get("chat.subscriptions").tag("destination", destination).gauge().value();
+    }
+
+    @Test
+    @DisplayName("Devrait compter les abonnements par destination et les retirer à la déconnexion")
+    void shouldTrackSubscriptionsUntilDisconnect() {
+        // Given
+        listener.handleSubscribe(createSubscribeEvent("sub-0", "/user/queue/messages"));
+        listener.handleSubscribe(createSubscribeEvent("sub-1", "/user/queue/history"));
+        listener.handleSubscribe(createSubscribeEvent("sub-2", "/topic/inconnu"));
+
+        assertThat(subscriptions("/user/queue/messages")).isEqualTo(1.0);
+        assertThat(subscriptions("/user/queue/history")).isEqualTo(1.0);
+        assertThat(subscriptions("other")).isEqualTo(1.0);
+
+        // When - DISCONNECT puis fermeture de la connexion : deux événements pour la même session
+        listener.handleWebSocketDisconnectListener(createDisconnectEvent(null, null));
+        listener.handleWebSocketDisconnectListener(createDisconnectEvent(null, null));
+
+        // Then
+        assertThat(subscriptions("/user/queue/messages")).isZero();
+        assertThat(subscriptions("/user/queue/history")).isZero();
+        assertThat(subscriptions("other")).isZero();
+        assertThat(meterRegistry.get("chat.handler.duration").tag("handler", "disconnect").timer().count()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer la présence à la connexion et la retirer à la déconnexion")
+    void shouldTrackPresenceFromConnectToDisconnect() {
+        // Given
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.CONNECTED);
+        headerAccessor.setSessionId("sessionId");
+        Message<byte[]> connected = MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+
+        // When
+        listener.handleWebSocketConnectListener(new SessionConnectedEvent(this, connected, new StompPrincipal(PRINCIPAL)));
+        listener.handleWebSocketDisconnectListener(createDisconnectEvent("Jean Dupont", ChatMessage.SenderRole.CLIENT));
+
+        // Then
+        verify(presenceService).connected(PRINCIPAL);
+        verify(presenceService).disconnected(PRINCIPAL);
     }
 
     @Test
-    @DisplayName("Devrait envoyer un message LEAVE quand un utilisateur se déconnecte")
+    @DisplayName("Devrait transmettre un message LEAVE quand un utilisateur se déconnecte")
     void shouldSendLeaveMessageWhenUserDisconnects() {
         // Given
         String username = "Jean Dupont";
@@ -83,8 +156,8 @@ class WebSocketEventListenerTest {
         listener.handleWebSocketDisconnectListener(event);
 
         // Then
-        verify(messagingTemplate).convertAndSend(
-                eq("/topic/public"),
+        verify(conversationService).closeSession(
+                eq(PRINCIPAL),
                 messageCaptor.capture()
         );
 
@@ -107,7 +180,7 @@ class WebSocketEventListenerTest {
         listener.handleWebSocketDisconnectListener(event);
 
         // Then
-        verify(messagingTemplate, never()).convertAndSend(anyString(), (Object) any());
+        verify(conversationService, never()).closeSession(anyString(), any());
     }
 
     @Test
@@ -122,8 +195,8 @@ class WebSocketEventListenerTest {
         listener.handleWebSocketDisconnectListener(event);
 
         // Then
-        verify(messagingTemplate).convertAndSend(
-                eq("/topic/public"),
+        verify(conversationService).closeSession(
+                eq(PRINCIPAL),
                 messageCaptor.capture()
         );
 
@@ -139,18 +212,18 @@ class WebSocketEventListenerTest {
 
         listener.handleWebSocketDisconnectListener(clientEvent);
 
-        verify(messagingTemplate).convertAndSend(eq("/topic/public"), messageCaptor.capture());
+        verify(conversationService).closeSession(eq(PRINCIPAL), messageCaptor.capture());
         assertThat(messageCaptor.getValue().getSenderRole()).isEqualTo(ChatMessage.SenderRole.CLIENT);
 
         // Reset mock
-        reset(messagingTemplate);
+        reset(conversationService);
 
         // Test avec SUPPORT
         SessionDisconnectEvent supportEvent = createDisconnectEvent("Support Agent", ChatMessage.SenderRole.SUPPORT);
 
         listener.handleWebSocketDisconnectListener(supportEvent);
 
-        verify(messagingTemplate).convertAndSend(eq("/topic/public"), messageCaptor.capture());
+        verify(conversationService).closeSession(eq(PRINCIPAL), messageCaptor.capture());
         assertThat(messageCaptor.getValue().getSenderRole()).isEqualTo(ChatMessage.SenderRole.SUPPORT);
     }
 
@@ -164,8 +237,8 @@ class WebSocketEventListenerTest {
         listener.handleWebSocketDisconnectListener(event);
 
         // Then
-        verify(messagingTemplate).convertAndSend(
-                eq("/topic/public"),
+        verify(conversationService).closeSession(
+                eq(PRINCIPAL),
                 messageCaptor.capture()
         );
 
@@ -0,0 +1,51 @@
+package com.example.yourcaryourway.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour HistoryCursor
+ */
+@DisplayName("Tests du curseur d'historique HistoryCursor")
+class HistoryCursorTest {
+
+    @Test
+    @DisplayName("Devrait retrouver le même curseur après encodage")
+    void shouldRoundTripThroughToken() {
+        // Given
+        HistoryCursor cursor = new HistoryCursor(LocalDateTime.of(2025, 10, 6, 14, 30, 15, 123_456_000), "abc-123");
+
+        // When
+        HistoryCursor decoded = HistoryCursor.decode(cursor.encode());
+
+        // Then
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("Devrait ordonner par horodatage puis par identifiant")
+    void shouldOrderByTimestampThenId() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2025, 10, 6, 14, 30);
+        ChatMessage sameTime = new ChatMessage(ChatMessage.MessageType.CHAT, "Jean", ChatMessage.SenderRole.CLIENT, "a");
+        sameTime.setTimestamp(now);
+        sameTime.setId("aaa");
+
+        // Then
+        assertThat(new HistoryCursor(now, "bbb").isAfter(sameTime)).isTrue();
+        assertThat(new HistoryCursor(now, "aaa").isAfter(sameTime)).isFalse();
+        assertThat(new HistoryCursor(now.minusNanos(1_000), "zzz").isAfter(sameTime)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un jeton invalide")
+    void shouldRejectInvalidToken() {
+        assertThatThrownBy(() -> HistoryCursor.decode("pas-un-curseur"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.CategoryAvailability;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationChangedEvent;
+import com.example.yourcaryourway.repository.AvailabilityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour AvailabilityService
+ *
+ * Base H2 embarquée (schema.sql) : parc et réservations insérés par les tests,
+ * index chargé par start() comme au démarrage de l'application
+ */
+@DisplayName("Tests de la recherche de disponibilités AvailabilityService")
+class AvailabilityServiceTest {
+
+    private static final String CDG = "990e8400-e29b-41d4-a716-446655440003";
+
+    private static final String JFK = "990e8400-e29b-41d4-a716-446655440001";
+
+    // Lundi prochain à 10h : les réservations sont à venir, donc chargées
+    private static final LocalDateTime MONDAY = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS)
+            .plusDays(7 - LocalDateTime.now().getDayOfWeek().getValue() + 1).withHour(10);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private AvailabilityService availabilityService;
+    private int reservationNumber;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        meterRegistry = new SimpleMeterRegistry();
+        availabilityService = new AvailabilityService(new AvailabilityRepository(jdbcTemplate), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private void insertVehicles(String locationId, String acrissCode, int count, boolean available) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO vehicle (id, location_id, acriss_code, brand, model, seats, doors,"
+                            + " transmission, fuel_type, available) VALUES (?, ?, ?, 'Renault', 'Clio', 5, 4, 'MANUAL', 'PETROL', ?)",
+                    UUID.randomUUID().toString(), locationId, acrissCode, available);
+        }
+    }
+
+    private Reservation insertReservation(String locationId, String acrissCode, Reservation.Status status,
+                                          LocalDateTime startAt, LocalDateTime endAt) {
+        Reservation reservation = new Reservation();
+        reservation.setId(UUID.randomUUID().toString());
+        reservation.setPickupLocationId(locationId);
+        reservation.setAcrissCode(acrissCode);
+        reservation.setStatus(status);
+        reservation.setStartAt(startAt);
+        reservation.setEndAt(endAt);
+        jdbcTemplate.update("INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id,"
+                        + " reservation_number, status, acriss_code, start_at, end_at, total_price, currency,"
+                        + " offer_snapshot_json, idempotency_key) VALUES (?, 'user-1', ?, ?, ?, ?, ?, ?, ?, 100.00, 'EUR', '{}', ?)",
+                reservation.getId(), locationId, locationId, "YCYW-" + (++reservationNumber), status.name(), acrissCode,
+                Timestamp.valueOf(startAt), Timestamp.valueOf(endAt), reservation.getId());
+        return reservation;
+    }
+
+    private List<String> availableCodes(String locationId, LocalDateTime from, LocalDateTime to) {
+        return availabilityService.search(locationId, from, to).stream().map(CategoryAvailability::getAcrissCode).toList();
+    }
+
+    @Test
+    @DisplayName("Devrait lister les catégories libres de l'agence, par code ACRISS")
+    void shouldListFreeCategoriesOfLocation() {
+        // Given - deux ECMR réservées sur trois, l'unique CDMR réservée, un ICAR hors service
+        insertVehicles(CDG, "ECMR", 3, true);
+        insertVehicles(CDG, "CDMR", 1, true);
+        insertVehicles(CDG, "ICAR", 1, false);
+        insertVehicles(JFK, "SFAR", 2, true);
+        insertReservation(CDG, "ECMR", Reservation.Status.CONFIRMED, MONDAY, MONDAY.plusDays(3));
+        insertReservation(CDG, "ECMR", Reservation.Status.PENDING, MONDAY.plusDays(1), MONDAY.plusDays(2));
+        insertReservation(CDG, "CDMR", Reservation.Status.MODIFIED, MONDAY, MONDAY.plusDays(5));
+        availabilityService.start();
+
+        // When
+        List<CategoryAvailability> available = availabilityService.search(CDG, MONDAY, MONDAY.plusDays(7));
+
+        // Then
+        assertThat(available).containsExactly(new CategoryAvailability("ECMR", 3, 2, 1));
+        assertThat(availableCodes(CDG, MONDAY.plusDays(5), MONDAY.plusDays(7))).containsExactly("CDMR", "ECMR");
+        assertThat(availableCodes(JFK, MONDAY, MONDAY.plusDays(7))).containsExactly("SFAR");
+        assertThat(availableCodes("agence-inconnue", MONDAY, MONDAY.plusDays(7))).isEmpty();
+        assertThat(meterRegistry.get("availability.search.duration").tag("source", "memory").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Deux locations qui se suivent ne devraient retenir qu'un véhicule")
+    void shouldCountSuccessiveRentalsOnce() {
+        // Given - un seul véhicule, loué lundi-mercredi puis mercredi-vendredi
+        insertVehicles(CDG, "ECMR", 1, true);
+        insertReservation(CDG, "ECMR", Reservation.Status.CONFIRMED, MONDAY, MONDAY.plusDays(2));
+        insertReservation(CDG, "ECMR", Reservation.Status.CONFIRMED, MONDAY.plusDays(2), MONDAY.plusDays(4));
+        availabilityService.start();
+
+        // When / Then - libre le week-end, pas pendant la semaine
+        assertThat(availableCodes(CDG, MONDAY.plusDays(4), MONDAY.plusDays(6))).containsExactly("ECMR");
+        assertThat(availableCodes(CDG, MONDAY.plusDays(1), MONDAY.plusDays(3))).isEmpty();
+        assertThat(availableCodes(CDG, MONDAY.minusDays(2), MONDAY)).containsExactly("ECMR");
+    }
+
+    @Test
+    @DisplayName("Les réservations annulées ou terminées ne devraient retenir aucun véhicule")
+    void shouldIgnoreCancelledAndCompletedReservations() {
+        // Given
+        insertVehicles(CDG, "ECMR", 1, true);
+        insertReservation(CDG, "ECMR", Reservation.Status.CANCELLED, MONDAY, MONDAY.plusDays(2));
+        insertReservation(CDG, "ECMR", Reservation.Status.COMPLETED, MONDAY, MONDAY.plusDays(2));
+        availabilityService.start();
+
+        // When / Then
+        assertThat(availableCodes(CDG, MONDAY, MONDAY.plusDays(2))).containsExactly("ECMR");
+    }
+
+    @Test
+    @DisplayName("Les changements de réservation devraient être reportés sans rechargement")
+    void shouldApplyReservationChangesIncrementally() {
+        // Given - un véhicule libre
+        insertVehicles(CDG, "ECMR", 1, true);
+        availabilityService.start();
+        Reservation created = insertReservation(CDG, "ECMR", Reservation.Status.PENDING, MONDAY, MONDAY.plusDays(2));
+
+        // When - création : le véhicule est retenu
+        availabilityService.onReservationChanged(new ReservationChangedEvent(null, created));
+
+        // Then
+        assertThat(availableCodes(CDG, MONDAY, MONDAY.plusDays(1))).isEmpty();
+
+        // When - déplacée d'une semaine
+        Reservation moved = new Reservation();
+        moved.setPickupLocationId(CDG);
+        moved.setAcrissCode("ECMR");
+        moved.setStatus(Reservation.Status.MODIFIED);
+        moved.setStartAt(MONDAY.plusDays(7));
+        moved.setEndAt(MONDAY.plusDays(9));
+        availabilityService.onReservationChanged(new ReservationChangedEvent(created, moved));
+
+        // Then
+        assertThat(availableCodes(CDG, MONDAY, MONDAY.plusDays(1))).containsExactly("ECMR");
+        assertThat(availableCodes(CDG, MONDAY.plusDays(7), MONDAY.plusDays(8))).isEmpty();
+
+        // When - annulée
+        Reservation cancelled = new Reservation();
+        cancelled.setPickupLocationId(CDG);
+        cancelled.setAcrissCode("ECMR");
+        cancelled.setStatus(Reservation.Status.CANCELLED);
+        availabilityService.onReservationChanged(new ReservationChangedEvent(moved, cancelled));
+
+        // Then
+        assertThat(availableCodes(CDG, MONDAY.plusDays(7), MONDAY.plusDays(8))).containsExactly("ECMR");
+    }
+
+    @Test
+    @DisplayName("Avant le chargement de l'index, la recherche devrait passer par SQL")
+    void shouldFallBackToSqlBeforeLoading() {
+        // Given
+        insertVehicles(CDG, "ECMR", 2, true);
+        insertReservation(CDG, "ECMR", Reservation.Status.CONFIRMED, MONDAY, MONDAY.plusDays(2));
+
+        // When
+        List<CategoryAvailability> available = availabilityService.search(CDG, MONDAY, MONDAY.plusDays(7));
+
+        // Then
+        assertThat(availabilityService.isLoaded()).isFalse();
+        assertThat(available).containsExactly(new CategoryAvailability("ECMR", 2, 1, 1));
+        assertThat(meterRegistry.get("availability.search.duration").tag("source", "sql").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("L'index devrait donner le pic exact, le SQL un majorant")
+    void shouldMatchReferenceOnRandomReservations() {
+        // Given - 300 réservations au hasard sur 60 jours, 4 véhicules par catégorie
+        Random random = new Random(42);
+        List<String> codes = List.of("ECMR", "CDMR", "ICAR");
+        codes.forEach(code -> insertVehicles(CDG, code, 4, true));
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = MONDAY.plusHours(random.nextInt(60 * 24));
+            reservations.add(insertReservation(CDG, codes.get(random.nextInt(codes.size())), Reservation.Status.CONFIRMED,
+                    start, start.plusHours(1 + random.nextInt(7 * 24))));
+        }
+        AvailabilityRepository repository = new AvailabilityRepository(jdbcTemplate);
+        availabilityService.start();
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = MONDAY.plusHours(random.nextInt(60 * 24));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(10 * 24));
+
+            // When
+            List<String> available = availableCodes(CDG, from, to);
+
+            // Then - pic recalculé heure par heure
+            for (String code : codes) {
+                int peak = 0;
+                for (LocalDateTime hour = from; hour.isBefore(to); hour = hour.plusHours(1)) {
+                    LocalDateTime instant = hour;
+                    peak = Math.max(peak, (int) reservations.stream()
+                            .filter(r -> r.getAcrissCode().equals(code))
+                            .filter(r -> !r.getStartAt().isAfter(instant) && r.getEndAt().isAfter(instant))
+                            .count());
+                }
+                assertThat(available.contains(code)).as("%s du %s au %s", code, from, to).isEqualTo(peak < 4);
+            }
+            assertThat(available).containsAll(repository.findAvailability(CDG, from, to).stream()
+                    .filter(category -> category.getAvailable() > 0)
+                    .map(CategoryAvailability::getAcrissCode)
+                    .toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Une période vide devrait être refusée")
+    void shouldRejectEmptyPeriod() {
+        assertThatThrownBy(() -> availabilityService.search(CDG, MONDAY, MONDAY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
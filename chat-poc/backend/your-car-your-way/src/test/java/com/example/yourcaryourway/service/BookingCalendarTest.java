@@ -0,0 +1,77 @@
+package com.example.yourcaryourway.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour BookingCalendar
+ */
+@DisplayName("Tests du calendrier horaire BookingCalendar")
+class BookingCalendarTest {
+
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 12, 15, 10, 0);
+
+    @Test
+    @DisplayName("Une période devrait occuper toutes les heures qu'elle touche")
+    void shouldCoverEveryTouchedHour() {
+        // Given - 10h30 à 12h15
+        LocalDateTime start = MONDAY.plusMinutes(30);
+        LocalDateTime end = MONDAY.plusHours(2).plusMinutes(15);
+
+        // When / Then - 10h, 11h et 12h
+        assertThat(BookingCalendar.slotAfter(end) - BookingCalendar.slotOf(start)).isEqualTo(3);
+        assertThat(BookingCalendar.slotAfter(MONDAY.plusHours(2))).isEqualTo(BookingCalendar.slotOf(MONDAY) + 2);
+    }
+
+    @Test
+    @DisplayName("Le pic devrait compter les réservations simultanées, pas celles qui se suivent")
+    void shouldComputePeakOfOverlappingBookings() {
+        // Given - deux locations qui se suivent, une troisième qui chevauche la première
+        BookingCalendar calendar = new BookingCalendar();
+        long day = 24;
+        long monday = BookingCalendar.slotOf(MONDAY);
+        calendar.add(monday, monday + 2 * day, 1);
+        calendar.add(monday + 2 * day, monday + 4 * day, 1);
+        calendar.add(monday + day, monday + 3 * day / 2, 1);
+
+        // When / Then
+        assertThat(calendar.peak(monday, monday + 7 * day)).isEqualTo(2);
+        assertThat(calendar.peak(monday + 2 * day, monday + 7 * day)).isEqualTo(1);
+        assertThat(calendar.peak(monday + 4 * day, monday + 7 * day)).isZero();
+    }
+
+    @Test
+    @DisplayName("Une période à cheval sur deux pages devrait être comptée sur les deux")
+    void shouldSpanPages() {
+        // Given - 10 heures de part et d'autre d'une limite de page
+        BookingCalendar calendar = new BookingCalendar();
+        long boundary = (BookingCalendar.slotOf(MONDAY) >> BookingCalendar.PAGE_SHIFT) << BookingCalendar.PAGE_SHIFT;
+        calendar.add(boundary - 10, boundary + 10, 1);
+
+        // When / Then
+        assertThat(calendar.getPageCount()).isEqualTo(2);
+        assertThat(calendar.peak(boundary - 20, boundary - 9)).isEqualTo(1);
+        assertThat(calendar.peak(boundary + 9, boundary + 20)).isEqualTo(1);
+        assertThat(calendar.peak(boundary + 10, boundary + 3 * BookingCalendar.PAGE_SLOTS)).isZero();
+    }
+
+    @Test
+    @DisplayName("Une annulation devrait libérer les heures de la réservation")
+    void shouldReleaseCancelledBooking() {
+        // Given
+        BookingCalendar calendar = new BookingCalendar();
+        long monday = BookingCalendar.slotOf(MONDAY);
+        calendar.add(monday, monday + 48, 1);
+        calendar.add(monday, monday + 24, 1);
+
+        // When
+        calendar.add(monday, monday + 24, -1);
+
+        // Then
+        assertThat(calendar.peak(monday, monday + 48)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.HistoryCursor;
+import com.example.yourcaryourway.model.HistoryPage;
+import com.example.yourcaryourway.repository.ChatHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de l'historique paginé sur une base H2 embarquée
+ *
+ * Vérifie que les pages récentes sont servies depuis la mémoire,
+ * que les pages plus anciennes sont lues en base par clé (timestamp, id)
+ * et qu'un client peut reprendre sa conversation après un redémarrage
+ */
+@DisplayName("Tests de l'historique ChatHistoryService")
+class ChatHistoryServiceTest {
+
+    private static final int REPLAY_SIZE = 10;
+
+    private EmbeddedDatabase database;
+    private ChatHistoryRepository repository;
+    private ChatProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatHistoryWriter writer;
+    private ChatHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        repository = new ChatHistoryRepository(new JdbcTemplate(database));
+
+        properties = new ChatProperties();
+        properties.getHistory().setReplaySize(REPLAY_SIZE);
+        properties.getHistory().setFlushInterval(Duration.ofMillis(10));
+        startService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+        database.shutdown();
+    }
+
+    /**
+     * Démarre un service neuf sur la même base, comme après un redéploiement
+     */
+    private void startService() {
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new ChatHistoryWriter(repository, properties, meterRegistry);
+        writer.start();
+        historyService = new ChatHistoryService(writer, repository, properties, meterRegistry);
+    }
+
+    private void restart() {
+        writer.stop();
+        startService();
+    }
+
+    /**
+     * Ouvre une conversation et y ajoute des messages horodatés d'une seconde en une seconde
+     */
+    private List<ChatMessage> conversationWithMessages(Conversation conversation, int count) {
+        historyService.recordOpen(conversation);
+        LocalDateTime start = LocalDateTime.of(2025, 10, 6, 9, 0);
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, conversation.getClientName(),
+                    ChatMessage.SenderRole.CLIENT, "Message " + i);
+            message.setConversationId(conversation.getId());
+            message.setTimestamp(start.plusSeconds(i));
+            historyService.append(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private double pages(String source) {
+        return meterRegistry.get("chat.history.pages").tag("source", source).counter().count();
+    }
+
+    private List<String> contents(HistoryPage page) {
+        return page.getMessages().stream().map(ChatMessage::getContent).toList();
+    }
+
+    @Test
+    @DisplayName("Devrait servir le rejeu depuis la mémoire")
+    void shouldReplayFromMemory() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        conversationWithMessages(conversation, 25);
+
+        // When
+        HistoryPage replay = historyService.replay(conversation.getId());
+
+        // Then
+        assertThat(contents(replay)).hasSize(REPLAY_SIZE).startsWith("Message 15").endsWith("Message 24");
+        assertThat(replay.getNextCursor()).isNotNull();
+        assertThat(pages("memory")).isEqualTo(1.0);
+        assertThat(pages("database")).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait lire en base les pages plus anciennes que le tampon")
+    void shouldReadOlderPagesFromDatabase() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        conversationWithMessages(conversation, 25);
+        writer.stop();
+        HistoryPage replay = historyService.replay(conversation.getId());
+
+        // When
+        HistoryPage older = historyService.page(conversation.getId(), HistoryCursor.decode(replay.getNextCursor()), 10);
+        HistoryPage oldest = historyService.page(conversation.getId(), HistoryCursor.decode(older.getNextCursor()), 10);
+
+        // Then
+        assertThat(contents(older)).startsWith("Message 5").endsWith("Message 14");
+        assertThat(contents(oldest)).containsExactly("Message 0", "Message 1", "Message 2", "Message 3", "Message 4");
+        assertThat(oldest.getNextCursor()).isNull();
+        assertThat(pages("database")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Une page plus grande que le tampon devrait inclure les messages pas encore écrits en base")
+    void shouldMergeUnflushedMessagesIntoLargePage() {
+        // Given - un writer arrêté : seuls les 15 premiers messages sont en base
+        ChatHistoryWriter idleWriter = new ChatHistoryWriter(repository, properties, meterRegistry);
+        ChatHistoryService service = new ChatHistoryService(idleWriter, repository, properties, meterRegistry);
+        Conversation conversation = new Conversation("Jean", "client-1");
+        service.recordOpen(conversation);
+        repository.insertConversations(List.of(conversation));
+        LocalDateTime start = LocalDateTime.of(2025, 10, 6, 9, 0);
+        for (int i = 0; i < 25; i++) {
+            ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, "Jean",
+                    ChatMessage.SenderRole.CLIENT, "Message " + i);
+            message.setConversationId(conversation.getId());
+            message.setTimestamp(start.plusSeconds(i));
+            service.append(message);
+            if (i < 15) {
+                repository.insertMessages(List.of(message));
+            }
+        }
+
+        // When - 20 messages demandés, le tampon n'en garde que 10
+        HistoryPage page = service.page(conversation.getId(), null, 20);
+
+        // Then - les 20 derniers, y compris ceux qui attendent encore leur écriture
+        assertThat(contents(page)).hasSize(20).startsWith("Message 5").endsWith("Message 24");
+        assertThat(page.getNextCursor()).isNotNull();
+
+        // When - page suivante
+        HistoryPage older = service.page(conversation.getId(), HistoryCursor.decode(page.getNextCursor()), 20);
+
+        // Then
+        assertThat(contents(older)).hasSize(5).startsWith("Message 0").endsWith("Message 4");
+        assertThat(older.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Une conversation courte devrait être servie entièrement depuis la mémoire")
+    void shouldServeShortConversationFromMemory() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        conversationWithMessages(conversation, 3);
+
+        // When
+        HistoryPage replay = historyService.replay(conversation.getId());
+
+        // Then
+        assertThat(contents(replay)).containsExactly("Message 0", "Message 1", "Message 2");
+        assertThat(replay.getNextCursor()).isNull();
+        assertThat(pages("database")).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait reprendre une conversation fermée avec le même client")
+    void shouldResumeClosedConversation() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        conversationWithMessages(conversation, 3);
+        historyService.recordClose(conversation);
+
+        // When
+        var resumed = historyService.resume(conversation.getId(), "Jean", "client-2");
+        var again = historyService.resume(conversation.getId(), "Jean", "client-3");
+
+        // Then
+        assertThat(resumed).isPresent();
+        assertThat(resumed.get().getId()).isEqualTo(conversation.getId());
+        assertThat(resumed.get().getClientUser()).isEqualTo("client-2");
+        assertThat(again).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas reprendre la conversation d'un autre client")
+    void shouldNotResumeConversationOfAnotherClient() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        conversationWithMessages(conversation, 1);
+        historyService.recordClose(conversation);
+
+        // Then
+        assertThat(historyService.resume(conversation.getId(), "Marie", "client-2")).isEmpty();
+        assertThat(historyService.resume("conversation-inconnue", "Jean", "client-2")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Après un redémarrage, la base ne devrait être lue qu'une fois pour le rejeu")
+    void shouldLoadTailOnceAfterRestart() {
+        // Given
+        Conversation conversation = new Conversation("Jean", "client-1");
+        conversationWithMessages(conversation, 25);
+        historyService.recordClose(conversation);
+        restart();
+
+        // When
+        assertThat(historyService.resume(conversation.getId(), "Jean", "client-2")).isPresent();
+        HistoryPage first = historyService.replay(conversation.getId());
+        HistoryPage second = historyService.replay(conversation.getId());
+
+        // Then
+        assertThat(contents(first)).hasSize(REPLAY_SIZE).endsWith("Message 24");
+        assertThat(contents(second)).isEqualTo(contents(first));
+        assertThat(pages("database")).isEqualTo(1.0);
+        assertThat(pages("memory")).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.repository.ChatHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests de l'écriture différée de l'historique sur une base H2 embarquée
+ *
+ * Vérifie le regroupement en lots, l'ordre des écritures, l'abandon sans attente quand la file
+ * est pleine, les essais bornés quand la base est en échec, et le vidage à l'arrêt
+ */
+@DisplayName("Tests de l'écriture différée ChatHistoryWriter")
+class ChatHistoryWriterTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ChatHistoryRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatHistoryWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = new ChatHistoryRepository(jdbcTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null && writer.isRunning()) {
+            writer.stop();
+        }
+        database.shutdown();
+    }
+
+    private ChatHistoryWriter startWriter(int queueCapacity, int batchSize, Duration flushInterval) {
+        return startWriter(repository, queueCapacity, batchSize, flushInterval, Duration.ofSeconds(10));
+    }
+
+    private ChatHistoryWriter startWriter(ChatHistoryRepository repository, int queueCapacity, int batchSize,
+                                          Duration flushInterval, Duration shutdownTimeout) {
+        return startWriter(repository, queueCapacity, batchSize, flushInterval, shutdownTimeout, 10);
+    }
+
+    private ChatHistoryWriter startWriter(ChatHistoryRepository repository, int queueCapacity, int batchSize,
+                                          Duration flushInterval, Duration shutdownTimeout, int maxWriteAttempts) {
+        ChatProperties properties = new ChatProperties();
+        properties.getHistory().setMaxWriteAttempts(maxWriteAttempts);
+        properties.getHistory().setQueueCapacity(queueCapacity);
+        properties.getHistory().setBatchSize(batchSize);
+        properties.getHistory().setFlushInterval(flushInterval);
+        properties.getHistory().setShutdownTimeout(shutdownTimeout);
+        writer = new ChatHistoryWriter(repository, properties, meterRegistry);
+        writer.start();
+        return writer;
+    }
+
+    private ChatMessage chat(Conversation conversation, String content) {
+        ChatMessage message = new ChatMessage(ChatMessage.MessageType.CHAT, conversation.getClientName(),
+                ChatMessage.SenderRole.CLIENT, content);
+        message.setConversationId(conversation.getId());
+        return message;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("chat.history.dropped").tag("reason", reason).counter().count();
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    @Test
+    @DisplayName("Devrait enregistrer conversation, agent, messages et fermeture dans l'ordre")
+    void shouldPersistConversationLifecycle() {
+        // Given
+        startWriter(100, 50, Duration.ofMillis(20));
+        Conversation conversation = new Conversation("Jean", "client-1");
+
+        // When
+        writer.recordOpen(conversation);
+        writer.recordAssignment(conversation, "Sophie");
+        writer.append(chat(conversation, "Bonjour"));
+        writer.append(chat(conversation, "J'ai une question"));
+        writer.recordClose(conversation);
+        writer.stop();
+
+        // Then
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT agent_name FROM conversation WHERE id = ?",
+                String.class, conversation.getId())).isEqualTo("Sophie");
+        assertThat(count("SELECT COUNT(*) FROM conversation WHERE closed_at IS NOT NULL")).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.history.written").counter().count()).isEqualTo(5.0);
+    }
+
+    @Test
+    @DisplayName("Devrait regrouper les messages en lots bornés")
+    void shouldBatchMessages() {
+        // Given - un intervalle long : le lot se remplit avant la première écriture
+        startWriter(10_000, 100, Duration.ofSeconds(1));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            writer.append(chat(conversation, "Message " + i));
+        }
+        writer.stop();
+
+        // Then
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(1_000);
+        assertThat(meterRegistry.get("chat.history.batch.size").summary().max()).isLessThanOrEqualTo(100.0);
+        assertThat(meterRegistry.get("chat.history.batch.size").summary().count()).isLessThan(1_001L);
+    }
+
+    @Test
+    @DisplayName("Devrait abandonner sans attendre les écritures quand la file est pleine")
+    void shouldDropWithoutBlockingWhenQueueIsFull() throws Exception {
+        // Given - la base ne répond pas : le thread d'écriture reste bloqué sur son premier lot
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ChatHistoryRepository stalled = new ChatHistoryRepository(jdbcTemplate) {
+            @Override
+            public void insertConversations(List<Conversation> conversations) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.insertConversations(conversations);
+            }
+        };
+        startWriter(stalled, 16, 8, Duration.ofMillis(5), Duration.ofSeconds(10));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When - bien plus d'écritures que la file ne peut en contenir
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            writer.append(chat(conversation, "Message " + i));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then - l'appelant n'a pas attendu, le surplus est compté
+        assertThat(elapsedMillis).isLessThan(1_000);
+        assertThat(writer.getPendingCount()).isEqualTo(16);
+        assertThat(dropped("queue-full")).isEqualTo(84.0);
+
+        // When - la base répond de nouveau
+        release.countDown();
+        writer.stop();
+
+        // Then - les écritures restées dans la file sont enregistrées
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(16);
+        assertThat(dropped("shutdown")).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait écrire directement les messages reçus après l'arrêt")
+    void shouldWriteSynchronouslyAfterStop() {
+        // Given
+        startWriter(100, 50, Duration.ofMillis(20));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+        writer.stop();
+
+        // When
+        writer.append(chat(conversation, "Au revoir"));
+
+        // Then
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(1);
+        assertThat(writer.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Une ligne invalide devrait être écartée seule, sans perdre le reste de son lot")
+    void shouldIsolateInvalidRow() {
+        // Given - un intervalle long : les 20 messages partent dans le même lot
+        startWriter(100, 50, Duration.ofSeconds(1));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        Conversation other = new Conversation("Marie", "client-2");
+        writer.recordOpen(conversation);
+        writer.recordOpen(other);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            writer.append(chat(conversation, "Message " + i));
+            writer.append(chat(other, "Message " + i));
+        }
+        ChatMessage invalid = chat(conversation, "Sans rôle");
+        invalid.setSenderRole(null);
+        writer.append(invalid);
+        writer.append(chat(other, "Après"));
+        writer.stop();
+
+        // Then
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(10);
+        assertThat(repository.countMessages(other.getId())).isEqualTo(11);
+        assertThat(counter("chat.history.rejected")).isEqualTo(1.0);
+        assertThat(counter("chat.history.dropped")).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait réessayer un lot tant que la base est indisponible")
+    void shouldRetryUntilDatabaseRecovers() {
+        // Given - la base refuse les 4 premières écritures de messages
+        AtomicInteger failures = new AtomicInteger(4);
+        ChatHistoryRepository failing = new ChatHistoryRepository(jdbcTemplate) {
+            @Override
+            public void insertMessages(List<ChatMessage> messages) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new DataAccessResourceFailureException("Base indisponible");
+                }
+                super.insertMessages(messages);
+            }
+        };
+        startWriter(failing, 100, 50, Duration.ofMillis(20), Duration.ofSeconds(10));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            writer.append(chat(conversation, "Message " + i));
+        }
+        writer.stop();
+
+        // Then
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(5);
+        assertThat(counter("chat.history.rejected")).isZero();
+        assertThat(counter("chat.history.dropped")).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait abandonner un lot après le nombre maximal d'essais, puis continuer")
+    void shouldGiveUpAfterMaxWriteAttempts() throws Exception {
+        // Given - la base échoue sur chaque lot des messages "Perdu", 3 essais par lot
+        AtomicInteger attempts = new AtomicInteger();
+        ChatHistoryRepository failing = new ChatHistoryRepository(jdbcTemplate) {
+            @Override
+            public void insertMessages(List<ChatMessage> messages) {
+                if (messages.stream().anyMatch(message -> message.getContent().startsWith("Perdu"))) {
+                    attempts.incrementAndGet();
+                    throw new DataAccessResourceFailureException("Base indisponible");
+                }
+                super.insertMessages(messages);
+            }
+        };
+        startWriter(failing, 100, 50, Duration.ofMillis(20), Duration.ofSeconds(10), 3);
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+        for (int i = 0; i < 5; i++) {
+            writer.append(chat(conversation, "Perdu " + i));
+        }
+
+        // When - le lot suivant arrive une fois la base rétablie
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dropped("write-failed") < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.append(chat(conversation, "Après"));
+        writer.stop();
+
+        // Then - seul le lot en échec est perdu, après 3 essais par lot
+        assertThat(dropped("write-failed")).isEqualTo(5.0);
+        assertThat(attempts.get() % 3).isZero();
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un arrêt avec une file en attente devrait tout écrire avant de rendre la main")
+    void shouldFlushBacklogOnStop() {
+        // Given - un intervalle long : rien n'est écrit avant l'arrêt
+        startWriter(10_000, 100, Duration.ofSeconds(5));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+        for (int i = 0; i < 2_000; i++) {
+            writer.append(chat(conversation, "Message " + i));
+        }
+
+        // When
+        writer.stop();
+
+        // Then
+        assertThat(repository.countMessages(conversation.getId())).isEqualTo(2_000);
+        assertThat(writer.getPendingCount()).isZero();
+        assertThat(counter("chat.history.dropped")).isZero();
+    }
+
+    @Test
+    @DisplayName("Un arrêt qui dépasse le délai devrait compter les écritures non enregistrées")
+    void shouldCountBacklogLeftAfterShutdownTimeout() throws Exception {
+        // Given - la base ne répond pas : le thread d'écriture reste bloqué sur son premier lot
+        CountDownLatch blocked = new CountDownLatch(1);
+        ChatHistoryRepository stalled = new ChatHistoryRepository(jdbcTemplate) {
+            @Override
+            public void insertConversations(List<Conversation> conversations) {
+                blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new DataAccessResourceFailureException("Base indisponible");
+            }
+        };
+        startWriter(stalled, 100, 1, Duration.ofMillis(20), Duration.ofMillis(100));
+        Conversation conversation = new Conversation("Jean", "client-1");
+        writer.recordOpen(conversation);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 30; i++) {
+            writer.append(chat(conversation, "Message " + i));
+        }
+
+        // When
+        writer.stop();
+
+        // Then - les 30 messages restés dans la file, puis la conversation du lot interrompu
+        assertThat(writer.getPendingCount()).isZero();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dropped("shutdown") < 31 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dropped("shutdown")).isEqualTo(31.0);
+        assertThat(repository.countMessages(conversation.getId())).isZero();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.ChatMessage;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour ChatMetrics
+ *
+ * Le registre Prometheus est celui de l'application : l'export et l'absence d'allocation
+ * à l'enregistrement sont vérifiés sur le registre réellement utilisé
+ */
+@DisplayName("Tests des métriques du chat ChatMetrics")
+class ChatMetricsTest {
+
+    private PrometheusMeterRegistry meterRegistry;
+
+    private ChatMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metrics = new ChatMetrics(meterRegistry);
+    }
+
+    private void recordHotPath() {
+        long start = System.nanoTime();
+        metrics.recordInbound(ChatMessage.SenderRole.CLIENT);
+        metrics.recordOutbound(ChatMessage.SenderRole.SUPPORT);
+        metrics.recordOutbound(null);
+        metrics.recordSend(start);
+        metrics.recordHandling(ChatMetrics.Handler.SEND_MESSAGE, start);
+    }
+
+    @Test
+    @DisplayName("Devrait exporter les métriques au format Prometheus")
+    void shouldExposePrometheusFormat() {
+        // Given
+        recordHotPath();
+
+        // When
+        String scrape = meterRegistry.scrape();
+
+        // Then
+        assertThat(scrape)
+                .contains("chat_messages_in_total{role=\"CLIENT\"} 1.0")
+                .contains("chat_messages_out_total{role=\"SUPPORT\"} 1.0")
+                .contains("chat_messages_out_total{role=\"unknown\"} 1.0")
+                .contains("chat_handler_duration_seconds_count{handler=\"sendMessage\"} 1")
+                .contains("chat_transport_send_duration_seconds_bucket")
+                .contains("chat_subscriptions{destination=\"/user/queue/messages\"} 0.0");
+    }
+
+    @Test
+    @DisplayName("L'enregistrement sur le chemin des messages ne devrait pas allouer")
+    void shouldRecordWithoutAllocating() {
+        // Given
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) {
+            recordHotPath();
+        }
+
+        // When
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            recordHotPath();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Then - quelques octets tolérés (compilation JIT, mesure elle-même), pas un objet par appel
+        assertThat(allocated).isLessThan(100_000L);
+    }
+
+    @Test
+    @DisplayName("Un abonnement compté deux fois ou retiré deux fois ne devrait pas fausser la jauge")
+    void shouldKeepSubscriptionCountConsistent() {
+        // When
+        metrics.subscribed("session-1", "sub-0", "/user/queue/messages");
+        metrics.subscribed("session-1", "sub-0", "/user/queue/messages");
+        metrics.subscribed("session-1", "sub-1", "/user/queue/history");
+        metrics.unsubscribed("session-1", "sub-1");
+        metrics.unsubscribed("session-1", "sub-1");
+
+        // Then
+        assertThat(meterRegistry.get("chat.subscriptions").tag("destination", "/user/queue/messages").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("chat.subscriptions").tag("destination", "/user/queue/history").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Les abonnements à la présence devraient avoir leur propre série")
+    void shouldTrackPresenceSubscriptions() {
+        // When - deltas et instantané de présence, puis une destination non suivie
+        metrics.subscribed("session-1", "sub-0", "/topic/presence");
+        metrics.subscribed("session-1", "sub-1", "/app/presence");
+        metrics.subscribed("session-1", "sub-2", "/topic/inconnu");
+
+        // Then
+        assertThat(meterRegistry.get("chat.subscriptions").tag("destination", "/topic/presence").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("chat.subscriptions").tag("destination", "/app/presence").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("chat.subscriptions").tag("destination", "other").gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait compter les connexions et leur établissement par transport")
+    void shouldMeasureConnectionsPerTransport() {
+        // When
+        metrics.connectionOpened(ChatMetrics.Transport.WEBSOCKET);
+        metrics.connectionOpened(ChatMetrics.Transport.WEBSOCKET);
+        metrics.connectionOpened(ChatMetrics.Transport.SOCKJS);
+        metrics.connectionClosed(ChatMetrics.Transport.WEBSOCKET);
+        metrics.recordConnectionSetup(ChatMetrics.Transport.SOCKJS, System.nanoTime());
+
+        // Then
+        assertThat(meterRegistry.scrape())
+                .contains("chat_connections{transport=\"websocket\"} 1.0")
+                .contains("chat_connections{transport=\"sockjs\"} 1.0")
+                .contains("chat_connections_opened_total{transport=\"websocket\"} 2.0")
+                .contains("chat_connection_setup_duration_seconds_count{transport=\"sockjs\"} 1")
+                .contains("chat_connection_setup_duration_seconds_count{transport=\"websocket\"} 0");
+    }
+}
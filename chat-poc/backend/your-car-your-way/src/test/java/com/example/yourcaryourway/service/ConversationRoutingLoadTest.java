@@ -0,0 +1,100 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Test de charge du routage par conversation
+ *
+ * Avec un broadcast sur /topic/public, chaque message est délivré à toutes les sessions :
+ * le nombre de trames envoyées croît avec le nombre d'utilisateurs.
+ * Avec le routage par conversation, chaque message ne produit que 2 envois
+ * (le client et son agent), quel que soit le nombre de sessions ouvertes.
+ */
+@DisplayName("Test de charge du routage par conversation")
+class ConversationRoutingLoadTest {
+
+    private static final int AGENTS = 10;
+    private static final int MESSAGES_PER_CONVERSATION = 5;
+
+    /**
+     * Canal qui se contente de compter les messages envoyés au broker
+     */
+    private static class CountingChannel implements MessageChannel {
+
+        private final AtomicLong sent = new AtomicLong();
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            sent.incrementAndGet();
+            return true;
+        }
+    }
+
+    @ParameterizedTest(name = "{0} sessions clientes")
+    @ValueSource(ints = {10, 100, 1_000, 10_000})
+    @DisplayName("Le coût de livraison par message devrait rester constant")
+    void deliveryCostPerMessageShouldStayFlat(int clients) {
+        // Given
+        CountingChannel channel = new CountingChannel();
+        ChatProperties properties = new ChatProperties();
+        properties.getDispatch().setMaxChatsPerAgent(Integer.MAX_VALUE);
+        properties.getSystemEvents().setBatchWindow(Duration.ZERO);
+        MappingJackson2MessageConverter messageConverter = new MappingJackson2MessageConverter();
+        messageConverter.getObjectMapper().registerModule(new JavaTimeModule());
+        ConversationService conversationService = new ConversationService(
+                new SimpMessagingTemplate(channel),
+                new SupportDispatcher(properties, new SimpleMeterRegistry()),
+                mock(ChatHistoryService.class, withSettings().stubOnly()),
+                new MessageEncodingRegistry(),
+                messageConverter,
+                new SystemEventBatcher(properties, mock(TaskScheduler.class), new SimpleMeterRegistry()));
+
+        for (int i = 0; i < AGENTS; i++) {
+            conversationService.registerAgent("agent-" + i, "Agent " + i);
+        }
+        List<Conversation> conversations = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Conversation conversation = conversationService.openConversation("client-" + i, "Client " + i);
+            conversationService.requestAgent(conversation);
+            conversations.add(conversation);
+        }
+        long sentBeforeChat = channel.sent.get();
+
+        // When
+        for (Conversation conversation : conversations) {
+            for (int i = 0; i < MESSAGES_PER_CONVERSATION; i++) {
+                conversationService.deliver(conversation, new ChatMessage(
+                        ChatMessage.MessageType.CHAT,
+                        conversation.getClientName(),
+                        ChatMessage.SenderRole.CLIENT,
+                        "Message " + i));
+            }
+        }
+
+        // Then
+        long messages = (long) clients * MESSAGES_PER_CONVERSATION;
+        double deliveriesPerMessage = (double) (channel.sent.get() - sentBeforeChat) / messages;
+        assertThat(deliveriesPerMessage).isEqualTo(2.0);
+    }
+}
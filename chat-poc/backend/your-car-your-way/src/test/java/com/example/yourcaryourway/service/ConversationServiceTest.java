@@ -0,0 +1,382 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.converter.ChatMessageBinaryConverter;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour ConversationService
+ *
+ * Vérifie que chaque client obtient une conversation privée
+ * et que seuls ses participants reçoivent les messages
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du service ConversationService")
+class ConversationServiceTest {
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Mock
+    private ChatHistoryService historyService;
+
+    private final MessageEncodingRegistry encodingRegistry = new MessageEncodingRegistry();
+
+    private MessageConverter messageConverter;
+
+    private ConversationService conversationService;
+
+    private SystemEventBatcher systemEventBatcher;
+
+    @BeforeEach
+    void setUp() {
+        MappingJackson2MessageConverter jackson = new MappingJackson2MessageConverter();
+        jackson.getObjectMapper().registerModule(new JavaTimeModule());
+        jackson.getObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        messageConverter = new CompositeMessageConverter(List.of(new ChatMessageBinaryConverter(), jackson));
+
+        // Envoi immédiat des JOIN/LEAVE, sauf dans les tests du regroupement
+        conversationService = conversationService(Duration.ZERO);
+    }
+
+    private ConversationService conversationService(Duration batchWindow) {
+        ChatProperties properties = new ChatProperties();
+        properties.getSystemEvents().setBatchWindow(batchWindow);
+        systemEventBatcher = new SystemEventBatcher(properties, mock(TaskScheduler.class), new SimpleMeterRegistry());
+        return new ConversationService(
+                messagingTemplate,
+                new SupportDispatcher(properties, new SimpleMeterRegistry()),
+                historyService,
+                encodingRegistry,
+                messageConverter,
+                systemEventBatcher);
+    }
+
+    /**
+     * Messages envoyés au broker pour une session, tels quels (déjà convertis)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Message<?>> framesTo(String user) {
+        ArgumentCaptor<Message<?>> captor = (ArgumentCaptor) ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, atLeast(0)).send(eq("/user/" + user + ConversationService.MESSAGES_DESTINATION), captor.capture());
+        return captor.getAllValues();
+    }
+
+    /**
+     * Messages envoyés à une session, relus depuis les octets transmis au broker
+     */
+    private List<ChatMessage> sentTo(String user) {
+        return framesTo(user).stream()
+                .map(frame -> (ChatMessage) messageConverter.fromMessage(frame, ChatMessage.class))
+                .toList();
+    }
+
+    private Conversation openAndRequestAgent(String clientUser, String clientName) {
+        Conversation conversation = conversationService.openConversation(clientUser, clientName);
+        conversationService.requestAgent(conversation);
+        return conversation;
+    }
+
+    private ChatMessage chat(String sender, ChatMessage.SenderRole role, String content) {
+        return new ChatMessage(ChatMessage.MessageType.CHAT, sender, role, content);
+    }
+
+    @Test
+    @DisplayName("Devrait ouvrir une conversation par client")
+    void shouldOpenOneConversationPerClient() {
+        // When
+        Conversation first = conversationService.openConversation("client-1", "Jean");
+        Conversation second = conversationService.openConversation("client-2", "Marie");
+        Conversation again = conversationService.openConversation("client-1", "Jean");
+
+        // Then
+        assertThat(first.getId()).isNotEqualTo(second.getId());
+        assertThat(again).isSameAs(first);
+        assertThat(conversationService.getOpenConversationCount()).isEqualTo(2);
+        verify(historyService).recordOpen(first);
+        verify(historyService).recordOpen(second);
+    }
+
+    @Test
+    @DisplayName("Devrait assigner les conversations en attente à l'agent qui se connecte")
+    void shouldAssignWaitingConversationToAgent() {
+        // Given
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        assertThat(conversation.hasAgent()).isFalse();
+
+        // When
+        conversationService.registerAgent("agent-1", "Sophie");
+
+        // Then
+        assertThat(conversation.getAgentUser()).isEqualTo("agent-1");
+        assertThat(conversation.getAgentName()).isEqualTo("Sophie");
+        assertThat(sentTo("client-1")).extracting(ChatMessage::getType).containsExactly(ChatMessage.MessageType.JOIN);
+        assertThat(sentTo("agent-1")).extracting(ChatMessage::getType).containsExactly(ChatMessage.MessageType.JOIN);
+    }
+
+    @Test
+    @DisplayName("Devrait délivrer un message uniquement aux participants de la conversation")
+    void shouldDeliverOnlyToParticipants() {
+        // Given
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        openAndRequestAgent("client-2", "Marie");
+        ChatMessage message = chat("Jean", ChatMessage.SenderRole.CLIENT, "Bonjour");
+
+        // When
+        conversationService.deliver(conversation, message);
+
+        // Then
+        assertThat(message.getConversationId()).isEqualTo(conversation.getId());
+        assertThat(sentTo("client-1")).contains(message);
+        assertThat(sentTo("agent-1")).contains(message);
+        assertThat(sentTo("client-2")).doesNotContain(message);
+    }
+
+    @Test
+    @DisplayName("Un client ne devrait être assigné qu'une seule fois")
+    void shouldNotAssignClientTwice() {
+        // Given
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+
+        // When - Le client renvoie un JOIN
+        conversationService.requestAgent(conversationService.openConversation("client-1", "Jean"));
+
+        // Then
+        assertThat(conversation.getAgentUser()).isEqualTo("agent-1");
+        assertThat(sentTo("agent-1")).extracting(ChatMessage::getType).containsExactly(ChatMessage.MessageType.JOIN);
+    }
+
+    @Test
+    @DisplayName("Un agent ne devrait écrire que dans les conversations qui lui sont assignées")
+    void shouldRestrictAgentToAssignedConversations() {
+        // Given
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+
+        // Then
+        assertThat(conversationService.findConversation("client-1", null)).contains(conversation);
+        assertThat(conversationService.findConversation("agent-1", conversation.getId())).contains(conversation);
+        assertThat(conversationService.findConversation("agent-2", conversation.getId())).isEmpty();
+        assertThat(conversationService.findConversation("agent-1", null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait fermer la conversation et prévenir l'agent quand le client part")
+    void shouldCloseConversationWhenClientLeaves() {
+        // Given
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        ChatMessage leave = new ChatMessage(ChatMessage.MessageType.LEAVE, "Jean", ChatMessage.SenderRole.CLIENT, "Jean a quitté le chat");
+
+        // When
+        conversationService.closeSession("client-1", leave);
+
+        // Then
+        assertThat(conversationService.getOpenConversationCount()).isZero();
+        assertThat(leave.getConversationId()).isEqualTo(conversation.getId());
+        assertThat(sentTo("agent-1")).contains(leave);
+        verify(historyService).append(leave);
+        verify(historyService).recordClose(conversation);
+    }
+
+    @Test
+    @DisplayName("Devrait réassigner les clients d'un agent qui se déconnecte")
+    void shouldReassignClientsWhenAgentLeaves() {
+        // Given
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        conversationService.registerAgent("agent-2", "Paul");
+        ChatMessage leave = new ChatMessage(ChatMessage.MessageType.LEAVE, "Sophie", ChatMessage.SenderRole.SUPPORT, "Sophie a quitté le chat");
+
+        // When
+        conversationService.closeSession("agent-1", leave);
+
+        // Then
+        assertThat(sentTo("client-1")).extracting(ChatMessage::getType).contains(ChatMessage.MessageType.LEAVE);
+        assertThat(conversation.getAgentUser()).isEqualTo("agent-2");
+    }
+
+    @Test
+    @DisplayName("Les messages système historisés devraient être horodatés comme les messages délivrés")
+    void shouldStampSystemMessagesLikeDeliveredMessages() {
+        // Given
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        ChatMessage leave = new ChatMessage(ChatMessage.MessageType.LEAVE, "Sophie", ChatMessage.SenderRole.SUPPORT, "Sophie a quitté le chat");
+
+        // When - l'agent part : départ de l'agent, puis arrivée d'un nouvel agent
+        conversationService.closeSession("agent-1", leave);
+        conversationService.registerAgent("agent-2", "Paul");
+
+        // Then - même précision que la colonne sent_at (la microseconde), comme deliver()
+        ArgumentCaptor<ChatMessage> appended = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(historyService, atLeast(2)).append(appended.capture());
+        assertThat(appended.getAllValues()).allSatisfy(message -> {
+            assertThat(message.getConversationId()).isEqualTo(conversation.getId());
+            assertThat(message.getTimestamp()).isEqualTo(message.getTimestamp().truncatedTo(ChronoUnit.MICROS));
+        });
+        assertThat(appended.getAllValues()).extracting(ChatMessage::getType)
+                .contains(ChatMessage.MessageType.LEAVE, ChatMessage.MessageType.JOIN);
+    }
+
+    @Test
+    @DisplayName("Devrait reprendre la conversation précédente d'un client qui se reconnecte")
+    void shouldResumePreviousConversation() {
+        // Given
+        Conversation previous = new Conversation("Jean", "client-2");
+        previous.setId("conversation-1");
+        when(historyService.resume("conversation-1", "Jean", "client-2")).thenReturn(Optional.of(previous));
+
+        // When
+        Conversation conversation = conversationService.openConversation("client-2", "Jean", "conversation-1");
+
+        // Then
+        assertThat(conversation).isSameAs(previous);
+        assertThat(conversationService.findConversation("client-2", null)).contains(previous);
+        verify(historyService, never()).recordOpen(any());
+    }
+
+    @Test
+    @DisplayName("Devrait envoyer les messages en binaire aux seules sessions qui l'ont négocié")
+    void shouldSendBinaryToNegotiatedSessionsOnly() {
+        // Given
+        encodingRegistry.useBinary("agent-1");
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        ChatMessage message = chat("Jean", ChatMessage.SenderRole.CLIENT, "Bonjour");
+
+        // When
+        conversationService.deliver(conversation, message);
+
+        // Then
+        Message<?> json = framesTo("client-1").getLast();
+        Message<?> binary = framesTo("agent-1").getLast();
+        assertThat(json.getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        assertThat(binary.getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(ChatMessageBinaryConverter.MIME_TYPE);
+        assertThat(messageConverter.fromMessage(json, ChatMessage.class)).isEqualTo(message);
+        assertThat(messageConverter.fromMessage(binary, ChatMessage.class)).isEqualTo(message);
+        assertThat(SimpMessageHeaderAccessor.wrap(json).getFirstNativeHeader(ConversationService.TYPE_HEADER)).isEqualTo("CHAT");
+        assertThat(SimpMessageHeaderAccessor.wrap(binary).getFirstNativeHeader(ConversationService.TYPE_HEADER)).isEqualTo("CHAT");
+    }
+
+    @Test
+    @DisplayName("Devrait convertir une seule fois un message adressé à plusieurs sessions")
+    void shouldEncodeOnceForAllRecipients() {
+        // Given
+        ChatMessage message = chat("Sophie", ChatMessage.SenderRole.SUPPORT, "Maintenance prévue à 22h");
+
+        // When
+        conversationService.sendToUsers(message, "client-1", "client-2", null, "client-3");
+
+        // Then - les trois sessions reçoivent le même tableau d'octets
+        Object payload = framesTo("client-1").get(0).getPayload();
+        assertThat(payload).isInstanceOf(byte[].class);
+        assertThat(framesTo("client-2").get(0).getPayload()).isSameAs(payload);
+        assertThat(framesTo("client-3").get(0).getPayload()).isSameAs(payload);
+        assertThat(sentTo("client-1")).containsExactly(message);
+    }
+
+    @Test
+    @DisplayName("Devrait regrouper les JOIN/LEAVE d'une session en une seule trame")
+    void shouldBatchSystemEventsPerRecipient() {
+        // Given
+        conversationService = conversationService(Duration.ofMillis(100));
+        conversationService.registerAgent("agent-1", "Sophie");
+        openAndRequestAgent("client-1", "Jean");
+        openAndRequestAgent("client-2", "Marie");
+        openAndRequestAgent("client-3", "Luc");
+
+        // When - fin de la fenêtre
+        systemEventBatcher.flush();
+
+        // Then - l'agent reçoit les trois arrivées en une trame, chaque client son seul JOIN
+        ArgumentCaptor<List<ChatMessage>> batch = listCaptor();
+        verify(messagingTemplate).convertAndSendToUser(eq("agent-1"), eq(ConversationService.MESSAGES_DESTINATION),
+                batch.capture(), eq(Map.<String, Object>of(ConversationService.BATCH_HEADER, "3")));
+        assertThat(batch.getValue()).extracting(ChatMessage::getSender).containsExactly("Jean", "Marie", "Luc");
+        assertThat(sentTo("client-1")).extracting(ChatMessage::getSender).containsExactly("Sophie");
+        assertThat(systemEventBatcher.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Les JOIN/LEAVE en attente devraient partir avant un message CHAT")
+    void shouldFlushPendingEventsBeforeChat() {
+        // Given
+        conversationService = conversationService(Duration.ofMillis(100));
+        conversationService.registerAgent("agent-1", "Sophie");
+        Conversation conversation = openAndRequestAgent("client-1", "Jean");
+        ChatMessage message = chat("Sophie", ChatMessage.SenderRole.SUPPORT, "Bonjour Jean");
+
+        // When - l'agent répond avant la fin de la fenêtre
+        conversationService.deliver(conversation, message);
+
+        // Then
+        assertThat(sentTo("client-1")).extracting(ChatMessage::getType)
+                .containsExactly(ChatMessage.MessageType.JOIN, ChatMessage.MessageType.CHAT);
+        assertThat(systemEventBatcher.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("La demande de reconnexion devrait partir après les JOIN/LEAVE en attente, avec son délai")
+    void shouldSendReconnectAfterPendingEvents() {
+        // Given - le JOIN de l'agent attend la fin de la fenêtre
+        conversationService = conversationService(Duration.ofMillis(100));
+        conversationService.registerAgent("agent-1", "Sophie");
+        openAndRequestAgent("client-1", "Jean");
+
+        // When
+        conversationService.sendReconnect("client-1", 1500);
+
+        // Then
+        assertThat(sentTo("client-1")).extracting(ChatMessage::getType).containsExactly(ChatMessage.MessageType.JOIN);
+        ArgumentCaptor<ChatMessage> reconnect = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("client-1"), eq(ConversationService.MESSAGES_DESTINATION),
+                reconnect.capture(), eq(Map.<String, Object>of(ConversationService.TYPE_HEADER, "RECONNECT",
+                        ConversationService.RECONNECT_DELAY_HEADER, "1500")));
+        assertThat(reconnect.getValue().getType()).isEqualTo(ChatMessage.MessageType.RECONNECT);
+        // Seuls les événements de la session destinataire sont partis : l'agent attend la fin de la fenêtre
+        assertThat(systemEventBatcher.getPendingCount()).isEqualTo(1);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<List<ChatMessage>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+}
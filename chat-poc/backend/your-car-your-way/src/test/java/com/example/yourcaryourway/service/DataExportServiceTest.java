@@ -0,0 +1,212 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ExportProperties;
+import com.example.yourcaryourway.repository.DataExportRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour DataExportService
+ *
+ * Base H2 embarquée (schema.sql) : un utilisateur avec permis, moyens de paiement, consentements
+ * et 300 réservations (un document sur deux), lues par paquets de 50 lignes
+ */
+@DisplayName("Tests de l'export des données personnelles DataExportService")
+class DataExportServiceTest {
+
+    private static final String USER_ID = "550e8400-e29b-41d4-a716-446655440001";
+
+    private static final int RESERVATIONS = 300;
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 10, 0);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private DataExportService dataExportService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        ExportProperties properties = new ExportProperties();
+        properties.setFetchSize(50);
+        meterRegistry = new SimpleMeterRegistry();
+        dataExportService = new DataExportService(new DataExportRepository(jdbcTemplate, properties),
+                objectMapper, meterRegistry);
+
+        jdbcTemplate.update("INSERT INTO `user` (id, email, password_hash, first_name, last_name, birth_date, city)"
+                + " VALUES (?, 'john.doe@example.com', '$2a$10$secret', 'John', 'Doe', '1985-03-15', 'Paris')", USER_ID);
+        jdbcTemplate.update("INSERT INTO driver_license (id, user_id, country_code, number, expiry_date, document_url)"
+                + " VALUES ('license-1', ?, 'FRA', 'D1234567', '2028-05-15', 'https://storage.ycyw.com/l.pdf')", USER_ID);
+        jdbcTemplate.update("INSERT INTO payment_method (id, user_id, psp_token_id, card_last4, card_brand, expiry_date,"
+                + " is_default) VALUES ('pm-1', ?, 'tok_secret', '4242', 'VISA', '2027-12-31', TRUE)", USER_ID);
+        jdbcTemplate.update("INSERT INTO consent (id, user_id, consent_type, granted, ip_address)"
+                + " VALUES ('consent-1', ?, 'DATA_PROCESSING', TRUE, '192.0.2.1')", USER_ID);
+        jdbcTemplate.update("INSERT INTO consent (id, user_id, consent_type, granted, ip_address)"
+                + " VALUES ('consent-2', ?, 'MARKETING_EMAILS', FALSE, '192.0.2.1')", USER_ID);
+
+        List<Object[]> reservations = new ArrayList<>();
+        List<Object[]> documents = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            String id = String.format("reservation-%04d", i);
+            LocalDateTime start = ORIGIN.plusDays(3L * i);
+            reservations.add(new Object[]{id, USER_ID, "YCYW-" + i, Timestamp.valueOf(start),
+                    Timestamp.valueOf(start.plusDays(2)), "{\"acrissCode\":\"ECMR\",\"days\":" + i + "}",
+                    "key-" + i, Timestamp.valueOf(start.minusDays(10))});
+            if (i % 2 == 0) {
+                documents.add(new Object[]{id + "-contract", id, "CONTRACT", Timestamp.valueOf(start)});
+                documents.add(new Object[]{id + "-invoice", id, "INVOICE", Timestamp.valueOf(start.plusDays(2))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id,"
+                + " reservation_number, status, acriss_code, start_at, end_at, total_price, currency,"
+                + " offer_snapshot_json, idempotency_key, created_at)"
+                + " VALUES (?, ?, 'cdg', 'cdg', ?, 'COMPLETED', 'ECMR', ?, ?, 79.80, 'EUR', ?, ?, ?)", reservations);
+        jdbcTemplate.batchUpdate("INSERT INTO document (id, reservation_id, document_type, url, filename, generated_at)"
+                + " VALUES (?, ?, ?, 'https://storage.ycyw.com/d.pdf', 'd.pdf', ?)", documents);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private String export(DataExportService.Format format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        dataExportService.export(USER_ID, format, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("L'export JSON devrait contenir toutes les sections, réservations groupées avec leurs documents")
+    void shouldExportJsonDocument() throws IOException {
+        // When
+        JsonNode export = objectMapper.readTree(export(DataExportService.Format.JSON));
+
+        // Then
+        assertThat(export.path("user").path("email").asText()).isEqualTo("john.doe@example.com");
+        assertThat(export.path("user").path("birthDate").asText()).isEqualTo("1985-03-15");
+        assertThat(export.path("driverLicense").path("number").asText()).isEqualTo("D1234567");
+        assertThat(export.path("paymentMethods")).hasSize(1);
+        assertThat(export.path("paymentMethods").get(0).path("cardLast4").asText()).isEqualTo("4242");
+        assertThat(export.path("consents")).hasSize(2);
+
+        JsonNode reservations = export.path("reservations");
+        assertThat(reservations).hasSize(RESERVATIONS);
+        JsonNode first = reservations.get(0);
+        assertThat(first.path("id").asText()).isEqualTo("reservation-0000");
+        assertThat(first.path("offerSnapshot").path("acrissCode").asText()).isEqualTo("ECMR");
+        assertThat(first.path("documents")).extracting(document -> document.path("type").asText())
+                .containsExactly("CONTRACT", "INVOICE");
+        assertThat(reservations.get(1).path("documents")).isEmpty();
+        assertThat(reservations.get(RESERVATIONS - 1).path("offerSnapshot").path("days").asInt())
+                .isEqualTo(RESERVATIONS - 1);
+    }
+
+    @Test
+    @DisplayName("L'export ne devrait contenir ni hash de mot de passe ni jeton de paiement")
+    void shouldNotExportSecrets() throws IOException {
+        // When
+        String export = export(DataExportService.Format.JSON);
+
+        // Then
+        assertThat(export).doesNotContain("passwordHash", "$2a$10$secret", "pspTokenId", "tok_secret");
+    }
+
+    @Test
+    @DisplayName("L'export NDJSON devrait écrire une ligne typée par enregistrement")
+    void shouldExportNdjsonLines() throws IOException {
+        // When
+        String[] lines = export(DataExportService.Format.NDJSON).split("\n");
+
+        // Then : utilisateur, permis, 1 moyen de paiement, 2 consentements, les réservations
+        assertThat(lines).hasSize(5 + RESERVATIONS);
+        assertThat(objectMapper.readTree(lines[0]).path("type").asText()).isEqualTo("user");
+        JsonNode last = objectMapper.readTree(lines[lines.length - 1]);
+        assertThat(last.path("type").asText()).isEqualTo("reservation");
+        assertThat(last.path("reservationNumber").asText()).isEqualTo("YCYW-" + (RESERVATIONS - 1));
+        assertThat(meterRegistry.get("data.export.duration").tag("format", "ndjson").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un utilisateur sans données associées devrait être exporté avec des sections vides")
+    void shouldExportEmptySections() throws IOException {
+        // Given
+        jdbcTemplate.update("INSERT INTO `user` (id, email, password_hash) VALUES ('user-2', 'jane@example.com', 'x')");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        dataExportService.export("user-2", DataExportService.Format.JSON, output);
+
+        // Then
+        JsonNode export = objectMapper.readTree(output.toByteArray());
+        assertThat(export.path("driverLicense").isNull()).isTrue();
+        assertThat(export.path("reservations")).isEmpty();
+        assertThat(dataExportService.userExists("user-2")).isTrue();
+        assertThat(dataExportService.userExists("unknown")).isFalse();
+    }
+
+    @Test
+    @DisplayName("L'export devrait être écrit au fil de la lecture et s'arrêter quand le client part")
+    void shouldWriteIncrementallyAndStopOnClientError() {
+        // Given : client parti après 16 Ko
+        List<Integer> writes = new ArrayList<>();
+        OutputStream output = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (written > 16 * 1024) {
+                    throw new IOException("Broken pipe");
+                }
+                written += length;
+                writes.add(length);
+            }
+        };
+
+        // When / Then
+        assertThatThrownBy(() -> dataExportService.export(USER_ID, DataExportService.Format.JSON, output))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+        // Plusieurs écritures partielles avant l'erreur, bien avant la fin de l'export (~80 Ko)
+        assertThat(writes).hasSizeGreaterThan(1);
+    }
+}
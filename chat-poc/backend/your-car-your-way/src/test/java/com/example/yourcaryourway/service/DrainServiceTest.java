@@ -0,0 +1,211 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.interceptor.SlowConsumerWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitaires pour DrainService
+ *
+ * Vérifie l'étalement des demandes de reconnexion, l'attente du départ des sessions
+ * et de l'envoi des trames en attente, puis la fermeture des sessions restantes
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'arrêt progressif DrainService")
+class DrainServiceTest {
+
+    @Mock
+    private PresenceService presenceService;
+
+    @Mock
+    private ConversationService conversationService;
+
+    @Mock
+    private SlowConsumerWebSocketHandler webSocketHandler;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ChatProperties properties;
+
+    private final Executor directExecutor = Runnable::run;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatProperties();
+        properties.getDrain().setReconnectWindow(Duration.ofSeconds(20));
+        properties.getDrain().setTimeout(Duration.ofMillis(300));
+        properties.getDrain().setFlushTimeout(Duration.ofMillis(300));
+    }
+
+    private DrainService drainService(Executor outboundExecutor) {
+        return new DrainService(properties, presenceService, conversationService, webSocketHandler,
+                directExecutor, outboundExecutor, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Devrait étaler les demandes de reconnexion sur la fenêtre")
+    void shouldSpreadReconnectDelaysOverWindow() {
+        // Given - 200 sessions connectées, qui partent toutes après leur demande
+        Set<String> users = IntStream.range(0, 200).mapToObj(i -> "client-" + i).collect(Collectors.toSet());
+        when(presenceService.getConnectedUsers()).thenReturn(users);
+        DrainService drainService = drainService(directExecutor);
+
+        // When
+        drainService.drain();
+
+        // Then - une demande par session, délais dans la fenêtre et dispersés
+        ArgumentCaptor<String> user = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(conversationService, times(200)).sendReconnect(user.capture(), delay.capture());
+        assertThat(new HashSet<>(user.getAllValues())).isEqualTo(users);
+        assertThat(delay.getAllValues()).allSatisfy(value -> assertThat(value).isBetween(0L, 20_000L));
+        assertThat(delay.getAllValues().stream().filter(value -> value < 10_000).count()).isBetween(60L, 140L);
+        assertThat(new HashSet<>(delay.getAllValues()).size()).isGreaterThan(150);
+        assertThat(drainService.isDraining()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait refuser le trafic avant d'envoyer les demandes de reconnexion")
+    void shouldRefuseTrafficBeforeReconnects() {
+        // Given
+        when(presenceService.getConnectedUsers()).thenReturn(Set.of("client-1"));
+        DrainService drainService = drainService(directExecutor);
+
+        // When
+        drainService.drain();
+
+        // Then
+        InOrder order = inOrder(eventPublisher, conversationService, webSocketHandler);
+        ArgumentCaptor<AvailabilityChangeEvent<?>> event = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        order.verify(eventPublisher).publishEvent(event.capture());
+        order.verify(conversationService).sendReconnect(eq("client-1"), anyLong());
+        order.verify(webSocketHandler).closeSessions(CloseStatus.SERVICE_RESTARTED);
+        assertThat(event.getValue().getState()).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    @Test
+    @DisplayName("Devrait fermer les sessions restantes après le délai d'attente")
+    void shouldCloseRemainingSessionsAfterTimeout() {
+        // Given - une session qui ne se reconnecte jamais
+        when(presenceService.getConnectedUsers()).thenReturn(Set.of("client-1"));
+        when(webSocketHandler.getSessionCount()).thenReturn(1);
+        when(webSocketHandler.closeSessions(any())).thenReturn(1);
+        DrainService drainService = drainService(directExecutor);
+
+        // When
+        long start = System.nanoTime();
+        drainService.drain();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        verify(webSocketHandler).closeSessions(CloseStatus.SERVICE_RESTARTED);
+        assertThat(elapsed).isGreaterThanOrEqualTo(300);
+    }
+
+    @Test
+    @DisplayName("Devrait attendre l'envoi des trames en attente avant de fermer les sessions")
+    void shouldFlushPendingFramesBeforeClosing() throws Exception {
+        // Given - une trame en cours d'écriture sur le canal sortant
+        properties.getDrain().setFlushTimeout(Duration.ofSeconds(5));
+        ThreadPoolTaskExecutor outbound = new ThreadPoolTaskExecutor();
+        outbound.setCorePoolSize(1);
+        outbound.initialize();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(presenceService.getConnectedUsers()).thenReturn(Set.of());
+        when(webSocketHandler.closeSessions(any())).thenAnswer(invocation -> {
+            // La trame est partie avant la fermeture
+            assertThat(written.getCount()).isZero();
+            return 0;
+        });
+
+        try {
+            outbound.execute(() -> {
+                started.countDown();
+                sleep(200);
+                written.countDown();
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            drainService(outbound).drain();
+
+            // Then
+            verify(webSocketHandler).closeSessions(CloseStatus.SERVICE_RESTARTED);
+        } finally {
+            outbound.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Arrêt progressif désactivé : rien ne devrait être envoyé à la fermeture du contexte")
+    void shouldDoNothingWhenDisabled() {
+        // Given
+        properties.getDrain().setEnabled(false);
+        DrainService drainService = drainService(directExecutor);
+
+        // When
+        drainService.onContextClosed();
+
+        // Then
+        assertThat(drainService.isDraining()).isFalse();
+        verifyNoInteractions(conversationService, eventPublisher);
+        verify(webSocketHandler, never()).closeSessions(any());
+    }
+
+    @Test
+    @DisplayName("Une fenêtre nulle devrait demander une reconnexion immédiate")
+    void shouldReconnectImmediatelyWithoutWindow() {
+        // Given
+        properties.getDrain().setReconnectWindow(Duration.ZERO);
+        when(presenceService.getConnectedUsers()).thenReturn(Set.of("client-1", "client-2"));
+
+        // When
+        drainService(directExecutor).drain();
+
+        // Then
+        verify(conversationService, times(2)).sendReconnect(anyString(), eq(0L));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.yourcaryourway.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour IdempotencyCache
+ */
+@DisplayName("Tests du cache des clés d'idempotence IdempotencyCache")
+class IdempotencyCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(10);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Une clé terminée devrait rendre le résultat gardé sans recalcul")
+    void shouldReturnCachedResult() {
+        // Given
+        IdempotencyCache<String> cache = new IdempotencyCache<>(TTL, 10, clock::get);
+        AtomicInteger computations = new AtomicInteger();
+
+        // When
+        IdempotencyCache.Result<String> first = cache.get("key", () -> "r" + computations.incrementAndGet());
+        IdempotencyCache.Result<String> second = cache.get("key", () -> "r" + computations.incrementAndGet());
+
+        // Then
+        assertThat(first).isEqualTo(new IdempotencyCache.Result<>("r1", IdempotencyCache.Outcome.COMPUTED));
+        assertThat(second).isEqualTo(new IdempotencyCache.Result<>("r1", IdempotencyCache.Outcome.CACHED));
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Une clé expirée devrait être recalculée")
+    void shouldRecomputeExpiredKey() {
+        // Given
+        IdempotencyCache<String> cache = new IdempotencyCache<>(TTL, 10, clock::get);
+        cache.get("key", () -> "old");
+
+        // When
+        clock.addAndGet(TTL);
+        IdempotencyCache.Result<String> result = cache.get("key", () -> "new");
+
+        // Then
+        assertThat(result).isEqualTo(new IdempotencyCache.Result<>("new", IdempotencyCache.Outcome.COMPUTED));
+    }
+
+    @Test
+    @DisplayName("Un calcul en échec ne devrait pas être gardé")
+    void shouldForgetFailedComputation() {
+        // Given
+        IdempotencyCache<String> cache = new IdempotencyCache<>(TTL, 10, clock::get);
+
+        // When
+        assertThatThrownBy(() -> cache.get("key", () -> {
+            throw new IllegalArgumentException("invalide");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        // Then
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("key", () -> "ok").outcome()).isEqualTo(IdempotencyCache.Outcome.COMPUTED);
+    }
+
+    @Test
+    @DisplayName("Au-delà de la taille maximale, les clés les plus anciennes devraient être oubliées")
+    void shouldEvictOldestKeys() {
+        // Given
+        IdempotencyCache<String> cache = new IdempotencyCache<>(TTL, 3, clock::get);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            String value = "r" + i;
+            cache.get("key-" + i, () -> value);
+        }
+
+        // Then
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("key-4", () -> "again").outcome()).isEqualTo(IdempotencyCache.Outcome.CACHED);
+        assertThat(cache.get("key-0", () -> "again").outcome()).isEqualTo(IdempotencyCache.Outcome.COMPUTED);
+    }
+
+    @Test
+    @DisplayName("Les requêtes concurrentes d'une clé devraient attendre un seul calcul et partager son échec")
+    void shouldMergeConcurrentRequests() throws Exception {
+        // Given
+        IdempotencyCache<String> cache = new IdempotencyCache<>(TTL, 10, clock::get);
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // When
+            Future<?> first = executor.submit(() -> cache.get("key", () -> {
+                computations.incrementAndGet();
+                computing.countDown();
+                await(release);
+                throw new IllegalStateException("échec");
+            }));
+            assertThat(computing.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> second = executor.submit(() -> cache.get("key", () -> {
+                computations.incrementAndGet();
+                return "second";
+            }));
+            Thread.sleep(50);
+            release.countDown();
+
+            // Then
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(computations).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test de charge de la roue d'inactivité avec 100 000 sessions
+ *
+ * Configuration de l'application : délai de 45 s, tick d'une seconde (46 cases).
+ * Les sessions arrivent régulièrement pendant un délai, puis trois sur quatre envoient
+ * un heartbeat à chaque tick tandis que la quatrième ne donne plus signe de vie.
+ * Mesures :
+ * - la mémoire allouée par session surveillée (entrée, nœud de la case, fermeture)
+ * - la durée d'un tick : seule la case arrivée à échéance est parcourue
+ */
+@DisplayName("Test de charge de la roue d'inactivité")
+class IdleSessionReaperLoadTest {
+
+    private static final int SESSIONS = 100_000;
+
+    private static final int TIMEOUT_TICKS = 45;
+
+    private IdleSessionReaper reaper() {
+        ChatProperties properties = new ChatProperties();
+        properties.getHeartbeat().setIdleTimeout(Duration.ofSeconds(TIMEOUT_TICKS));
+        properties.getHeartbeat().setReaperTick(Duration.ofSeconds(1));
+        return new IdleSessionReaper(properties, mock(TaskScheduler.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Une session surveillée devrait coûter moins de 128 octets")
+    void shouldTrackSessionsCheaply() {
+        // Given
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        AtomicInteger closed = new AtomicInteger();
+        String[] sessionIds = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionIds[i] = "session-" + i;
+        }
+        IdleSessionReaper warmup = reaper();
+        for (String sessionId : sessionIds) {
+            warmup.register(sessionId, () -> closed.incrementAndGet());
+        }
+        IdleSessionReaper reaper = reaper();
+
+        // When - une fermeture allouée par session, comme celle de IdleSessionHandlerDecorator
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (String sessionId : sessionIds) {
+            reaper.register(sessionId, () -> closed.incrementAndGet());
+        }
+        long perSession = (threads.getCurrentThreadAllocatedBytes() - before) / SESSIONS;
+
+        // Then
+        assertThat(reaper.getTrackedCount()).isEqualTo(SESSIONS);
+        assertThat(perSession).isLessThan(128L);
+    }
+
+    @Test
+    @DisplayName("Un tick ne devrait parcourir que sa case et fermer exactement les sessions muettes")
+    void shouldReapSilentSessionsInShortTicks() {
+        // Given - les sessions arrivent pendant un délai complet
+        IdleSessionReaper reaper = reaper();
+        AtomicInteger closed = new AtomicInteger();
+        IdleSessionReaper.Entry[] entries = new IdleSessionReaper.Entry[SESSIONS];
+        int perTick = SESSIONS / TIMEOUT_TICKS + 1;
+        for (int i = 0; i < SESSIONS; i++) {
+            entries[i] = reaper.register("session-" + i, closed::incrementAndGet);
+            if ((i + 1) % perTick == 0) {
+                reaper.tick();
+            }
+        }
+
+        // When - deux délais complets : une session sur quatre ne reçoit plus rien
+        long tickNanos = 0;
+        for (int tick = 0; tick < 2 * TIMEOUT_TICKS; tick++) {
+            for (int i = 0; i < SESSIONS; i++) {
+                if (i % 4 != 0) {
+                    entries[i].touch();
+                }
+            }
+            long start = System.nanoTime();
+            reaper.tick();
+            tickNanos += System.nanoTime() - start;
+        }
+
+        // Then
+        assertThat(closed.get()).isEqualTo(SESSIONS / 4);
+        assertThat(reaper.getTrackedCount()).isEqualTo(SESSIONS - SESSIONS / 4);
+        // Une case d'environ 2 200 sessions par tick : moins d'une milliseconde une fois compilé
+        assertThat(tickNanos / (2 * TIMEOUT_TICKS)).isLessThan(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests unitaires pour IdleSessionReaper
+ *
+ * Le planificateur est simulé : chaque tick est un appel à tick()
+ * Délai de 3 ticks d'une seconde
+ */
+@DisplayName("Tests de la roue d'inactivité IdleSessionReaper")
+class IdleSessionReaperTest {
+
+    private final TaskScheduler scheduler = mock(TaskScheduler.class);
+
+    private final List<String> closed = new ArrayList<>();
+
+    private ChatProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatProperties();
+        properties.getHeartbeat().setIdleTimeout(Duration.ofSeconds(3));
+        properties.getHeartbeat().setReaperTick(Duration.ofSeconds(1));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private IdleSessionReaper reaper() {
+        return new IdleSessionReaper(properties, scheduler, meterRegistry);
+    }
+
+    private IdleSessionReaper.Entry register(IdleSessionReaper reaper, String sessionId) {
+        return reaper.register(sessionId, () -> closed.add(sessionId));
+    }
+
+    private static void tick(IdleSessionReaper reaper, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            reaper.tick();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait fermer une session sans trame reçue pendant le délai")
+    void shouldCloseIdleSession() {
+        // Given
+        IdleSessionReaper reaper = reaper();
+        register(reaper, "session-1");
+
+        // When / Then
+        tick(reaper, 2);
+        assertThat(closed).isEmpty();
+        tick(reaper, 1);
+        assertThat(closed).containsExactly("session-1");
+        assertThat(reaper.getTrackedCount()).isZero();
+        assertThat(meterRegistry.get("chat.idle.reaped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Une session qui reçoit des trames ne devrait pas être fermée")
+    void shouldKeepActiveSession() {
+        // Given
+        IdleSessionReaper reaper = reaper();
+        IdleSessionReaper.Entry entry = register(reaper, "session-1");
+
+        // When - une trame (heartbeat) par tick pendant 20 ticks
+        for (int i = 0; i < 20; i++) {
+            reaper.tick();
+            entry.touch();
+        }
+
+        // Then
+        assertThat(closed).isEmpty();
+        assertThat(reaper.getTrackedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Le délai devrait courir depuis la dernière trame reçue")
+    void shouldCountTimeoutFromLastFrame() {
+        // Given
+        IdleSessionReaper reaper = reaper();
+        IdleSessionReaper.Entry entry = register(reaper, "session-1");
+        tick(reaper, 2);
+        entry.touch();
+
+        // When / Then - dernière trame au tick 2 : fermée au tick 5
+        tick(reaper, 2);
+        assertThat(closed).isEmpty();
+        tick(reaper, 1);
+        assertThat(closed).containsExactly("session-1");
+    }
+
+    @Test
+    @DisplayName("Une session fermée par le client ne devrait plus être surveillée")
+    void shouldForgetCancelledSession() {
+        // Given
+        IdleSessionReaper reaper = reaper();
+        IdleSessionReaper.Entry entry = register(reaper, "session-1");
+        register(reaper, "session-2");
+
+        // When
+        entry.cancel();
+        entry.cancel();
+        tick(reaper, 3);
+
+        // Then
+        assertThat(closed).containsExactly("session-2");
+        assertThat(reaper.getTrackedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un délai nul devrait désactiver la roue")
+    void shouldBeDisabledWithoutTimeout() {
+        // Given
+        properties.getHeartbeat().setIdleTimeout(Duration.ZERO);
+        IdleSessionReaper reaper = reaper();
+
+        // When
+        reaper.start();
+
+        // Then
+        assertThat(reaper.isEnabled()).isFalse();
+        assertThat(reaper.isRunning()).isFalse();
+        verify(scheduler, never()).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("La roue devrait tourner à chaque tick configuré")
+    void shouldScheduleTicks() {
+        // When
+        reaper().start();
+
+        // Then
+        verify(scheduler).scheduleAtFixedRate(any(Runnable.class), eq(Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour MessageLogSampler
+ */
+@DisplayName("Tests de l'échantillonnage des logs MessageLogSampler")
+class MessageLogSamplerTest {
+
+    private static MessageLogSampler sampler(int sampleRate, int maxLinesPerSecond) {
+        ChatProperties properties = new ChatProperties();
+        properties.getLogging().setMessageSampleRate(sampleRate);
+        properties.getLogging().setMaxMessageLinesPerSecond(maxLinesPerSecond);
+        return new MessageLogSampler(properties);
+    }
+
+    @Test
+    @DisplayName("Devrait loguer un message sur N")
+    void shouldSampleOneMessageOutOfN() {
+        // Given
+        MessageLogSampler sampler = sampler(10, 1_000);
+
+        // When
+        long logged = IntStream.range(0, 100).filter(i -> sampler.shouldLog()).count();
+
+        // Then
+        assertThat(logged).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Devrait limiter le nombre de lignes par seconde")
+    void shouldCapLinesPerSecond() {
+        // Given - aucun échantillonnage, 5 lignes par seconde au plus
+        MessageLogSampler sampler = sampler(1, 5);
+
+        // When - rafale bien plus courte qu'une seconde
+        long logged = IntStream.range(0, 1_000).filter(i -> sampler.shouldLog()).count();
+
+        // Then
+        assertThat(logged).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Ne devrait garder du contenu que sa longueur et une empreinte stable")
+    void shouldRedactContent() {
+        // When
+        String redacted = MessageLogSampler.redact("Mon numéro de carte est 4970 1012 3456 7890");
+
+        // Then
+        assertThat(redacted)
+                .startsWith("43 car., sha256:")
+                .doesNotContain("4970")
+                .isEqualTo(MessageLogSampler.redact("Mon numéro de carte est 4970 1012 3456 7890"))
+                .isNotEqualTo(MessageLogSampler.redact("Mon numéro de carte est 4970 1012 3456 7891"));
+        assertThat(MessageLogSampler.redact(null)).isEqualTo("vide");
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.example.yourcaryourway.model.PresenceUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests unitaires pour PresenceService
+ *
+ * La publication est déclenchée à la main (publish) : chaque appel correspond à un tick
+ */
+@DisplayName("Tests du registre de présence PresenceService")
+class PresenceServiceTest {
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+
+    private final TaskScheduler scheduler = mock(TaskScheduler.class);
+
+    private SupportDispatcher dispatcher;
+
+    private PresenceService presence;
+
+    @BeforeEach
+    void setUp() {
+        ChatProperties properties = new ChatProperties();
+        properties.getPresence().setTick(Duration.ofMillis(250));
+        dispatcher = new SupportDispatcher(properties, new SimpleMeterRegistry());
+        presence = new PresenceService(messagingTemplate, dispatcher, scheduler, properties);
+    }
+
+    private void online(String user, String name, ChatMessage.SenderRole role) {
+        presence.connected(user);
+        presence.joined(user, name, role);
+    }
+
+    /**
+     * Publie un tick et retourne le delta envoyé
+     */
+    private PresenceUpdate publishedDelta() {
+        presence.publish();
+        ArgumentCaptor<PresenceUpdate> update = ArgumentCaptor.forClass(PresenceUpdate.class);
+        verify(messagingTemplate).convertAndSend(eq(PresenceService.PRESENCE_TOPIC), update.capture());
+        return update.getValue();
+    }
+
+    @Test
+    @DisplayName("Devrait compter les sessions en ligne par rôle, sans celles qui n'ont pas envoyé leur JOIN")
+    void shouldCountOnlineSessionsPerRole() {
+        // When
+        online("agent-1", "Sophie", ChatMessage.SenderRole.SUPPORT);
+        online("client-1", "Jean", ChatMessage.SenderRole.CLIENT);
+        online("client-2", "Marie", ChatMessage.SenderRole.CLIENT);
+        presence.connected("client-3");
+
+        // Then
+        assertThat(presence.getOnlineCount(ChatMessage.SenderRole.SUPPORT)).isEqualTo(1);
+        assertThat(presence.getOnlineCount(ChatMessage.SenderRole.CLIENT)).isEqualTo(2);
+        assertThat(presence.getConnectedCount()).isEqualTo(4);
+
+        // When
+        presence.disconnected("client-1");
+        presence.disconnected("client-1");
+        presence.disconnected("client-3");
+
+        // Then
+        assertThat(presence.getOnlineCount(ChatMessage.SenderRole.CLIENT)).isEqualTo(1);
+        assertThat(presence.getConnectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Un JOIN traité après la déconnexion ne devrait pas recréer la session")
+    void shouldIgnoreJoinAfterDisconnect() {
+        // Given
+        presence.connected("client-1");
+        presence.disconnected("client-1");
+
+        // When
+        presence.joined("client-1", "Jean", ChatMessage.SenderRole.CLIENT);
+
+        // Then
+        assertThat(presence.getConnectedCount()).isZero();
+        assertThat(presence.getOnlineCount(ChatMessage.SenderRole.CLIENT)).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait regrouper les changements d'un tick en un seul delta")
+    void shouldCoalesceChangesIntoOneDeltaPerTick() {
+        // Given - deux agents restent, un troisième repart dans le même tick
+        online("agent-1", "Sophie", ChatMessage.SenderRole.SUPPORT);
+        online("agent-2", "Paul", ChatMessage.SenderRole.SUPPORT);
+        online("agent-3", "Éphémère", ChatMessage.SenderRole.SUPPORT);
+        online("client-1", "Jean", ChatMessage.SenderRole.CLIENT);
+        presence.disconnected("agent-3");
+
+        // When
+        PresenceUpdate delta = publishedDelta();
+
+        // Then
+        assertThat(delta.isSnapshot()).isFalse();
+        assertThat(delta.getSequence()).isEqualTo(1L);
+        assertThat(delta.getAgentsJoined()).containsExactlyInAnyOrder("Sophie", "Paul");
+        assertThat(delta.getAgentsLeft()).isEmpty();
+        assertThat(delta.getAgentsOnline()).isEqualTo(2);
+        assertThat(delta.getClientsOnline()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien publier quand la présence n'a pas changé")
+    void shouldNotPublishWithoutChanges() {
+        // Given - un client arrive puis repart dans le même tick : les compteurs sont inchangés
+        online("client-1", "Jean", ChatMessage.SenderRole.CLIENT);
+        presence.disconnected("client-1");
+
+        // When
+        presence.publish();
+        presence.publish();
+
+        // Then
+        verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    }
+
+    @Test
+    @DisplayName("Devrait publier le départ d'un agent déjà annoncé")
+    void shouldPublishDepartureOfAnnouncedAgent() {
+        // Given
+        online("agent-1", "Sophie", ChatMessage.SenderRole.SUPPORT);
+        presence.publish();
+
+        // When
+        presence.disconnected("agent-1");
+        presence.publish();
+
+        // Then
+        ArgumentCaptor<PresenceUpdate> updates = ArgumentCaptor.forClass(PresenceUpdate.class);
+        verify(messagingTemplate, times(2))
+                .convertAndSend(eq(PresenceService.PRESENCE_TOPIC), updates.capture());
+        PresenceUpdate departure = updates.getAllValues().get(1);
+        assertThat(departure.getSequence()).isEqualTo(2L);
+        assertThat(departure.getAgentsJoined()).isEmpty();
+        assertThat(departure.getAgentsLeft()).containsExactly("Sophie");
+        assertThat(departure.getAgentsOnline()).isZero();
+    }
+
+    @Test
+    @DisplayName("L'instantané devrait lister les agents en ligne avec le numéro de la dernière publication")
+    void shouldServeSnapshot() {
+        // Given
+        online("agent-1", "Sophie", ChatMessage.SenderRole.SUPPORT);
+        presence.publish();
+        online("agent-2", "Paul", ChatMessage.SenderRole.SUPPORT);
+
+        // When
+        PresenceUpdate snapshot = presence.snapshot();
+
+        // Then - Paul n'est pas encore publié : il arrivera dans le delta numéro 2
+        assertThat(snapshot.isSnapshot()).isTrue();
+        assertThat(snapshot.getSequence()).isEqualTo(1L);
+        assertThat(snapshot.getAgentsJoined()).containsExactlyInAnyOrder("Sophie", "Paul");
+        assertThat(snapshot.getAgentsOnline()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait donner la charge des agents en ligne")
+    void shouldReportAgentLoad() {
+        // Given
+        online("agent-1", "Sophie", ChatMessage.SenderRole.SUPPORT);
+        dispatcher.registerAgent("agent-1", "Sophie");
+        dispatcher.enqueue(new Conversation("Jean", "client-1"), false);
+        dispatcher.dispatch();
+
+        // When
+        List<PresenceService.OnlineAgent> agents = presence.getOnlineAgents();
+
+        // Then
+        assertThat(agents).containsExactly(new PresenceService.OnlineAgent("Sophie", 1));
+    }
+
+    @Test
+    @DisplayName("Devrait publier à l'intervalle configuré une fois démarré")
+    void shouldScheduleAtConfiguredTick() {
+        // When
+        presence.start();
+
+        // Then
+        verify(scheduler).scheduleAtFixedRate(any(Runnable.class), eq(Duration.ofMillis(250)));
+    }
+
+    @Test
+    @DisplayName("Les compteurs devraient rester justes avec des connexions concurrentes")
+    void shouldKeepCountsConsistentUnderConcurrency() throws Exception {
+        // Given
+        int threads = 8;
+        int sessionsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When - chaque thread connecte ses sessions et déconnecte une session sur deux
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < sessionsPerThread; i++) {
+                    String user = "user-" + thread + "-" + i;
+                    online(user, user, i % 4 == 0 ? ChatMessage.SenderRole.SUPPORT : ChatMessage.SenderRole.CLIENT);
+                    if (i % 2 == 1) {
+                        presence.disconnected(user);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then - restent les sessions paires : un quart d'agents, un quart de clients
+        assertThat(presence.getOnlineCount(ChatMessage.SenderRole.SUPPORT)).isEqualTo(threads * sessionsPerThread / 4);
+        assertThat(presence.getOnlineCount(ChatMessage.SenderRole.CLIENT)).isEqualTo(threads * sessionsPerThread / 4);
+        assertThat(publishedDelta().getAgentsJoined()).hasSize(threads * sessionsPerThread / 4);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.model.Quote;
+import com.example.yourcaryourway.model.RatePlan;
+import com.example.yourcaryourway.repository.RatePlanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour PricingService
+ *
+ * Base H2 embarquée (schema.sql) : tarifs insérés par les tests,
+ * chargés par start() comme au démarrage de l'application
+ */
+@DisplayName("Tests du calcul de prix PricingService")
+class PricingServiceTest {
+
+    private static final LocalDateTime PICKUP = LocalDateTime.of(2025, 12, 15, 10, 0);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private RatePlanRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private PricingService pricingService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = new RatePlanRepository(jdbcTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        pricingService = new PricingService(repository, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static RatePlan ratePlan(String id, String acrissCode, String daily, String weekly, String currency,
+                                     LocalDate validFrom, LocalDate validUntil) {
+        return new RatePlan(id, acrissCode, new BigDecimal(daily), new BigDecimal(weekly), currency, validFrom, validUntil);
+    }
+
+    private void insertDecember(String id, String acrissCode, String daily, String weekly, String currency) {
+        repository.insert(ratePlan(id, acrissCode, daily, weekly, currency,
+                LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 31)));
+    }
+
+    @Test
+    @DisplayName("Devrait facturer les semaines complètes au tarif hebdomadaire et le reste au jour")
+    void shouldChargeWeeksAndExtraDays() {
+        // Given
+        insertDecember("rp-ecmr", "ECMR", "39.90", "210.00", "EUR");
+        pricingService.start();
+
+        // When : 9 jours
+        Quote quote = pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(9)).orElseThrow();
+
+        // Then
+        assertThat(quote.getDays()).isEqualTo(9);
+        assertThat(quote.getWeeks()).isEqualTo(1);
+        assertThat(quote.getExtraDays()).isEqualTo(2);
+        assertThat(quote.getTotalPrice()).isEqualByComparingTo("289.80");
+        assertThat(quote.getTotalPrice().scale()).isEqualTo(2);
+        assertThat(quote.getRatePlanId()).isEqualTo("rp-ecmr");
+        assertThat(quote.getCurrency()).isEqualTo("EUR");
+    }
+
+    @Test
+    @DisplayName("Les jours restants ne devraient pas coûter plus qu'une semaine")
+    void shouldCapExtraDaysAtWeeklyRate() {
+        // Given
+        insertDecember("rp-ecmr", "ECMR", "39.90", "210.00", "EUR");
+        pricingService.start();
+
+        // When : 6 jours à 39,90 = 239,40 > 210,00
+        Quote quote = pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(6)).orElseThrow();
+
+        // Then
+        assertThat(quote.getWeeks()).isZero();
+        assertThat(quote.getTotalPrice()).isEqualByComparingTo("210.00");
+    }
+
+    @Test
+    @DisplayName("Une journée entamée devrait être facturée, avec au moins un jour")
+    void shouldCountStartedDays() {
+        // Given
+        insertDecember("rp-ecmr", "ECMR", "39.90", "210.00", "EUR");
+        pricingService.start();
+
+        // When
+        Quote oneHour = pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusHours(1)).orElseThrow();
+        Quote exactDay = pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1)).orElseThrow();
+        Quote dayAndMinute = pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1).plusMinutes(1)).orElseThrow();
+
+        // Then
+        assertThat(oneHour.getDays()).isEqualTo(1);
+        assertThat(exactDay.getDays()).isEqualTo(1);
+        assertThat(dayAndMinute.getDays()).isEqualTo(2);
+        assertThat(dayAndMinute.getTotalPrice()).isEqualByComparingTo("79.80");
+    }
+
+    @Test
+    @DisplayName("Le tarif devrait être choisi par le jour de prise en charge, bornes incluses")
+    void shouldPickRatePlanByPickupDay() {
+        // Given : tarif d'hiver, puis tarif des fêtes qui le chevauche et l'emporte à partir du 20
+        repository.insert(ratePlan("rp-winter", "ECMR", "30.00", "180.00", "EUR",
+                LocalDate.of(2025, 12, 1), LocalDate.of(2026, 2, 28)));
+        repository.insert(ratePlan("rp-holidays", "ECMR", "50.00", "300.00", "EUR",
+                LocalDate.of(2025, 12, 20), LocalDate.of(2026, 1, 3)));
+        pricingService.start();
+
+        // When / Then
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 11, 30, 23, 0))).isNull();
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 1, 0, 0))).isEqualTo("rp-winter");
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 19, 23, 59))).isEqualTo("rp-winter");
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 20, 0, 0))).isEqualTo("rp-holidays");
+        assertThat(ratePlanAt(LocalDateTime.of(2026, 1, 3, 12, 0))).isEqualTo("rp-holidays");
+        // Le tarif d'hiver reprend après le tarif des fêtes, jusqu'à sa propre fin
+        assertThat(ratePlanAt(LocalDateTime.of(2026, 1, 4, 0, 0))).isEqualTo("rp-winter");
+        assertThat(ratePlanAt(LocalDateTime.of(2026, 2, 28, 12, 0))).isEqualTo("rp-winter");
+        assertThat(ratePlanAt(LocalDateTime.of(2026, 3, 1, 0, 0))).isNull();
+    }
+
+    @Test
+    @DisplayName("Des tarifs superposés devraient chacun reprendre après celui qui les interrompt")
+    void shouldResumeNestedRatePlans() {
+        // Given : hiver, fêtes, puis une promotion qui déborde de la fin des fêtes
+        repository.insert(ratePlan("rp-winter", "ECMR", "30.00", "180.00", "EUR",
+                LocalDate.of(2025, 12, 1), LocalDate.of(2026, 2, 28)));
+        repository.insert(ratePlan("rp-holidays", "ECMR", "50.00", "300.00", "EUR",
+                LocalDate.of(2025, 12, 20), LocalDate.of(2026, 1, 3)));
+        repository.insert(ratePlan("rp-promo", "ECMR", "25.00", "150.00", "EUR",
+                LocalDate.of(2025, 12, 26), LocalDate.of(2026, 1, 10)));
+        repository.insert(ratePlan("rp-flash", "ECMR", "20.00", "120.00", "EUR",
+                LocalDate.of(2025, 12, 28), LocalDate.of(2025, 12, 29)));
+        pricingService.start();
+
+        // When / Then
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 25, 12, 0))).isEqualTo("rp-holidays");
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 27, 12, 0))).isEqualTo("rp-promo");
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 29, 12, 0))).isEqualTo("rp-flash");
+        assertThat(ratePlanAt(LocalDateTime.of(2025, 12, 30, 12, 0))).isEqualTo("rp-promo");
+        assertThat(ratePlanAt(LocalDateTime.of(2026, 1, 11, 12, 0))).isEqualTo("rp-winter");
+    }
+
+    private String ratePlanAt(LocalDateTime pickup) {
+        return pricingService.quote("ECMR", "EUR", pickup, pickup.plusDays(3)).map(Quote::getRatePlanId).orElse(null);
+    }
+
+    @Test
+    @DisplayName("Les tarifs devraient être distingués par devise")
+    void shouldKeyRatePlansByCurrency() {
+        // Given
+        insertDecember("rp-eur", "ECMR", "39.90", "210.00", "EUR");
+        insertDecember("rp-usd", "ECMR", "44.00", "230.00", "USD");
+        pricingService.start();
+
+        // When / Then
+        assertThat(pricingService.quote("ECMR", "USD", PICKUP, PICKUP.plusDays(1)))
+                .hasValueSatisfying(quote -> assertThat(quote.getRatePlanId()).isEqualTo("rp-usd"));
+        assertThat(pricingService.quote("ECMR", "GBP", PICKUP, PICKUP.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Les devis groupés devraient ignorer les catégories sans tarif")
+    void shouldQuoteSeveralCategoriesOnSameVersion() {
+        // Given
+        insertDecember("rp-ecmr", "ECMR", "39.90", "210.00", "EUR");
+        insertDecember("rp-cdmr", "CDMR", "49.90", "280.00", "EUR");
+        pricingService.start();
+
+        // When
+        List<Quote> quotes = pricingService.quotes(List.of("CDMR", "LDAR", "ECMR"), "EUR", PICKUP, PICKUP.plusDays(7));
+
+        // Then
+        assertThat(quotes).extracting(Quote::getAcrissCode).containsExactly("CDMR", "ECMR");
+        assertThat(quotes).extracting(Quote::getPricingVersion).containsOnly(pricingService.getVersion());
+    }
+
+    @Test
+    @DisplayName("Une période vide devrait être refusée")
+    void shouldRejectEmptyPeriod() {
+        // Given
+        pricingService.start();
+
+        // When / Then
+        assertThatThrownBy(() -> pricingService.quote("ECMR", "EUR", PICKUP, PICKUP))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Une modification hors du service ne devrait être vue qu'après reload")
+    void shouldServeSnapshotUntilReload() {
+        // Given
+        insertDecember("rp-ecmr", "ECMR", "39.90", "210.00", "EUR");
+        pricingService.start();
+        long version = pricingService.getVersion();
+
+        // When
+        jdbcTemplate.update("UPDATE rate_plan SET daily_rate = 45.00 WHERE id = 'rp-ecmr'");
+
+        // Then
+        assertThat(pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1)).orElseThrow().getTotalPrice())
+                .isEqualByComparingTo("39.90");
+        pricingService.reload();
+        Quote quote = pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1)).orElseThrow();
+        assertThat(quote.getTotalPrice()).isEqualByComparingTo("45.00");
+        assertThat(quote.getPricingVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Enregistrer ou supprimer un tarif devrait recharger les tarifs en mémoire")
+    void shouldReloadAfterSaveAndDelete() {
+        // Given
+        pricingService.start();
+        assertThat(pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1))).isEmpty();
+
+        // When
+        RatePlan saved = pricingService.saveRatePlan(ratePlan(null, "ECMR", "39.90", "210.00", "EUR",
+                LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 31)));
+
+        // Then
+        assertThat(saved.getId()).isNotNull();
+        assertThat(pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1))).isPresent();
+        assertThat(meterRegistry.get("pricing.rate.plans").gauge().value()).isEqualTo(1.0);
+
+        saved.setDailyRate(new BigDecimal("35.00"));
+        pricingService.saveRatePlan(saved);
+        assertThat(pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1)).orElseThrow().getTotalPrice())
+                .isEqualByComparingTo("35.00");
+
+        assertThat(pricingService.deleteRatePlan(saved.getId())).isTrue();
+        assertThat(pricingService.quote("ECMR", "EUR", PICKUP, PICKUP.plusDays(1))).isEmpty();
+        assertThat(pricingService.getVersion()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Un tarif dont la validité se termine avant de commencer devrait être refusé")
+    void shouldRejectInvertedValidity() {
+        // Given
+        pricingService.start();
+
+        // When / Then
+        assertThatThrownBy(() -> pricingService.saveRatePlan(ratePlan(null, "ECMR", "39.90", "210.00", "EUR",
+                LocalDate.of(2025, 12, 31), LocalDate.of(2025, 12, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(repository.findAll()).isEmpty();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import com.example.yourcaryourway.model.Conversation;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Test de charge d'une vague de reconnexions (redémarrage d'un répartiteur de charge)
+ *
+ * Chaque client se déconnecte puis se reconnecte aussitôt : son agent reçoit le LEAVE
+ * de l'ancienne session et le JOIN de la nouvelle, le client son propre JOIN et celui
+ * de son agent. Sans regroupement, chaque événement est une trame ; avec, chaque session
+ * reçoit une trame par fenêtre (la fin d'une fenêtre est simulée tous les
+ * RECONNECTIONS_PER_WINDOW clients, soit 5 000 reconnexions par seconde pour 100 ms).
+ */
+@DisplayName("Test de charge d'une vague de reconnexions")
+class ReconnectStormLoadTest {
+
+    private static final int AGENTS = 10;
+    private static final int RECONNECTIONS_PER_WINDOW = 500;
+
+    /**
+     * Canal qui compte les trames envoyées au broker et les événements qu'elles portent
+     */
+    private static class CountingChannel implements MessageChannel {
+
+        private final AtomicLong frames = new AtomicLong();
+        private final AtomicLong events = new AtomicLong();
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            String batch = SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(ConversationService.BATCH_HEADER);
+            frames.incrementAndGet();
+            events.addAndGet(batch != null ? Long.parseLong(batch) : 1);
+            return true;
+        }
+
+        void reset() {
+            frames.set(0);
+            events.set(0);
+        }
+    }
+
+    private record Storm(long frames, long events) {
+    }
+
+    private static Storm reconnectStorm(int clients, Duration batchWindow) {
+        CountingChannel channel = new CountingChannel();
+        ChatProperties properties = new ChatProperties();
+        properties.getDispatch().setMaxChatsPerAgent(Integer.MAX_VALUE);
+        properties.getSystemEvents().setBatchWindow(batchWindow);
+        MappingJackson2MessageConverter messageConverter = new MappingJackson2MessageConverter();
+        messageConverter.getObjectMapper().registerModule(new JavaTimeModule());
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(channel);
+        messagingTemplate.setMessageConverter(messageConverter);
+        SystemEventBatcher batcher = new SystemEventBatcher(properties, mock(TaskScheduler.class), new SimpleMeterRegistry());
+        ConversationService conversationService = new ConversationService(
+                messagingTemplate,
+                new SupportDispatcher(properties, new SimpleMeterRegistry()),
+                mock(ChatHistoryService.class, withSettings().stubOnly()),
+                new MessageEncodingRegistry(),
+                messageConverter,
+                batcher);
+
+        // Given - les clients sont connectés et assignés avant la vague
+        for (int i = 0; i < AGENTS; i++) {
+            conversationService.registerAgent("agent-" + i, "Agent " + i);
+        }
+        for (int i = 0; i < clients; i++) {
+            conversationService.requestAgent(conversationService.openConversation("client-" + i, "Client " + i));
+        }
+        batcher.flush();
+        channel.reset();
+
+        // When - chaque client perd sa session et se reconnecte (nouveau Principal)
+        for (int i = 0; i < clients; i++) {
+            String name = "Client " + i;
+            conversationService.closeSession("client-" + i,
+                    new ChatMessage(ChatMessage.MessageType.LEAVE, name, ChatMessage.SenderRole.CLIENT, name + " a quitté le chat"));
+
+            Conversation conversation = conversationService.openConversation("client-" + i + "-bis", name);
+            conversationService.deliver(conversation,
+                    new ChatMessage(ChatMessage.MessageType.JOIN, name, ChatMessage.SenderRole.CLIENT, name + " a rejoint le chat"));
+            conversationService.requestAgent(conversation);
+
+            if ((i + 1) % RECONNECTIONS_PER_WINDOW == 0) {
+                batcher.flush();
+            }
+        }
+        batcher.flush();
+
+        return new Storm(channel.frames.get(), channel.events.get());
+    }
+
+    @ParameterizedTest(name = "{0} clients")
+    @ValueSource(ints = {1_000, 5_000})
+    @DisplayName("Le regroupement devrait diviser par plus de deux le nombre de trames JOIN/LEAVE")
+    void batchingShouldCutSystemFrames(int clients) {
+        // When
+        Storm unbatched = reconnectStorm(clients, Duration.ZERO);
+        Storm batched = reconnectStorm(clients, Duration.ofMillis(100));
+
+        // Then - 4 événements par reconnexion, tous délivrés, en bien moins de trames
+        assertThat(unbatched.frames()).isEqualTo(4L * clients);
+        assertThat(batched.events()).isEqualTo(unbatched.events());
+        assertThat((double) batched.frames() / unbatched.frames()).isLessThan(0.3);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ReservationProperties;
+import com.example.yourcaryourway.model.OfferSummary;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationDetail;
+import com.example.yourcaryourway.model.ReservationSummary;
+import com.example.yourcaryourway.repository.ReservationRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour ReservationQueryService
+ *
+ * Base H2 embarquée (schema.sql), cache limité à 2 offres et pages à 3 réservations
+ */
+@DisplayName("Tests de la lecture des réservations ReservationQueryService")
+class ReservationQueryServiceTest {
+
+    private static final LocalDateTime PICKUP = LocalDateTime.of(2025, 12, 15, 10, 0);
+
+    private static final String OFFER = "{\"vehicle\":{\"brand\":\"Renault\",\"model\":\"Clio\"},"
+            + "\"days\":%d,\"options\":[{\"code\":\"GPS\"}],\"totalPrice\":210.00}";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ReservationRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationQueryService queryService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = new ReservationRepository(jdbcTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        ReservationProperties properties = new ReservationProperties();
+        properties.setOfferCacheSize(2);
+        properties.setMaxPageSize(3);
+        queryService = new ReservationQueryService(repository, new ObjectMapper(), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private Reservation insert(String id, int daysFromPickup, OfferSummary offerSummary) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setUserId("user-1");
+        reservation.setPickupLocationId("cdg");
+        reservation.setReturnLocationId("cdg");
+        reservation.setReservationNumber("YCYW-" + id.toUpperCase());
+        reservation.setStatus(Reservation.Status.PENDING);
+        reservation.setAcrissCode("ECMR");
+        reservation.setStartAt(PICKUP.plusDays(daysFromPickup));
+        reservation.setEndAt(PICKUP.plusDays(daysFromPickup + 7));
+        reservation.setTotalPrice(new BigDecimal("210.00"));
+        reservation.setCurrency("EUR");
+        reservation.setOfferSnapshotJson(OFFER.formatted(7));
+        reservation.setOfferSummary(offerSummary);
+        reservation.setIdempotencyKey("key-" + id);
+        repository.insert(reservation);
+        return reservation;
+    }
+
+    private double offerReads(String source) {
+        return meterRegistry.get("reservation.offer.reads").tag("source", source).counter().count();
+    }
+
+    @Test
+    @DisplayName("La liste devrait lire la projection enregistrée, des plus récentes aux plus anciennes")
+    void shouldListStoredProjection() {
+        // Given : projection différente du JSON, pour vérifier qu'il n'est pas relu
+        insert("r1", 0, new OfferSummary("Renault Clio", 7, 1));
+        insert("r2", 10, new OfferSummary("Peugeot 208", 5, 0));
+
+        // When
+        List<ReservationSummary> page = queryService.listForUser("user-1", 0, 20);
+
+        // Then
+        assertThat(page).extracting(ReservationSummary::getId).containsExactly("r2", "r1");
+        assertThat(page.get(0).getVehicleName()).isEqualTo("Peugeot 208");
+        assertThat(page.get(0).getDays()).isEqualTo(5);
+        assertThat(page.get(0).getOptionCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Une réservation sans projection devrait être projetée depuis son JSON")
+    void shouldProjectLegacyReservation() {
+        // Given : réservation enregistrée avant les colonnes offer_*
+        insert("r1", 0, OfferSummary.EMPTY);
+
+        // When
+        ReservationSummary summary = queryService.listForUser("user-1", 0, 20).get(0);
+
+        // Then
+        assertThat(summary.getVehicleName()).isEqualTo("Renault Clio");
+        assertThat(summary.getDays()).isEqualTo(7);
+        assertThat(summary.getOptionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("La taille de page devrait être plafonnée, une page négative refusée")
+    void shouldCapPageSize() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            insert("r" + i, i, OfferSummary.EMPTY);
+        }
+
+        // When
+        List<ReservationSummary> first = queryService.listForUser("user-1", 0, 100);
+        List<ReservationSummary> second = queryService.listForUser("user-1", 1, 100);
+
+        // Then
+        assertThat(first).extracting(ReservationSummary::getId).containsExactly("r4", "r3", "r2");
+        assertThat(second).extracting(ReservationSummary::getId).containsExactly("r1", "r0");
+        assertThatThrownBy(() -> queryService.listForUser("user-1", -1, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queryService.listForUser("user-1", 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Le détail devrait analyser l'offre une fois, puis la servir depuis le cache")
+    void shouldCacheParsedOffer() {
+        // Given
+        insert("r1", 0, null);
+
+        // When
+        ReservationDetail first = queryService.detail("r1").orElseThrow();
+        ReservationDetail second = queryService.detail("r1").orElseThrow();
+
+        // Then
+        JsonNode offer = first.offer();
+        assertThat(offer.path("vehicle").path("brand").asText()).isEqualTo("Renault");
+        assertThat(second.offer()).isSameAs(offer);
+        assertThat(first.reservation().getOfferSnapshotJson()).isNull();
+        assertThat(offerReads("parse")).isEqualTo(1.0);
+        assertThat(offerReads("cache")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Une offre modifiée en base devrait être analysée à nouveau")
+    void shouldReparseChangedOffer() {
+        // Given
+        insert("r1", 0, null);
+        queryService.detail("r1");
+        jdbcTemplate.update("UPDATE reservation SET offer_snapshot_json = ? WHERE id = ?", OFFER.formatted(8), "r1");
+
+        // When
+        ReservationDetail detail = queryService.detail("r1").orElseThrow();
+
+        // Then
+        assertThat(detail.offer().path("days").asInt()).isEqualTo(8);
+        assertThat(offerReads("parse")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Le cache devrait oublier les offres les plus anciennes au-delà de sa taille")
+    void shouldEvictOldestOffers() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            insert("r" + i, i, null);
+            queryService.detail("r" + i);
+        }
+
+        // When
+        queryService.detail("r2");
+        queryService.detail("r0");
+
+        // Then
+        assertThat(queryService.getCachedOfferCount()).isEqualTo(2);
+        assertThat(offerReads("cache")).isEqualTo(1.0);
+        assertThat(offerReads("parse")).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("Une réservation inconnue devrait donner un détail vide")
+    void shouldReturnEmptyForUnknownReservation() {
+        // When / Then
+        assertThat(queryService.detail("inconnue")).isEmpty();
+    }
+}
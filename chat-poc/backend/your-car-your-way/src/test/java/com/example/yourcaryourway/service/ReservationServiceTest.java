@@ -0,0 +1,261 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ReservationProperties;
+import com.example.yourcaryourway.model.RatePlan;
+import com.example.yourcaryourway.model.Reservation;
+import com.example.yourcaryourway.model.ReservationChangedEvent;
+import com.example.yourcaryourway.model.ReservationRequest;
+import com.example.yourcaryourway.repository.RatePlanRepository;
+import com.example.yourcaryourway.repository.ReservationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitaires pour ReservationService
+ *
+ * Base H2 embarquée (schema.sql) : un tarif ECMR en euros, réservations écrites par le service
+ */
+@DisplayName("Tests de la création idempotente des réservations ReservationService")
+class ReservationServiceTest {
+
+    private static final LocalDateTime PICKUP = LocalDateTime.of(2025, 12, 15, 10, 0);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ReservationRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<ReservationChangedEvent> events = new CopyOnWriteArrayList<>();
+    private ReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        RatePlanRepository ratePlanRepository = new RatePlanRepository(jdbcTemplate);
+        ratePlanRepository.insert(new RatePlan("rp-ecmr", "ECMR", new BigDecimal("39.90"), new BigDecimal("210.00"),
+                "EUR", LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 31)));
+        meterRegistry = new SimpleMeterRegistry();
+        PricingService pricingService = new PricingService(ratePlanRepository, meterRegistry);
+        pricingService.start();
+
+        repository = new ReservationRepository(jdbcTemplate);
+        ApplicationEventPublisher eventPublisher = event -> events.add((ReservationChangedEvent) event);
+        reservationService = newService(pricingService, eventPublisher);
+    }
+
+    private ReservationService newService(PricingService pricingService, ApplicationEventPublisher eventPublisher) {
+        return new ReservationService(repository, pricingService, eventPublisher, new ObjectMapper(),
+                new ReservationProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static ReservationRequest request(int days) {
+        return new ReservationRequest("user-1", "cdg", "cdg", "ECMR", PICKUP, PICKUP.plusDays(days), "EUR");
+    }
+
+    private int reservationCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservation", Integer.class);
+    }
+
+    private double requests(String outcome) {
+        return meterRegistry.get("reservation.create.requests").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("Devrait créer une réservation en attente, au prix du tarif en vigueur")
+    void shouldCreatePendingReservation() {
+        // When
+        ReservationService.CreationResult result = reservationService.create("key-1", request(9));
+
+        // Then
+        Reservation reservation = result.reservation();
+        assertThat(result.created()).isTrue();
+        assertThat(reservation.getStatus()).isEqualTo(Reservation.Status.PENDING);
+        assertThat(reservation.getReservationNumber()).matches("YCYW-[2-9A-Z]{8}");
+        assertThat(reservation.getTotalPrice()).isEqualByComparingTo("289.80");
+        assertThat(reservation.getOfferSnapshotJson()).contains("\"ratePlanId\":\"rp-ecmr\"");
+        assertThat(repository.findByIdempotencyKey("key-1")).hasValueSatisfying(stored -> {
+            assertThat(stored.getId()).isEqualTo(reservation.getId());
+            assertThat(stored.getTotalPrice()).isEqualByComparingTo("289.80");
+        });
+        assertThat(events).containsExactly(new ReservationChangedEvent(null, reservation));
+    }
+
+    @Test
+    @DisplayName("Une requête rejouée devrait rendre la même réservation sans nouvelle écriture")
+    void shouldReplayCompletedKey() {
+        // Given
+        Reservation first = reservationService.create("key-1", request(3)).reservation();
+
+        // When
+        ReservationService.CreationResult replay = reservationService.create("key-1", request(3));
+
+        // Then
+        assertThat(replay.created()).isFalse();
+        assertThat(replay.reservation()).isEqualTo(first);
+        assertThat(reservationCount()).isEqualTo(1);
+        assertThat(events).hasSize(1);
+        assertThat(requests("cached")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Une clé inconnue du cache devrait rendre la réservation enregistrée en base")
+    void shouldReadStoredReservationForUncachedKey() {
+        // Given : réservation créée par un autre nœud
+        Reservation first = reservationService.create("key-1", request(3)).reservation();
+        PricingService pricingService = new PricingService(new RatePlanRepository(jdbcTemplate), meterRegistry);
+        pricingService.start();
+        ReservationService otherNode = newService(pricingService, event -> events.add((ReservationChangedEvent) event));
+
+        // When
+        ReservationService.CreationResult replay = otherNode.create("key-1", request(3));
+
+        // Then
+        assertThat(replay.created()).isFalse();
+        assertThat(replay.reservation().getId()).isEqualTo(first.getId());
+        assertThat(reservationCount()).isEqualTo(1);
+        assertThat(requests("stored")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Une clé déjà utilisée pour une autre demande devrait être refusée")
+    void shouldRejectKeyReusedForAnotherRequest() {
+        // Given
+        reservationService.create("key-1", request(3));
+
+        // When / Then
+        assertThatThrownBy(() -> reservationService.create("key-1", request(4)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(reservationCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Une demande invalide ne devrait pas bloquer sa clé")
+    void shouldNotKeepFailedKey() {
+        // Given : aucun tarif en dollars
+        ReservationRequest withoutRatePlan = new ReservationRequest("user-1", "cdg", "cdg", "ECMR",
+                PICKUP, PICKUP.plusDays(3), "USD");
+        assertThatThrownBy(() -> reservationService.create("key-1", withoutRatePlan))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // When
+        ReservationService.CreationResult retry = reservationService.create("key-1", request(3));
+
+        // Then
+        assertThat(retry.created()).isTrue();
+        assertThat(reservationCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Une clé absente devrait être refusée")
+    void shouldRejectBlankKey() {
+        // When / Then
+        assertThatThrownBy(() -> reservationService.create(" ", request(3)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("La même clé envoyée par 32 threads devrait créer une seule réservation")
+    void shouldCreateOnceUnderConcurrentDuplicates() throws Exception {
+        // Given
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ReservationService.CreationResult>> results = new ArrayList<>();
+
+        try {
+            // When
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return reservationService.create("key-1", request(7));
+                }));
+            }
+            start.countDown();
+
+            // Then
+            List<ReservationService.CreationResult> creations = new ArrayList<>();
+            for (Future<ReservationService.CreationResult> result : results) {
+                creations.add(result.get(10, TimeUnit.SECONDS));
+            }
+            assertThat(creations).filteredOn(ReservationService.CreationResult::created).hasSize(1);
+            assertThat(creations).extracting(creation -> creation.reservation().getId()).containsOnly(
+                    creations.get(0).reservation().getId());
+            assertThat(reservationCount()).isEqualTo(1);
+            assertThat(events).hasSize(1);
+            assertThat(requests("created") + requests("in_flight") + requests("cached")).isEqualTo(threads);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deux nœuds qui créent la même clé devraient aboutir à une seule réservation")
+    void shouldFallBackOnUniqueKeyAcrossNodes() throws Exception {
+        // Given : deux services sans cache commun, départ simultané
+        int nodes = 8;
+        List<ReservationService> services = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            PricingService pricingService = new PricingService(new RatePlanRepository(jdbcTemplate), meterRegistry);
+            pricingService.start();
+            services.add(newService(pricingService, event -> events.add((ReservationChangedEvent) event)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ReservationService.CreationResult>> results = new ArrayList<>();
+
+        try {
+            // When
+            for (ReservationService service : services) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.create("key-1", request(7));
+                }));
+            }
+            start.countDown();
+
+            // Then
+            List<String> ids = new ArrayList<>();
+            for (Future<ReservationService.CreationResult> result : results) {
+                ids.add(result.get(10, TimeUnit.SECONDS).reservation().getId());
+            }
+            assertThat(ids).containsOnly(ids.get(0));
+            assertThat(reservationCount()).isEqualTo(1);
+            assertThat(events).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
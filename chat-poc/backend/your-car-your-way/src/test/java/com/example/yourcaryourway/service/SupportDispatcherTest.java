@@ -0,0 +1,202 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.Conversation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitaires pour SupportDispatcher
+ *
+ * Vérifie l'assignation au moins chargé, le plafond par agent,
+ * la réassignation au départ d'un agent et la tenue en concurrence
+ */
+@DisplayName("Tests du répartiteur SupportDispatcher")
+class SupportDispatcherTest {
+
+    private static final int MAX_CHATS = 2;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SupportDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        ChatProperties properties = new ChatProperties();
+        properties.getDispatch().setMaxChatsPerAgent(MAX_CHATS);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new SupportDispatcher(properties, meterRegistry);
+    }
+
+    private Conversation waitingClient(String name) {
+        Conversation conversation = new Conversation(name, "user-" + name);
+        dispatcher.enqueue(conversation, false);
+        return conversation;
+    }
+
+    @Test
+    @DisplayName("Devrait assigner chaque client à l'agent le moins chargé")
+    void shouldAssignToLeastLoadedAgent() {
+        // Given
+        dispatcher.registerAgent("agent-1", "Sophie");
+        dispatcher.registerAgent("agent-2", "Paul");
+
+        // When
+        waitingClient("Jean");
+        waitingClient("Marie");
+        List<SupportDispatcher.Assignment> assignments = dispatcher.dispatch();
+
+        // Then
+        assertThat(assignments).hasSize(2);
+        assertThat(dispatcher.getAgent("agent-1").getActiveChats()).isEqualTo(1);
+        assertThat(dispatcher.getAgent("agent-2").getActiveChats()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait laisser en file les clients au-delà du plafond par agent")
+    void shouldRespectMaxChatsPerAgent() {
+        // Given
+        dispatcher.registerAgent("agent-1", "Sophie");
+
+        // When
+        Conversation first = waitingClient("Jean");
+        Conversation second = waitingClient("Marie");
+        Conversation third = waitingClient("Luc");
+        dispatcher.dispatch();
+
+        // Then
+        assertThat(first.getAgentUser()).isEqualTo("agent-1");
+        assertThat(second.getAgentUser()).isEqualTo("agent-1");
+        assertThat(third.hasAgent()).isFalse();
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.dispatch.queue.depth").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait assigner le client suivant quand une place se libère")
+    void shouldAssignNextClientWhenSlotIsReleased() {
+        // Given
+        dispatcher.registerAgent("agent-1", "Sophie");
+        Conversation first = waitingClient("Jean");
+        waitingClient("Marie");
+        Conversation third = waitingClient("Luc");
+        dispatcher.dispatch();
+
+        // When
+        first.setClosed(true);
+        dispatcher.release(first);
+        List<SupportDispatcher.Assignment> assignments = dispatcher.dispatch();
+
+        // Then
+        assertThat(assignments).extracting(SupportDispatcher.Assignment::conversation).containsExactly(third);
+        assertThat(dispatcher.getAgent("agent-1").getActiveChats()).isEqualTo(MAX_CHATS);
+        assertThat(meterRegistry.get("chat.dispatch.wait").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer un client parti avant son assignation")
+    void shouldSkipCancelledClient() {
+        // Given
+        Conversation gone = waitingClient("Jean");
+        Conversation waiting = waitingClient("Marie");
+        dispatcher.cancel(gone);
+
+        // When
+        dispatcher.registerAgent("agent-1", "Sophie");
+
+        // Then
+        assertThat(gone.hasAgent()).isFalse();
+        assertThat(waiting.getAgentUser()).isEqualTo("agent-1");
+        assertThat(dispatcher.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Les clients d'un agent parti devraient passer avant les nouveaux clients")
+    void shouldRequeueOrphansInFront() {
+        // Given
+        dispatcher.registerAgent("agent-1", "Sophie");
+        Conversation orphan = waitingClient("Jean");
+        dispatcher.dispatch();
+        Conversation newcomer = waitingClient("Marie");
+
+        // When
+        List<Conversation> orphans = dispatcher.unregisterAgent("agent-1");
+        orphans.forEach(conversation -> dispatcher.enqueue(conversation, true));
+        List<SupportDispatcher.Assignment> assignments = dispatcher.registerAgent("agent-2", "Paul");
+
+        // Then
+        assertThat(orphans).containsExactly(orphan);
+        assertThat(assignments.get(0).conversation()).isSameAs(orphan);
+        assertThat(orphan.getAgentUser()).isEqualTo("agent-2");
+        assertThat(newcomer.getAgentUser()).isEqualTo("agent-2");
+    }
+
+    @Test
+    @DisplayName("Ne devrait jamais dépasser le plafond sous arrivées et départs concurrents")
+    void shouldKeepInvariantsUnderConcurrentJoinsAndLeaves() throws Exception {
+        // Given
+        int agents = 20;
+        int threads = 8;
+        int clientsPerThread = 2_000;
+        for (int i = 0; i < agents; i++) {
+            dispatcher.registerAgent("agent-" + i, "Agent " + i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<List<Conversation>> stillConnected = new ArrayList<>();
+
+        // When - chaque thread fait arriver des clients et en fait partir une partie
+        for (int t = 0; t < threads; t++) {
+            List<Conversation> connected = new ArrayList<>();
+            stillConnected.add(connected);
+            int threadId = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < clientsPerThread; i++) {
+                    Conversation conversation = new Conversation("Client", "client-" + threadId + "-" + i);
+                    dispatcher.enqueue(conversation, false);
+                    dispatcher.dispatch();
+
+                    if (ThreadLocalRandom.current().nextBoolean()) {
+                        conversation.setClosed(true);
+                        dispatcher.cancel(conversation);
+                        dispatcher.release(conversation);
+                        dispatcher.dispatch();
+                    } else {
+                        connected.add(conversation);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        int assigned = 0;
+        for (int i = 0; i < agents; i++) {
+            int activeChats = dispatcher.getAgent("agent-" + i).getActiveChats();
+            assertThat(activeChats).isBetween(0, MAX_CHATS);
+            assertThat(activeChats).isEqualTo(MAX_CHATS);
+            assigned += activeChats;
+        }
+
+        long connected = stillConnected.stream().mapToLong(List::size).sum();
+        long assignedConnected = stillConnected.stream().flatMap(List::stream).filter(Conversation::hasAgent).count();
+        assertThat(assignedConnected).isEqualTo(assigned);
+        assertThat(dispatcher.getQueueDepth()).isEqualTo((int) (connected - assigned));
+    }
+}
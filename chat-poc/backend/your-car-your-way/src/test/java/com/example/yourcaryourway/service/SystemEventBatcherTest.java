@@ -0,0 +1,164 @@
+package com.example.yourcaryourway.service;
+
+import com.example.yourcaryourway.config.ChatProperties;
+import com.example.yourcaryourway.model.ChatMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests unitaires pour SystemEventBatcher
+ *
+ * La fin de fenêtre est simulée par un appel à flush()
+ */
+@DisplayName("Tests du regroupement des JOIN/LEAVE SystemEventBatcher")
+class SystemEventBatcherTest {
+
+    private record Sent(String user, List<ChatMessage> events) {
+    }
+
+    private final TaskScheduler scheduler = mock(TaskScheduler.class);
+
+    private final List<Sent> sent = new ArrayList<>();
+
+    private ChatProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatProperties();
+        properties.getSystemEvents().setBatchWindow(Duration.ofMillis(100));
+        properties.getSystemEvents().setMaxBatchSize(3);
+    }
+
+    private SystemEventBatcher batcher() {
+        SystemEventBatcher batcher = new SystemEventBatcher(properties, scheduler, new SimpleMeterRegistry());
+        batcher.setFlushHandler((user, events) -> sent.add(new Sent(user, List.copyOf(events))));
+        return batcher;
+    }
+
+    private static ChatMessage join(String sender) {
+        return new ChatMessage(ChatMessage.MessageType.JOIN, sender, ChatMessage.SenderRole.CLIENT, sender + " a rejoint le chat");
+    }
+
+    @Test
+    @DisplayName("Devrait envoyer les événements de chaque session en une trame à la fin de la fenêtre")
+    void shouldFlushOneBatchPerRecipient() {
+        // Given
+        SystemEventBatcher batcher = batcher();
+        batcher.offer("agent-1", join("Jean"));
+        batcher.offer("agent-2", join("Marie"));
+        batcher.offer("agent-1", join("Luc"));
+        assertThat(sent).isEmpty();
+
+        // When
+        batcher.flush();
+
+        // Then
+        assertThat(sent).hasSize(2);
+        assertThat(sent).filteredOn(batch -> batch.user().equals("agent-1")).singleElement()
+                .satisfies(batch -> assertThat(batch.events()).extracting(ChatMessage::getSender).containsExactly("Jean", "Luc"));
+        assertThat(batcher.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Une trame pleine devrait partir sans attendre la fin de la fenêtre")
+    void shouldSendFullBatchImmediately() {
+        // Given
+        SystemEventBatcher batcher = batcher();
+
+        // When
+        for (String sender : List.of("A", "B", "C", "D")) {
+            batcher.offer("agent-1", join(sender));
+        }
+
+        // Then
+        assertThat(sent).singleElement()
+                .satisfies(batch -> assertThat(batch.events()).extracting(ChatMessage::getSender).containsExactly("A", "B", "C"));
+        assertThat(batcher.getPendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait vider la file à chaque fenêtre une fois démarré, et à l'arrêt")
+    void shouldFlushAtWindowAndOnStop() {
+        // Given
+        SystemEventBatcher batcher = batcher();
+
+        // When
+        batcher.start();
+        batcher.offer("agent-1", join("Jean"));
+        batcher.stop();
+
+        // Then
+        verify(scheduler).scheduleAtFixedRate(any(Runnable.class), eq(Duration.ofMillis(100)));
+        assertThat(sent).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Une fenêtre nulle devrait désactiver le regroupement")
+    void shouldBeDisabledWithZeroWindow() {
+        // Given
+        properties.getSystemEvents().setBatchWindow(Duration.ZERO);
+        SystemEventBatcher batcher = batcher();
+
+        // When
+        batcher.start();
+
+        // Then
+        assertThat(batcher.isEnabled()).isFalse();
+        verify(scheduler, never()).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Un message CHAT ne devrait pas doubler la trame que le planificateur est en train d'envoyer")
+    void shouldNotOvertakeBatchBeingSent() throws Exception {
+        // Given - l'envoi de fin de fenêtre pour agent-1 est en cours
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch releaseSend = new CountDownLatch(1);
+        List<String> frames = new CopyOnWriteArrayList<>();
+        SystemEventBatcher batcher = new SystemEventBatcher(properties, scheduler, new SimpleMeterRegistry());
+        batcher.setFlushHandler((user, events) -> {
+            sending.countDown();
+            try {
+                releaseSend.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            frames.add("JOIN");
+        });
+        batcher.offer("agent-1", join("Jean"));
+        Thread windowFlush = new Thread(batcher::flush);
+        windowFlush.start();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When - un message CHAT pour agent-1, envoyé comme par ConversationService.sendToUsers
+        Thread chat = new Thread(() -> {
+            batcher.flush("agent-1");
+            frames.add("CHAT");
+        });
+        chat.start();
+        chat.join(200);
+        releaseSend.countDown();
+        windowFlush.join(5_000);
+        chat.join(5_000);
+
+        // Then
+        assertThat(frames).containsExactly("JOIN", "CHAT");
+        assertThat(batcher.getPendingCount()).isZero();
+    }
+}
@@ -23,7 +23,10 @@ describe('ChatComponent', () => {
     mockChatService = {
       sendMessage: jest.fn(),
       disconnect: jest.fn(),
-      messages$: messagesSubject.asObservable()
+      loadOlder: jest.fn(),
+      messages$: messagesSubject.asObservable(),
+      hasOlder$: new BehaviorSubject<boolean>(false).asObservable(),
+      presence$: new BehaviorSubject({ agents: [] as string[], clientsOnline: 0 }).asObservable()
     };
 
     // Configurer le module de test
@@ -458,4 +461,16 @@ describe('ChatComponent', () => {
     // Vérifier que le timestamp est préservé
     expect(component.messages[0].timestamp).toEqual(timestamp);
   });
+
+  /**
+   * Test du chargement de l'historique plus ancien
+   * Vérifie que le composant délègue au service
+   */
+  it('devrait charger les messages précédents via le service', () => {
+    // Charger l'historique
+    component.loadOlder();
+
+    // Vérifier que le service a été appelé
+    expect(mockChatService.loadOlder).toHaveBeenCalled();
+  });
 });
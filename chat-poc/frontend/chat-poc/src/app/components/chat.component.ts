@@ -19,6 +19,9 @@ import { Subscription } from 'rxjs';
       <div class="user-info">
         <span>{{ currentUser }} ({{ currentRole }})</span>
       </div>
+      <div class="user-info" [title]="onlineAgents.join(', ')">
+        <span>{{ onlineAgents.length }} agent(s) en ligne</span>
+      </div>
       <button (click)="disconnect()" class="btn-disconnect">
         Déconnexion
       </button>
@@ -27,6 +30,11 @@ import { Subscription } from 'rxjs';
 
   <!-- Zone des messages -->
   <div class="messages-container">
+    <!-- Chargement de l'historique plus ancien -->
+    <button *ngIf="hasOlder" (click)="loadOlder()" class="btn-load-older">
+      Messages précédents
+    </button>
+
     <div
       *ngFor="let message of messages"
       class="message"
@@ -80,6 +88,12 @@ export class ChatComponent implements OnInit, OnDestroy {
   // Messages du chat
   messages: ChatMessage[] = [];
 
+  // Reste-t-il des messages plus anciens à charger
+  hasOlder = false;
+
+  // Agents SUPPORT en ligne
+  onlineAgents: string[] = [];
+
   // Formulaire de message
   messageContent = '';
 
@@ -107,6 +121,18 @@ export class ChatComponent implements OnInit, OnDestroy {
         this.scrollToBottom();
       })
     );
+
+    this.subscriptions.push(
+      this.chatService.hasOlder$.subscribe(hasOlder => {
+        this.hasOlder = hasOlder;
+      })
+    );
+
+    this.subscriptions.push(
+      this.chatService.presence$.subscribe(presence => {
+        this.onlineAgents = presence.agents;
+      })
+    );
   }
 
   ngOnDestroy(): void {
@@ -131,6 +157,13 @@ export class ChatComponent implements OnInit, OnDestroy {
     this.messageContent = '';
   }
 
+  /**
+   * Charger les messages précédents de la conversation
+   */
+  loadOlder(): void {
+    this.chatService.loadOlder();
+  }
+
   /**
    * Gérer la touche Entrée
    */
@@ -143,7 +143,7 @@ describe('ConnectionComponent', () => {
     expect(component.isConnecting).toBe(true);
 
     // Vérifier que le service a été appelé avec les bons paramètres
-    expect(mockChatService.connect).toHaveBeenCalledWith('TestUser', SenderRole.CLIENT);
+    expect(mockChatService.connect).toHaveBeenCalledWith('TestUser', SenderRole.CLIENT, undefined);
 
     // Attendre la résolution de la promesse
     await mockChatService.connect('TestUser', SenderRole.CLIENT);
@@ -166,12 +166,13 @@ describe('ConnectionComponent', () => {
     // Définir les informations d'un utilisateur support
     component.username = 'SupportAgent';
     component.selectedRole = SenderRole.SUPPORT;
+    component.supportToken = ' jeton-agent ';
 
     // Appeler la méthode connect
     component.connect();
 
-    // Vérifier que le service a été appelé avec le rôle SUPPORT
-    expect(mockChatService.connect).toHaveBeenCalledWith('SupportAgent', SenderRole.SUPPORT);
+    // Vérifier que le service a été appelé avec le rôle SUPPORT et le jeton agent
+    expect(mockChatService.connect).toHaveBeenCalledWith('SupportAgent', SenderRole.SUPPORT, 'jeton-agent');
   });
 
   /**
@@ -295,7 +296,7 @@ describe('ConnectionComponent', () => {
 
     // Vérifier que le nom a été nettoyé
     expect(component.currentUser).toBe('TestUser');
-    expect(mockChatService.connect).toHaveBeenCalledWith('TestUser', SenderRole.CLIENT);
+    expect(mockChatService.connect).toHaveBeenCalledWith('TestUser', SenderRole.CLIENT, undefined);
   });
 
   /**
@@ -40,6 +40,16 @@ import { SenderRole } from '../models/chat-message.model';
       </select>
     </div>
 
+    <div class="form-group" *ngIf="selectedRole === SenderRole.SUPPORT">
+      <label for="supportToken">Jeton agent :</label>
+      <input
+        type="password"
+        id="supportToken"
+        [(ngModel)]="supportToken"
+        placeholder="Jeton fourni par l'administrateur..."
+        [disabled]="isConnecting">
+    </div>
+
     <button
       (click)="connect()"
       [disabled]="isConnecting || !username.trim()"
@@ -68,6 +78,7 @@ export class ConnectionComponent {
   // Formulaire de connexion
   username = '';
   selectedRole: SenderRole = SenderRole.CLIENT;
+  supportToken = '';
 
   // Utilisateur actuel
   currentUser = '';
@@ -105,7 +116,9 @@ export class ConnectionComponent {
     this.currentUser = this.username.trim();
     this.currentRole = this.selectedRole;
 
-    this.chatService.connect(this.currentUser, this.currentRole)
+    // Le rôle SUPPORT n'est accordé par le serveur qu'avec le jeton agent
+    const supportToken = this.currentRole === SenderRole.SUPPORT ? this.supportToken.trim() : undefined;
+    this.chatService.connect(this.currentUser, this.currentRole, supportToken)
       .then(() => {
         console.log('Connexion réussie');
         this.connectionEstablished.emit({
@@ -4,7 +4,9 @@
 export enum MessageType {
   JOIN = 'JOIN',
   LEAVE = 'LEAVE',
-  CHAT = 'CHAT'
+  CHAT = 'CHAT',
+  // Envoyé par le serveur avant son arrêt : se reconnecter après le délai de l'en-tête reconnect-delay
+  RECONNECT = 'RECONNECT'
 }
 
 /**
@@ -20,9 +22,33 @@ export enum SenderRole {
  */
 export interface ChatMessage {
   id?: string;
+  conversationId?: string;
   type: MessageType;
   sender: string;
   senderRole: SenderRole;
   content: string;
   timestamp?: Date;
-}
\ No newline at end of file
+}
+
+/**
+ * Page de l'historique d'une conversation
+ * (rejouée à la reconnexion ou chargée via "messages précédents")
+ */
+export interface HistoryPage {
+  conversationId: string;
+  messages: ChatMessage[];
+  nextCursor: string | null;
+}
+
+/**
+ * Présence des agents et des clients
+ * (instantané sur /app/presence, puis deltas regroupés sur /topic/presence)
+ */
+export interface PresenceUpdate {
+  sequence: number;
+  snapshot: boolean;
+  agentsOnline: number;
+  clientsOnline: number;
+  agentsJoined: string[];
+  agentsLeft: string[];
+}
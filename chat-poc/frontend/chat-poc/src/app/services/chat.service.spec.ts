@@ -76,6 +76,17 @@ describe('ChatService', () => {
     expect(socketUrl).toContain('/ws');
   });
 
+  /**
+   * Test de l'URL du WebSocket natif
+   * Vérifie que la connexion tente d'abord le WebSocket natif, SockJS restant le repli
+   */
+  it('devrait tenter d\'abord le WebSocket natif', () => {
+    const nativeUrl = (service as any).NATIVE_SOCKET_URL;
+
+    expect(nativeUrl).toMatch(/^ws:\/\/localhost:8080/);
+    expect(nativeUrl).toContain('/ws-native');
+  });
+
   /**
    * Test de déconnexion sans connexion préalable
    * Vérifie que la déconnexion ne cause pas d'erreur si non connecté
@@ -155,4 +166,57 @@ describe('ChatService', () => {
     // Vérifier que le client est null
     expect(stompClient).toBeNull();
   });
+
+  /**
+   * Test de la demande de reconnexion du serveur
+   * Vérifie que la trame RECONNECT n'est pas affichée et programme une reconnexion après son délai
+   */
+  it('devrait se reconnecter après le délai de la trame RECONNECT sans l\'afficher', () => {
+    jest.useFakeTimers();
+    const connect = jest.spyOn(service, 'connect').mockResolvedValue();
+    (service as any).session = { username: 'TestUser', role: SenderRole.CLIENT };
+
+    (service as any).onMessageReceived({
+      headers: { 'reconnect-delay': '1500' },
+      body: JSON.stringify({ type: MessageType.RECONNECT, content: 'Redémarrage du serveur' })
+    });
+
+    expect((service as any).messages.length).toBe(0);
+    jest.advanceTimersByTime(1499);
+    expect(connect).not.toHaveBeenCalled();
+    jest.advanceTimersByTime(1);
+    expect(connect).toHaveBeenCalledWith('TestUser', SenderRole.CLIENT, undefined);
+    jest.useRealTimers();
+  });
+
+  /**
+   * Test de l'attente entre deux tentatives de reconnexion
+   * Vérifie qu'elle double à chaque échec, reste plafonnée et garde une part aléatoire
+   */
+  it('devrait espacer les tentatives de reconnexion de façon exponentielle et plafonnée', () => {
+    const backoff = (attempt: number) => (service as any).backoffDelay(attempt);
+
+    expect(backoff(1)).toBeGreaterThanOrEqual(1000);
+    expect(backoff(1)).toBeLessThanOrEqual(2000);
+    expect(backoff(3)).toBeGreaterThanOrEqual(4000);
+    expect(backoff(3)).toBeLessThanOrEqual(8000);
+    expect(backoff(20)).toBeLessThanOrEqual(30000);
+  });
+
+  /**
+   * Test de la déconnexion volontaire
+   * Vérifie qu'elle annule une reconnexion programmée
+   */
+  it('ne devrait pas se reconnecter après une déconnexion volontaire', () => {
+    jest.useFakeTimers();
+    const connect = jest.spyOn(service, 'connect').mockResolvedValue();
+    (service as any).session = { username: 'TestUser', role: SenderRole.CLIENT };
+    (service as any).scheduleReconnect(1000);
+
+    service.disconnect('TestUser', SenderRole.CLIENT);
+    jest.advanceTimersByTime(1000);
+
+    expect(connect).not.toHaveBeenCalled();
+    jest.useRealTimers();
+  });
 });
@@ -3,7 +3,9 @@ import { BehaviorSubject, Observable } from "rxjs";
 import { CompatClient, Stomp, IMessage } from "@stomp/stompjs";
 import {
     ChatMessage,
+    HistoryPage,
     MessageType,
+    PresenceUpdate,
     SenderRole,
 } from "../models/chat-message.model";
 import SockJS from "sockjs-client";
@@ -25,6 +27,21 @@ export class ChatService {
 
 
 
+    // Observable indiquant s'il reste des messages plus anciens à charger
+    private readonly hasOlderSubject = new BehaviorSubject<boolean>(false);
+    public hasOlder$: Observable<boolean> = this.hasOlderSubject.asObservable();
+
+    // Observable de la présence : nombre de clients et agents en ligne
+    private readonly presenceSubject = new BehaviorSubject<{ agents: string[]; clientsOnline: number }>({
+        agents: [],
+        clientsOnline: 0,
+    });
+    public presence$ = this.presenceSubject.asObservable();
+
+    // Agents en ligne et numéro de la dernière mise à jour appliquée
+    private readonly onlineAgents = new Set<string>();
+    private presenceSequence = -1;
+
     // Observable pour le statut de connexion
     private readonly connectedSubject = new BehaviorSubject<boolean>(false);
     public connected$: Observable<boolean> = this.connectedSubject.asObservable();
@@ -32,9 +49,33 @@ export class ChatService {
     // Stockage local des messages
     private readonly messages: ChatMessage[] = [];
 
-    // URL du backend
+    // Conversation courante (utilisée par les agents pour adresser leurs réponses)
+    private conversationId: string | null = null;
+
+    // Curseur de la page d'historique précédente (null quand tout est chargé)
+    private olderCursor: string | null = null;
+
+    // Clé de stockage de la conversation du client, pour la reprendre à la reconnexion
+    private readonly CONVERSATION_STORAGE_KEY = "ycyw.chat.conversationId";
+
+    // URL du backend : WebSocket natif, SockJS en repli
+    private readonly NATIVE_SOCKET_URL = "ws://localhost:8080/ws-native";
     private readonly SOCKET_URL = "http://localhost:8080/ws";
 
+    // Utilisateur de la session courante, pour se reconnecter à sa place
+    private session: { username: string; role: SenderRole; supportToken?: string } | null = null;
+
+    // Reconnexion programmée (demande RECONNECT du serveur ou fermeture SERVICE_RESTARTED)
+    private reconnectTimer: ReturnType<typeof setTimeout> | null = null;
+    private reconnectAttempts = 0;
+
+    // Attente entre deux tentatives : doublée à chaque échec, jusqu'au plafond, plus une part aléatoire
+    private readonly RECONNECT_BASE_DELAY = 1000;
+    private readonly RECONNECT_MAX_DELAY = 30000;
+
+    // Code de fermeture des sessions restantes à l'arrêt du serveur
+    private readonly SERVICE_RESTARTED = 1012;
+
 
     constructor() { }
 
@@ -42,20 +83,37 @@ export class ChatService {
      * Se connecter au serveur WebSocket
      * @param username Nom d'utilisateur
      * @param role Rôle (CLIENT ou SUPPORT)
+     * @param supportToken Jeton des agents : le serveur n'accorde le rôle SUPPORT qu'à la session qui le présente
      */
 
-    connect(username: string, role: SenderRole): Promise<void> {
-        return new Promise((resolve, reject) => {
-            // Créer la connexion SockJS
-            const socket = new SockJS(this.SOCKET_URL);
+    connect(username: string, role: SenderRole, supportToken?: string): Promise<void> {
+        this.session = { username, role, supportToken };
+        // Un navigateur ne peut pas poser d'en-tête sur une connexion WebSocket : le jeton passe dans l'URL
+        const query = supportToken ? `?access_token=${encodeURIComponent(supportToken)}` : "";
+        // WebSocket natif d'abord ; SockJS seulement s'il ne passe pas (proxy, réseau restrictif)
+        return this.connectWith(() => new WebSocket(this.NATIVE_SOCKET_URL + query), username, role).catch((error) => {
+            console.warn("⚠️ WebSocket natif indisponible, repli sur SockJS:", error);
+            return this.connectWith(() => new SockJS(this.SOCKET_URL + query), username, role);
+        });
+    }
 
+    /**
+     * Établir la session STOMP sur un transport
+     * @param socketFactory Création de la connexion (WebSocket natif ou SockJS)
+     */
+    private connectWith(socketFactory: () => any, username: string, role: SenderRole): Promise<void> {
+        return new Promise((resolve, reject) => {
             // Créer le client STOMP
-            this.stompClient = Stomp.over(socket);
-
+            const client = Stomp.over(socketFactory);
+            this.stompClient = client;
 
             // Désactiver les logs de debug (optionnel)
             this.stompClient.debug = () => { };
 
+            // Heartbeats alignés sur chat.heartbeat.* : sans trame reçue, le serveur ferme la session
+            this.stompClient.heartbeatOutgoing = 10000;
+            this.stompClient.heartbeatIncoming = 10000;
+
             // Se connecter
             interface StompFrame {
                 headers: Record<string, string>;
@@ -73,11 +131,31 @@ export class ChatService {
                     console.log("✅ Connecté au serveur WebSocket");
                     this.connectedSubject.next(true);
 
-                    // S'abonner au topic public pour recevoir les messages
-                    this.stompClient!.subscribe("/topic/public", (message: IMessage) => {
+                    // S'abonner à la file privée de la session pour recevoir les messages de la conversation
+                    this.stompClient!.subscribe("/user/queue/messages", (message: IMessage) => {
                         this.onMessageReceived(message);
                     });
 
+                    // Historique rejoué par le serveur quand la conversation est reprise
+                    this.stompClient!.subscribe("/user/queue/history", (message: IMessage) => {
+                        this.onHistoryReceived(JSON.parse(message.body));
+                    });
+
+                    // Erreurs signalées par le serveur sans fermer la connexion (ex. débit dépassé)
+                    this.stompClient!.subscribe("/user/queue/errors", (message: IMessage) => {
+                        const error = JSON.parse(message.body) as { code: string; message: string };
+                        console.warn(`⚠️ ${error.code} : ${error.message}`);
+                    });
+
+                    // Présence : les deltas d'abord, puis l'instantané (les deltas plus anciens sont ignorés)
+                    this.stompClient!.subscribe("/topic/presence", (message: IMessage) => {
+                        this.onPresenceReceived(JSON.parse(message.body));
+                    });
+                    const presenceSnapshot = this.stompClient!.subscribe("/app/presence", (message: IMessage) => {
+                        presenceSnapshot.unsubscribe();
+                        this.onPresenceReceived(JSON.parse(message.body));
+                    });
+
                     // Envoyer le message JOIN pour annoncer l'arrivée
                     this.sendJoinMessage(username, role);
 
@@ -87,6 +165,20 @@ export class ChatService {
                     console.error("❌ Erreur de connexion WebSocket:", error);
                     this.connectedSubject.next(false);
                     reject(error);
+                },
+                (closeEvent: CloseEvent) => {
+                    // Connexion refusée ou coupée avant CONNECTED : sans effet une fois connecté
+                    reject(closeEvent);
+                    // Fermeture d'une session déjà remplacée (reconnexion) : sans effet sur la session courante
+                    if (this.stompClient !== client) {
+                        return;
+                    }
+                    this.connectedSubject.next(false);
+
+                    // Serveur arrêté avant que la demande RECONNECT ait été suivie : même reprise, étalée
+                    if (closeEvent?.code === this.SERVICE_RESTARTED && this.session && !this.reconnectTimer) {
+                        this.scheduleReconnect(Math.random() * this.RECONNECT_BASE_DELAY * 5);
+                    }
                 }
             );
         });
@@ -96,10 +188,18 @@ export class ChatService {
      * Se déconnecter du serveur
      */
     disconnect(username: string, role: SenderRole): void {
+        // Départ volontaire : plus de reconnexion automatique
+        this.cancelReconnect();
+        this.reconnectAttempts = 0;
+        this.session = null;
+
         if (this.stompClient && this.stompClient.connected) {
             // Envoyer le message LEAVE avant de se déconnecter
             this.sendLeaveMessage(username, role);
 
+            // Départ volontaire : la prochaine connexion ouvre une nouvelle conversation
+            this.forgetConversation();
+
             // Attendre un peu pour que le message soit envoyé avant de se déconnecter
             setTimeout(() => {
                 this.stompClient!.disconnect(() => {
@@ -112,6 +212,56 @@ export class ChatService {
         }
     }
 
+    /**
+     * Se reconnecter après un délai, sans LEAVE : la conversation est reprise à la reconnexion
+     * (historique rejoué, voir sendJoinMessage)
+     *
+     * En cas d'échec (nœud encore indisponible), nouvelle tentative après une attente
+     * doublée à chaque fois, plafonnée, avec une part aléatoire : les clients ne reviennent pas ensemble
+     * @param delay Délai avant la première tentative, en millisecondes
+     */
+    private scheduleReconnect(delay: number): void {
+        this.cancelReconnect();
+        this.reconnectTimer = setTimeout(() => {
+            this.reconnectTimer = null;
+            const session = this.session;
+            if (!session) {
+                return;
+            }
+
+            // Ferme la session courante sans LEAVE, en gardant la conversation mémorisée
+            const previous = this.stompClient;
+            this.stompClient = null;
+            previous?.disconnect(() => { });
+
+            this.connect(session.username, session.role, session.supportToken).then(
+                () => {
+                    this.reconnectAttempts = 0;
+                },
+                (error) => {
+                    console.warn("⚠️ Reconnexion impossible, nouvelle tentative:", error);
+                    this.reconnectAttempts++;
+                    this.scheduleReconnect(this.backoffDelay(this.reconnectAttempts));
+                }
+            );
+        }, delay);
+    }
+
+    /**
+     * Attente avant la tentative suivante : exponentielle plafonnée, tirée au hasard dans sa seconde moitié
+     */
+    private backoffDelay(attempt: number): number {
+        const ceiling = Math.min(this.RECONNECT_MAX_DELAY, this.RECONNECT_BASE_DELAY * 2 ** attempt);
+        return ceiling / 2 + Math.random() * (ceiling / 2);
+    }
+
+    private cancelReconnect(): void {
+        if (this.reconnectTimer) {
+            clearTimeout(this.reconnectTimer);
+            this.reconnectTimer = null;
+        }
+    }
+
     /**
      * Envoyer un message JOIN au serveur
      */
@@ -121,6 +271,8 @@ export class ChatService {
             sender: username,
             senderRole: role,
             content: `${username} a rejoint le chat en tant que ${role}`,
+            // Un client qui se reconnecte reprend sa conversation précédente
+            conversationId: role === SenderRole.CLIENT ? this.storedConversationId() : undefined,
         };
 
         this.stompClient!.send(
@@ -159,6 +311,7 @@ export class ChatService {
                 senderRole: role,
                 content: content,
                 timestamp: new Date(),
+                conversationId: this.conversationId ?? undefined,
             };
 
             this.stompClient.send(
@@ -169,11 +322,109 @@ export class ChatService {
         }
     }
 
+    /**
+     * Charger la page de messages précédant les messages affichés
+     * La page est renvoyée par le serveur sur l'abonnement lui-même
+     */
+    loadOlder(limit = 50): void {
+        if (!this.stompClient || !this.stompClient.connected || !this.olderCursor) {
+            return;
+        }
+
+        const headers: Record<string, string> = {
+            before: this.olderCursor,
+            limit: String(limit),
+        };
+        if (this.conversationId) {
+            headers["conversationId"] = this.conversationId;
+        }
+
+        const subscription = this.stompClient.subscribe(
+            "/app/conversation.history",
+            (message: IMessage) => {
+                subscription.unsubscribe();
+                this.onHistoryReceived(JSON.parse(message.body));
+            },
+            headers
+        );
+    }
+
+    /**
+     * Ajoute une page d'historique aux messages affichés (sans doublon)
+     */
+    private onHistoryReceived(page: HistoryPage): void {
+        const known = new Set(this.messages.map((m) => m.id));
+        const older = page.messages
+            .filter((m) => !m.id || !known.has(m.id))
+            .map((m) => ({ ...m, timestamp: m.timestamp ? new Date(m.timestamp) : undefined }));
+
+        this.messages.push(...older);
+        this.messages.sort((a, b) => (a.timestamp?.getTime() ?? 0) - (b.timestamp?.getTime() ?? 0));
+
+        this.olderCursor = page.nextCursor;
+        this.hasOlderSubject.next(page.nextCursor !== null);
+        this.messagesSubject.next([...this.messages]);
+    }
+
+    /**
+     * Applique un instantané ou un delta de présence
+     * Un delta déjà couvert par l'instantané est ignoré
+     */
+    private onPresenceReceived(update: PresenceUpdate): void {
+        if (update.snapshot) {
+            this.onlineAgents.clear();
+        } else if (update.sequence <= this.presenceSequence) {
+            return;
+        }
+        this.presenceSequence = Math.max(this.presenceSequence, update.sequence);
+
+        update.agentsJoined.forEach((agent) => this.onlineAgents.add(agent));
+        update.agentsLeft.forEach((agent) => this.onlineAgents.delete(agent));
+        this.presenceSubject.next({ agents: [...this.onlineAgents], clientsOnline: update.clientsOnline });
+    }
+
+    /**
+     * Conversation à reprendre, mémorisée pour la durée de l'onglet
+     */
+    private storedConversationId(): string | undefined {
+        if (typeof sessionStorage === "undefined") {
+            return undefined;
+        }
+        return sessionStorage.getItem(this.CONVERSATION_STORAGE_KEY) ?? undefined;
+    }
+
+    private forgetConversation(): void {
+        this.conversationId = null;
+        this.olderCursor = null;
+        this.hasOlderSubject.next(false);
+        if (typeof sessionStorage !== "undefined") {
+            sessionStorage.removeItem(this.CONVERSATION_STORAGE_KEY);
+        }
+    }
+
     /**
      * Callback appelé quand un message est reçu
      */
     private onMessageReceived(message: IMessage): void {
+        // Trame regroupée (en-tête chat-batch) : plusieurs JOIN/LEAVE dans un tableau
+        if (message.headers["chat-batch"]) {
+            (JSON.parse(message.body) as ChatMessage[]).forEach((chatMessage) => this.addMessage(chatMessage));
+            return;
+        }
+
         const chatMessage: ChatMessage = JSON.parse(message.body);
+        // Arrêt du serveur : reconnexion après le délai propre à cette session, sans l'afficher
+        if (chatMessage.type === MessageType.RECONNECT) {
+            this.scheduleReconnect(Number(message.headers["reconnect-delay"] ?? 0));
+            return;
+        }
+        this.addMessage(chatMessage);
+    }
+
+    /**
+     * Ajoute un message reçu à la conversation affichée
+     */
+    private addMessage(chatMessage: ChatMessage): void {
 
         // Ajouter le timestamp si absent
         if (!chatMessage.timestamp) {
@@ -182,7 +433,18 @@ export class ChatService {
             chatMessage.timestamp = new Date(chatMessage.timestamp);
         }
 
-        // Ajouter le message à la liste
+        // Mémoriser la conversation du dernier message reçu
+        if (chatMessage.conversationId) {
+            this.conversationId = chatMessage.conversationId;
+            if (typeof sessionStorage !== "undefined") {
+                sessionStorage.setItem(this.CONVERSATION_STORAGE_KEY, chatMessage.conversationId);
+            }
+        }
+
+        // Ajouter le message à la liste (un message déjà rejoué n'est pas dupliqué)
+        if (chatMessage.id && this.messages.some((m) => m.id === chatMessage.id)) {
+            return;
+        }
         this.messages.push(chatMessage);
         this.messagesSubject.next([...this.messages]);
     }
@@ -47,6 +47,7 @@ CREATE INDEX idx_reservation_status_start ON reservation(status, start_at);
 CREATE INDEX idx_reservation_pickup_location ON reservation(pickup_location_id);
 CREATE INDEX idx_reservation_return_location ON reservation(return_location_id);
 CREATE INDEX idx_reservation_dates ON reservation(start_at, end_at);
+CREATE INDEX idx_reservation_pickup_acriss_dates ON reservation(pickup_location_id, acriss_code, start_at, end_at);
 
 -- ============================================
 -- INDEX: reservation_option
@@ -64,4 +65,14 @@ CREATE INDEX idx_payment_psp_intent_id ON payment(psp_intent_id);
 -- INDEX: document
 -- ============================================
 CREATE INDEX idx_document_reservation_id ON document(reservation_id);
-CREATE INDEX idx_document_reservation_type ON document(reservation_id, document_type);
\ No newline at end of file
+CREATE INDEX idx_document_reservation_type ON document(reservation_id, document_type);
+
+-- ============================================
+-- INDEX: conversation
+-- ============================================
+CREATE INDEX idx_conversation_client_name ON conversation(client_name, created_at);
+
+-- ============================================
+-- INDEX: chat_message
+-- ============================================
+CREATE INDEX idx_chat_message_conversation_sent ON chat_message(conversation_id, sent_at, id);
\ No newline at end of file
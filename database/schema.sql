@@ -4,6 +4,8 @@
 -- ============================================
 
 -- Suppression des tables si elles existent (ordre inverse des dépendances)
+DROP TABLE IF EXISTS chat_message;
+DROP TABLE IF EXISTS conversation;
 DROP TABLE IF EXISTS document;
 DROP TABLE IF EXISTS payment;
 DROP TABLE IF EXISTS reservation_option;
@@ -142,11 +144,16 @@ CREATE TABLE reservation (
     return_location_id VARCHAR(36) NOT NULL,
     reservation_number VARCHAR(20) NOT NULL UNIQUE,
     status ENUM('PENDING', 'CONFIRMED', 'MODIFIED', 'CANCELLED', 'COMPLETED') NOT NULL,
+    acriss_code VARCHAR(4) NOT NULL,
     start_at DATETIME NOT NULL,
     end_at DATETIME NOT NULL,
     total_price DECIMAL(10,2) NOT NULL,
     currency VARCHAR(3) NOT NULL,
     offer_snapshot_json JSON NOT NULL,
+    -- Projection de offer_snapshot_json pour les listes (NULL : à projeter depuis le JSON)
+    offer_vehicle_name VARCHAR(101) NULL,
+    offer_days INT NULL,
+    offer_option_count INT NULL,
     idempotency_key VARCHAR(255) NOT NULL UNIQUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -200,4 +207,30 @@ CREATE TABLE document (
     generated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_document_reservation FOREIGN KEY (reservation_id) 
         REFERENCES reservation(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- TABLE: conversation
+-- ============================================
+CREATE TABLE conversation (
+    id VARCHAR(36) PRIMARY KEY,
+    client_name VARCHAR(100) NOT NULL,
+    agent_name VARCHAR(100),
+    created_at DATETIME(6) NOT NULL,
+    closed_at DATETIME(6) NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- TABLE: chat_message
+-- ============================================
+CREATE TABLE chat_message (
+    id VARCHAR(36) PRIMARY KEY,
+    conversation_id VARCHAR(36) NOT NULL,
+    type ENUM('JOIN', 'LEAVE', 'CHAT') NOT NULL,
+    sender VARCHAR(100) NOT NULL,
+    sender_role ENUM('CLIENT', 'SUPPORT') NOT NULL,
+    content TEXT,
+    sent_at DATETIME(6) NOT NULL,
+    CONSTRAINT fk_chat_message_conversation FOREIGN KEY (conversation_id)
+        REFERENCES conversation(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
\ No newline at end of file
@@ -90,18 +90,20 @@ INSERT INTO rate_plan (id, acriss_code, daily_rate, weekly_rate, currency, valid
 -- ============================================
 -- RESERVATIONS (Sample bookings)
 -- ============================================
-INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id, reservation_number, status, start_at, end_at, total_price, currency, offer_snapshot_json, idempotency_key) VALUES
+INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id, reservation_number, status, acriss_code, start_at, end_at, total_price, currency, offer_snapshot_json, offer_vehicle_name, offer_days, offer_option_count, idempotency_key) VALUES
 ('cc0e8400-e29b-41d4-a716-446655440001', 
  '550e8400-e29b-41d4-a716-446655440001', 
  '990e8400-e29b-41d4-a716-446655440001', 
  '990e8400-e29b-41d4-a716-446655440001', 
  'YCYW-00001', 
  'CONFIRMED', 
+ 'ECMR', 
  '2025-11-01 10:00:00', 
  '2025-11-05 10:00:00', 
  140.00, 
  'USD', 
  '{"vehicle":{"brand":"Toyota","model":"Corolla","acrissCode":"ECMR"},"dailyRate":35.00,"days":4,"basePrice":140.00,"options":[],"totalPrice":140.00}',
+ 'Toyota Corolla', 4, 0,
  'idem-key-001'),
 ('cc0e8400-e29b-41d4-a716-446655440002', 
  '550e8400-e29b-41d4-a716-446655440002', 
@@ -109,11 +111,13 @@ INSERT INTO reservation (id, user_id, pickup_location_id, return_location_id, re
  '990e8400-e29b-41d4-a716-446655440003', 
  'YCYW-00002', 
  'CONFIRMED', 
+ 'ECMR', 
  '2025-12-15 14:00:00', 
  '2025-12-22 14:00:00', 
  210.00, 
  'EUR', 
  '{"vehicle":{"brand":"Renault","model":"Clio","acrissCode":"ECMR"},"dailyRate":30.00,"days":7,"basePrice":210.00,"options":[],"totalPrice":210.00}',
+ 'Renault Clio', 7, 0,
  'idem-key-002');
 
 -- ============================================